@@ -0,0 +1,79 @@
+package com.hka.ps.api;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.hka.ps.api.dto.PaymentResponse;
+import com.hka.ps.domain.Money;
+import com.hka.ps.domain.Payment;
+import com.hka.ps.domain.PaymentStatus;
+
+/**
+ * Abbildung Entity → {@link PaymentResponse} und deren JSON-Serialisierung mit einem
+ * ObjectMapper, der wie der von Spring Boot konfiguriert ist, gegenüber dem direkten
+ * Schreiben der Entity durch den {@link PaymentJsonWriter}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ResponseMappingBenchmark {
+
+  private Payment payment;
+  private PaymentResponse response;
+  private ObjectMapper mapper;
+
+  @Setup
+  public void setUp() {
+    Instant now = Instant.parse("2024-10-06T14:32:11.123456Z");
+    payment = new Payment();
+    payment.setOrderId("ORD-20241006-143211-AB12CD34");
+    payment.setAmount(Money.of(new BigDecimal("149.99"), "EUR"));
+    payment.setMethod("CARD");
+    payment.setStatus(PaymentStatus.AUTHORIZED);
+    payment.setCreatedAt(now);
+    payment.setUpdatedAt(now);
+    response = PaymentController.toResponse(payment);
+    mapper = Jackson2ObjectMapperBuilder.json()
+        .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+        .build();
+  }
+
+  @Benchmark
+  public PaymentResponse toResponse() {
+    return PaymentController.toResponse(payment);
+  }
+
+  @Benchmark
+  public byte[] serialize() throws JsonProcessingException {
+    return mapper.writeValueAsBytes(response);
+  }
+
+  @Benchmark
+  public byte[] toResponseAndSerialize() throws JsonProcessingException {
+    return mapper.writeValueAsBytes(PaymentController.toResponse(payment));
+  }
+
+  @Benchmark
+  public byte[] paymentJsonWriter() {
+    return PaymentJsonWriter.toBytes(payment);
+  }
+}
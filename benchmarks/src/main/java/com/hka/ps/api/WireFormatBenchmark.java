@@ -0,0 +1,95 @@
+package com.hka.ps.api;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.hka.ps.api.dto.AuthorizeRequest;
+import com.hka.ps.api.dto.CaptureRequest;
+import com.hka.ps.domain.Money;
+import com.hka.ps.domain.Payment;
+import com.hka.ps.domain.PaymentStatus;
+
+/**
+ * Serverseitiger Aufwand je Request für {@code json} und {@code cbor}: Request-DTO lesen, Antwort schreiben, beides
+ * zusammen. Antworten schreiben wie im Dienst der {@link PaymentJsonWriter} bzw. der {@link PaymentCborWriter}. Die
+ * Größen auf der Leitung gibt das Setup einmal je Format aus.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WireFormatBenchmark {
+
+  @Param({"json", "cbor"})
+  private String format;
+
+  private ObjectMapper mapper;
+  private boolean cbor;
+  private Payment payment;
+  private byte[] authorizeRequest;
+  private byte[] captureRequest;
+
+  @Setup
+  public void setUp() throws IOException {
+    cbor = "cbor".equals(format);
+    mapper = cbor
+        ? PaymentCborHttpMessageConverter.objectMapper(Jackson2ObjectMapperBuilder.json())
+        : Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+    Instant now = Instant.parse("2024-10-06T14:32:11.451123456Z");
+    payment = new Payment();
+    payment.setOrderId("ORD-20241006-143211-AB12CD34");
+    payment.setAmount(Money.of(new BigDecimal("149.99"), "EUR"));
+    payment.setMethod("CARD");
+    payment.setStatus(PaymentStatus.AUTHORIZED);
+    payment.setCreatedAt(now);
+    payment.setUpdatedAt(now);
+    authorizeRequest = mapper.writeValueAsBytes(
+        new AuthorizeRequest(payment.getOrderId(), new BigDecimal("149.99"), "EUR", "CARD"));
+    captureRequest = mapper.writeValueAsBytes(new CaptureRequest(payment.getOrderId(), new BigDecimal("149.99")));
+    System.out.printf("%n[%s] authorize request %d B, capture request %d B, response %d B%n", format,
+        authorizeRequest.length, captureRequest.length, writeResponse().length);
+  }
+
+  @Benchmark
+  public AuthorizeRequest readAuthorize() throws IOException {
+    return mapper.readValue(authorizeRequest, AuthorizeRequest.class);
+  }
+
+  @Benchmark
+  public CaptureRequest readCapture() throws IOException {
+    return mapper.readValue(captureRequest, CaptureRequest.class);
+  }
+
+  @Benchmark
+  public byte[] writeResponse() throws IOException {
+    return cbor ? PaymentCborWriter.toBytes(payment, (CBORFactory) mapper.getFactory())
+        : PaymentJsonWriter.toBytes(payment);
+  }
+
+  @Benchmark
+  public byte[] authorizeRoundTrip() throws IOException {
+    AuthorizeRequest request = mapper.readValue(authorizeRequest, AuthorizeRequest.class);
+    payment.setOrderId(request.getOrderId());
+    return writeResponse();
+  }
+}
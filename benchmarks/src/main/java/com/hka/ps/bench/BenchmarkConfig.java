@@ -0,0 +1,69 @@
+package com.hka.ps.bench;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.hka.ps.PaymentServiceApplication;
+
+/**
+ * Startet den Payment Service mit In-Memory-H2 und {@link StubRabbitTemplate}. Der Outbox-Relay
+ * läuft mit, versendet aber nur an den Stub.
+ */
+@Configuration(proxyBeanMethods = false)
+public class BenchmarkConfig {
+
+  private static final AtomicInteger DATABASES = new AtomicInteger();
+
+  @Bean
+  RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory) {
+    return new StubRabbitTemplate(connectionFactory);
+  }
+
+  /** Startet den Dienst ohne Webserver, z. B. für Service-Benchmarks. */
+  public static ConfigurableApplicationContext start(String... args) {
+    return run("--spring.main.web-application-type=none", args);
+  }
+
+  /** Startet den Dienst auf einem freien Port (Tomcat, im Profil {@code reactive} Netty), z. B. für Lasttests. */
+  public static ConfigurableApplicationContext startServer(String... args) {
+    return run("--server.port=0", args);
+  }
+
+  // Als Kommandozeilenargumente, damit sie Vorrang vor application.yml haben.
+  // Jeder Start bekommt eine eigene H2-Datenbank, JDBC und R2DBC (Profil reactive) zeigen auf dieselbe.
+  private static ConfigurableApplicationContext run(String mode, String... args) {
+    String database = "bench" + DATABASES.incrementAndGet();
+    List<String> all = new ArrayList<>(List.of(
+        mode,
+        "--spring.main.banner-mode=off",
+        "--spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1",
+        "--ps.reactive.r2dbc-url=r2dbc:h2:mem:///" + database + "?options=DB_CLOSE_DELAY=-1",
+        "--ps.journal.directory=" + tempDirectory("ps-journal-bench"),
+        "--ps.store.directory=" + tempDirectory("ps-store-bench"),
+        "--logging.level.root=WARN",
+        "--logging.level.com.hka.ps.api.RestExceptionHandler=ERROR"));
+    all.addAll(List.of(args));
+    return new SpringApplicationBuilder(PaymentServiceApplication.class, BenchmarkConfig.class)
+        .run(all.toArray(String[]::new));
+  }
+
+  // Eigene Verzeichnisse je Lauf, damit alte Journal-Segmente und Snapshots die Messung nicht beeinflussen.
+  private static String tempDirectory(String prefix) {
+    try {
+      return Files.createTempDirectory(prefix).toString();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
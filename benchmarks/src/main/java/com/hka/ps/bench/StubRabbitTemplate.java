@@ -0,0 +1,37 @@
+package com.hka.ps.bench;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+/**
+ * In-Process-Ersatz für RabbitMQ: nimmt Nachrichten an, zählt sie und verwirft sie. Ersetzt über
+ * {@link BenchmarkConfig} den automatisch konfigurierten {@link RabbitTemplate}; die
+ * ConnectionFactory wird nur für die Initialisierung gebraucht und nie verbunden.
+ */
+public class StubRabbitTemplate extends RabbitTemplate {
+
+  private final LongAdder messages = new LongAdder();
+  private final LongAdder lines = new LongAdder();
+
+  public StubRabbitTemplate(ConnectionFactory connectionFactory) {
+    super(connectionFactory);
+  }
+
+  @Override
+  public void convertAndSend(String routingKey, Object object) {
+    messages.increment();
+    if (object instanceof String text) {
+      lines.add(1 + text.chars().filter(c -> c == '\n').count());
+    }
+  }
+
+  public long getMessages() {
+    return messages.sum();
+  }
+
+  public long getLines() {
+    return lines.sum();
+  }
+}
@@ -0,0 +1,17 @@
+package com.hka.ps.bench.load;
+
+enum Endpoint {
+  AUTHORIZE("/payments/authorize"),
+  CAPTURE("/payments/capture"),
+  REFUND("/payments/refund");
+
+  private final String path;
+
+  Endpoint(String path) {
+    this.path = path;
+  }
+
+  String path() {
+    return path;
+  }
+}
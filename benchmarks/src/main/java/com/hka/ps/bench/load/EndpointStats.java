@@ -0,0 +1,74 @@
+package com.hka.ps.bench.load;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/** Latenzen (HdrHistogram, in Nanosekunden) und Statuscodes eines Endpunkts. */
+final class EndpointStats {
+
+  private static final long MAX_LATENCY = TimeUnit.SECONDS.toNanos(60);
+
+  private final Recorder recorder = new Recorder(MAX_LATENCY, 3);
+  private final LongAdder ok = new LongAdder();
+  private final LongAdder declined = new LongAdder();
+  private final LongAdder conflict = new LongAdder();
+  private final LongAdder clientError = new LongAdder();
+  private final LongAdder serverError = new LongAdder();
+  private final LongAdder ioError = new LongAdder();
+
+  void record(long latencyNanos, int status) {
+    recorder.recordValue(Math.min(latencyNanos, MAX_LATENCY));
+    if (status < 0) {
+      ioError.increment();
+    } else if (status < 300) {
+      ok.increment();
+    } else if (status == 402) {
+      declined.increment();
+    } else if (status == 409) {
+      conflict.increment();
+    } else if (status < 500) {
+      clientError.increment();
+    } else {
+      serverError.increment();
+    }
+  }
+
+  /** Verwirft alles bisher Gemessene, z. B. am Ende der Einlaufzeit. */
+  void reset() {
+    recorder.reset();
+    for (LongAdder counter : new LongAdder[] {ok, declined, conflict, clientError, serverError, ioError}) {
+      counter.reset();
+    }
+  }
+
+  Histogram histogram() {
+    return recorder.getIntervalHistogram();
+  }
+
+  long ok() {
+    return ok.sum();
+  }
+
+  long declined() {
+    return declined.sum();
+  }
+
+  long conflict() {
+    return conflict.sum();
+  }
+
+  long clientError() {
+    return clientError.sum();
+  }
+
+  long serverError() {
+    return serverError.sum();
+  }
+
+  long ioError() {
+    return ioError.sum();
+  }
+}
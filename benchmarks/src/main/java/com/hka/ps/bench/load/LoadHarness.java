@@ -0,0 +1,255 @@
+package com.hka.ps.bench.load;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.hka.ps.bench.BenchmarkConfig;
+import com.hka.ps.bench.StubRabbitTemplate;
+import com.hka.ps.bench.load.OrderPool.Order;
+
+/**
+ * End-to-End-Lasttest gegen den echten Dienst: startet ihn in-process mit H2 und
+ * {@link StubRabbitTemplate} (oder nutzt {@code load.target}), erzeugt einen Mix aus authorize,
+ * capture und refund über HTTP und gibt Durchsatz sowie HdrHistogram-Perzentile je Endpunkt aus.
+ *
+ * <p>Ohne {@code load.rate} läuft ein geschlossenes Modell: jeder Client schickt den nächsten
+ * Request, sobald der vorige beantwortet ist. Mit {@code load.rate} wird je Client ein fester
+ * Takt vorgegeben und die Latenz ab dem geplanten Startzeitpunkt gemessen, sodass Staus nicht
+ * durch ausbleibende Requests verdeckt werden (Coordinated Omission).
+ */
+public final class LoadHarness {
+
+  private static final int POOL_CAPACITY = 1 << 20;
+
+  private final LoadOptions options;
+  private final URI base;
+  private final HttpClient client;
+  private final Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+  private final OrderPool pool = new OrderPool(POOL_CAPACITY);
+  private final ZipfSampler zipf;
+  private final Endpoint[] weighted;
+  private final AtomicLong sequence = new AtomicLong();
+  private final String runId = Long.toString(System.currentTimeMillis(), 36);
+
+  LoadHarness(LoadOptions options, URI base) {
+    this.options = options;
+    this.base = base;
+    this.client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    this.zipf = new ZipfSampler(options.zipfExponent());
+    for (Endpoint endpoint : Endpoint.values()) {
+      stats.put(endpoint, new EndpointStats());
+    }
+    List<Endpoint> slots = new ArrayList<>();
+    options.mix().forEach((endpoint, weight) -> {
+      for (int i = 0; i < weight; i++) {
+        slots.add(endpoint);
+      }
+    });
+    if (slots.isEmpty()) {
+      throw new IllegalArgumentException("load.mix must contain at least one positive weight");
+    }
+    this.weighted = slots.toArray(Endpoint[]::new);
+  }
+
+  public static void main(String[] args) throws Exception {
+    LoadOptions options = LoadOptions.fromSystemProperties();
+    ConfigurableApplicationContext context = null;
+    URI base;
+    if (options.target().isBlank()) {
+      List<String> appArgs = new ArrayList<>(List.of(args));
+      if (!options.profiles().isBlank()) {
+        appArgs.add("--spring.profiles.active=" + options.profiles());
+      }
+      context = BenchmarkConfig.startServer(appArgs.toArray(String[]::new));
+      int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+      base = URI.create("http://localhost:" + port);
+    } else {
+      base = URI.create(options.target());
+    }
+    try {
+      LoadHarness harness = new LoadHarness(options, base);
+      Map<Endpoint, Histogram> histograms = harness.run();
+      harness.report(histograms, System.out);
+      if (context != null) {
+        StubRabbitTemplate rabbit = context.getBean(StubRabbitTemplate.class);
+        System.out.printf(Locale.ROOT, "AMQP stub: %d messages, %d lines%n", rabbit.getMessages(), rabbit.getLines());
+      }
+    } finally {
+      if (context != null) {
+        context.close();
+      }
+    }
+  }
+
+  Map<Endpoint, Histogram> run() throws InterruptedException {
+    long start = System.nanoTime();
+    long measureFrom = start + options.warmup().toNanos();
+    long end = measureFrom + options.duration().toNanos();
+    long interval = options.rate() > 0 ? (long) (options.concurrency() * 1e9 / options.rate()) : 0;
+
+    System.out.printf(Locale.ROOT, "Load against %s: %d clients, warmup %s, duration %s, %s%n", base,
+        options.concurrency(), options.warmup(), options.duration(),
+        interval > 0 ? "rate " + options.rate() + "/s" : "closed loop");
+    try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int i = 0; i < options.concurrency(); i++) {
+        SplittableRandom random = new SplittableRandom(options.seed() + i);
+        long offset = interval > 0 ? interval * i / options.concurrency() : 0;
+        workers.submit(() -> work(random, start + offset, interval, end));
+      }
+      LockSupport.parkNanos(Math.max(0, measureFrom - System.nanoTime()));
+      stats.values().forEach(EndpointStats::reset);
+    }
+
+    Map<Endpoint, Histogram> histograms = new EnumMap<>(Endpoint.class);
+    stats.forEach((endpoint, s) -> histograms.put(endpoint, s.histogram()));
+    return histograms;
+  }
+
+  private void work(SplittableRandom random, long first, long interval, long end) {
+    long intended = first;
+    while (true) {
+      long now = System.nanoTime();
+      if (interval > 0) {
+        if (intended - now > 0) {
+          LockSupport.parkNanos(intended - now);
+        }
+        now = intended;
+        intended += interval;
+      }
+      if (now - end >= 0) {
+        return;
+      }
+      Endpoint endpoint = weighted[random.nextInt(weighted.length)];
+      Order order = pool.size() == 0 ? null : pool.byRank(zipf.sample(pool.size(), random));
+      Order created = null;
+      if (endpoint == Endpoint.AUTHORIZE || order == null) {
+        endpoint = Endpoint.AUTHORIZE;
+        if (order == null || random.nextDouble() >= options.duplicateRatio()) {
+          created = newOrder(random);
+          order = created;
+        }
+      }
+      HttpRequest request = request(endpoint, order);
+      int status;
+      try {
+        status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+      } catch (IOException e) {
+        status = -1;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      stats.get(endpoint).record(System.nanoTime() - now, status);
+      // Erst nach der Antwort sichtbar machen, sonst laufen Capture/Refund auf noch unbekannte Orders.
+      if (created != null && (status == 200 || status == 402)) {
+        pool.add(created);
+      }
+    }
+  }
+
+  private Order newOrder(SplittableRandom random) {
+    long n = sequence.incrementAndGet();
+    return new Order("LT-" + runId + "-" + n, "lt-" + runId + "-" + n,
+        BigDecimal.valueOf(1 + random.nextInt(options.maxAmount())));
+  }
+
+  private HttpRequest request(Endpoint endpoint, Order order) {
+    if (endpoint == Endpoint.AUTHORIZE) {
+      return post(Endpoint.AUTHORIZE, order.idempotencyKey(), "{\"orderId\":\"" + order.orderId() + "\",\"amount\":"
+          + order.amount() + ",\"currency\":\"EUR\",\"method\":\"CARD\"}");
+    }
+    if (endpoint == Endpoint.CAPTURE) {
+      return post(endpoint, null, "{\"orderId\":\"" + order.orderId() + "\",\"amount\":" + order.amount() + "}");
+    }
+    return post(endpoint, null, "{\"orderId\":\"" + order.orderId() + "\",\"amount\":" + order.amount()
+        + ",\"reason\":\"load\"}");
+  }
+
+  private HttpRequest post(Endpoint endpoint, String idempotencyKey, String body) {
+    HttpRequest.Builder builder = HttpRequest.newBuilder(base.resolve(endpoint.path()))
+        .timeout(java.time.Duration.ofSeconds(30))
+        .header("Content-Type", "application/json")
+        .POST(HttpRequest.BodyPublishers.ofString(body));
+    if (idempotencyKey != null) {
+      builder.header("Idempotency-Key", idempotencyKey);
+    }
+    return builder.build();
+  }
+
+  void report(Map<Endpoint, Histogram> histograms, PrintStream out) throws IOException {
+    double seconds = options.duration().toNanos() / 1e9;
+    Path dir = Path.of(options.reportDir());
+    Files.createDirectories(dir);
+
+    out.printf(Locale.ROOT, "%n%-10s %9s %9s %8s %6s %6s %6s %6s %6s %8s %8s %8s %8s %8s%n",
+        "endpoint", "requests", "ops/s", "2xx", "402", "409", "4xx", "5xx", "io", "p50 ms", "p90 ms", "p99 ms",
+        "p99.9 ms", "max ms");
+    StringBuilder json = new StringBuilder("{\"durationSeconds\":").append(seconds).append(",\"endpoints\":{");
+    Histogram total = new Histogram(3);
+    boolean first = true;
+    for (Endpoint endpoint : Endpoint.values()) {
+      Histogram h = histograms.get(endpoint);
+      EndpointStats s = stats.get(endpoint);
+      total.add(h);
+      out.printf(Locale.ROOT, "%-10s %9d %9.1f %8d %6d %6d %6d %6d %6d %8.2f %8.2f %8.2f %8.2f %8.2f%n",
+          endpoint.name().toLowerCase(Locale.ROOT), h.getTotalCount(), h.getTotalCount() / seconds, s.ok(),
+          s.declined(), s.conflict(), s.clientError(), s.serverError(), s.ioError(), millis(h, 50), millis(h, 90),
+          millis(h, 99), millis(h, 99.9), h.getMaxValue() / 1e6);
+      try (PrintStream hgrm = new PrintStream(Files.newOutputStream(dir.resolve(endpoint.name().toLowerCase(Locale.ROOT) + ".hgrm")))) {
+        h.outputPercentileDistribution(hgrm, 1e6);
+      }
+      if (!first) {
+        json.append(',');
+      }
+      first = false;
+      json.append('"').append(endpoint.name().toLowerCase(Locale.ROOT)).append("\":");
+      appendJson(json, h, seconds);
+    }
+    out.printf(Locale.ROOT, "%-10s %9d %9.1f %50s %8.2f %8.2f %8.2f %8.2f %8.2f%n", "total", total.getTotalCount(),
+        total.getTotalCount() / seconds, "", millis(total, 50), millis(total, 90), millis(total, 99),
+        millis(total, 99.9), total.getMaxValue() / 1e6);
+    json.append("},\"total\":");
+    appendJson(json, total, seconds);
+    json.append('}');
+    try {
+      Files.writeString(dir.resolve("summary.json"), json);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    out.println("Percentile distributions and summary.json written to " + dir.toAbsolutePath());
+  }
+
+  private static void appendJson(StringBuilder json, Histogram h, double seconds) {
+    json.append(String.format(Locale.ROOT,
+        "{\"requests\":%d,\"opsPerSecond\":%.1f,\"p50Ms\":%.3f,\"p90Ms\":%.3f,\"p99Ms\":%.3f,\"p999Ms\":%.3f,\"maxMs\":%.3f}",
+        h.getTotalCount(), h.getTotalCount() / seconds, millis(h, 50), millis(h, 90), millis(h, 99), millis(h, 99.9),
+        h.getMaxValue() / 1e6));
+  }
+
+  private static double millis(Histogram h, double percentile) {
+    return h.getValueAtPercentile(percentile) / 1e6;
+  }
+}
@@ -0,0 +1,78 @@
+package com.hka.ps.bench.load;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.springframework.boot.convert.DurationStyle;
+
+/**
+ * Einstellungen des Lasttests, gelesen aus System-Properties mit Präfix {@code load.}
+ * (z. B. {@code mvn exec:java@load -Dload.concurrency=128}).
+ *
+ * @param target          Basis-URL eines laufenden Dienstes; leer = Dienst in-process starten
+ * @param profiles        Spring-Profile für den In-Process-Dienst, z. B. {@code vthreads}
+ * @param concurrency     Anzahl gleichzeitiger Clients
+ * @param warmup          Einlaufzeit, deren Messwerte verworfen werden
+ * @param duration        Messdauer nach der Einlaufzeit
+ * @param rate            Ziel-Requests pro Sekunde über alle Clients; 0 = geschlossenes Modell
+ * @param mix             Gewichte je Endpunkt
+ * @param duplicateRatio  Anteil der authorize-Aufrufe, die einen früheren Aufruf samt Key wiederholen
+ * @param zipfExponent    Schiefe der orderId-Auswahl für Wiederholungen, Capture und Refund
+ * @param maxAmount       Beträge werden gleichverteilt aus 1..maxAmount gezogen
+ * @param seed            Startwert der Zufallszahlen
+ * @param reportDir       Verzeichnis für {@code .hgrm}-Dateien und {@code summary.json}
+ */
+record LoadOptions(
+    String target,
+    String profiles,
+    int concurrency,
+    Duration warmup,
+    Duration duration,
+    double rate,
+    Map<Endpoint, Integer> mix,
+    double duplicateRatio,
+    double zipfExponent,
+    int maxAmount,
+    long seed,
+    String reportDir
+) {
+
+  static LoadOptions fromSystemProperties() {
+    return new LoadOptions(
+        property("target", ""),
+        property("profiles", ""),
+        Integer.parseInt(property("concurrency", "64")),
+        DurationStyle.detectAndParse(property("warmup", "10s")),
+        DurationStyle.detectAndParse(property("duration", "60s")),
+        Double.parseDouble(property("rate", "0")),
+        parseMix(property("mix", "authorize=60,capture=25,refund=15")),
+        Double.parseDouble(property("duplicate-ratio", "0.1")),
+        Double.parseDouble(property("zipf-exponent", "1.1")),
+        Integer.parseInt(property("max-amount", "2400")),
+        Long.parseLong(property("seed", "42")),
+        property("report-dir", "target/load"));
+  }
+
+  /** Dieselben Einstellungen für einen Lauf mit anderen Profilen und eigenem Report-Verzeichnis. */
+  LoadOptions withProfiles(String profiles, String reportDir) {
+    return new LoadOptions(target, profiles, concurrency, warmup, duration, rate, mix, duplicateRatio, zipfExponent,
+        maxAmount, seed, reportDir);
+  }
+
+  private static String property(String name, String defaultValue) {
+    return System.getProperty("load." + name, defaultValue);
+  }
+
+  private static Map<Endpoint, Integer> parseMix(String value) {
+    Map<Endpoint, Integer> mix = new EnumMap<>(Endpoint.class);
+    for (String part : value.split(",")) {
+      String[] pair = part.trim().split("=");
+      if (pair.length != 2) {
+        throw new IllegalArgumentException("load.mix expects endpoint=weight pairs, got: " + part);
+      }
+      mix.put(Endpoint.valueOf(pair[0].trim().toUpperCase()), Integer.parseInt(pair[1].trim()));
+    }
+    return mix;
+  }
+}
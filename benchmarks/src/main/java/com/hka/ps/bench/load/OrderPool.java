@@ -0,0 +1,41 @@
+package com.hka.ps.bench.load;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Zuletzt autorisierte Orders als Ringpuffer fester Größe. Rang 0 ist die jüngste Order, sodass
+ * eine Zipf-Auswahl über den Rang frische Orders bevorzugt – wie Capture kurz nach Autorisierung
+ * und Client-Retries kurz nach dem ersten Versuch.
+ */
+final class OrderPool {
+
+  record Order(String orderId, String idempotencyKey, BigDecimal amount) {
+  }
+
+  private final AtomicReferenceArray<Order> orders;
+  private final AtomicLong added = new AtomicLong();
+
+  OrderPool(int capacity) {
+    this.orders = new AtomicReferenceArray<>(capacity);
+  }
+
+  void add(Order order) {
+    long index = added.getAndIncrement();
+    orders.set((int) (index % orders.length()), order);
+  }
+
+  int size() {
+    return (int) Math.min(added.get(), orders.length());
+  }
+
+  /** Order mit dem gegebenen Rang ab der jüngsten, oder {@code null}, solange der Pool leer ist. */
+  Order byRank(int rank) {
+    long newest = added.get() - 1;
+    if (newest < rank) {
+      return null;
+    }
+    return orders.get((int) ((newest - rank) % orders.length()));
+  }
+}
@@ -0,0 +1,71 @@
+package com.hka.ps.bench.load;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.hka.ps.bench.BenchmarkConfig;
+
+/**
+ * Vergleicht Servlet- und reaktiven Stack unter identischer Last: startet den Dienst nacheinander ohne und mit
+ * Profil {@code reactive} (jeweils zusätzlich zu {@code load.profiles}), fährt mit denselben Optionen wie
+ * {@link LoadHarness} den gleichen Mix und stellt Durchsatz und Perzentile gegenüber. Der Outbox-Relay ist in
+ * beiden Läufen abgeschaltet, da der reaktive Sender an einen echten Broker statt an den Stub liefert. Der Dienst
+ * muss dafür mit dem Maven-Profil {@code reactive} gebaut sein.
+ */
+public final class StackComparison {
+
+  private static final List<String> STACKS = List.of("servlet", "reactive");
+
+  private StackComparison() {
+  }
+
+  public static void main(String[] args) throws Exception {
+    LoadOptions options = LoadOptions.fromSystemProperties();
+    Map<String, Histogram> totals = new LinkedHashMap<>();
+    for (String stack : STACKS) {
+      List<String> profiles = new ArrayList<>();
+      if (!options.profiles().isBlank()) {
+        profiles.add(options.profiles());
+      }
+      if (stack.equals("reactive")) {
+        profiles.add("reactive");
+      }
+      LoadOptions run = options.withProfiles(String.join(",", profiles), options.reportDir() + "/" + stack);
+
+      List<String> appArgs = new ArrayList<>(List.of(args));
+      appArgs.add("--ps.outbox.relay-enabled=false");
+      if (!run.profiles().isBlank()) {
+        appArgs.add("--spring.profiles.active=" + run.profiles());
+      }
+      ConfigurableApplicationContext context = BenchmarkConfig.startServer(appArgs.toArray(String[]::new));
+      try {
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        System.out.printf(Locale.ROOT, "%n== %s (%s)%n", stack, run.profiles().isBlank() ? "default" : run.profiles());
+        LoadHarness harness = new LoadHarness(run, URI.create("http://localhost:" + port));
+        Map<Endpoint, Histogram> histograms = harness.run();
+        harness.report(histograms, System.out);
+        Histogram total = new Histogram(3);
+        histograms.values().forEach(total::add);
+        totals.put(stack, total);
+      } finally {
+        context.close();
+      }
+    }
+
+    double seconds = options.duration().toNanos() / 1e9;
+    System.out.printf(Locale.ROOT, "%n%d clients, %s%n%-10s %9s %8s %8s %8s %8s %8s%n", options.concurrency(),
+        options.rate() > 0 ? "rate " + options.rate() + "/s" : "closed loop", "stack", "ops/s", "p50 ms", "p90 ms",
+        "p99 ms", "p99.9 ms", "max ms");
+    totals.forEach((stack, h) -> System.out.printf(Locale.ROOT, "%-10s %9.1f %8.2f %8.2f %8.2f %8.2f %8.2f%n",
+        stack, h.getTotalCount() / seconds, h.getValueAtPercentile(50) / 1e6, h.getValueAtPercentile(90) / 1e6,
+        h.getValueAtPercentile(99) / 1e6, h.getValueAtPercentile(99.9) / 1e6, h.getMaxValue() / 1e6));
+  }
+}
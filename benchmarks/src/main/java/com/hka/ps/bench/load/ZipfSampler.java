@@ -0,0 +1,34 @@
+package com.hka.ps.bench.load;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Zieht Ränge aus {@code 0..n-1} näherungsweise Zipf-verteilt (stetige Pareto-Inversion, auf
+ * ganze Zahlen abgeschnitten). Rang 0 ist der häufigste. Exponent 0 ergibt eine Gleichverteilung.
+ */
+final class ZipfSampler {
+
+  private final double exponent;
+
+  ZipfSampler(double exponent) {
+    if (exponent < 0) {
+      throw new IllegalArgumentException("zipf exponent must be >= 0");
+    }
+    this.exponent = exponent;
+  }
+
+  int sample(int n, RandomGenerator random) {
+    if (n <= 1) {
+      return 0;
+    }
+    double u = random.nextDouble();
+    double x;
+    if (Math.abs(exponent - 1.0) < 1e-9) {
+      x = Math.pow(n + 1, u);
+    } else {
+      double a = 1.0 - exponent;
+      x = Math.pow((Math.pow(n + 1, a) - 1.0) * u + 1.0, 1.0 / a);
+    }
+    return Math.min(n - 1, (int) x - 1);
+  }
+}
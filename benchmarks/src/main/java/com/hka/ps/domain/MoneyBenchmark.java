@@ -0,0 +1,95 @@
+package com.hka.ps.domain;
+
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Betragsprüfungen und Summen mit {@link BigDecimal} (bisherige Darstellung) gegenüber {@link Money}.
+ * Allokationen pro Aufruf zeigt {@code -prof gc} ({@code gc.alloc.rate.norm}).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MoneyBenchmark {
+
+  private static final int ROWS = 1024;
+
+  private BigDecimal incoming;
+  private BigDecimal storedDecimal;
+  private Money stored;
+  private BigDecimal[] decimalColumn;
+  private long[] minorColumn;
+
+  @Setup
+  public void setUp() {
+    incoming = new BigDecimal("149.99");
+    storedDecimal = new BigDecimal("149.99");
+    stored = Money.of(storedDecimal, "EUR");
+    SplittableRandom random = new SplittableRandom(42);
+    decimalColumn = new BigDecimal[ROWS];
+    minorColumn = new long[ROWS];
+    for (int i = 0; i < ROWS; i++) {
+      long cents = 1 + random.nextLong(250_000);
+      decimalColumn[i] = BigDecimal.valueOf(cents, 2);
+      minorColumn[i] = cents;
+    }
+  }
+
+  /** Prüfungen von authorize wie bisher: Betrag &gt; 0 und Limit 2000. */
+  @Benchmark
+  public boolean authorizeDecimal() {
+    return incoming.compareTo(BigDecimal.ZERO) > 0 && incoming.compareTo(BigDecimal.valueOf(2000)) <= 0;
+  }
+
+  /** Dieselben Prüfungen inklusive der einmaligen Umrechnung an der JSON-Grenze. */
+  @Benchmark
+  public boolean authorizeMoney() {
+    Money amount = Money.of(incoming, "EUR");
+    return amount.isPositive() && amount.compareToMajor(2000) <= 0;
+  }
+
+  /** Betragsvergleich von capture gegen den gespeicherten Wert. */
+  @Benchmark
+  public boolean captureMatchDecimal() {
+    return storedDecimal.compareTo(incoming) == 0;
+  }
+
+  @Benchmark
+  public boolean captureMatchMoney() {
+    return stored.matches(incoming);
+  }
+
+  /** Summe über eine Spalte, wie sie die Abstimmung je Gruppe bildet. */
+  @Benchmark
+  public BigDecimal sumDecimal() {
+    BigDecimal sum = BigDecimal.ZERO;
+    for (BigDecimal amount : decimalColumn) {
+      sum = sum.add(amount);
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public long sumMinor() {
+    long sum = 0;
+    for (long amount : minorColumn) {
+      sum += amount;
+    }
+    return sum;
+  }
+}
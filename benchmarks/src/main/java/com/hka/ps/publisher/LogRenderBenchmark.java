@@ -0,0 +1,73 @@
+package com.hka.ps.publisher;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.hka.ps.domain.PaymentStatus;
+
+/**
+ * Rendern einzelner Logzeilen, wie es der {@code ps-log-drainer} bzw. der synchrone Modus tut.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LogRenderBenchmark {
+
+  @Param({"TEXT", "JSON"})
+  LogEventRenderer.Format format;
+
+  private LogEventRenderer renderer;
+  private final StringBuilder out = new StringBuilder(256);
+  private LogEvent request;
+  private LogEvent decided;
+  private LogEvent message;
+
+  @Setup
+  public void setUp() {
+    renderer = new LogEventRenderer(format);
+    long now = System.currentTimeMillis();
+    request = LogEvent.of(LogEventType.AUTHORIZE_REQUEST, now, "ORD-20241006-143211-AB12CD34", null,
+        new BigDecimal("149.99"), "EUR", "3f1c9a2e-7b4d-4c1e-9a51-0d2b6f8e4c17");
+    decided = LogEvent.of(LogEventType.AUTHORIZATION_DECIDED, now, "ORD-20241006-143211-AB12CD34",
+        PaymentStatus.AUTHORIZED, null, null, null);
+    message = new LogEvent();
+    message.set(LogEventType.MESSAGE, now, null, null, 0, null, null, null,
+        "Outbox relay sent {} events in {} ms", new Object[] {200, 12});
+  }
+
+  @Benchmark
+  public int renderRequest() {
+    return render(request);
+  }
+
+  @Benchmark
+  public int renderDecision() {
+    return render(decided);
+  }
+
+  @Benchmark
+  public int renderMessage() {
+    return render(message);
+  }
+
+  private int render(LogEvent event) {
+    out.setLength(0);
+    renderer.render(event, out);
+    return out.length();
+  }
+}
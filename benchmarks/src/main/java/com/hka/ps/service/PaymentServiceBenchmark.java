@@ -0,0 +1,123 @@
+package com.hka.ps.service;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.hka.ps.api.dto.AuthorizeRequest;
+import com.hka.ps.api.dto.CaptureRequest;
+import com.hka.ps.api.dto.RefundRequest;
+import com.hka.ps.bench.BenchmarkConfig;
+import com.hka.ps.domain.Payment;
+import com.hka.ps.repo.PaymentView;
+
+/**
+ * {@link PaymentService} mit gestubbtem RabbitMQ, je einmal gegen JPA/In-Memory-H2 ({@code engine=jpa}) und gegen
+ * den {@code InMemoryPaymentStore} ({@code engine=memory}). Capture und Refund bekommen je Aufruf eine frisch
+ * autorisierte Zahlung, die außerhalb der Messung angelegt wird; {@code findView} liest eine bestehende Zahlung
+ * über {@link PaymentQueryService} am Idempotenz-Cache vorbei.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaymentServiceBenchmark {
+
+  private static final BigDecimal AMOUNT = new BigDecimal("149.99");
+  private static final int REPEATED_KEYS = 1024;
+
+  @State(Scope.Benchmark)
+  public static class Service {
+    @Param({"jpa", "memory"})
+    String engine;
+
+    ConfigurableApplicationContext context;
+    PaymentService service;
+    PaymentQueryService queries;
+    final AtomicLong sequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void start() {
+      context = "memory".equals(engine) ? BenchmarkConfig.start("--spring.profiles.active=memory")
+          : BenchmarkConfig.start();
+      service = context.getBean(PaymentService.class);
+      queries = context.getBean(PaymentQueryService.class);
+      for (int i = 0; i < REPEATED_KEYS; i++) {
+        service.authorize(request("REP-" + i), "rep-" + i);
+      }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+      context.close();
+    }
+
+    String nextOrderId(String prefix) {
+      return prefix + sequence.incrementAndGet();
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class Authorized {
+    String orderId;
+
+    @Setup(Level.Invocation)
+    public void authorize(Service state) {
+      orderId = state.nextOrderId("TRN-");
+      state.service.authorize(request(orderId), null);
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class Cursor {
+    int next;
+  }
+
+  @Benchmark
+  public Payment authorizeNewKey(Service state) {
+    String orderId = state.nextOrderId("NEW-");
+    return state.service.authorize(request(orderId), "key-" + orderId);
+  }
+
+  @Benchmark
+  public Payment authorizeRepeatedKey(Service state, Cursor cursor) {
+    int i = cursor.next++ & (REPEATED_KEYS - 1);
+    return state.service.authorize(request("REP-" + i), "rep-" + i);
+  }
+
+  @Benchmark
+  public PaymentView findView(Service state, Cursor cursor) {
+    int i = cursor.next++ & (REPEATED_KEYS - 1);
+    return state.queries.find("REP-" + i).orElseThrow();
+  }
+
+  @Benchmark
+  public Payment capture(Service state, Authorized payment) {
+    return state.service.capture(new CaptureRequest(payment.orderId, AMOUNT));
+  }
+
+  @Benchmark
+  public Payment refund(Service state, Authorized payment) {
+    return state.service.refund(new RefundRequest(payment.orderId, AMOUNT, "benchmark"));
+  }
+
+  private static AuthorizeRequest request(String orderId) {
+    return new AuthorizeRequest(orderId, AMOUNT, "EUR", "CARD");
+  }
+}
@@ -0,0 +1,101 @@
+package com.hka.ps.admission;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.stereotype.Component;
+
+import com.hka.ps.metrics.PaymentMetrics.Operation;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Lässt Requests auf authorize, capture und refund nur bis zur adaptiven Grenze des jeweiligen Endpunkts zu
+ * ({@link AimdLimit}); darüber wird sofort mit {@link AdmissionRejectedException} abgewiesen, statt den Request in
+ * der Warteschlange des Servers altern zu lassen. Die Endpunkte sind in der Reihenfolge von {@link Operation}
+ * priorisiert: war ein höher priorisierter innerhalb von {@code ps.admission.pressure-window} ausgelastet, dürfen die
+ * niedriger priorisierten nur {@code ps.admission.low-priority-share} ihrer Grenze nutzen.
+ */
+@Component
+public class AdmissionControl {
+
+  private final AdmissionProperties properties;
+  private final Map<Operation, AimdLimit> limits = new EnumMap<>(Operation.class);
+  private final long pressureWindowNanos;
+  private final long retryAfterSeconds;
+
+  /** Zulassung eines Requests; wird nach der Antwort an {@link #release} zurückgegeben. */
+  public record Permit(Operation operation, long startedNanos) {
+  }
+
+  public AdmissionControl(AdmissionProperties properties) {
+    this.properties = properties;
+    for (Operation operation : Operation.values()) {
+      limits.put(operation, new AimdLimit(properties));
+    }
+    this.pressureWindowNanos = properties.getPressureWindow().toNanos();
+    this.retryAfterSeconds = Math.max(1, (properties.getRetryAfter().toMillis() + 999) / 1000);
+  }
+
+  public boolean isEnabled() {
+    return properties.isEnabled();
+  }
+
+  /** @throws AdmissionRejectedException wenn die Grenze des Endpunkts erreicht ist */
+  public Permit acquire(Operation operation) {
+    if (!limits.get(operation).tryAcquire(shareFor(operation))) {
+      throw new AdmissionRejectedException(operation, retryAfterSeconds);
+    }
+    return new Permit(operation, System.nanoTime());
+  }
+
+  /** @param overloaded {@code true}, wenn die Antwort auf Überlast hindeutet (Serverfehler) */
+  public void release(Permit permit, boolean overloaded) {
+    limits.get(permit.operation()).release(permit.startedNanos(), overloaded);
+  }
+
+  public int getLimit(Operation operation) {
+    return limits.get(operation).getLimit();
+  }
+
+  public int getInFlight(Operation operation) {
+    return limits.get(operation).getInFlight();
+  }
+
+  /** Meldet Grenze, laufende Requests sowie zugelassene und abgewiesene Requests je Endpunkt. */
+  public void bindTo(MeterRegistry registry) {
+    limits.forEach((operation, limit) -> {
+      String tag = operation.name().toLowerCase(Locale.ROOT);
+      Gauge.builder("ps.admission.limit", limit, AimdLimit::getLimit)
+          .description("Aktuelle adaptive Nebenläufigkeitsgrenze")
+          .tag("operation", tag)
+          .register(registry);
+      Gauge.builder("ps.admission.inflight", limit, AimdLimit::getInFlight)
+          .tag("operation", tag)
+          .register(registry);
+      FunctionCounter.builder("ps.admission.requests", limit, AimdLimit::getAdmitted)
+          .tag("operation", tag)
+          .tag("result", "admitted")
+          .register(registry);
+      FunctionCounter.builder("ps.admission.requests", limit, AimdLimit::getRejected)
+          .tag("operation", tag)
+          .tag("result", "rejected")
+          .register(registry);
+    });
+  }
+
+  private double shareFor(Operation operation) {
+    for (Operation higher : Operation.values()) {
+      if (higher == operation) {
+        return 1.0;
+      }
+      if (limits.get(higher).saturatedWithin(pressureWindowNanos)) {
+        return properties.getLowPriorityShare();
+      }
+    }
+    return 1.0;
+  }
+}
@@ -0,0 +1,43 @@
+package com.hka.ps.admission;
+
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import com.hka.ps.metrics.PaymentMetrics.Operation;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Prüft vor dem Controller die Zulassung für einen Endpunkt und meldet nach der Antwort Dauer und Ausgang an die
+ * {@link AdmissionControl} zurück. Eine Instanz je {@link Operation}; die Zuordnung der Pfade steht in
+ * {@code WebConfig}.
+ */
+public class AdmissionInterceptor implements HandlerInterceptor {
+
+  private static final String PERMIT = AdmissionInterceptor.class.getName() + ".permit";
+
+  private final AdmissionControl admission;
+  private final Operation operation;
+
+  public AdmissionInterceptor(AdmissionControl admission, Operation operation) {
+    this.admission = admission;
+    this.operation = operation;
+  }
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+    if (admission.isEnabled()) {
+      request.setAttribute(PERMIT, admission.acquire(operation));
+    }
+    return true;
+  }
+
+  @Override
+  public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+      Exception ex) {
+    if (request.getAttribute(PERMIT) instanceof AdmissionControl.Permit permit) {
+      request.removeAttribute(PERMIT);
+      admission.release(permit, ex != null || response.getStatus() >= 500);
+    }
+  }
+}
@@ -0,0 +1,101 @@
+package com.hka.ps.admission;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/** Adaptive Nebenläufigkeitsgrenzen vor den schreibenden Zahlungs-Endpunkten, siehe {@link AdmissionControl}. */
+@ConfigurationProperties(prefix = "ps.admission")
+public class AdmissionProperties {
+
+  private boolean enabled = true;
+  /** Startwert jeder Grenze; sie wächst bzw. schrumpft danach je nach beobachteter Latenz. */
+  private int initialLimit = 64;
+  private int minLimit = 4;
+  private int maxLimit = 512;
+  /** Antworten, die länger dauern, gelten als Überlastsignal und verkleinern die Grenze. */
+  private Duration latencyThreshold = Duration.ofMillis(250);
+  /** Faktor, mit dem die Grenze bei einem Überlastsignal multipliziert wird. */
+  private double backoffRatio = 0.9;
+  /**
+   * Anteil ihrer eigenen Grenze, den niedriger priorisierte Endpunkte nutzen dürfen, solange ein höher priorisierter
+   * ausgelastet ist (Reihenfolge authorize, capture, refund).
+   */
+  private double lowPriorityShare = 0.5;
+  /** So lange nach der letzten Auslastung eines Endpunkts gelten die niedriger priorisierten als gedrosselt. */
+  private Duration pressureWindow = Duration.ofSeconds(1);
+  /** Wert des {@code Retry-After}-Headers abgewiesener Requests, auf ganze Sekunden aufgerundet. */
+  private Duration retryAfter = Duration.ofSeconds(1);
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public int getInitialLimit() {
+    return initialLimit;
+  }
+
+  public void setInitialLimit(int initialLimit) {
+    this.initialLimit = initialLimit;
+  }
+
+  public int getMinLimit() {
+    return minLimit;
+  }
+
+  public void setMinLimit(int minLimit) {
+    this.minLimit = minLimit;
+  }
+
+  public int getMaxLimit() {
+    return maxLimit;
+  }
+
+  public void setMaxLimit(int maxLimit) {
+    this.maxLimit = maxLimit;
+  }
+
+  public Duration getLatencyThreshold() {
+    return latencyThreshold;
+  }
+
+  public void setLatencyThreshold(Duration latencyThreshold) {
+    this.latencyThreshold = latencyThreshold;
+  }
+
+  public double getBackoffRatio() {
+    return backoffRatio;
+  }
+
+  public void setBackoffRatio(double backoffRatio) {
+    this.backoffRatio = backoffRatio;
+  }
+
+  public double getLowPriorityShare() {
+    return lowPriorityShare;
+  }
+
+  public void setLowPriorityShare(double lowPriorityShare) {
+    this.lowPriorityShare = lowPriorityShare;
+  }
+
+  public Duration getPressureWindow() {
+    return pressureWindow;
+  }
+
+  public void setPressureWindow(Duration pressureWindow) {
+    this.pressureWindow = pressureWindow;
+  }
+
+  public Duration getRetryAfter() {
+    return retryAfter;
+  }
+
+  public void setRetryAfter(Duration retryAfter) {
+    this.retryAfter = retryAfter;
+  }
+}
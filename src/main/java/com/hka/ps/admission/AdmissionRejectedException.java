@@ -0,0 +1,23 @@
+package com.hka.ps.admission;
+
+import java.util.Locale;
+
+import com.hka.ps.metrics.PaymentMetrics.Operation;
+
+/**
+ * Request abgewiesen, weil die Nebenläufigkeitsgrenze des Endpunkts erreicht ist (Antwort 429 mit
+ * {@code Retry-After}). Ohne Stacktrace, da Abweisungen gerade unter Überlast in großer Zahl entstehen.
+ */
+public class AdmissionRejectedException extends RuntimeException {
+
+  private final long retryAfterSeconds;
+
+  public AdmissionRejectedException(Operation operation, long retryAfterSeconds) {
+    super(operation.name().toLowerCase(Locale.ROOT) + " concurrency limit reached, retry later", null, false, false);
+    this.retryAfterSeconds = retryAfterSeconds;
+  }
+
+  public long getRetryAfterSeconds() {
+    return retryAfterSeconds;
+  }
+}
@@ -0,0 +1,99 @@
+package com.hka.ps.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Nebenläufigkeitsgrenze eines Endpunkts nach dem AIMD-Prinzip: jede zügige Antwort bei mindestens halb
+ * ausgeschöpfter Grenze erhöht sie um eins, eine Antwort über der Latenzschwelle oder ein Fehler verkleinert sie
+ * multiplikativ. Wie bei TCP zählt höchstens ein Überlastsignal je Runde: Requests, die vor der letzten Verkleinerung
+ * gestartet sind, lösen keine weitere aus.
+ */
+final class AimdLimit {
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final long thresholdNanos;
+  private final double backoffRatio;
+
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final LongAdder admitted = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+
+  private volatile int limit;
+  private long lastDecreaseNanos = System.nanoTime();
+  /** Zeitpunkt, zu dem die Grenze zuletzt ausgeschöpft war; Grundlage der Priorisierung. */
+  private volatile long saturatedAtNanos;
+
+  AimdLimit(AdmissionProperties properties) {
+    this.minLimit = Math.max(1, properties.getMinLimit());
+    this.maxLimit = Math.max(minLimit, properties.getMaxLimit());
+    this.thresholdNanos = properties.getLatencyThreshold().toNanos();
+    this.backoffRatio = properties.getBackoffRatio();
+    this.limit = Math.min(maxLimit, Math.max(minLimit, properties.getInitialLimit()));
+  }
+
+  /**
+   * @param share Anteil der Grenze, der diesem Aufruf zur Verfügung steht
+   * @return {@code true}, wenn der Request zugelassen ist; dann muss {@link #release} folgen
+   */
+  boolean tryAcquire(double share) {
+    int allowed = Math.max(1, (int) (limit * share));
+    for (int current = inFlight.get(); ; current = inFlight.get()) {
+      if (current >= allowed) {
+        if (current >= limit) {
+          saturatedAtNanos = System.nanoTime();
+        }
+        rejected.increment();
+        return false;
+      }
+      if (inFlight.compareAndSet(current, current + 1)) {
+        if (current + 1 >= limit) {
+          saturatedAtNanos = System.nanoTime();
+        }
+        admitted.increment();
+        return true;
+      }
+    }
+  }
+
+  /**
+   * @param startedNanos Zeitpunkt der Zulassung
+   * @param overloaded   {@code true} bei einem Fehler, der auf Überlast hindeutet
+   */
+  void release(long startedNanos, boolean overloaded) {
+    int concurrent = inFlight.getAndDecrement();
+    long now = System.nanoTime();
+    synchronized (this) {
+      if (overloaded || now - startedNanos > thresholdNanos) {
+        if (startedNanos - lastDecreaseNanos > 0) {
+          limit = Math.max(minLimit, (int) (limit * backoffRatio));
+          lastDecreaseNanos = now;
+        }
+      } else if (concurrent * 2 >= limit && limit < maxLimit) {
+        limit++;
+      }
+    }
+  }
+
+  boolean saturatedWithin(long windowNanos) {
+    long at = saturatedAtNanos;
+    return at != 0 && System.nanoTime() - at < windowNanos;
+  }
+
+  int getLimit() {
+    return limit;
+  }
+
+  int getInFlight() {
+    return inFlight.get();
+  }
+
+  long getAdmitted() {
+    return admitted.sum();
+  }
+
+  long getRejected() {
+    return rejected.sum();
+  }
+}
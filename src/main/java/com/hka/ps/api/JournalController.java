@@ -0,0 +1,58 @@
+package com.hka.ps.api;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.hka.ps.journal.JournalRecord;
+import com.hka.ps.journal.PaymentJournal;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@RestController
+@Profile("!reactive")
+@RequestMapping("/journal")
+@Tag(name = "Journal", description = "Audit-Trail aller Statusübergänge")
+public class JournalController {
+
+  static final int MAX_LIMIT = 1000;
+
+  private final PaymentJournal journal;
+
+  public JournalController(PaymentJournal journal) {
+    this.journal = journal;
+  }
+
+  @GetMapping
+  @Operation(
+      summary = "Liest Statusübergänge aus dem Journal",
+      description = "Liest das Journal sequentiell ab fromSequence. Mit orderId werden nur die Übergänge dieser "
+          + "Bestellung geliefert; das Journal wird dafür trotzdem vollständig ab fromSequence gelesen. "
+          + "Weiterblättern mit der Sequenz des letzten Eintrags + 1.")
+  public List<JournalRecord> read(
+      @Parameter(description = "Erste Sequenz (inklusive)", example = "1")
+      @RequestParam(defaultValue = "1") long fromSequence,
+      @Parameter(description = "Nur Übergänge dieser Bestellung", example = "A-1001")
+      @RequestParam(required = false) String orderId,
+      @Parameter(description = "Maximale Anzahl Einträge (1–" + MAX_LIMIT + ")", example = "100")
+      @RequestParam(defaultValue = "100") int limit) {
+    if (limit < 1 || limit > MAX_LIMIT) {
+      throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+    }
+    List<JournalRecord> records = new ArrayList<>(Math.min(limit, 64));
+    journal.reader().replay(fromSequence, r -> {
+      if (orderId == null || orderId.equals(r.orderId())) {
+        records.add(r);
+      }
+      return records.size() < limit;
+    });
+    return records;
+  }
+}
@@ -0,0 +1,62 @@
+package com.hka.ps.api;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORGenerator;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.StreamUtils;
+
+import com.hka.ps.api.dto.PaymentResponse;
+import com.hka.ps.domain.Payment;
+import com.hka.ps.repo.PaymentView;
+import com.hka.ps.tracing.ResponseSerializationEvent;
+
+/**
+ * {@code application/cbor} für Requests und Antworten, mit denselben DTOs wie JSON. Zahlungen, die Controller direkt
+ * zurückgeben, schreibt der {@link PaymentCborWriter} im Format der {@link PaymentResponse}. Zeitpunkte gehen als Sekunden mit Nanosekunden
+ * (CBOR-Dezimalbruch) statt als ISO-Text hinaus, Beträge ohnehin als Dezimalbruch; beides entfällt damit beim
+ * Parsen auf beiden Seiten. Ersetzt den von Spring MVC sonst angelegten CBOR-Converter.
+ */
+public class PaymentCborHttpMessageConverter extends MappingJackson2CborHttpMessageConverter {
+
+  public PaymentCborHttpMessageConverter(ObjectMapper objectMapper) {
+    super(objectMapper);
+  }
+
+  /** CBOR-Mapper mit den übrigen Einstellungen von {@code spring.jackson.*}; der Builder wird dabei verändert. */
+  public static ObjectMapper objectMapper(Jackson2ObjectMapperBuilder builder) {
+    return builder.factory(new CBORFactory())
+        .featuresToEnable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+        .build();
+  }
+
+  @Override
+  protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+    ResponseSerializationEvent event = new ResponseSerializationEvent();
+    event.begin();
+    if (object instanceof Payment payment) {
+      try (CBORGenerator gen = generator(outputMessage)) {
+        PaymentCborWriter.write(payment, gen);
+      }
+    } else if (object instanceof PaymentView view) {
+      try (CBORGenerator gen = generator(outputMessage)) {
+        PaymentCborWriter.write(view, gen);
+      }
+    } else {
+      super.writeInternal(object, type, outputMessage);
+    }
+    event.end();
+    event.commit(object, outputMessage);
+  }
+
+  private CBORGenerator generator(HttpOutputMessage outputMessage) throws IOException {
+    return ((CBORFactory) getObjectMapper().getFactory())
+        .createGenerator(StreamUtils.nonClosing(outputMessage.getBody()));
+  }
+}
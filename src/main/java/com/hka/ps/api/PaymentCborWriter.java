@@ -0,0 +1,109 @@
+package com.hka.ps.api;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORGenerator;
+import com.fasterxml.jackson.datatype.jsr310.DecimalUtils;
+
+import com.hka.ps.domain.Money;
+import com.hka.ps.domain.Payment;
+import com.hka.ps.domain.PaymentStatus;
+import com.hka.ps.repo.PaymentView;
+
+/**
+ * Schreibt eine Zahlung als CBOR direkt aus {@link Payment} bzw. {@link PaymentView} in einen {@link CBORGenerator},
+ * ohne den Umweg über {@code PaymentResponse} und den ObjectMapper. Die Ausgabe ist byte-identisch zu dem, was der
+ * Mapper aus {@link PaymentCborHttpMessageConverter#objectMapper} für die {@code PaymentResponse} schreibt: gleiche
+ * Feldreihenfolge, Betrag als Dezimalbruch, Zeitpunkte als Sekunden mit neun Nachkommastellen. Feldnamen und
+ * Statuswerte liegen wie beim {@link PaymentJsonWriter} als fertig kodierte Strings vor.
+ */
+public final class PaymentCborWriter {
+
+  private static final SerializedString ORDER_ID = new SerializedString("orderId");
+  private static final SerializedString AMOUNT = new SerializedString("amount");
+  private static final SerializedString CURRENCY = new SerializedString("currency");
+  private static final SerializedString METHOD = new SerializedString("method");
+  private static final SerializedString STATUS = new SerializedString("status");
+  private static final SerializedString CREATED_AT = new SerializedString("createdAt");
+  private static final SerializedString UPDATED_AT = new SerializedString("updatedAt");
+  private static final SerializedString[] STATUSES = new SerializedString[PaymentStatus.values().length];
+
+  /** Bis hier passt {@code Sekunden * 10^9 + Nanos} in ein long (Jahr 2262). */
+  private static final long MAX_NANO_SECONDS = Long.MAX_VALUE / 1_000_000_000L - 1;
+
+  static {
+    for (PaymentStatus status : PaymentStatus.values()) {
+      STATUSES[status.ordinal()] = new SerializedString(status.name());
+    }
+  }
+
+  private PaymentCborWriter() {
+  }
+
+  public static void write(Payment payment, CBORGenerator gen) throws IOException {
+    payment(gen, payment.getOrderId(), payment.getAmountMinor(), payment.getCurrency(), payment.getMethod(),
+        payment.getStatus(), payment.getCreatedAt(), payment.getUpdatedAt());
+  }
+
+  public static void write(PaymentView view, CBORGenerator gen) throws IOException {
+    payment(gen, view.orderId(), view.amountMinor(), view.currency(), view.method(), view.status(), view.createdAt(),
+        view.updatedAt());
+  }
+
+  public static byte[] toBytes(Payment payment, CBORFactory factory) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(160);
+    try (CBORGenerator gen = factory.createGenerator((OutputStream) out)) {
+      write(payment, gen);
+    }
+    return out.toByteArray();
+  }
+
+  private static void payment(CBORGenerator gen, String orderId, long amountMinor, String currency, String method,
+      PaymentStatus status, Instant createdAt, Instant updatedAt) throws IOException {
+    // unbestimmte Länge wie beim BeanSerializer, damit die Bytes mit dem Mapper übereinstimmen
+    gen.writeStartObject();
+    gen.writeFieldName(ORDER_ID);
+    gen.writeString(orderId);
+    gen.writeFieldName(AMOUNT);
+    gen.writeNumber(Money.toBigDecimal(amountMinor));
+    gen.writeFieldName(CURRENCY);
+    gen.writeString(currency);
+    gen.writeFieldName(METHOD);
+    gen.writeString(method);
+    gen.writeFieldName(STATUS);
+    if (status == null) {
+      gen.writeNull();
+    } else {
+      gen.writeString(STATUSES[status.ordinal()]);
+    }
+    gen.writeFieldName(CREATED_AT);
+    instant(gen, createdAt);
+    gen.writeFieldName(UPDATED_AT);
+    instant(gen, updatedAt);
+    gen.writeEndObject();
+  }
+
+  /**
+   * Wie der {@code InstantSerializer} mit {@code WRITE_DATE_TIMESTAMPS_AS_NANOSECONDS}: ein Dezimalbruch mit Skala 9.
+   * Den üblichen Fall baut {@code BigDecimal.valueOf} ohne den Umweg über Text, der Rest geht an {@link DecimalUtils}.
+   */
+  private static void instant(CBORGenerator gen, Instant instant) throws IOException {
+    if (instant == null) {
+      gen.writeNull();
+      return;
+    }
+    long seconds = instant.getEpochSecond();
+    int nanos = instant.getNano();
+    if (nanos > 0 && seconds >= 0 && seconds <= MAX_NANO_SECONDS) {
+      gen.writeNumber(BigDecimal.valueOf(seconds * 1_000_000_000L + nanos, 9));
+    } else {
+      gen.writeNumber(DecimalUtils.toBigDecimal(seconds, nanos));
+    }
+  }
+}
@@ -1,15 +1,31 @@
 package com.hka.ps.api;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import com.hka.ps.api.dto.AuthorizeBatchItem;
+import com.hka.ps.api.dto.AuthorizeBatchRequest;
 import com.hka.ps.api.dto.AuthorizeRequest;
+import com.hka.ps.api.dto.BatchItemResult;
+import com.hka.ps.api.dto.BatchResponse;
+import com.hka.ps.api.dto.BulkCaptureRequest;
+import com.hka.ps.api.dto.BulkRefundRequest;
+import com.hka.ps.api.dto.BulkTransitionResponse;
 import com.hka.ps.api.dto.CaptureRequest;
 import com.hka.ps.api.dto.PaymentResponse;
 import com.hka.ps.api.dto.RefundRequest;
 import com.hka.ps.domain.Payment;
 import com.hka.ps.domain.PaymentStatus;
+import com.hka.ps.publisher.LogEventType;
+import com.hka.ps.publisher.PsPublisher;
+import com.hka.ps.service.BulkTransitionService;
+import com.hka.ps.service.ItemOutcome;
 import com.hka.ps.service.PaymentService;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -21,6 +37,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/payments")
 @Tag(name = "Payments", description = "Endpunkte für Autorisierung, Capture und Refund von Zahlungen")
 public class PaymentController {
@@ -28,9 +45,20 @@ public class PaymentController {
   private static final String IDEMPOTENCY_HEADER = "Idempotency-Key";
 
   private final PaymentService service;
+  private final PsPublisher publisher;
+
+  private final BulkTransitionService bulkService;
+  private final int maxBatchItems;
+  private final int maxBulkItems;
 
-  public PaymentController(PaymentService service) {
+  public PaymentController(PaymentService service, PsPublisher publisher, BulkTransitionService bulkService,
+      @Value("${ps.batch.max-items:500}") int maxBatchItems,
+      @Value("${ps.batch.max-bulk-items:10000}") int maxBulkItems) {
     this.service = service;
+    this.publisher = publisher;
+    this.bulkService = bulkService;
+    this.maxBatchItems = maxBatchItems;
+    this.maxBulkItems = maxBulkItems;
   }
 
   @PostMapping("/authorize")
@@ -39,34 +67,52 @@ public class PaymentController {
       description = "Autorisiert einen Auftrag. Optional kann ein Idempotency-Key zur Wiederverwendbarkeit übergeben werden.",
       requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
           required = true,
-          content = @Content(
-              mediaType = "application/json",
-              schema = @Schema(implementation = AuthorizeRequest.class))))
+          content = {
+              @Content(mediaType = "application/json", schema = @Schema(implementation = AuthorizeRequest.class)),
+              @Content(mediaType = "application/cbor", schema = @Schema(implementation = AuthorizeRequest.class))}))
   @ApiResponses({
       @ApiResponse(responseCode = "200", description = "Zahlung autorisiert", content = @Content(schema = @Schema(implementation = PaymentResponse.class))),
       @ApiResponse(responseCode = "402", description = "Zahlung abgelehnt", content = @Content(schema = @Schema(implementation = PaymentResponse.class))),
       @ApiResponse(responseCode = "400", description = "Ungültige Eingabe", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class))),
-      @ApiResponse(responseCode = "409", description = "Konflikt (z. B. falscher Betrag)", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class)))
+      @ApiResponse(responseCode = "409", description = "Konflikt (z. B. falscher Betrag)", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class))),
+      @ApiResponse(responseCode = "429", description = "Überlast, später erneut versuchen (siehe Retry-After)", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class)))
   })
-  public ResponseEntity<PaymentResponse> authorize(
+  public ResponseEntity<Payment> authorize(
       @RequestBody AuthorizeRequest request,
       @Parameter(description = "Optionaler Schlüssel zur Idempotenz", example = "a86f9253-5bd5-4fa8-9c97-71b89d1cd876")
       @RequestHeader(name = IDEMPOTENCY_HEADER, required = false) String idempotencyKey) {
 
-    String msgIn = "POST /payments/authorize orderId= " + request.getOrderId()
-        + " idempotencyKey= " + String.valueOf(idempotencyKey);
-    service.publishLog(msgIn);
+    publisher.publishRequest(LogEventType.AUTHORIZE_RECEIVED, request.getOrderId(), null, null, idempotencyKey, null);
 
     Payment payment = service.authorize(request, idempotencyKey);
 
     HttpStatus status = (payment.getStatus() == PaymentStatus.DECLINED)
         ? HttpStatus.PAYMENT_REQUIRED : HttpStatus.OK;
 
-    String msgOut = "Authorize result orderId= " + payment.getOrderId()
-        + " status= " + status;
-    service.publishLog(msgOut);
+    publisher.publish(LogEventType.AUTHORIZE_RESULT, payment.getOrderId(), status);
+
+    return ResponseEntity.status(status).body(payment);
+  }
+
+  @PostMapping("/authorize:batch")
+  @Operation(
+      summary = "Autorisiert mehrere Zahlungen in einem Aufruf",
+      description = "Autorisiert bis zu ps.batch.max-items Aufträge in einer Transaktion. Jeder Eintrag kann einen eigenen Idempotency-Key tragen; "
+          + "das Ergebnis enthält je Eintrag den Status, den der Einzelaufruf geliefert hätte.",
+      requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
+          required = true,
+          content = @Content(schema = @Schema(implementation = AuthorizeBatchRequest.class))))
+  @ApiResponses({
+      @ApiResponse(responseCode = "200", description = "Batch verarbeitet, Ergebnisse je Eintrag", content = @Content(schema = @Schema(implementation = BatchResponse.class))),
+      @ApiResponse(responseCode = "400", description = "Leerer oder zu großer Batch", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class))),
+      @ApiResponse(responseCode = "429", description = "Überlast, später erneut versuchen (siehe Retry-After)", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class)))
+  })
+  public ResponseEntity<BatchResponse> authorizeBatch(@RequestBody AuthorizeBatchRequest request) {
+    List<AuthorizeBatchItem> items = request.getItems();
+    checkBatchSize(items, maxBatchItems);
 
-    return ResponseEntity.status(status).body(toResponse(payment));
+    List<ItemOutcome> outcomes = service.authorizeBatch(items);
+    return ResponseEntity.ok(toBatchResponse(outcomes, publisher));
   }
 
   @PostMapping("/capture")
@@ -79,19 +125,17 @@ public class PaymentController {
   @ApiResponses({
       @ApiResponse(responseCode = "200", description = "Capture erfolgreich", content = @Content(schema = @Schema(implementation = PaymentResponse.class))),
       @ApiResponse(responseCode = "400", description = "Ungültiger Betrag oder Zahlung nicht gefunden", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class))),
-      @ApiResponse(responseCode = "409", description = "Capture-Konflikt", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class)))
+      @ApiResponse(responseCode = "409", description = "Capture-Konflikt", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class))),
+      @ApiResponse(responseCode = "429", description = "Überlast, später erneut versuchen (siehe Retry-After)", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class)))
   })
-  public ResponseEntity<PaymentResponse> capture(@RequestBody CaptureRequest request) {
-    String msgIn = "POST /payments/capture orderId= " + request.getOrderId();
-    service.publishLog(msgIn);
+  public ResponseEntity<Payment> capture(@RequestBody CaptureRequest request) {
+    publisher.publish(LogEventType.CAPTURE_RECEIVED, request.getOrderId());
 
     Payment payment = service.capture(request);
 
-    String msgOut = "Capture result orderId= " + payment.getOrderId()
-        + " status= " + payment.getStatus();
-    service.publishLog(msgOut);
+    publisher.publish(LogEventType.CAPTURE_RESULT, payment.getOrderId(), payment.getStatus());
 
-    return ResponseEntity.ok(toResponse(payment));
+    return ResponseEntity.ok(payment);
   }
 
   @PostMapping("/refund")
@@ -104,26 +148,87 @@ public class PaymentController {
   @ApiResponses({
       @ApiResponse(responseCode = "200", description = "Refund erfolgreich", content = @Content(schema = @Schema(implementation = PaymentResponse.class))),
       @ApiResponse(responseCode = "400", description = "Ungültige Eingabe oder Zahlung nicht gefunden", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class))),
-      @ApiResponse(responseCode = "409", description = "Refund-Konflikt", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class)))
+      @ApiResponse(responseCode = "409", description = "Refund-Konflikt", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class))),
+      @ApiResponse(responseCode = "429", description = "Überlast, später erneut versuchen (siehe Retry-After)", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class)))
   })
-  public ResponseEntity<PaymentResponse> refund(@RequestBody RefundRequest request) {
-    String msgIn = "POST /payments/refund orderId= " + request.getOrderId()
-        + " reason= " + request.getReason();
-    service.publishLog(msgIn);
+  public ResponseEntity<Payment> refund(@RequestBody RefundRequest request) {
+    publisher.publishRequest(LogEventType.REFUND_RECEIVED, request.getOrderId(), null, null, null, request.getReason());
 
     Payment payment = service.refund(request);
 
-    String msgOut = "Refund result orderId= " + payment.getOrderId()
-        + " status= " + payment.getStatus();
-    service.publishLog(msgOut);
+    publisher.publish(LogEventType.REFUND_RESULT, payment.getOrderId(), payment.getStatus());
+
+    return ResponseEntity.ok(payment);
+  }
+
+  @PostMapping("/capture:batch")
+  @Operation(
+      summary = "Capturt viele autorisierte Zahlungen",
+      description = "Überführt alle passenden Zahlungen per bedingtem Sammel-Update von AUTHORIZED nach CAPTURED. "
+          + "Es gelten dieselben Regeln wie beim Einzel-Capture (Betrag muss übereinstimmen).",
+      requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
+          required = true,
+          content = @Content(schema = @Schema(implementation = BulkCaptureRequest.class))))
+  @ApiResponses({
+      @ApiResponse(responseCode = "200", description = "Verarbeitet; Ergebnis je orderId", content = @Content(schema = @Schema(implementation = BulkTransitionResponse.class))),
+      @ApiResponse(responseCode = "400", description = "Leerer oder zu großer Request", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class))),
+      @ApiResponse(responseCode = "429", description = "Überlast, später erneut versuchen (siehe Retry-After)", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class)))
+  })
+  public ResponseEntity<BulkTransitionResponse> captureBatch(@RequestBody BulkCaptureRequest request) {
+    checkBatchSize(request.getItems(), maxBulkItems);
+    return ResponseEntity.ok(bulkService.captureAll(request.getItems()));
+  }
+
+  @PostMapping("/refund:batch")
+  @Operation(
+      summary = "Erstattet viele Zahlungen",
+      description = "Überführt alle passenden Zahlungen per bedingtem Sammel-Update von AUTHORIZED oder CAPTURED nach REFUNDED.",
+      requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
+          required = true,
+          content = @Content(schema = @Schema(implementation = BulkRefundRequest.class))))
+  @ApiResponses({
+      @ApiResponse(responseCode = "200", description = "Verarbeitet; Ergebnis je orderId", content = @Content(schema = @Schema(implementation = BulkTransitionResponse.class))),
+      @ApiResponse(responseCode = "400", description = "Leerer oder zu großer Request", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class))),
+      @ApiResponse(responseCode = "429", description = "Überlast, später erneut versuchen (siehe Retry-After)", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class)))
+  })
+  public ResponseEntity<BulkTransitionResponse> refundBatch(@RequestBody BulkRefundRequest request) {
+    checkBatchSize(request.getItems(), maxBulkItems);
+    return ResponseEntity.ok(bulkService.refundAll(request.getItems()));
+  }
+
+  /** Übersetzt die Ergebnisse eines authorize-Batches in Einträge mit dem Status des jeweiligen Einzelaufrufs. */
+  static BatchResponse toBatchResponse(List<ItemOutcome> outcomes, PsPublisher publisher) {
+    List<BatchItemResult> results = new ArrayList<>(outcomes.size());
+    for (int i = 0; i < outcomes.size(); i++) {
+      ItemOutcome outcome = outcomes.get(i);
+      if (outcome.isOk()) {
+        Payment payment = outcome.payment();
+        HttpStatus status = (payment.getStatus() == PaymentStatus.DECLINED)
+            ? HttpStatus.PAYMENT_REQUIRED : HttpStatus.OK;
+        publisher.publish(LogEventType.AUTHORIZE_RESULT, payment.getOrderId(), status);
+        results.add(new BatchItemResult(i, status.value(), toResponse(payment), null));
+      } else {
+        HttpStatus status = RestExceptionHandler.statusOf(outcome.error());
+        results.add(new BatchItemResult(i, status.value(), null,
+            RestExceptionHandler.body(status, outcome.error().getMessage())));
+      }
+    }
+    return new BatchResponse(results);
+  }
 
-    return ResponseEntity.ok(toResponse(payment));
+  static void checkBatchSize(List<?> items, int max) {
+    if (items == null || items.isEmpty()) {
+      throw new IllegalArgumentException("items required");
+    }
+    if (items.size() > max) {
+      throw new IllegalArgumentException("at most " + max + " items per batch");
+    }
   }
 
-  private PaymentResponse toResponse(Payment payment) {
+  static PaymentResponse toResponse(Payment payment) {
     return PaymentResponse.builder()
         .orderId(payment.getOrderId())
-        .amount(payment.getAmount())
+        .amount(payment.getAmount().toBigDecimal())
         .currency(payment.getCurrency())
         .method(payment.getMethod())
         .status(payment.getStatus())
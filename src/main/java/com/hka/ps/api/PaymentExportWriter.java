@@ -0,0 +1,104 @@
+package com.hka.ps.api;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.http.MediaType;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.hka.ps.api.dto.PaymentResponse;
+
+/** Schreibt exportierte Zahlungen zeilenweise direkt in den Antwort-Stream. */
+interface PaymentExportWriter extends Closeable {
+
+  void write(PaymentResponse payment) throws IOException;
+
+  enum Format {
+    NDJSON(MediaType.parseMediaType("application/x-ndjson"), "ndjson"),
+    CSV(MediaType.parseMediaType("text/csv;charset=UTF-8"), "csv");
+
+    final MediaType mediaType;
+    final String extension;
+
+    Format(MediaType mediaType, String extension) {
+      this.mediaType = mediaType;
+      this.extension = extension;
+    }
+
+    PaymentExportWriter open(OutputStream out, ObjectMapper mapper) throws IOException {
+      return this == NDJSON ? new Ndjson(out, mapper) : new Csv(out);
+    }
+  }
+
+  /** Ein JSON-Objekt pro Zeile, identisch zur {@code PaymentResponse} der Einzelabfrage. */
+  final class Ndjson implements PaymentExportWriter {
+    private final JsonGenerator generator;
+    private final ObjectWriter writer;
+
+    Ndjson(OutputStream out, ObjectMapper mapper) throws IOException {
+      this.generator = mapper.getFactory().createGenerator(out).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+      this.generator.setRootValueSeparator(null);
+      this.writer = mapper.writerFor(PaymentResponse.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    @Override
+    public void write(PaymentResponse payment) throws IOException {
+      writer.writeValue(generator, payment);
+      generator.writeRaw('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+      generator.close();
+    }
+  }
+
+  /** RFC-4180-CSV mit Kopfzeile. */
+  final class Csv implements PaymentExportWriter {
+    private final Writer out;
+
+    Csv(OutputStream out) throws IOException {
+      this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 13);
+      this.out.write("orderId,amount,currency,method,status,createdAt,updatedAt\r\n");
+    }
+
+    @Override
+    public void write(PaymentResponse p) throws IOException {
+      field(p.getOrderId()).write(',');
+      out.write(p.getAmount().toPlainString());
+      out.write(',');
+      field(p.getCurrency()).write(',');
+      field(p.getMethod()).write(',');
+      out.write(p.getStatus().name());
+      out.write(',');
+      out.write(p.getCreatedAt().toString());
+      out.write(',');
+      out.write(p.getUpdatedAt().toString());
+      out.write("\r\n");
+    }
+
+    private Writer field(String value) throws IOException {
+      if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+        out.write(value);
+      } else {
+        out.write('"');
+        out.write(value.replace("\"", "\"\""));
+        out.write('"');
+      }
+      return out;
+    }
+
+    @Override
+    public void close() throws IOException {
+      out.flush();
+    }
+  }
+}
@@ -0,0 +1,52 @@
+package com.hka.ps.api;
+
+import java.io.IOException;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import com.hka.ps.domain.Payment;
+import com.hka.ps.repo.PaymentView;
+import com.hka.ps.tracing.ResponseSerializationEvent;
+
+/**
+ * Schreibt {@link Payment} und {@link PaymentView} als JSON über den {@link PaymentJsonWriter}. Steht vor dem
+ * Jackson-Converter, sodass Controller die Zahlung direkt zurückgeben können; nur schreibend.
+ */
+public class PaymentJsonHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+
+  public PaymentJsonHttpMessageConverter() {
+    super(MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+  }
+
+  @Override
+  protected boolean supports(Class<?> clazz) {
+    return Payment.class.isAssignableFrom(clazz) || PaymentView.class == clazz;
+  }
+
+  @Override
+  protected boolean canRead(MediaType mediaType) {
+    return false;
+  }
+
+  @Override
+  protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+    throw new HttpMessageNotReadableException("payments are not readable as request body", inputMessage);
+  }
+
+  @Override
+  protected void writeInternal(Object value, HttpOutputMessage outputMessage) throws IOException {
+    ResponseSerializationEvent event = new ResponseSerializationEvent();
+    event.begin();
+    if (value instanceof Payment payment) {
+      PaymentJsonWriter.write(payment, outputMessage.getBody());
+    } else {
+      PaymentJsonWriter.write((PaymentView) value, outputMessage.getBody());
+    }
+    event.end();
+    event.commit(value, outputMessage);
+  }
+}
@@ -0,0 +1,262 @@
+package com.hka.ps.api;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+
+import com.hka.ps.domain.Money;
+import com.hka.ps.domain.Payment;
+import com.hka.ps.domain.PaymentStatus;
+import com.hka.ps.repo.PaymentView;
+
+/**
+ * Schreibt eine Zahlung als JSON direkt aus {@link Payment} bzw. {@link PaymentView}, ohne den Umweg über
+ * {@code PaymentResponse} und Jackson. Die Ausgabe ist byte-identisch zu dem, was der von Spring Boot konfigurierte
+ * ObjectMapper für die {@code PaymentResponse} schreibt: gleiche Feldreihenfolge, Betrag wie
+ * {@code BigDecimal.toString()}, Zeitpunkte wie {@code DateTimeFormatter.ISO_INSTANT}, gleiche String-Escapes.
+ * Feldnamen und Statuswerte liegen als fertige Byte-Fragmente vor; der Body wird in einem Puffer aufgebaut und mit
+ * einem einzigen {@code write} ausgegeben.
+ */
+public final class PaymentJsonWriter {
+
+  private static final byte[] ORDER_ID = ascii("{\"orderId\":");
+  private static final byte[] AMOUNT = ascii(",\"amount\":");
+  private static final byte[] CURRENCY = ascii(",\"currency\":");
+  private static final byte[] METHOD = ascii(",\"method\":");
+  private static final byte[] STATUS = ascii(",\"status\":");
+  private static final byte[] CREATED_AT = ascii(",\"createdAt\":");
+  private static final byte[] UPDATED_AT = ascii(",\"updatedAt\":");
+  private static final byte[] NULL = ascii("null");
+  private static final byte[][] STATUSES = new byte[PaymentStatus.values().length][];
+  private static final byte[] HEX = ascii("0123456789ABCDEF");
+
+  /**
+   * Escapes für ASCII wie Jacksons {@code CharTypes}: 0 = unverändert, -1 = Unicode-Escape, sonst Kurzform.
+   * Andere Zeichen gehen als UTF-8 hinaus, nur Surrogate werden ebenfalls escapt.
+   */
+  private static final int[] ESCAPES = new int[128];
+
+  /** Kurze Zahlungen passen immer hinein; lange Strings vergrößern den Puffer. */
+  private static final int INITIAL_CAPACITY = 256;
+
+  static {
+    for (PaymentStatus status : PaymentStatus.values()) {
+      STATUSES[status.ordinal()] = ascii("\"" + status.name() + "\"");
+    }
+    for (int c = 0; c < 0x20; c++) {
+      ESCAPES[c] = -1;
+    }
+    ESCAPES['"'] = '"';
+    ESCAPES['\\'] = '\\';
+    ESCAPES['\b'] = 'b';
+    ESCAPES['\t'] = 't';
+    ESCAPES['\f'] = 'f';
+    ESCAPES['\n'] = 'n';
+    ESCAPES['\r'] = 'r';
+  }
+
+  private byte[] buf = new byte[INITIAL_CAPACITY];
+  private int pos;
+
+  private PaymentJsonWriter() {
+  }
+
+  public static void write(Payment payment, OutputStream out) throws IOException {
+    PaymentJsonWriter w = new PaymentJsonWriter();
+    w.payment(payment.getOrderId(), payment.getAmountMinor(), payment.getCurrency(), payment.getMethod(),
+        payment.getStatus(), payment.getCreatedAt(), payment.getUpdatedAt());
+    out.write(w.buf, 0, w.pos);
+  }
+
+  public static void write(PaymentView view, OutputStream out) throws IOException {
+    PaymentJsonWriter w = new PaymentJsonWriter();
+    w.payment(view.orderId(), view.amountMinor(), view.currency(), view.method(), view.status(), view.createdAt(),
+        view.updatedAt());
+    out.write(w.buf, 0, w.pos);
+  }
+
+  public static byte[] toBytes(Payment payment) {
+    PaymentJsonWriter w = new PaymentJsonWriter();
+    w.payment(payment.getOrderId(), payment.getAmountMinor(), payment.getCurrency(), payment.getMethod(),
+        payment.getStatus(), payment.getCreatedAt(), payment.getUpdatedAt());
+    return Arrays.copyOf(w.buf, w.pos);
+  }
+
+  private void payment(String orderId, long amountMinor, String currency, String method, PaymentStatus status,
+      Instant createdAt, Instant updatedAt) {
+    raw(ORDER_ID);
+    string(orderId);
+    raw(AMOUNT);
+    amount(amountMinor);
+    raw(CURRENCY);
+    string(currency);
+    raw(METHOD);
+    string(method);
+    raw(STATUS);
+    raw(status == null ? NULL : STATUSES[status.ordinal()]);
+    raw(CREATED_AT);
+    instant(createdAt);
+    raw(UPDATED_AT);
+    instant(updatedAt);
+    ensure(1);
+    buf[pos++] = '}';
+  }
+
+  /** Wie {@code BigDecimal.valueOf(minor, 2).toString()}; bei dieser Skala nie in Exponentenschreibweise. */
+  private void amount(long minor) {
+    int scale = Money.SCALE;
+    if (minor == Long.MIN_VALUE) {
+      raw(ascii(Money.toBigDecimal(minor).toString()));
+      return;
+    }
+    ensure(21 + scale);
+    if (minor < 0) {
+      buf[pos++] = '-';
+      minor = -minor;
+    }
+    int digits = digits(minor);
+    int width = Math.max(digits, scale + 1);
+    int end = pos + width + (scale > 0 ? 1 : 0);
+    int p = end;
+    for (int i = 0; i < width; i++) {
+      if (scale > 0 && i == scale) {
+        buf[--p] = '.';
+      }
+      buf[--p] = (byte) ('0' + minor % 10);
+      minor /= 10;
+    }
+    pos = end;
+  }
+
+  /** Wie {@code DateTimeFormatter.ISO_INSTANT}: Sekunden immer, Bruchteile in Gruppen zu 3, 6 oder 9 Stellen. */
+  private void instant(Instant instant) {
+    if (instant == null) {
+      raw(NULL);
+      return;
+    }
+    long seconds = instant.getEpochSecond();
+    long days = Math.floorDiv(seconds, 86_400);
+    int secondOfDay = Math.floorMod(seconds, 86_400);
+    // Tage seit 1970-01-01 in Jahr/Monat/Tag (proleptisch gregorianisch, Ären zu 400 Jahren)
+    long z = days + 719_468;
+    long era = Math.floorDiv(z, 146_097);
+    long dayOfEra = z - era * 146_097;
+    long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+    long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+    long mp = (5 * dayOfYear + 2) / 153;
+    int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+    int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+    long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+    if (year < 0 || year > 9999) {
+      string(instant.toString());
+      return;
+    }
+    ensure(32);
+    buf[pos++] = '"';
+    fixed((int) year, 4);
+    buf[pos++] = '-';
+    fixed(month, 2);
+    buf[pos++] = '-';
+    fixed(day, 2);
+    buf[pos++] = 'T';
+    fixed(secondOfDay / 3600, 2);
+    buf[pos++] = ':';
+    fixed(secondOfDay / 60 % 60, 2);
+    buf[pos++] = ':';
+    fixed(secondOfDay % 60, 2);
+    int nanos = instant.getNano();
+    if (nanos > 0) {
+      buf[pos++] = '.';
+      if (nanos % 1_000_000 == 0) {
+        fixed(nanos / 1_000_000, 3);
+      } else if (nanos % 1000 == 0) {
+        fixed(nanos / 1000, 6);
+      } else {
+        fixed(nanos, 9);
+      }
+    }
+    buf[pos++] = 'Z';
+    buf[pos++] = '"';
+  }
+
+  private void fixed(int value, int width) {
+    for (int p = pos + width - 1; p >= pos; p--) {
+      buf[p] = (byte) ('0' + value % 10);
+      value /= 10;
+    }
+    pos += width;
+  }
+
+  private void string(String value) {
+    if (value == null) {
+      raw(NULL);
+      return;
+    }
+    int length = value.length();
+    // ungünstigster Fall: jedes Zeichen als Unicode-Escape mit sechs Bytes
+    ensure(length * 6 + 2);
+    buf[pos++] = '"';
+    for (int i = 0; i < length; i++) {
+      char c = value.charAt(i);
+      if (c < 0x80) {
+        int escape = ESCAPES[c];
+        if (escape == 0) {
+          buf[pos++] = (byte) c;
+        } else if (escape > 0) {
+          buf[pos++] = '\\';
+          buf[pos++] = (byte) escape;
+        } else {
+          buf[pos++] = '\\';
+          buf[pos++] = 'u';
+          buf[pos++] = '0';
+          buf[pos++] = '0';
+          buf[pos++] = HEX[c >> 4];
+          buf[pos++] = HEX[c & 0xF];
+        }
+      } else if (c < 0x800) {
+        buf[pos++] = (byte) (0xC0 | (c >> 6));
+        buf[pos++] = (byte) (0x80 | (c & 0x3F));
+      } else if (Character.isSurrogate(c)) {
+        // Jackson kombiniert Surrogatpaare nicht, sondern schreibt jede Hälfte als Unicode-Escape
+        buf[pos++] = '\\';
+        buf[pos++] = 'u';
+        buf[pos++] = HEX[c >> 12];
+        buf[pos++] = HEX[(c >> 8) & 0xF];
+        buf[pos++] = HEX[(c >> 4) & 0xF];
+        buf[pos++] = HEX[c & 0xF];
+      } else {
+        buf[pos++] = (byte) (0xE0 | (c >> 12));
+        buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+        buf[pos++] = (byte) (0x80 | (c & 0x3F));
+      }
+    }
+    buf[pos++] = '"';
+  }
+
+  private void raw(byte[] bytes) {
+    ensure(bytes.length);
+    System.arraycopy(bytes, 0, buf, pos, bytes.length);
+    pos += bytes.length;
+  }
+
+  private void ensure(int extra) {
+    if (pos + extra > buf.length) {
+      buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + extra));
+    }
+  }
+
+  private static int digits(long value) {
+    int n = 1;
+    while (value >= 10) {
+      value /= 10;
+      n++;
+    }
+    return n;
+  }
+
+  private static byte[] ascii(String value) {
+    return value.getBytes(StandardCharsets.US_ASCII);
+  }
+}
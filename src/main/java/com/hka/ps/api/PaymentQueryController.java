@@ -0,0 +1,263 @@
+package com.hka.ps.api;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hka.ps.api.dto.PaymentPageResponse;
+import com.hka.ps.api.dto.PaymentResponse;
+import com.hka.ps.domain.PaymentStatus;
+import com.hka.ps.repo.PaymentView;
+import com.hka.ps.service.PaymentCursor;
+import com.hka.ps.service.PaymentFilter;
+import com.hka.ps.service.PaymentPage;
+import com.hka.ps.service.PaymentQueryService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.headers.Header;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@RestController
+@Profile("!reactive")
+@RequestMapping("/payments")
+@Tag(name = "Payments", description = "Endpunkte für Autorisierung, Capture und Refund von Zahlungen")
+public class PaymentQueryController {
+
+  /** Darstellungen einer Zahlung in der Reihenfolge der Converter. */
+  private static final List<MediaType> REPRESENTATIONS = List.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_CBOR);
+
+  private final PaymentQueryService queries;
+  private final ObjectMapper objectMapper;
+  private final int maxBatchItems;
+
+  public PaymentQueryController(PaymentQueryService queries, ObjectMapper objectMapper,
+      @Value("${ps.batch.max-items:500}") int maxBatchItems) {
+    this.queries = queries;
+    this.objectMapper = objectMapper;
+    this.maxBatchItems = maxBatchItems;
+  }
+
+  @GetMapping("/{orderId}")
+  @Operation(
+      summary = "Liefert den aktuellen Stand einer Zahlung",
+      description = "Liest die Zahlung als Projektion in einer Read-only-Transaktion. Der ETag setzt sich aus interner ID, "
+          + "createdAt, Version und Medientyp der Antwort zusammen (Vary: Accept); mit If-None-Match antwortet der Dienst "
+          + "bei unverändertem Stand mit 304 ohne Body.")
+  @ApiResponses({
+      @ApiResponse(responseCode = "200", description = "Zahlung gefunden",
+          headers = {
+              @Header(name = "ETag", description = "Zahlung, Version und Medientyp der Antwort"),
+              @Header(name = "Vary", description = "Accept")},
+          content = @Content(schema = @Schema(implementation = PaymentResponse.class))),
+      @ApiResponse(responseCode = "304", description = "Unverändert seit dem übergebenen ETag"),
+      @ApiResponse(responseCode = "404", description = "Zahlung unbekannt", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class)))
+  })
+  public ResponseEntity<?> get(
+      @Parameter(description = "Order-ID der Zahlung", example = "ORD-20241006-143211-AB12CD34")
+      @PathVariable String orderId,
+      WebRequest webRequest,
+      HttpServletResponse response) {
+    PaymentView view = queries.find(orderId).orElse(null);
+    if (view == null) {
+      return ResponseEntity.status(HttpStatus.NOT_FOUND)
+          .body(RestExceptionHandler.body(HttpStatus.NOT_FOUND, "Payment not found for orderId=" + orderId));
+    }
+    String etag = etag(view, representation(acceptedTypes(webRequest)));
+    // auch die 304-Antwort nennt Accept als Vary, sonst ordnen Caches den ETag der falschen Darstellung zu
+    response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+    if (webRequest.checkNotModified(etag)) {
+      return null;
+    }
+    return ResponseEntity.ok().eTag(etag).body(view);
+  }
+
+  @GetMapping(params = "orderIds")
+  @Operation(
+      summary = "Liefert mehrere Zahlungen in einem Aufruf",
+      description = "Liest bis zu ps.batch.max-items Zahlungen in der Reihenfolge der übergebenen orderIds; unbekannte werden ausgelassen. "
+          + "Der ETag deckt alle gelieferten Zahlungen, ihre Versionen und den Medientyp ab und unterstützt If-None-Match "
+          + "wie der Einzelabruf.")
+  @ApiResponses({
+      @ApiResponse(responseCode = "200", description = "Gefundene Zahlungen",
+          content = @Content(array = @ArraySchema(schema = @Schema(implementation = PaymentResponse.class)))),
+      @ApiResponse(responseCode = "304", description = "Unverändert seit dem übergebenen ETag"),
+      @ApiResponse(responseCode = "400", description = "Keine oder zu viele orderIds", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class)))
+  })
+  public ResponseEntity<List<PaymentResponse>> getAll(
+      @Parameter(description = "Kommagetrennte Order-IDs", example = "ORD-1,ORD-2")
+      @RequestParam List<String> orderIds,
+      WebRequest webRequest,
+      HttpServletResponse response) {
+    Set<String> distinct = new LinkedHashSet<>(orderIds);
+    distinct.remove("");
+    PaymentController.checkBatchSize(List.copyOf(distinct), maxBatchItems);
+    List<PaymentView> views = queries.findAll(distinct);
+    String etag = etag(views, representation(acceptedTypes(webRequest)));
+    // auch die 304-Antwort nennt Accept als Vary, sonst ordnen Caches den ETag der falschen Darstellung zu
+    response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+    if (webRequest.checkNotModified(etag)) {
+      return null;
+    }
+    return ResponseEntity.ok().eTag(etag).body(views.stream().map(PaymentQueryController::toResponse).toList());
+  }
+
+  @GetMapping(params = "!orderIds")
+  @Operation(
+      summary = "Listet Zahlungen eines Zeitraums seitenweise",
+      description = "Keyset-Pagination über (createdAt, interne ID): die Antwort enthält höchstens limit Zahlungen und einen "
+          + "nextCursor, der als cursor an den nächsten Aufruf übergeben wird. Die Kosten einer Seite hängen nicht von ihrer Position ab.")
+  @ApiResponses({
+      @ApiResponse(responseCode = "200", description = "Seite geliefert",
+          content = @Content(schema = @Schema(implementation = PaymentPageResponse.class))),
+      @ApiResponse(responseCode = "400", description = "Ungültiger Zeitraum, Cursor oder limit", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class)))
+  })
+  public PaymentPageResponse list(
+      @Parameter(description = "Beginn des Zeitraums (inklusive, ISO-8601)", example = "2024-10-06T00:00:00Z")
+      @RequestParam Instant from,
+      @Parameter(description = "Ende des Zeitraums (exklusive, ISO-8601)", example = "2024-10-07T00:00:00Z")
+      @RequestParam Instant to,
+      @Parameter(description = "Optionaler Statusfilter") @RequestParam(required = false) PaymentStatus status,
+      @Parameter(description = "Optionaler Währungsfilter (ISO-4217)") @RequestParam(required = false) String currency,
+      @Parameter(description = "nextCursor der vorherigen Seite") @RequestParam(required = false) String cursor,
+      @Parameter(description = "Seitengröße, höchstens ps.batch.max-items") @RequestParam(defaultValue = "100") int limit) {
+    if (limit < 1 || limit > maxBatchItems) {
+      throw new IllegalArgumentException("limit must be between 1 and " + maxBatchItems);
+    }
+    PaymentPage page = queries.list(new PaymentFilter(from, to, status, currency),
+        cursor == null ? null : PaymentCursor.decode(cursor), limit);
+    return new PaymentPageResponse(
+        page.items().stream().map(PaymentQueryController::toResponse).toList(),
+        page.next() == null ? null : page.next().encode());
+  }
+
+  @GetMapping("/export")
+  @Operation(
+      summary = "Exportiert alle Zahlungen eines Zeitraums als NDJSON oder CSV",
+      description = "Liest die Zahlungen über einen Datenbank-Cursor und schreibt sie direkt in den Antwort-Stream; "
+          + "der Speicherbedarf bleibt unabhängig von der Ergebnisgröße.")
+  @ApiResponses({
+      @ApiResponse(responseCode = "200", description = "Export-Stream",
+          content = {@Content(mediaType = "application/x-ndjson"), @Content(mediaType = "text/csv")}),
+      @ApiResponse(responseCode = "400", description = "Ungültiger Zeitraum oder Format", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class)))
+  })
+  public ResponseEntity<StreamingResponseBody> export(
+      @Parameter(description = "Beginn des Zeitraums (inklusive, ISO-8601)", example = "2024-10-06T00:00:00Z")
+      @RequestParam Instant from,
+      @Parameter(description = "Ende des Zeitraums (exklusive, ISO-8601)", example = "2024-10-07T00:00:00Z")
+      @RequestParam Instant to,
+      @Parameter(description = "Optionaler Statusfilter") @RequestParam(required = false) PaymentStatus status,
+      @Parameter(description = "Optionaler Währungsfilter (ISO-4217)") @RequestParam(required = false) String currency,
+      @Parameter(description = "ndjson oder csv") @RequestParam(defaultValue = "ndjson") String format) {
+    PaymentFilter filter = new PaymentFilter(from, to, status, currency);
+    PaymentExportWriter.Format exportFormat = exportFormat(format);
+    StreamingResponseBody body = out -> {
+      try (PaymentExportWriter writer = exportFormat.open(out, objectMapper)) {
+        queries.export(filter, payment -> {
+          try {
+            writer.write(PaymentController.toResponse(payment));
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+      }
+    };
+    return ResponseEntity.ok()
+        .contentType(exportFormat.mediaType)
+        .header(HttpHeaders.CONTENT_DISPOSITION,
+            ContentDisposition.attachment().filename("payments." + exportFormat.extension).build().toString())
+        .body(body);
+  }
+
+  private static PaymentExportWriter.Format exportFormat(String format) {
+    for (PaymentExportWriter.Format f : PaymentExportWriter.Format.values()) {
+      if (f.extension.equalsIgnoreCase(format)) {
+        return f;
+      }
+    }
+    throw new IllegalArgumentException("unsupported export format: " + format);
+  }
+
+  static PaymentResponse toResponse(PaymentView view) {
+    return PaymentResponse.builder()
+        .orderId(view.orderId())
+        .amount(view.amount().toBigDecimal())
+        .currency(view.currency())
+        .method(view.method())
+        .status(view.status())
+        .createdAt(view.createdAt())
+        .updatedAt(view.updatedAt())
+        .build();
+  }
+
+  /**
+   * Medientyp, den die Content Negotiation für eine Zahlung wählt: der erste vom Aufrufer akzeptierte unter JSON und
+   * CBOR, bei Platzhaltern JSON. Gehört in den ETag, weil beide Darstellungen unter derselben URL liegen.
+   */
+  static MediaType representation(List<MediaType> accepted) {
+    List<MediaType> sorted = new ArrayList<>(accepted);
+    MimeTypeUtils.sortBySpecificity(sorted);
+    for (MediaType mediaType : sorted) {
+      for (MediaType producible : REPRESENTATIONS) {
+        if (mediaType.isCompatibleWith(producible)) {
+          return producible;
+        }
+      }
+    }
+    return MediaType.APPLICATION_JSON;
+  }
+
+  /** Starker ETag einer Zahlung; ID und createdAt unterscheiden eine nach Löschung neu angelegte Zahlung gleicher orderId. */
+  static String etag(PaymentView view, MediaType representation) {
+    return "\"" + discriminator(view) + (view.version() == null ? 0 : view.version())
+        + "-" + representation.getSubtype() + "\"";
+  }
+
+  static String etag(List<PaymentView> views, MediaType representation) {
+    CRC32 crc = new CRC32();
+    for (PaymentView view : views) {
+      crc.update((view.orderId() + ':' + discriminator(view) + view.version() + ';').getBytes(StandardCharsets.UTF_8));
+    }
+    return "\"" + views.size() + "-" + Long.toHexString(crc.getValue()) + "-" + representation.getSubtype() + "\"";
+  }
+
+  private static String discriminator(PaymentView view) {
+    Instant createdAt = view.createdAt();
+    return view.id() + "-" + (createdAt == null ? "0" : createdAt.getEpochSecond() + "." + createdAt.getNano()) + "-";
+  }
+
+  private static List<MediaType> acceptedTypes(WebRequest webRequest) {
+    String[] accept = webRequest.getHeaderValues(HttpHeaders.ACCEPT);
+    return accept == null ? List.of(MediaType.ALL) : MediaType.parseMediaTypes(Arrays.asList(accept));
+  }
+}
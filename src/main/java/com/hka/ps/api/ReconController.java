@@ -0,0 +1,73 @@
+package com.hka.ps.api;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.hka.ps.recon.ReconRow;
+import com.hka.ps.recon.ReconRun;
+import com.hka.ps.recon.ReconciliationEngine;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@RestController
+@Profile("!reactive")
+@RequestMapping("/recon")
+@Tag(name = "Reconciliation", description = "Abstimmungssummen je Tag, Währung, Zahlart und Status")
+public class ReconController {
+
+  private final ReconciliationEngine engine;
+
+  public ReconController(ReconciliationEngine engine) {
+    this.engine = engine;
+  }
+
+  @GetMapping("/totals")
+  @Operation(
+      summary = "Liefert die gespeicherten Abstimmungssummen",
+      description = "Liest die laufenden Summen aus recon_totals; sie sind so aktuell wie der letzte inkrementelle Lauf.")
+  public List<ReconRow> totals(
+      @Parameter(description = "Erster Tag (inklusive)", example = "2024-10-06")
+      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+      @Parameter(description = "Letzter Tag (inklusive)", example = "2024-10-06")
+      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+    if (to.isBefore(from)) {
+      throw new IllegalArgumentException("from must not be after to");
+    }
+    return engine.totals(from, to);
+  }
+
+  @GetMapping("/report")
+  @Operation(
+      summary = "Berechnet die Abstimmungssummen vollständig neu",
+      description = "Liest alle Zahlungen in einem Streaming-Durchlauf und aggregiert im Speicher je Gruppe; "
+          + "verändert die gespeicherten Summen nicht. Dient zur Kontrolle der inkrementellen Summen.")
+  public List<ReconRow> report() {
+    return engine.report();
+  }
+
+  @PostMapping("/run")
+  @Operation(
+      summary = "Startet einen inkrementellen Abstimmungslauf",
+      description = "Übernimmt alle seit dem letzten Checkpoint geänderten Zahlungen in die gespeicherten Summen.")
+  @ApiResponses({
+      @ApiResponse(responseCode = "200", description = "Lauf abgeschlossen"),
+      @ApiResponse(responseCode = "409", description = "Es läuft bereits eine Abstimmung", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class)))
+  })
+  public ReconRun run() {
+    return engine.reconcile();
+  }
+}
@@ -4,11 +4,14 @@ import java.time.Instant;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import com.hka.ps.admission.AdmissionRejectedException;
+
 @RestControllerAdvice
 public class RestExceptionHandler {
 
@@ -26,13 +29,33 @@ public class RestExceptionHandler {
     return build(HttpStatus.CONFLICT, ex.getMessage());
   }
 
+  /** Abweisung durch die Zulassungskontrolle; bewusst nur auf debug, da sie unter Überlast massenhaft auftritt. */
+  @ExceptionHandler(AdmissionRejectedException.class)
+  public ResponseEntity<ApiErrorResponse> handleAdmissionRejected(AdmissionRejectedException ex) {
+    log.debug("Rejected: {}", ex.getMessage());
+    return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+        .header(HttpHeaders.RETRY_AFTER, Long.toString(ex.getRetryAfterSeconds()))
+        .body(body(HttpStatus.TOO_MANY_REQUESTS, ex.getMessage()));
+  }
+
   private ResponseEntity<ApiErrorResponse> build(HttpStatus status, String message) {
-    ApiErrorResponse body = new ApiErrorResponse(
+    return ResponseEntity.status(status).body(body(status, message));
+  }
+
+  /** Statuscode, den ein Einzelaufruf für diese Ausnahme geliefert hätte; genutzt für Batch-Ergebnisse. */
+  static HttpStatus statusOf(RuntimeException ex) {
+    if (ex instanceof IllegalStateException) {
+      return HttpStatus.CONFLICT;
+    }
+    return HttpStatus.BAD_REQUEST;
+  }
+
+  static ApiErrorResponse body(HttpStatus status, String message) {
+    return new ApiErrorResponse(
         Instant.now(),
         status.value(),
         status.getReasonPhrase(),
         message
     );
-    return ResponseEntity.status(status).body(body);
   }
 }
@@ -0,0 +1,27 @@
+package com.hka.ps.api.dto;
+
+import java.math.BigDecimal;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(name = "AuthorizeBatchItem", description = "Einzelne Autorisierung innerhalb eines Batch-Aufrufs")
+public class AuthorizeBatchItem extends AuthorizeRequest {
+  @Schema(description = "Optionaler Schlüssel zur Idempotenz dieses Eintrags", example = "a86f9253-5bd5-4fa8-9c97-71b89d1cd876")
+  private String idempotencyKey;
+
+  public AuthorizeBatchItem() {
+  }
+
+  public AuthorizeBatchItem(String orderId, BigDecimal amount, String currency, String method, String idempotencyKey) {
+    super(orderId, amount, currency, method);
+    this.idempotencyKey = idempotencyKey;
+  }
+
+  public String getIdempotencyKey() {
+    return idempotencyKey;
+  }
+
+  public void setIdempotencyKey(String idempotencyKey) {
+    this.idempotencyKey = idempotencyKey;
+  }
+}
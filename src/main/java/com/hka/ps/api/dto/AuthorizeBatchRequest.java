@@ -0,0 +1,27 @@
+package com.hka.ps.api.dto;
+
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(name = "AuthorizeBatchRequest", description = "Payload zum Autorisieren mehrerer Zahlungen in einem Aufruf")
+public class AuthorizeBatchRequest {
+  @ArraySchema(schema = @Schema(implementation = AuthorizeBatchItem.class), arraySchema = @Schema(description = "Zu autorisierende Zahlungen"))
+  private List<AuthorizeBatchItem> items;
+
+  public AuthorizeBatchRequest() {
+  }
+
+  public AuthorizeBatchRequest(List<AuthorizeBatchItem> items) {
+    this.items = items;
+  }
+
+  public List<AuthorizeBatchItem> getItems() {
+    return items;
+  }
+
+  public void setItems(List<AuthorizeBatchItem> items) {
+    this.items = items;
+  }
+}
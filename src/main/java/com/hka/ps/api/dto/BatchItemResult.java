@@ -0,0 +1,17 @@
+package com.hka.ps.api.dto;
+
+import com.hka.ps.api.ApiErrorResponse;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(name = "BatchItemResult", description = "Ergebnis eines einzelnen Eintrags eines Batch-Aufrufs")
+public record BatchItemResult(
+    @Schema(description = "Position des Eintrags im Request", example = "0")
+    int index,
+    @Schema(description = "HTTP Status Code, den der Einzelaufruf geliefert hätte", example = "200")
+    int status,
+    @Schema(description = "Zahlung bei Erfolg oder Ablehnung (402)")
+    PaymentResponse payment,
+    @Schema(description = "Fehlerobjekt bei ungültigem Eintrag oder Konflikt")
+    ApiErrorResponse error
+) {}
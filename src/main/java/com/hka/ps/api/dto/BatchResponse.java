@@ -0,0 +1,11 @@
+package com.hka.ps.api.dto;
+
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(name = "BatchResponse", description = "Ergebnisse eines Batch-Aufrufs in Request-Reihenfolge")
+public record BatchResponse(
+    @Schema(description = "Ein Ergebnis je Eintrag")
+    List<BatchItemResult> results
+) {}
@@ -0,0 +1,27 @@
+package com.hka.ps.api.dto;
+
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(name = "BulkCaptureRequest", description = "Payload zum Verbuchen (Capture) vieler autorisierter Zahlungen")
+public class BulkCaptureRequest {
+  @ArraySchema(schema = @Schema(implementation = CaptureRequest.class), arraySchema = @Schema(description = "Zu capturnde Zahlungen"))
+  private List<CaptureRequest> items;
+
+  public BulkCaptureRequest() {
+  }
+
+  public BulkCaptureRequest(List<CaptureRequest> items) {
+    this.items = items;
+  }
+
+  public List<CaptureRequest> getItems() {
+    return items;
+  }
+
+  public void setItems(List<CaptureRequest> items) {
+    this.items = items;
+  }
+}
@@ -0,0 +1,27 @@
+package com.hka.ps.api.dto;
+
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(name = "BulkRefundRequest", description = "Payload zum Erstatten vieler Zahlungen")
+public class BulkRefundRequest {
+  @ArraySchema(schema = @Schema(implementation = RefundRequest.class), arraySchema = @Schema(description = "Zu erstattende Zahlungen"))
+  private List<RefundRequest> items;
+
+  public BulkRefundRequest() {
+  }
+
+  public BulkRefundRequest(List<RefundRequest> items) {
+    this.items = items;
+  }
+
+  public List<RefundRequest> getItems() {
+    return items;
+  }
+
+  public void setItems(List<RefundRequest> items) {
+    this.items = items;
+  }
+}
@@ -0,0 +1,22 @@
+package com.hka.ps.api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(name = "BulkRejection", description = "Abgelehnter Eintrag einer Sammel-Transition")
+public record BulkRejection(
+    @Schema(description = "Order-ID des Eintrags", example = "ORD-20241006-143211-AB12CD34")
+    String orderId,
+    @Schema(description = "Ablehnungsgrund")
+    Reason reason,
+    @Schema(description = "Detailnachricht wie beim Einzelaufruf", example = "amount mismatch")
+    String message
+) {
+
+  @Schema(name = "BulkRejectionReason", description = "Ablehnungsgründe einer Sammel-Transition")
+  public enum Reason {
+    NOT_FOUND,
+    INVALID_AMOUNT,
+    AMOUNT_MISMATCH,
+    INVALID_STATE
+  }
+}
@@ -0,0 +1,15 @@
+package com.hka.ps.api.dto;
+
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(name = "BulkTransitionResponse", description = "Ergebnis einer Sammel-Transition (Capture oder Refund)")
+public record BulkTransitionResponse(
+    @Schema(description = "Order-IDs, die in den Zielstatus überführt wurden")
+    List<String> transitioned,
+    @Schema(description = "Order-IDs, die sich bereits im Zielstatus befanden")
+    List<String> alreadyInTarget,
+    @Schema(description = "Abgelehnte Einträge mit Grund")
+    List<BulkRejection> rejected
+) {}
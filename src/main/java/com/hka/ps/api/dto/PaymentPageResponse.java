@@ -0,0 +1,13 @@
+package com.hka.ps.api.dto;
+
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(name = "PaymentPageResponse", description = "Eine Seite des Zahlungs-Listings")
+public record PaymentPageResponse(
+    @Schema(description = "Zahlungen der Seite, sortiert nach createdAt und interner ID")
+    List<PaymentResponse> items,
+    @Schema(description = "Cursor für die nächste Seite; fehlt auf der letzten Seite", nullable = true)
+    String nextCursor
+) {}
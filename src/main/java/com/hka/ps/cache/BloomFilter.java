@@ -0,0 +1,95 @@
+package com.hka.ps.cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-sicherer Bloom-Filter für Strings. Bits werden lock-frei über eine
+ * {@link AtomicLongArray} gesetzt; die {@code k} Positionen entstehen per Double Hashing
+ * aus einem 64-Bit-Hash.
+ */
+final class BloomFilter {
+
+  private final AtomicLongArray words;
+  private final long bitCount;
+  private final int hashCount;
+  private final long expectedInsertions;
+  private final LongAdder insertions = new LongAdder();
+
+  private BloomFilter(long bitCount, int hashCount, long expectedInsertions) {
+    this.words = new AtomicLongArray((int) ((bitCount + 63) >>> 6));
+    this.bitCount = (long) words.length() << 6;
+    this.hashCount = hashCount;
+    this.expectedInsertions = expectedInsertions;
+  }
+
+  /** Dimensioniert den Filter für {@code expectedInsertions} Elemente bei Fehlerrate {@code fpp}. */
+  static BloomFilter create(long expectedInsertions, double fpp) {
+    long n = Math.max(1, expectedInsertions);
+    double p = Math.min(Math.max(fpp, 1e-9), 0.5);
+    long m = (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+    m = Math.min(Math.max(m, 64), Integer.MAX_VALUE);
+    int k = Math.max(1, (int) Math.round((double) m / n * Math.log(2)));
+    return new BloomFilter(m, k, n);
+  }
+
+  void add(String value) {
+    long hash = hash64(value);
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32);
+    for (int i = 1; i <= hashCount; i++) {
+      long bit = index(h1 + i * h2);
+      int word = (int) (bit >>> 6);
+      long mask = 1L << bit;
+      long current = words.get(word);
+      while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask)) {
+        current = words.get(word);
+      }
+    }
+    insertions.increment();
+  }
+
+  boolean mightContain(String value) {
+    long hash = hash64(value);
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32);
+    for (int i = 1; i <= hashCount; i++) {
+      long bit = index(h1 + i * h2);
+      if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  long insertions() {
+    return insertions.sum();
+  }
+
+  long expectedInsertions() {
+    return expectedInsertions;
+  }
+
+  /** Theoretische Fehlerrate beim aktuellen Füllstand: {@code (1 - e^(-kn/m))^k}. */
+  double expectedFpp() {
+    return Math.pow(1 - Math.exp(-(double) hashCount * insertions() / bitCount), hashCount);
+  }
+
+  private long index(int combined) {
+    return (combined & Integer.MAX_VALUE) % bitCount;
+  }
+
+  private static long hash64(String value) {
+    long h = 0xcbf29ce484222325L;
+    for (int i = 0; i < value.length(); i++) {
+      h ^= value.charAt(i);
+      h *= 0x100000001b3L;
+    }
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+}
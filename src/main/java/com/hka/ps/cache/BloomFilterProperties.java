@@ -0,0 +1,46 @@
+package com.hka.ps.cache;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "ps.cache.bloom")
+public class BloomFilterProperties {
+
+  private boolean enabled = false;
+  private long expectedInsertions = 1_000_000;
+  private double falsePositiveRate = 0.01;
+  private Duration rebuildGrace = Duration.ofSeconds(30);
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public long getExpectedInsertions() {
+    return expectedInsertions;
+  }
+
+  public void setExpectedInsertions(long expectedInsertions) {
+    this.expectedInsertions = expectedInsertions;
+  }
+
+  public double getFalsePositiveRate() {
+    return falsePositiveRate;
+  }
+
+  public void setFalsePositiveRate(double falsePositiveRate) {
+    this.falsePositiveRate = falsePositiveRate;
+  }
+
+  public Duration getRebuildGrace() {
+    return rebuildGrace;
+  }
+
+  public void setRebuildGrace(Duration rebuildGrace) {
+    this.rebuildGrace = rebuildGrace;
+  }
+}
@@ -0,0 +1,189 @@
+package com.hka.ps.cache;
+
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.hka.ps.domain.Payment;
+
+/**
+ * Begrenzter In-Process-Cache vor dem {@code PaymentStore} für wiederholte Authorize-Aufrufe.
+ * Abgelegt werden nur unveränderliche {@link PaymentSnapshot}s, jeweils unter Idempotency-Key
+ * und orderId. Neue Einträge werden erst nach dem Commit sichtbar, Capture und Refund
+ * invalidieren die Einträge der Order. Mit {@code ps.cache.idempotency.enabled=false} ist
+ * jede Operation ein No-op.
+ *
+ * <p>Ein {@link #put} nach dem Commit kann einen Stand ablegen, der vor einer parallel
+ * committeten Änderung gelesen wurde. Deshalb merkt sich die Invalidierung die committete
+ * Version je orderId, und {@link #put} legt per {@code compute} nur Snapshots ab, die weder
+ * älter als diese Version noch älter als der vorhandene Eintrag sind.
+ */
+@Component
+public class IdempotencyCache {
+
+  private final boolean enabled;
+  private final Cache<String, PaymentSnapshot> byKey;
+  private final Cache<String, PaymentSnapshot> byOrderId;
+  /** Zuletzt von Capture oder Refund committete Version je orderId; kleinere werden nicht mehr abgelegt. */
+  private final Cache<String, Long> committedVersions;
+
+  public IdempotencyCache(IdempotencyCacheProperties properties) {
+    this.enabled = properties.isEnabled();
+    this.byKey = build(properties);
+    this.byOrderId = build(properties);
+    this.committedVersions = Caffeine.newBuilder()
+        .maximumSize(properties.getMaximumSize())
+        .expireAfterWrite(properties.getTtl())
+        .build();
+  }
+
+  private static Cache<String, PaymentSnapshot> build(IdempotencyCacheProperties properties) {
+    return Caffeine.newBuilder()
+        .maximumSize(properties.getMaximumSize())
+        .expireAfterWrite(properties.getTtl())
+        .recordStats()
+        .build();
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /** @return eine nicht verwaltete Kopie der Zahlung oder {@code null} */
+  public Payment findByIdempotencyKey(String key) {
+    if (!enabled || key == null) {
+      return null;
+    }
+    PaymentSnapshot snapshot = byKey.getIfPresent(key);
+    return snapshot == null ? null : snapshot.toPayment();
+  }
+
+  /** @return eine nicht verwaltete Kopie der Zahlung oder {@code null} */
+  public Payment findByOrderId(String orderId) {
+    if (!enabled || orderId == null) {
+      return null;
+    }
+    PaymentSnapshot snapshot = byOrderId.getIfPresent(orderId);
+    return snapshot == null ? null : snapshot.toPayment();
+  }
+
+  /**
+   * Legt die Zahlung ab. Innerhalb einer Transaktion geschieht das erst nach dem Commit,
+   * damit zurückgerollte Zahlungen nie im Cache landen.
+   */
+  public void put(Payment payment) {
+    if (!enabled) {
+      return;
+    }
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          store(PaymentSnapshot.of(payment));
+        }
+      });
+    } else {
+      store(PaymentSnapshot.of(payment));
+    }
+  }
+
+  /**
+   * Entfernt die Einträge der Zahlung sofort und nochmals nach Abschluss der Transaktion,
+   * damit ein parallel gelesener alter Stand nicht liegen bleibt. Nach dem Commit gilt die
+   * dann geflushte Version der Zahlung als Untergrenze für spätere {@link #put}s.
+   */
+  public void invalidate(Payment payment) {
+    invalidate(payment.getOrderId(), payment.getIdempotencyKey(), payment::getVersion);
+  }
+
+  /**
+   * Wie {@link #invalidate(Payment)}, für Aufrufer ohne geladene Entity; {@code committedVersion}
+   * ist die Version nach dem Commit (oder eine größere).
+   */
+  public void invalidate(String orderId, String key, long committedVersion) {
+    invalidate(orderId, key, () -> committedVersion);
+  }
+
+  private void invalidate(String orderId, String key, Supplier<Long> committedVersion) {
+    if (!enabled) {
+      return;
+    }
+    evict(orderId, key);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCompletion(int status) {
+          if (status == STATUS_COMMITTED) {
+            raiseCommittedVersion(orderId, committedVersion.get());
+          }
+          evict(orderId, key);
+        }
+      });
+    } else {
+      raiseCommittedVersion(orderId, committedVersion.get());
+      evict(orderId, key);
+    }
+  }
+
+  /** Summierte Treffer-, Fehl- und Verdrängungsstatistik beider Indizes. */
+  public CacheStats stats() {
+    return byKey.stats().plus(byOrderId.stats());
+  }
+
+  /** Meldet beide Indizes als Caffeine-Cache-Metriken ({@code cache=idempotency.key} bzw. {@code idempotency.order}). */
+  public void bindTo(MeterRegistry registry) {
+    CaffeineCacheMetrics.monitor(registry, byKey, "idempotency.key");
+    CaffeineCacheMetrics.monitor(registry, byOrderId, "idempotency.order");
+  }
+
+  public long size() {
+    return byKey.estimatedSize() + byOrderId.estimatedSize();
+  }
+
+  // compute sperrt den Eintrag: eine Invalidierung, die nach der Prüfung ihre Version einträgt,
+  // entfernt den Snapshot danach wieder.
+  private void store(PaymentSnapshot snapshot) {
+    byOrderId.asMap().compute(snapshot.orderId(), (orderId, current) -> newer(current, snapshot));
+    if (snapshot.idempotencyKey() != null) {
+      byKey.asMap().compute(snapshot.idempotencyKey(), (key, current) -> newer(current, snapshot));
+    }
+  }
+
+  private PaymentSnapshot newer(PaymentSnapshot current, PaymentSnapshot candidate) {
+    long version = versionOf(candidate);
+    Long committed = committedVersions.getIfPresent(candidate.orderId());
+    if (committed != null && version < committed) {
+      return current;
+    }
+    if (current != null && current.orderId().equals(candidate.orderId()) && versionOf(current) > version) {
+      return current;
+    }
+    return candidate;
+  }
+
+  private void raiseCommittedVersion(String orderId, Long version) {
+    if (orderId != null && version != null) {
+      committedVersions.asMap().merge(orderId, version, Math::max);
+    }
+  }
+
+  private static long versionOf(PaymentSnapshot snapshot) {
+    return snapshot.version() == null ? 0 : snapshot.version();
+  }
+
+  private void evict(String orderId, String key) {
+    if (orderId != null) {
+      byOrderId.invalidate(orderId);
+    }
+    if (key != null) {
+      byKey.invalidate(key);
+    }
+  }
+}
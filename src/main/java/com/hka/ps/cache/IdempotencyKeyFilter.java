@@ -0,0 +1,247 @@
+package com.hka.ps.cache;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.hka.ps.domain.Payment;
+import com.hka.ps.repo.PaymentKeys;
+import com.hka.ps.repo.PaymentStore;
+
+/**
+ * Bloom-Filter über alle bekannten Idempotency-Keys und orderIds. Liefert er für einen
+ * Schlüssel {@code false}, existiert keine Zahlung dazu und der DB-Lookup entfällt.
+ * Der Filter wird beim Start aus der Tabelle {@code payments} aufgebaut und bei jedem
+ * Speichern ergänzt. Solange er nicht aufgebaut ist, antwortet er immer mit {@code true}.
+ *
+ * <p>Nach einem Rebuild wird eine negative Antwort für die Dauer von
+ * {@code ps.cache.bloom.rebuild-grace} zusätzlich gegen den Vorgänger geprüft (direkt nach
+ * dem Start: gar nicht verworfen), weil Zahlungen, die während des Rebuilds gespeichert,
+ * aber noch nicht committet wurden, im neuen Filter fehlen können. {@link #add} und das Umschalten
+ * auf den neuen Filter schließen sich aus: ein Schlüssel landet während eines Rebuilds in beiden
+ * Filtern, danach nur im neuen, aber nie allein im alten.
+ *
+ * <p>Der Filter kennt nur Zahlungen, die über diese Instanz oder beim letzten Rebuild
+ * gesehen wurden. Schreiben mehrere Instanzen in dieselbe Datenbank, muss er über
+ * {@code ps.cache.bloom.enabled=false} abgeschaltet werden; deshalb ist er standardmäßig aus.
+ */
+@Component
+public class IdempotencyKeyFilter {
+
+  private static final Logger log = LoggerFactory.getLogger(IdempotencyKeyFilter.class);
+
+  private record Filters(BloomFilter keys, BloomFilter orderIds) {
+
+    static Filters create(long expectedInsertions, double fpp) {
+      return new Filters(BloomFilter.create(expectedInsertions, fpp), BloomFilter.create(expectedInsertions, fpp));
+    }
+
+    void add(String orderId, String key) {
+      if (orderId != null) {
+        orderIds.add(orderId);
+      }
+      if (key != null) {
+        keys.add(key);
+      }
+    }
+  }
+
+  private final BloomFilterProperties properties;
+  private final PaymentStore repository;
+  private final TransactionTemplate readOnlyTx;
+  private final AtomicBoolean rebuilding = new AtomicBoolean();
+  /** Lesesperre für {@link #add}, Schreibsperre für das Setzen von {@code pending} und {@code current}. */
+  private final ReadWriteLock swap = new ReentrantReadWriteLock();
+
+  private volatile Filters current;
+  private volatile Filters pending;
+  private volatile Filters previous;
+  private volatile long graceDeadline;
+
+  private final LongAdder definiteMisses = new LongAdder();
+  private final LongAdder probablePositives = new LongAdder();
+  private final LongAdder falsePositives = new LongAdder();
+
+  public IdempotencyKeyFilter(BloomFilterProperties properties, PaymentStore repository,
+      PlatformTransactionManager transactionManager) {
+    this.properties = properties;
+    this.repository = repository;
+    this.readOnlyTx = new TransactionTemplate(transactionManager);
+    this.readOnlyTx.setReadOnly(true);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void onReady() {
+    if (properties.isEnabled()) {
+      rebuild();
+    }
+  }
+
+  /** @return {@code false}, wenn sicher keine Zahlung mit diesem Idempotency-Key existiert */
+  public boolean mightContainKey(String key) {
+    Filters f = current;
+    if (f == null) {
+      return true;
+    }
+    boolean hit = f.keys().mightContain(key);
+    if (!hit && inGracePeriod()) {
+      Filters prev = previous;
+      hit = prev == null || prev.keys().mightContain(key);
+    }
+    return record(hit);
+  }
+
+  /** @return {@code false}, wenn sicher keine Zahlung mit dieser orderId existiert */
+  public boolean mightContainOrderId(String orderId) {
+    Filters f = current;
+    if (f == null) {
+      return true;
+    }
+    boolean hit = f.orderIds().mightContain(orderId);
+    if (!hit && inGracePeriod()) {
+      Filters prev = previous;
+      hit = prev == null || prev.orderIds().mightContain(orderId);
+    }
+    return record(hit);
+  }
+
+  /** Meldet, dass ein positiver Filterbefund von der Datenbank nicht bestätigt wurde. */
+  public void recordFalsePositive() {
+    if (current != null) {
+      falsePositives.increment();
+    }
+  }
+
+  /** Nimmt die Schlüssel einer Zahlung auf. Wird vor dem Commit aufgerufen; ein Rollback erzeugt höchstens ein False Positive. */
+  public void add(Payment payment) {
+    swap.readLock().lock();
+    try {
+      Filters f = current;
+      if (f != null) {
+        f.add(payment.getOrderId(), payment.getIdempotencyKey());
+      }
+      Filters p = pending;
+      if (p != null) {
+        p.add(payment.getOrderId(), payment.getIdempotencyKey());
+      }
+    } finally {
+      swap.readLock().unlock();
+    }
+  }
+
+  /**
+   * Baut den Filter neu aus der Datenbank auf, dimensioniert auf das Doppelte der aktuellen
+   * Zeilenzahl (mindestens {@code ps.cache.bloom.expected-insertions}). Parallele
+   * {@link #add}-Aufrufe landen sowohl im alten als auch im neuen Filter.
+   */
+  public void rebuild() {
+    if (!rebuilding.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      long rows = repository.count();
+      long capacity = Math.max(properties.getExpectedInsertions(), rows * 2);
+      Filters next = Filters.create(capacity, properties.getFalsePositiveRate());
+      publish(() -> pending = next);
+      readOnlyTx.executeWithoutResult(status -> {
+        try (Stream<PaymentKeys> keys = repository.streamAllKeys()) {
+          keys.forEach(k -> next.add(k.getOrderId(), k.getIdempotencyKey()));
+        }
+      });
+      publish(() -> {
+        previous = current;
+        graceDeadline = System.nanoTime() + properties.getRebuildGrace().toNanos();
+        current = next;
+        pending = null;
+      });
+      resetStats();
+      log.info("Idempotency bloom filter rebuilt for {} payments (capacity {})", rows, capacity);
+    } finally {
+      publish(() -> pending = null);
+      rebuilding.set(false);
+    }
+  }
+
+  private void publish(Runnable change) {
+    swap.writeLock().lock();
+    try {
+      change.run();
+    } finally {
+      swap.writeLock().unlock();
+    }
+  }
+
+  /** Vergrößert den Filter, sobald mehr Elemente eingefügt wurden als er ausgelegt ist. */
+  @Scheduled(fixedDelayString = "${ps.cache.bloom.resize-check-interval-ms:60000}")
+  public void resizeIfSaturated() {
+    if (previous != null && !inGracePeriod()) {
+      previous = null;
+    }
+    Filters f = current;
+    if (f != null && f.orderIds().insertions() > f.orderIds().expectedInsertions()) {
+      rebuild();
+    }
+  }
+
+  public boolean isReady() {
+    return current != null;
+  }
+
+  /**
+   * Beobachtete Fehlerrate: Anteil der nicht existierenden Schlüssel, für die der Filter
+   * trotzdem {@code true} geliefert hat.
+   */
+  public double observedFalsePositiveRate() {
+    long fp = falsePositives.sum();
+    long negatives = fp + definiteMisses.sum();
+    return negatives == 0 ? 0.0 : (double) fp / negatives;
+  }
+
+  /** Theoretische Fehlerrate des Orders-Filters beim aktuellen Füllstand. */
+  public double expectedFalsePositiveRate() {
+    Filters f = current;
+    return f == null ? 0.0 : f.orderIds().expectedFpp();
+  }
+
+  public long getDefiniteMisses() {
+    return definiteMisses.sum();
+  }
+
+  public long getProbablePositives() {
+    return probablePositives.sum();
+  }
+
+  public long getFalsePositives() {
+    return falsePositives.sum();
+  }
+
+  private boolean inGracePeriod() {
+    return System.nanoTime() - graceDeadline < 0;
+  }
+
+  private boolean record(boolean mightContain) {
+    if (mightContain) {
+      probablePositives.increment();
+    } else {
+      definiteMisses.increment();
+    }
+    return mightContain;
+  }
+
+  private void resetStats() {
+    definiteMisses.reset();
+    probablePositives.reset();
+    falsePositives.reset();
+  }
+}
@@ -0,0 +1,51 @@
+package com.hka.ps.cache;
+
+import java.time.Instant;
+
+import com.hka.ps.domain.Payment;
+import com.hka.ps.domain.PaymentStatus;
+
+/** Unveränderliche Kopie einer {@link Payment} für den Idempotenz-Cache. */
+public record PaymentSnapshot(
+    Long id,
+    String orderId,
+    long amountMinor,
+    String currency,
+    String method,
+    PaymentStatus status,
+    Instant createdAt,
+    Instant updatedAt,
+    String idempotencyKey,
+    Long version
+) {
+
+  public static PaymentSnapshot of(Payment payment) {
+    return new PaymentSnapshot(
+        payment.getId(),
+        payment.getOrderId(),
+        payment.getAmountMinor(),
+        payment.getCurrency(),
+        payment.getMethod(),
+        payment.getStatus(),
+        payment.getCreatedAt(),
+        payment.getUpdatedAt(),
+        payment.getIdempotencyKey(),
+        payment.getVersion());
+  }
+
+  /** Liefert eine neue, nicht von JPA verwaltete {@link Payment} mit den Werten des Snapshots. */
+  public Payment toPayment() {
+    Payment payment = new Payment();
+    payment.setId(id);
+    payment.setOrderId(orderId);
+    payment.setAmountMinor(amountMinor);
+    payment.setCurrency(currency);
+    payment.setMethod(method);
+    payment.setStatus(status);
+    payment.setCreatedAt(createdAt);
+    payment.setUpdatedAt(updatedAt);
+    payment.setIdempotencyKey(idempotencyKey);
+    payment.setVersion(version);
+    return payment;
+  }
+}
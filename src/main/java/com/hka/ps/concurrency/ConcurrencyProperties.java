@@ -0,0 +1,73 @@
+package com.hka.ps.concurrency;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "ps.concurrency")
+public class ConcurrencyProperties {
+
+  private int maxRetries = 3;
+  private Duration retryBackoff = Duration.ofMillis(5);
+  private boolean stripedLocks = true;
+  private int stripes = 1024;
+  private Duration lockTimeout = Duration.ofSeconds(2);
+  private boolean coalesceAuthorize = true;
+  private Duration pinnedThreshold = Duration.ofMillis(20);
+
+  public int getMaxRetries() {
+    return maxRetries;
+  }
+
+  public void setMaxRetries(int maxRetries) {
+    this.maxRetries = maxRetries;
+  }
+
+  public Duration getRetryBackoff() {
+    return retryBackoff;
+  }
+
+  public void setRetryBackoff(Duration retryBackoff) {
+    this.retryBackoff = retryBackoff;
+  }
+
+  public boolean isStripedLocks() {
+    return stripedLocks;
+  }
+
+  public void setStripedLocks(boolean stripedLocks) {
+    this.stripedLocks = stripedLocks;
+  }
+
+  public int getStripes() {
+    return stripes;
+  }
+
+  public void setStripes(int stripes) {
+    this.stripes = stripes;
+  }
+
+  public Duration getLockTimeout() {
+    return lockTimeout;
+  }
+
+  public void setLockTimeout(Duration lockTimeout) {
+    this.lockTimeout = lockTimeout;
+  }
+
+  public boolean isCoalesceAuthorize() {
+    return coalesceAuthorize;
+  }
+
+  public void setCoalesceAuthorize(boolean coalesceAuthorize) {
+    this.coalesceAuthorize = coalesceAuthorize;
+  }
+
+  public Duration getPinnedThreshold() {
+    return pinnedThreshold;
+  }
+
+  public void setPinnedThreshold(Duration pinnedThreshold) {
+    this.pinnedThreshold = pinnedThreshold;
+  }
+}
@@ -0,0 +1,17 @@
+package com.hka.ps.concurrency;
+
+/**
+ * Ein Statusübergang scheiterte auch nach allen Wiederholungen an parallelen Änderungen;
+ * wird wie jede {@link IllegalStateException} zu 409. Ohne Stacktrace.
+ */
+public class ConcurrentUpdateException extends IllegalStateException {
+
+  public ConcurrentUpdateException(String orderId) {
+    super("Concurrent modification of payment for orderId=" + orderId);
+  }
+
+  @Override
+  public synchronized Throwable fillInStackTrace() {
+    return this;
+  }
+}
@@ -0,0 +1,82 @@
+package com.hka.ps.concurrency;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+/**
+ * Meldet im Virtual-Thread-Modus, wenn ein virtueller Thread länger als
+ * {@code ps.concurrency.pinned-threshold} an seinen Träger-Thread gebunden blieb (JFR-Ereignis
+ * {@code jdk.VirtualThreadPinned}, z. B. blockierendes I/O innerhalb von {@code synchronized}).
+ * Geloggt wird der oberste Frame aus {@code com.hka}, sonst der oberste Frame überhaupt.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class PinnedThreadMonitor implements SmartLifecycle {
+
+  private static final Logger logger = LoggerFactory.getLogger(PinnedThreadMonitor.class);
+  private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+  private final ConcurrencyProperties properties;
+  private final LongAdder pinned = new LongAdder();
+  private volatile RecordingStream stream;
+
+  public PinnedThreadMonitor(ConcurrencyProperties properties) {
+    this.properties = properties;
+  }
+
+  /** Anzahl der gemeldeten Pinning-Ereignisse über der Schwelle. */
+  public long getPinnedCount() {
+    return pinned.sum();
+  }
+
+  @Override
+  public void start() {
+    RecordingStream rs = new RecordingStream();
+    rs.enable(PINNED_EVENT).withThreshold(properties.getPinnedThreshold()).withStackTrace();
+    rs.onEvent(PINNED_EVENT, this::onPinned);
+    rs.startAsync();
+    stream = rs;
+  }
+
+  @Override
+  public void stop() {
+    RecordingStream rs = stream;
+    stream = null;
+    if (rs != null) {
+      rs.close();
+    }
+  }
+
+  @Override
+  public boolean isRunning() {
+    return stream != null;
+  }
+
+  private void onPinned(RecordedEvent event) {
+    pinned.increment();
+    logger.warn("Virtual thread pinned for {} ms at {}", event.getDuration().toMillis(), location(event.getStackTrace()));
+  }
+
+  private static String location(RecordedStackTrace stackTrace) {
+    if (stackTrace == null || stackTrace.getFrames().isEmpty()) {
+      return "<unknown>";
+    }
+    RecordedFrame first = stackTrace.getFrames().get(0);
+    for (RecordedFrame frame : stackTrace.getFrames()) {
+      if (frame.isJavaFrame() && frame.getMethod().getType().getName().startsWith("com.hka.")) {
+        first = frame;
+        break;
+      }
+    }
+    return first.getMethod().getType().getName() + "." + first.getMethod().getName() + ":" + first.getLineNumber();
+  }
+}
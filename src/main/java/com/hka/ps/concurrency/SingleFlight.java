@@ -0,0 +1,130 @@
+package com.hka.ps.concurrency;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bündelt gleichzeitige Aufrufe mit gemeinsamen Schlüsseln: der erste Aufrufer führt die Arbeit
+ * aus, alle weiteren warten auf sein Ergebnis bzw. erhalten dieselbe Exception. Ein Aufruf kann
+ * mehrere Schlüssel tragen; er schließt sich dem ersten laufenden Aufruf an, der einen davon hält.
+ * Der Eintrag verschwindet, sobald die Arbeit zurückkehrt, Ergebnisse werden also nicht gecacht.
+ * Ein Nachzügler wartet höchstens {@code timeout}; hängt der erste Aufruf länger, führt er die Arbeit
+ * selbst aus, wie der {@link TransitionGuard} nach einer Lock-Wartezeit ohne Lock weiterläuft.
+ */
+public class SingleFlight<V> {
+
+  private final ConcurrentMap<String, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+  private final LongAdder leaders = new LongAdder();
+  private final LongAdder followers = new LongAdder();
+  private final LongAdder timeouts = new LongAdder();
+  private final long timeoutNanos;
+
+  public SingleFlight(Duration timeout) {
+    this.timeoutNanos = timeout.toNanos();
+  }
+
+  /**
+   * Ergebnis eines Aufrufs; {@code shared} ist gesetzt, wenn es von einem anderen Aufrufer stammt.
+   */
+  public record Result<V>(V value, boolean shared) {
+  }
+
+  public Result<V> execute(List<String> keys, Supplier<V> work) {
+    CompletableFuture<V> mine = new CompletableFuture<>();
+    List<String> claimed = new ArrayList<>(keys.size());
+    CompletableFuture<V> running = null;
+    for (String key : keys) {
+      if (key == null) {
+        continue;
+      }
+      running = inFlight.putIfAbsent(key, mine);
+      if (running != null) {
+        break;
+      }
+      claimed.add(key);
+    }
+
+    if (running != null) {
+      // Wer sich zwischenzeitlich an unsere Schlüssel gehängt hat, bekommt das fremde Ergebnis.
+      running.whenComplete((value, error) -> {
+        if (error != null) {
+          mine.completeExceptionally(error);
+        } else {
+          mine.complete(value);
+        }
+      });
+      release(claimed, mine);
+      followers.increment();
+      try {
+        return new Result<>(await(running), true);
+      } catch (TimeoutException e) {
+        timeouts.increment();
+        return new Result<>(work.get(), false);
+      }
+    }
+
+    leaders.increment();
+    try {
+      V value = work.get();
+      mine.complete(value);
+      return new Result<>(value, false);
+    } catch (RuntimeException | Error e) {
+      mine.completeExceptionally(e);
+      throw e;
+    } finally {
+      release(claimed, mine);
+    }
+  }
+
+  /** Anzahl der Aufrufe, die die Arbeit selbst ausgeführt haben. */
+  public long getLeaders() {
+    return leaders.sum();
+  }
+
+  /** Anzahl der Aufrufe, die das Ergebnis eines laufenden Aufrufs übernommen haben. */
+  public long getFollowers() {
+    return followers.sum();
+  }
+
+  /** Nachzügler, die nicht rechtzeitig ein Ergebnis bekamen und die Arbeit selbst ausgeführt haben. */
+  public long getTimeouts() {
+    return timeouts.sum();
+  }
+
+  public int size() {
+    return inFlight.size();
+  }
+
+  private void release(List<String> claimed, CompletableFuture<V> mine) {
+    for (String key : claimed) {
+      inFlight.remove(key, mine);
+    }
+  }
+
+  private V await(CompletableFuture<V> future) throws TimeoutException {
+    try {
+      return future.get(timeoutNanos, TimeUnit.NANOSECONDS);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException re) {
+        throw re;
+      }
+      if (cause instanceof Error err) {
+        throw err;
+      }
+      throw new IllegalStateException(cause);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new TimeoutException("interrupted while waiting for the leader");
+    }
+  }
+}
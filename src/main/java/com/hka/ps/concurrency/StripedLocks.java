@@ -0,0 +1,28 @@
+package com.hka.ps.concurrency;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Feste Menge von Locks, auf die Schlüssel per Hash verteilt werden. Zwei Schlüssel können
+ * sich einen Stripe teilen; das serialisiert sie unnötig, ist aber nie falsch.
+ */
+final class StripedLocks {
+
+  private final ReentrantLock[] locks;
+  private final int mask;
+
+  StripedLocks(int stripes) {
+    int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+    this.locks = new ReentrantLock[size];
+    for (int i = 0; i < size; i++) {
+      locks[i] = new ReentrantLock();
+    }
+    this.mask = size - 1;
+  }
+
+  ReentrantLock lockFor(String key) {
+    int h = key == null ? 0 : key.hashCode();
+    h ^= (h >>> 16);
+    return locks[h & mask];
+  }
+}
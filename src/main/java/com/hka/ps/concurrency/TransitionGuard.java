@@ -0,0 +1,104 @@
+package com.hka.ps.concurrency;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Führt Statusübergänge einer Zahlung in einer eigenen Transaktion aus. Optional wird vorher
+ * ein In-Process-Lock auf den orderId-Stripe genommen, sodass konkurrierende Aufrufe derselben
+ * Order auf diesem Knoten hintereinander laufen. Scheitert der Commit an der
+ * {@code @Version}-Prüfung, wird der Übergang bis zu {@code ps.concurrency.max-retries}-mal
+ * mit frisch gelesenem Zustand wiederholt.
+ */
+@Component
+public class TransitionGuard {
+
+  private final ConcurrencyProperties properties;
+  private final TransactionTemplate tx;
+  private final StripedLocks locks;
+
+  private final LongAdder conflicts = new LongAdder();
+  private final LongAdder retries = new LongAdder();
+  private final LongAdder exhausted = new LongAdder();
+  private final LongAdder lockTimeouts = new LongAdder();
+
+  public TransitionGuard(ConcurrencyProperties properties, PlatformTransactionManager transactionManager) {
+    this.properties = properties;
+    this.tx = new TransactionTemplate(transactionManager);
+    this.locks = properties.isStripedLocks() ? new StripedLocks(properties.getStripes()) : null;
+  }
+
+  public <T> T execute(String orderId, Supplier<T> work) {
+    ReentrantLock lock = locks == null ? null : locks.lockFor(orderId);
+    boolean locked = lock != null && tryLock(lock);
+    try {
+      for (int attempt = 0; ; attempt++) {
+        try {
+          return tx.execute(status -> work.get());
+        } catch (OptimisticLockingFailureException e) {
+          conflicts.increment();
+          if (attempt >= properties.getMaxRetries()) {
+            exhausted.increment();
+            throw new ConcurrentUpdateException(orderId);
+          }
+          retries.increment();
+          backoff(attempt);
+        }
+      }
+    } finally {
+      if (locked) {
+        lock.unlock();
+      }
+    }
+  }
+
+  /** Anzahl der an der Versionsprüfung gescheiterten Commits. */
+  public long getConflicts() {
+    return conflicts.sum();
+  }
+
+  public long getRetries() {
+    return retries.sum();
+  }
+
+  /** Übergänge, die auch nach allen Wiederholungen scheiterten (Antwort 409). */
+  public long getExhausted() {
+    return exhausted.sum();
+  }
+
+  /** Aufrufe, die ohne Stripe-Lock weiterliefen, weil er nicht rechtzeitig frei wurde. */
+  public long getLockTimeouts() {
+    return lockTimeouts.sum();
+  }
+
+  private boolean tryLock(ReentrantLock lock) {
+    try {
+      if (lock.tryLock(properties.getLockTimeout().toNanos(), TimeUnit.NANOSECONDS)) {
+        return true;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    lockTimeouts.increment();
+    return false;
+  }
+
+  private void backoff(int attempt) {
+    long nanos = properties.getRetryBackoff().toNanos() << Math.min(attempt, 6);
+    if (nanos <= 0) {
+      return;
+    }
+    try {
+      TimeUnit.NANOSECONDS.sleep(nanos);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,19 @@
+package com.hka.ps.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingClass;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Bricht den Start ab, wenn das Profil {@code reactive} aktiv ist, das Jar aber ohne {@code -Preactive} gebaut wurde;
+ * sonst liefe ein Tomcat ohne Zahlungs-Endpunkte an.
+ */
+@Configuration
+@Profile("reactive")
+@ConditionalOnMissingClass("com.hka.ps.config.ReactiveWebConfig")
+public class ReactiveBuildCheck {
+
+  public ReactiveBuildCheck() {
+    throw new IllegalStateException("profile reactive requires a build with -Preactive");
+  }
+}
@@ -0,0 +1,55 @@
+package com.hka.ps.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.hka.ps.admission.AdmissionControl;
+import com.hka.ps.admission.AdmissionInterceptor;
+import com.hka.ps.api.PaymentCborHttpMessageConverter;
+import com.hka.ps.api.PaymentJsonHttpMessageConverter;
+import com.hka.ps.metrics.PaymentMetrics.Operation;
+import com.hka.ps.tracing.TracingJacksonHttpMessageConverter;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+  private final AdmissionControl admission;
+
+  public WebConfig(AdmissionControl admission) {
+    this.admission = admission;
+  }
+
+  /** Ersetzt den von Spring Boot konfigurierten Jackson-Converter; gleicher ObjectMapper, zusätzlich JFR-Ereignisse. */
+  @Bean
+  public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+    return new TracingJacksonHttpMessageConverter(objectMapper);
+  }
+
+  /** Zusätzlicher Converter; Spring Boot stellt ihn vor die Standard-Converter, also auch vor Jackson. */
+  @Bean
+  public PaymentJsonHttpMessageConverter paymentJsonHttpMessageConverter() {
+    return new PaymentJsonHttpMessageConverter();
+  }
+
+  /** {@code application/cbor} für interne Aufrufer; der Builder von Spring Boot ist ein Prototyp, JSON bleibt unberührt. */
+  @Bean
+  public PaymentCborHttpMessageConverter paymentCborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+    return new PaymentCborHttpMessageConverter(PaymentCborHttpMessageConverter.objectMapper(builder));
+  }
+
+  /** Zulassungskontrolle je Endpunkt; die Sammel-Endpunkte zählen zur Grenze ihres Einzel-Endpunkts. */
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    registry.addInterceptor(new AdmissionInterceptor(admission, Operation.AUTHORIZE))
+        .addPathPatterns("/payments/authorize", "/payments/authorize:batch");
+    registry.addInterceptor(new AdmissionInterceptor(admission, Operation.CAPTURE))
+        .addPathPatterns("/payments/capture", "/payments/capture:batch");
+    registry.addInterceptor(new AdmissionInterceptor(admission, Operation.REFUND))
+        .addPathPatterns("/payments/refund", "/payments/refund:batch");
+  }
+}
@@ -0,0 +1,69 @@
+package com.hka.ps.domain;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Betrag als {@code long} in Hundertsteln plus ISO-4217-Code. Die Skala ist wie bei der früheren Spalte
+ * {@code DECIMAL(19,2)} für alle Währungen zwei; mehr Nachkommastellen werden kaufmännisch gerundet, so wie es die
+ * Datenbank beim Speichern tat. {@link BigDecimal} kommt nur noch an der JSON-Grenze vor.
+ */
+public record Money(long minor, String currency) {
+
+  /** Nachkommastellen aller Beträge, unabhängig von der Währung. */
+  public static final int SCALE = 2;
+
+  /** 10<sup>{@link #SCALE}</sup> */
+  private static final long UNIT = 100;
+
+  /** @throws IllegalArgumentException wenn der gerundete Betrag nicht in ein {@code long} passt */
+  public static Money of(BigDecimal amount, String currency) {
+    return new Money(toMinor(amount), currency);
+  }
+
+  public static long toMinor(BigDecimal amount) {
+    try {
+      return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    } catch (ArithmeticException e) {
+      throw new IllegalArgumentException("amount " + amount.toPlainString() + " exceeds the supported range");
+    }
+  }
+
+  public static BigDecimal toBigDecimal(long minor) {
+    return BigDecimal.valueOf(minor, SCALE);
+  }
+
+  public boolean isPositive() {
+    return minor > 0;
+  }
+
+  /**
+   * Vergleicht mit einem Betrag aus einer Anfrage, ungerundet wie früher gegen die gespeicherte Spalte: mit mehr als
+   * zwei Nachkommastellen ist er nie gleich.
+   */
+  public boolean matches(BigDecimal amount) {
+    if (amount == null) {
+      return false;
+    }
+    try {
+      return amount.movePointRight(SCALE).longValueExact() == minor;
+    } catch (ArithmeticException e) {
+      return false;
+    }
+  }
+
+  /** Vergleicht mit einem Betrag in ganzen Einheiten, ohne {@link BigDecimal} anzulegen. */
+  public int compareToMajor(long major) {
+    long limit = major <= Long.MAX_VALUE / UNIT ? major * UNIT : Long.MAX_VALUE;
+    return Long.compare(minor, limit);
+  }
+
+  public BigDecimal toBigDecimal() {
+    return toBigDecimal(minor);
+  }
+
+  @Override
+  public String toString() {
+    return toBigDecimal().toPlainString() + " " + currency;
+  }
+}
@@ -1,6 +1,5 @@
 package com.hka.ps.domain;
 
-import java.math.BigDecimal;
 import java.time.Instant;
 
 import jakarta.persistence.*;
@@ -8,18 +7,23 @@ import jakarta.persistence.*;
 @Entity
 @Table(name = "payments", uniqueConstraints = {
     @UniqueConstraint(name = "uk_payment_order", columnNames = "order_id")
+}, indexes = {
+    @Index(name = "ix_payment_created", columnList = "created_at, id"),
+    @Index(name = "ix_payment_updated", columnList = "updated_at")
 })
 public class Payment {
 
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payment_seq")
+  @SequenceGenerator(name = "payment_seq", sequenceName = "payment_seq", allocationSize = 50)
   private Long id;
 
   @Column(name = "order_id", nullable = false, unique = true)
   private String orderId;
 
-  @Column(nullable = false, precision = 19, scale = 2)
-  private BigDecimal amount;
+  /** Betrag in Hundertsteln, siehe {@link Money}. */
+  @Column(name = "amount_minor", nullable = false)
+  private long amountMinor;
 
   @Column(length = 3, nullable = false)
   private String currency;
@@ -40,6 +44,9 @@ public class Payment {
   @Column(name = "idempotency_key", unique = true)
   private String idempotencyKey;
 
+  @Version
+  private Long version;
+
   public Payment() {
   }
 
@@ -59,12 +66,22 @@ public class Payment {
     this.orderId = orderId;
   }
 
-  public BigDecimal getAmount() {
-    return amount;
+  public long getAmountMinor() {
+    return amountMinor;
+  }
+
+  public void setAmountMinor(long amountMinor) {
+    this.amountMinor = amountMinor;
+  }
+
+  public Money getAmount() {
+    return new Money(amountMinor, currency);
   }
 
-  public void setAmount(BigDecimal amount) {
-    this.amount = amount;
+  /** Setzt Betrag und Währung. */
+  public void setAmount(Money amount) {
+    this.amountMinor = amount.minor();
+    this.currency = amount.currency();
   }
 
   public String getCurrency() {
@@ -114,4 +131,12 @@ public class Payment {
   public void setIdempotencyKey(String idempotencyKey) {
     this.idempotencyKey = idempotencyKey;
   }
+
+  public Long getVersion() {
+    return version;
+  }
+
+  public void setVersion(Long version) {
+    this.version = version;
+  }
 }
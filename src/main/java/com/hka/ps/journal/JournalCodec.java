@@ -0,0 +1,134 @@
+package com.hka.ps.journal;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.zip.CRC32C;
+
+import com.hka.ps.domain.PaymentStatus;
+
+/**
+ * Binärformat eines Eintrags: {@code int} Länge der Nutzdaten, {@code int} CRC32C der Nutzdaten, dann die
+ * Nutzdaten. Eine Länge von 0 markiert das Ende der beschriebenen Daten eines Segments.
+ */
+final class JournalCodec {
+
+  static final int HEADER = 8;
+  /** Obergrenze eines Eintrags; Zeichenketten sind auf die Spaltenlänge (255 Zeichen) begrenzt. */
+  static final int MAX_RECORD = 8192;
+
+  private static final int NULL_STRING = 0xFFFF;
+
+  private JournalCodec() {
+  }
+
+  /** Schreibt den Eintrag samt Kopf ab Position 0 in {@code buffer} und lässt ihn lesebereit (flip) zurück. */
+  static void encode(JournalRecord r, ByteBuffer buffer, CRC32C crc) {
+    buffer.clear();
+    buffer.position(HEADER);
+    buffer.putLong(r.sequence());
+    buffer.put(code(r.status()));
+    buffer.putLong(r.paymentId());
+    buffer.putLong(r.amountMinor());
+    buffer.putLong(r.version());
+    putInstant(buffer, r.createdAt());
+    putInstant(buffer, r.updatedAt());
+    putString(buffer, r.currency());
+    putString(buffer, r.orderId());
+    putString(buffer, r.method());
+    putString(buffer, r.idempotencyKey());
+    int length = buffer.position() - HEADER;
+    crc.reset();
+    crc.update(buffer.array(), HEADER, length);
+    buffer.putInt(0, length);
+    buffer.putInt(4, (int) crc.getValue());
+    buffer.flip();
+  }
+
+  /**
+   * Liest den Eintrag ab der aktuellen Position und rückt sie dahinter vor. Liefert {@code null} und lässt die
+   * Position unverändert, wenn dort kein vollständiger Eintrag mit gültiger Prüfsumme steht.
+   */
+  static JournalRecord decode(ByteBuffer buffer, CRC32C crc) {
+    int start = buffer.position();
+    if (buffer.remaining() < HEADER) {
+      return null;
+    }
+    int length = buffer.getInt(start);
+    if (length <= 0 || length > MAX_RECORD - HEADER || length > buffer.remaining() - HEADER) {
+      return null;
+    }
+    int checksum = buffer.getInt(start + 4);
+    crc.reset();
+    crc.update(buffer.slice(start + HEADER, length));
+    if ((int) crc.getValue() != checksum) {
+      return null;
+    }
+    ByteBuffer in = buffer.slice(start + HEADER, length);
+    long sequence = in.getLong();
+    PaymentStatus status = status(in.get());
+    long paymentId = in.getLong();
+    long amountMinor = in.getLong();
+    long version = in.getLong();
+    Instant createdAt = getInstant(in);
+    Instant updatedAt = getInstant(in);
+    String currency = getString(in);
+    String orderId = getString(in);
+    String method = getString(in);
+    String idempotencyKey = getString(in);
+    buffer.position(start + HEADER + length);
+    return new JournalRecord(sequence, status, paymentId, orderId, amountMinor, currency, method, idempotencyKey,
+        createdAt, updatedAt, version);
+  }
+
+  private static byte code(PaymentStatus status) {
+    return switch (status) {
+      case AUTHORIZED -> 1;
+      case DECLINED -> 2;
+      case CAPTURED -> 3;
+      case REFUNDED -> 4;
+    };
+  }
+
+  private static PaymentStatus status(byte code) {
+    return switch (code) {
+      case 1 -> PaymentStatus.AUTHORIZED;
+      case 2 -> PaymentStatus.DECLINED;
+      case 3 -> PaymentStatus.CAPTURED;
+      case 4 -> PaymentStatus.REFUNDED;
+      default -> throw new IllegalStateException("unknown journal status code " + code);
+    };
+  }
+
+  private static void putInstant(ByteBuffer out, Instant value) {
+    out.putLong(value.getEpochSecond());
+    out.putInt(value.getNano());
+  }
+
+  private static Instant getInstant(ByteBuffer in) {
+    return Instant.ofEpochSecond(in.getLong(), in.getInt());
+  }
+
+  private static void putString(ByteBuffer out, String value) {
+    if (value == null) {
+      out.putShort((short) NULL_STRING);
+      return;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    if (bytes.length >= NULL_STRING) {
+      throw new IllegalArgumentException("journal string too long: " + bytes.length + " bytes");
+    }
+    out.putShort((short) bytes.length);
+    out.put(bytes);
+  }
+
+  private static String getString(ByteBuffer in) {
+    int length = Short.toUnsignedInt(in.getShort());
+    if (length == NULL_STRING) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    in.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,86 @@
+package com.hka.ps.journal;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@ConfigurationProperties(prefix = "ps.journal")
+public class JournalProperties {
+
+  private boolean enabled = false;
+  private Path directory = Path.of("data", "journal");
+  private DataSize segmentSize = DataSize.ofMegabytes(64);
+  private int queueCapacity = 65536;
+  private int batchMaxRecords = 1024;
+  /** {@code force()} nach jedem Gruppen-Commit; ohne schreibt das Betriebssystem die Seiten selbst zurück. */
+  private boolean fsync = true;
+  private Duration shutdownTimeout = Duration.ofSeconds(5);
+  /** Stellt beim Start fehlende oder veraltete {@code payments}-Zeilen aus dem Journal wieder her. */
+  private boolean rebuildOnStart = false;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public Path getDirectory() {
+    return directory;
+  }
+
+  public void setDirectory(Path directory) {
+    this.directory = directory;
+  }
+
+  public DataSize getSegmentSize() {
+    return segmentSize;
+  }
+
+  public void setSegmentSize(DataSize segmentSize) {
+    this.segmentSize = segmentSize;
+  }
+
+  public int getQueueCapacity() {
+    return queueCapacity;
+  }
+
+  public void setQueueCapacity(int queueCapacity) {
+    this.queueCapacity = queueCapacity;
+  }
+
+  public int getBatchMaxRecords() {
+    return batchMaxRecords;
+  }
+
+  public void setBatchMaxRecords(int batchMaxRecords) {
+    this.batchMaxRecords = batchMaxRecords;
+  }
+
+  public boolean isFsync() {
+    return fsync;
+  }
+
+  public void setFsync(boolean fsync) {
+    this.fsync = fsync;
+  }
+
+  public Duration getShutdownTimeout() {
+    return shutdownTimeout;
+  }
+
+  public void setShutdownTimeout(Duration shutdownTimeout) {
+    this.shutdownTimeout = shutdownTimeout;
+  }
+
+  public boolean isRebuildOnStart() {
+    return rebuildOnStart;
+  }
+
+  public void setRebuildOnStart(boolean rebuildOnStart) {
+    this.rebuildOnStart = rebuildOnStart;
+  }
+}
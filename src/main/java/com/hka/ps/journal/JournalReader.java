@@ -0,0 +1,58 @@
+package com.hka.ps.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.zip.CRC32C;
+
+/**
+ * Sequentieller Leser über alle Segmente eines Journal-Verzeichnisses. Jedes Segment wird read-only abgebildet
+ * und am Stück dekodiert; Segmente vor der Startsequenz werden anhand des Dateinamens übersprungen. Ein
+ * unvollständiger Eintrag am Ende eines Segments (Absturz beim Schreiben) beendet dieses Segment.
+ */
+public final class JournalReader {
+
+  private final Path directory;
+
+  public JournalReader(Path directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * Reicht alle Einträge ab {@code fromSequence} in Sequenzreihenfolge an {@code consumer}, bis dieser
+   * {@code false} liefert.
+   *
+   * @return Anzahl der übergebenen Einträge
+   */
+  public long replay(long fromSequence, Predicate<JournalRecord> consumer) {
+    List<Path> segments = JournalSegment.list(directory);
+    CRC32C crc = new CRC32C();
+    long count = 0;
+    for (int i = 0; i < segments.size(); i++) {
+      if (i + 1 < segments.size() && JournalSegment.firstSequenceOf(segments.get(i + 1)) <= fromSequence) {
+        continue;
+      }
+      try (FileChannel channel = FileChannel.open(segments.get(i), StandardOpenOption.READ)) {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        JournalRecord record;
+        while ((record = JournalCodec.decode(buffer, crc)) != null) {
+          if (record.sequence() < fromSequence) {
+            continue;
+          }
+          count++;
+          if (!consumer.test(record)) {
+            return count;
+          }
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+    return count;
+  }
+}
@@ -0,0 +1,208 @@
+package com.hka.ps.journal;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Stellt {@code payments} nach Datenverlust aus dem Journal wieder her ({@code ps.journal.rebuild-on-start}).
+ * Das Journal wird einmal sequentiell gelesen und je orderId auf den jüngsten Stand verdichtet. Die Payment-ID taugt
+ * dafür nicht: die H2-Datenbank beginnt nach jedem Neustart wieder bei derselben Sequenz, das Journal bleibt, also
+ * tragen verschiedene Zahlungen im Journal dieselbe ID. Eine orderId kann aus demselben Grund mehrfach angelegt
+ * worden sein; ein Eintrag mit anderem {@code createdAt} gilt als neue Zahlung und ersetzt den älteren Stand, sonst
+ * gewinnt die höhere Version.
+ *
+ * <p>Fehlende Zeilen werden per JDBC-Batch mit frischen IDs hinter der höchsten vorhandenen eingefügt, Zeilen
+ * derselben Zahlung mit kleinerer Version überschrieben. Eine Zeile, die zu einer anderen Zahlung mit derselben
+ * orderId gehört, bleibt unverändert, die Datenbank ist die führende Quelle. Ein Idempotency-Key, den inzwischen eine
+ * andere Zahlung trägt, wird nicht wiederhergestellt. Danach wird {@code payment_seq} hinter die höchste ID gesetzt.
+ *
+ * <p>Läuft vor dem Webserver und vor dem Journal-Writer, also ohne parallelen Traffic. Im Profil {@code memory}
+ * stellt sich der {@link com.hka.ps.store.InMemoryPaymentStore} selbst aus Snapshot und Journal wieder her.
+ */
+@Component
+@Profile("!memory")
+public class JournalRebuilder implements SmartLifecycle {
+
+  private static final Logger log = LoggerFactory.getLogger(JournalRebuilder.class);
+
+  private static final int CHUNK = 500;
+  /** {@code allocationSize} von {@code payment_seq}, siehe {@link com.hka.ps.domain.Payment}. */
+  private static final int SEQUENCE_ALLOCATION = 50;
+  /** {@code created_at} speichert H2 auf Mikrosekunden, das Journal auf Nanosekunden. */
+  private static final long TIMESTAMP_PRECISION_NANOS = 1_000;
+
+  private static final String INSERT = "insert into payments (id, order_id, amount_minor, currency, method, status,"
+      + " created_at, updated_at, idempotency_key, version) values (:id, :orderId, :amountMinor, :currency,"
+      + " :method, :status, :createdAt, :updatedAt, :idempotencyKey, :version)";
+  private static final String UPDATE = "update payments set status = :status, amount_minor = :amountMinor,"
+      + " currency = :currency, method = :method, updated_at = :updatedAt, idempotency_key = :idempotencyKey,"
+      + " version = :version where order_id = :orderId and version < :version";
+
+  private final JournalProperties properties;
+  private final NamedParameterJdbcTemplate jdbc;
+  private final TransactionTemplate tx;
+  private boolean running;
+
+  public JournalRebuilder(JournalProperties properties, NamedParameterJdbcTemplate jdbc,
+      PlatformTransactionManager transactionManager) {
+    this.properties = properties;
+    this.jdbc = jdbc;
+    this.tx = new TransactionTemplate(transactionManager);
+  }
+
+  /** Ergebnis einer Wiederherstellung. */
+  public record Result(long records, int payments, int inserted, int updated, int skipped) {
+  }
+
+  public Result rebuild() {
+    Map<String, JournalRecord> latest = new HashMap<>();
+    long records = new JournalReader(properties.getDirectory()).replay(0, r -> {
+      latest.merge(r.orderId(), r, JournalRebuilder::newer);
+      return true;
+    });
+    List<JournalRecord> all = new ArrayList<>(latest.values());
+    all.sort(Comparator.comparingLong(JournalRecord::sequence));
+    // Der jüngste Eintrag mit einem Key behält ihn, ältere Zahlungen mit demselben Key werden ohne Key eingefügt.
+    Map<String, String> keyOwners = new HashMap<>();
+    for (JournalRecord r : all) {
+      if (r.idempotencyKey() != null) {
+        keyOwners.put(r.idempotencyKey(), r.orderId());
+      }
+    }
+    Long maxId = tx.execute(status -> jdbc.getJdbcOperations()
+        .queryForObject("select coalesce(max(id), 0) from payments", Long.class));
+    long[] nextId = {maxId == null ? 1 : maxId + 1};
+    int[] counts = new int[3];
+    for (int from = 0; from < all.size(); from += CHUNK) {
+      List<JournalRecord> chunk = all.subList(from, Math.min(all.size(), from + CHUNK));
+      tx.executeWithoutResult(status -> applyChunk(chunk, keyOwners, nextId, counts));
+    }
+    if (counts[0] > 0) {
+      tx.executeWithoutResult(status -> restartSequence(nextId[0] - 1));
+    }
+    return new Result(records, latest.size(), counts[0], counts[1], counts[2]);
+  }
+
+  /** {@code b} steht im Journal hinter {@code a}; ein anderes {@code createdAt} heißt neu angelegte Zahlung. */
+  private static JournalRecord newer(JournalRecord a, JournalRecord b) {
+    if (!a.createdAt().equals(b.createdAt())) {
+      return b;
+    }
+    return b.version() >= a.version() ? b : a;
+  }
+
+  private void applyChunk(List<JournalRecord> chunk, Map<String, String> keyOwners, long[] nextId, int[] counts) {
+    Map<String, Row> rows = new HashMap<>();
+    jdbc.query("select order_id, created_at, version from payments where order_id in (:orderIds)",
+        Map.of("orderIds", chunk.stream().map(JournalRecord::orderId).toList()),
+        rs -> {
+          rows.put(rs.getString(1), new Row(rs.getObject(2, OffsetDateTime.class).toInstant(), rs.getLong(3)));
+        });
+    List<String> keys = chunk.stream().map(JournalRecord::idempotencyKey).filter(Objects::nonNull).toList();
+    Map<String, String> keysInUse = new HashMap<>();
+    if (!keys.isEmpty()) {
+      jdbc.query("select idempotency_key, order_id from payments where idempotency_key in (:keys)",
+          Map.of("keys", keys),
+          rs -> {
+            keysInUse.put(rs.getString(1), rs.getString(2));
+          });
+    }
+    List<SqlParameterSource> inserts = new ArrayList<>();
+    List<SqlParameterSource> updates = new ArrayList<>();
+    for (JournalRecord r : chunk) {
+      String key = r.idempotencyKey();
+      if (key != null && (!r.orderId().equals(keyOwners.get(key))
+          || !r.orderId().equals(keysInUse.getOrDefault(key, r.orderId())))) {
+        key = null;
+      }
+      Row row = rows.get(r.orderId());
+      if (row == null) {
+        inserts.add(params(r, nextId[0]++, key));
+      } else if (row.isSamePayment(r) && row.version() < r.version()) {
+        updates.add(params(r, 0, key));
+      } else if (!row.isSamePayment(r)) {
+        counts[2]++;
+      }
+    }
+    if (!inserts.isEmpty()) {
+      jdbc.batchUpdate(INSERT, inserts.toArray(SqlParameterSource[]::new));
+      counts[0] += inserts.size();
+    }
+    if (!updates.isEmpty()) {
+      jdbc.batchUpdate(UPDATE, updates.toArray(SqlParameterSource[]::new));
+      counts[1] += updates.size();
+    }
+  }
+
+  /** Vorhandene Zeile zu einer orderId. */
+  private record Row(Instant createdAt, long version) {
+
+    boolean isSamePayment(JournalRecord r) {
+      return Math.abs(ChronoUnit.NANOS.between(createdAt, r.createdAt())) < TIMESTAMP_PRECISION_NANOS;
+    }
+  }
+
+  private void restartSequence(long maxId) {
+    // Pooled-Optimizer: der nächste Sequenzwert ist die Obergrenze eines Blocks von SEQUENCE_ALLOCATION IDs.
+    jdbc.getJdbcOperations().execute("alter sequence payment_seq restart with " + (maxId + SEQUENCE_ALLOCATION));
+  }
+
+  private static SqlParameterSource params(JournalRecord r, long id, String idempotencyKey) {
+    return new MapSqlParameterSource()
+        .addValue("id", id)
+        .addValue("orderId", r.orderId())
+        .addValue("amountMinor", r.amountMinor())
+        .addValue("currency", r.currency())
+        .addValue("method", r.method())
+        .addValue("status", r.status().name())
+        .addValue("createdAt", r.createdAt().atOffset(ZoneOffset.UTC))
+        .addValue("updatedAt", r.updatedAt().atOffset(ZoneOffset.UTC))
+        .addValue("idempotencyKey", idempotencyKey)
+        .addValue("version", r.version());
+  }
+
+  @Override
+  public int getPhase() {
+    return DEFAULT_PHASE - 4097;
+  }
+
+  @Override
+  public void start() {
+    running = true;
+    if (!properties.isRebuildOnStart()) {
+      return;
+    }
+    Result result = rebuild();
+    log.info("Rebuilt payments from journal: {} records, {} payments, {} inserted, {} updated, {} skipped",
+        result.records(), result.payments(), result.inserted(), result.updated(), result.skipped());
+  }
+
+  @Override
+  public void stop() {
+    running = false;
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+}
@@ -0,0 +1,44 @@
+package com.hka.ps.journal;
+
+import java.time.Instant;
+
+import com.hka.ps.domain.Payment;
+import com.hka.ps.domain.PaymentStatus;
+import com.hka.ps.repo.PaymentState;
+
+/**
+ * Ein Journaleintrag: vollständiger Stand einer Zahlung direkt nach einem Übergang in {@code status}
+ * (Autorisierung, Ablehnung, Capture, Refund). {@code sequence} vergibt der Writer-Thread lückenlos.
+ */
+public record JournalRecord(
+    long sequence,
+    PaymentStatus status,
+    long paymentId,
+    String orderId,
+    long amountMinor,
+    String currency,
+    String method,
+    String idempotencyKey,
+    Instant createdAt,
+    Instant updatedAt,
+    long version
+) {
+
+  static JournalRecord of(Payment payment) {
+    return new JournalRecord(0, payment.getStatus(), payment.getId(), payment.getOrderId(), payment.getAmountMinor(),
+        payment.getCurrency(), payment.getMethod(), payment.getIdempotencyKey(), payment.getCreatedAt(),
+        payment.getUpdatedAt(), payment.getVersion() == null ? 0 : payment.getVersion());
+  }
+
+  /** Stand nach einem Sammel-Update, das Status, {@code updatedAt} und Version gesetzt hat. */
+  static JournalRecord of(PaymentState state, PaymentStatus status, Instant at) {
+    return new JournalRecord(0, status, state.getId(), state.getOrderId(), state.getAmountMinor(),
+        state.getCurrency(), state.getMethod(), state.getIdempotencyKey(), state.getCreatedAt(), at,
+        (state.getVersion() == null ? 0 : state.getVersion()) + 1);
+  }
+
+  JournalRecord withSequence(long sequence) {
+    return new JournalRecord(sequence, status, paymentId, orderId, amountMinor, currency, method, idempotencyKey,
+        createdAt, updatedAt, version);
+  }
+}
@@ -0,0 +1,125 @@
+package com.hka.ps.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Eine Segmentdatei fester Größe, vollständig in den Speicher abgebildet. Der Dateiname enthält die Sequenz des
+ * ersten Eintrags ({@code journal-00000000000000000001.seg}), sodass Segmente ohne Öffnen sortiert und
+ * übersprungen werden können.
+ */
+final class JournalSegment implements Closeable {
+
+  private static final String PREFIX = "journal-";
+  private static final String SUFFIX = ".seg";
+
+  private final Path path;
+  private final long firstSequence;
+  private final FileChannel channel;
+  private final MappedByteBuffer buffer;
+  private long lastSequence;
+
+  private JournalSegment(Path path, long firstSequence, FileChannel channel, MappedByteBuffer buffer,
+      long lastSequence) {
+    this.path = path;
+    this.firstSequence = firstSequence;
+    this.channel = channel;
+    this.buffer = buffer;
+    this.lastSequence = lastSequence;
+  }
+
+  static JournalSegment create(Path directory, long firstSequence, int size) throws IOException {
+    Path path = directory.resolve(String.format("%s%020d%s", PREFIX, firstSequence, SUFFIX));
+    FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    return new JournalSegment(path, firstSequence, channel, buffer, firstSequence - 1);
+  }
+
+  /**
+   * Öffnet ein bestehendes Segment zum Anhängen. Die Schreibposition steht hinter dem letzten gültigen Eintrag;
+   * ein beim Absturz halb geschriebener Rest wird überschrieben.
+   */
+  static JournalSegment openForAppend(Path path) throws IOException {
+    FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+    long first = firstSequenceOf(path);
+    long last = first - 1;
+    CRC32C crc = new CRC32C();
+    JournalRecord record;
+    while ((record = JournalCodec.decode(buffer, crc)) != null) {
+      last = record.sequence();
+    }
+    if (buffer.remaining() >= JournalCodec.HEADER) {
+      buffer.putInt(buffer.position(), 0);
+    }
+    return new JournalSegment(path, first, channel, buffer, last);
+  }
+
+  /** Hängt einen kodierten Eintrag an; {@code false}, wenn das Segment dafür zu voll ist. */
+  boolean append(ByteBuffer record, long sequence) {
+    // Platz für den Eintrag und die abschließende Null-Länge.
+    if (buffer.remaining() < record.remaining() + JournalCodec.HEADER) {
+      return false;
+    }
+    buffer.put(record);
+    buffer.putInt(buffer.position(), 0);
+    lastSequence = sequence;
+    return true;
+  }
+
+  void force() {
+    buffer.force();
+  }
+
+  Path path() {
+    return path;
+  }
+
+  long firstSequence() {
+    return firstSequence;
+  }
+
+  long lastSequence() {
+    return lastSequence;
+  }
+
+  @Override
+  public void close() throws IOException {
+    buffer.force();
+    channel.close();
+  }
+
+  static long firstSequenceOf(Path path) {
+    String name = path.getFileName().toString();
+    return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+  }
+
+  /** Alle Segmentdateien des Verzeichnisses in Sequenzreihenfolge. */
+  static List<Path> list(Path directory) {
+    if (!Files.isDirectory(directory)) {
+      return List.of();
+    }
+    try (Stream<Path> files = Files.list(directory)) {
+      return files
+          .filter(p -> {
+            String name = p.getFileName().toString();
+            return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+          })
+          .sorted((a, b) -> Long.compare(firstSequenceOf(a), firstSequenceOf(b)))
+          .toList();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
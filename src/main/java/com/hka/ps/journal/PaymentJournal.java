@@ -0,0 +1,261 @@
+package com.hka.ps.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.zip.CRC32C;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.hka.ps.domain.Payment;
+import com.hka.ps.domain.PaymentStatus;
+import com.hka.ps.repo.PaymentState;
+
+/**
+ * Append-only-Journal aller Statusübergänge in memory-mapped Segmentdateien ({@code ps.journal.*}).
+ *
+ * <p>Aufrufer registrieren Übergänge innerhalb ihrer Transaktion; nach dem Commit landen die Einträge in einer
+ * begrenzten Queue (bei voller Queue wartet der Aufrufer). Ein eigener Thread ({@code ps-journal-writer}) vergibt
+ * die Sequenzen, schreibt alle wartenden Einträge in das aktuelle Segment und ruft danach einmal {@code force()}
+ * auf (Gruppen-Commit). Ist ein Segment voll, wird ein neues begonnen.
+ */
+@Component
+public class PaymentJournal implements SmartLifecycle {
+
+  private static final Logger log = LoggerFactory.getLogger(PaymentJournal.class);
+
+  private final JournalProperties properties;
+  private final boolean virtualThreads;
+  private final BlockingQueue<JournalRecord> queue;
+  private final LongAdder appended = new LongAdder();
+  private final LongAdder groupCommits = new LongAdder();
+  private final LongAdder failed = new LongAdder();
+
+  private volatile boolean running;
+  private Thread writer;
+  private JournalSegment segment;
+  private long nextSequence;
+  private volatile long lastSequence;
+
+  public PaymentJournal(JournalProperties properties,
+      @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+    this.properties = properties;
+    this.virtualThreads = virtualThreads;
+    this.queue = new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity()));
+  }
+
+  public boolean isEnabled() {
+    return properties.isEnabled();
+  }
+
+  /** Nimmt den aktuellen Stand der Zahlung nach dem Commit ins Journal auf. */
+  public void record(Payment payment) {
+    if (isEnabled()) {
+      afterCommit(() -> List.of(JournalRecord.of(payment)));
+    }
+  }
+
+  public void recordAll(List<Payment> payments) {
+    if (isEnabled()) {
+      afterCommit(() -> payments.stream().map(JournalRecord::of).toList());
+    }
+  }
+
+  /** Für per Sammel-Update vollzogene Übergänge nach {@code status} zum Zeitpunkt {@code at}. */
+  public void recordTransitions(PaymentStatus status, List<? extends PaymentState> states, Instant at) {
+    if (isEnabled()) {
+      afterCommit(() -> states.stream().map(s -> JournalRecord.of(s, status, at)).toList());
+    }
+  }
+
+  /** Leser über das Journal-Verzeichnis dieser Instanz. */
+  public JournalReader reader() {
+    return new JournalReader(properties.getDirectory());
+  }
+
+  // Die Einträge werden erst nach dem Commit gebaut: dann stehen ID und Version nach dem Flush fest.
+  private void afterCommit(Supplier<List<JournalRecord>> records) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          enqueue(records.get());
+        }
+      });
+    } else {
+      enqueue(records.get());
+    }
+  }
+
+  private void enqueue(List<JournalRecord> records) {
+    if (!running) {
+      failed.add(records.size());
+      log.warn("Journal not running, {} transitions not recorded", records.size());
+      return;
+    }
+    try {
+      for (JournalRecord record : records) {
+        queue.put(record);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      failed.increment();
+    }
+  }
+
+  public long getAppended() {
+    return appended.sum();
+  }
+
+  public long getGroupCommits() {
+    return groupCommits.sum();
+  }
+
+  /** Nicht geschriebene Einträge (Kodier- oder I/O-Fehler, Journal gestoppt). */
+  public long getFailed() {
+    return failed.sum();
+  }
+
+  public int getPending() {
+    return queue.size();
+  }
+
+  /** Sequenz des zuletzt in ein Segment geschriebenen Eintrags (0 bei leerem Journal). */
+  public long getLastSequence() {
+    return lastSequence;
+  }
+
+  /** Vor dem Webserver starten und nach ihm stoppen, damit kein Übergang ohne laufenden Writer anfällt. */
+  @Override
+  public int getPhase() {
+    return DEFAULT_PHASE - 4096;
+  }
+
+  @Override
+  public void start() {
+    if (!isEnabled() || running) {
+      return;
+    }
+    if (properties.getSegmentSize().toBytes() < 2L * JournalCodec.MAX_RECORD
+        || properties.getSegmentSize().toBytes() > Integer.MAX_VALUE) {
+      throw new IllegalStateException("ps.journal.segment-size must be between " + 2 * JournalCodec.MAX_RECORD
+          + " bytes and 2 GB");
+    }
+    try {
+      Path directory = properties.getDirectory();
+      Files.createDirectories(directory);
+      List<Path> segments = JournalSegment.list(directory);
+      segment = segments.isEmpty()
+          ? JournalSegment.create(directory, 1, segmentSize())
+          : JournalSegment.openForAppend(segments.get(segments.size() - 1));
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot open journal in " + properties.getDirectory(), e);
+    }
+    nextSequence = segment.lastSequence() + 1;
+    lastSequence = nextSequence - 1;
+    log.info("Journal {} opened at sequence {}", segment.path(), nextSequence);
+    running = true;
+    Thread.Builder builder = virtualThreads ? Thread.ofVirtual() : Thread.ofPlatform().daemon(true);
+    writer = builder.name("ps-journal-writer").start(this::writeLoop);
+  }
+
+  @Override
+  public void stop() {
+    running = false;
+    Thread t = writer;
+    if (t == null) {
+      return;
+    }
+    try {
+      t.join(properties.getShutdownTimeout().toMillis());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (t.isAlive()) {
+      log.warn("Journal writer did not finish within {}, {} transitions pending", properties.getShutdownTimeout(),
+          queue.size());
+    }
+    writer = null;
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  private void writeLoop() {
+    int maxBatch = Math.max(1, properties.getBatchMaxRecords());
+    List<JournalRecord> batch = new ArrayList<>(maxBatch);
+    ByteBuffer scratch = ByteBuffer.allocate(JournalCodec.MAX_RECORD);
+    CRC32C crc = new CRC32C();
+    while (running || !queue.isEmpty()) {
+      JournalRecord first;
+      try {
+        first = queue.poll(100, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        running = false;
+        continue;
+      }
+      if (first == null) {
+        continue;
+      }
+      batch.add(first);
+      queue.drainTo(batch, maxBatch - 1);
+      for (JournalRecord record : batch) {
+        append(record, scratch, crc);
+      }
+      if (properties.isFsync()) {
+        segment.force();
+      }
+      groupCommits.increment();
+      batch.clear();
+    }
+    try {
+      segment.close();
+    } catch (IOException e) {
+      log.warn("Failed to close journal segment {}: {}", segment.path(), e.getMessage());
+    }
+  }
+
+  private void append(JournalRecord record, ByteBuffer scratch, CRC32C crc) {
+    try {
+      JournalCodec.encode(record.withSequence(nextSequence), scratch, crc);
+      if (!segment.append(scratch, nextSequence)) {
+        roll();
+        scratch.rewind();
+        segment.append(scratch, nextSequence);
+      }
+      lastSequence = nextSequence++;
+      appended.increment();
+    } catch (RuntimeException | IOException e) {
+      failed.increment();
+      log.error("Failed to journal transition of orderId={}: {}", record.orderId(), e.toString());
+    }
+  }
+
+  private void roll() throws IOException {
+    segment.close();
+    segment = JournalSegment.create(properties.getDirectory(), nextSequence, segmentSize());
+    log.info("Journal rolled to {}", segment.path());
+  }
+
+  private int segmentSize() {
+    return (int) properties.getSegmentSize().toBytes();
+  }
+}
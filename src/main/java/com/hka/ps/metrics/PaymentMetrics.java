@@ -0,0 +1,242 @@
+package com.hka.ps.metrics;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import com.hka.ps.concurrency.ConcurrentUpdateException;
+import com.hka.ps.domain.PaymentStatus;
+import com.hka.ps.service.AmountMismatchException;
+import com.hka.ps.service.PaymentNotFoundException;
+
+/**
+ * Timer und Zähler der Payment-Operationen. Meter werden beim ersten Auftreten einer Kombination
+ * registriert und in Arrays gehalten, damit das Erfassen im Request-Pfad ohne Registry-Lookup
+ * auskommt und keine leeren Zeitreihen für unmögliche Kombinationen entstehen.
+ *
+ * <ul>
+ *   <li>{@code ps.payment.operation} – Timer mit Perzentil-Histogramm, Tags {@code operation}, {@code outcome};
+ *       Sammel-Endpunkte mit einem Wert je Aufruf unter ihrem {@link Batch}-Tag</li>
+ *   <li>{@code ps.payment.batch.items} – Ergebnisse der einzelnen Einträge eines Sammel-Aufrufs, Tags {@code operation},
+ *       {@code outcome}</li>
+ *   <li>{@code ps.payment.idempotent.hits} – Wiederholungen, die eine bestehende Zahlung liefern</li>
+ *   <li>{@code ps.payment.transition.rejections} – abgelehnte Capture-/Refund-Übergänge, Tag {@code reason}</li>
+ * </ul>
+ */
+@Component
+public class PaymentMetrics {
+
+  public enum Operation {
+    AUTHORIZE, CAPTURE, REFUND
+  }
+
+  /**
+   * Sammel-Endpunkte mit der Operation ihrer Einträge. Bewusst keine weiteren {@link Operation}-Werte: die
+   * Zulassungskontrolle führt je {@link Operation} eine Grenze und zählt die Sammel-Endpunkte zu ihrem Einzel-Endpunkt.
+   */
+  public enum Batch {
+    AUTHORIZE_BATCH(Operation.AUTHORIZE), CAPTURE_BULK(Operation.CAPTURE), REFUND_BULK(Operation.REFUND);
+
+    private final Operation operation;
+
+    Batch(Operation operation) {
+      this.operation = operation;
+    }
+  }
+
+  /** {@code COMPLETED} nur für den Timer eines Sammel-Aufrufs, die Einträge tragen ihr eigenes Ergebnis. */
+  public enum Outcome {
+    AUTHORIZED, DECLINED, CAPTURED, REFUNDED, IDEMPOTENT_HIT, CONFLICT, NOT_FOUND, INVALID, ERROR, COMPLETED
+  }
+
+  /** Namen wie {@code BulkRejection.Reason}, ergänzt um erschöpfte Wiederholungen. */
+  public enum Rejection {
+    NOT_FOUND, INVALID_AMOUNT, AMOUNT_MISMATCH, INVALID_STATE, CONCURRENT_MODIFICATION
+  }
+
+  private final MeterRegistry registry;
+  private final Timer[][] timers = new Timer[Operation.values().length][Outcome.values().length];
+  private final Counter[] idempotentHits = new Counter[Operation.values().length];
+  private final Counter[][] rejections = new Counter[Operation.values().length][Rejection.values().length];
+  private final Timer[][] batchTimers = new Timer[Batch.values().length][Outcome.values().length];
+  private final Counter[][] batchItems = new Counter[Batch.values().length][Outcome.values().length];
+
+  public PaymentMetrics(MeterRegistry registry) {
+    this.registry = registry;
+  }
+
+  /** Erfasst einen erfolgreichen Aufruf, der bei {@code startedNanos} ({@link System#nanoTime()}) begann. */
+  public void record(Operation operation, Outcome outcome, long startedNanos) {
+    timer(operation, outcome).record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+    if (outcome == Outcome.IDEMPOTENT_HIT) {
+      idempotentHits(operation).increment();
+    }
+  }
+
+  /**
+   * Erfasst einen fehlgeschlagenen Aufruf; bei Capture und Refund zählt er zusätzlich als
+   * abgelehnter Übergang.
+   */
+  public void recordFailure(Operation operation, RuntimeException failure, long startedNanos) {
+    timer(operation, outcomeOf(failure)).record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+    Rejection reason = rejectionOf(failure);
+    if (operation != Operation.AUTHORIZE && reason != null) {
+      rejected(operation, reason);
+    }
+  }
+
+  public void idempotentHits(Operation operation, int count) {
+    if (count > 0) {
+      idempotentHits(operation).increment(count);
+    }
+  }
+
+  /** Erfasst einen abgeschlossenen Sammel-Aufruf als einen Wert, unabhängig von der Zahl seiner Einträge. */
+  public void recordBatch(Batch batch, long startedNanos) {
+    batchTimer(batch, Outcome.COMPLETED).record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+  }
+
+  /** Erfasst einen Sammel-Aufruf, der als Ganzes fehlschlug. */
+  public void recordBatchFailure(Batch batch, RuntimeException failure, long startedNanos) {
+    batchTimer(batch, outcomeOf(failure)).record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+  }
+
+  /** Zählt {@code count} Einträge eines Sammel-Aufrufs; Wiederholungen zählen zusätzlich als idempotente Treffer. */
+  public void batchItems(Batch batch, Outcome outcome, int count) {
+    if (count <= 0) {
+      return;
+    }
+    Counter counter = batchItems[batch.ordinal()][outcome.ordinal()];
+    if (counter == null) {
+      counter = Counter.builder("ps.payment.batch.items")
+          .description("Ergebnisse der Einträge von Sammel-Aufrufen")
+          .tag("operation", tag(batch))
+          .tag("outcome", tag(outcome))
+          .register(registry);
+      batchItems[batch.ordinal()][outcome.ordinal()] = counter;
+    }
+    counter.increment(count);
+    if (outcome == Outcome.IDEMPOTENT_HIT) {
+      idempotentHits(batch.operation, count);
+    }
+  }
+
+  public void batchItemFailed(Batch batch, RuntimeException failure) {
+    batchItems(batch, outcomeOf(failure), 1);
+  }
+
+  /** Abgelehnter Eintrag eines Sammel-Capture oder -Refund; Ergebnis wie beim entsprechenden Einzelaufruf. */
+  public void batchItemRejected(Batch batch, Rejection reason) {
+    rejected(batch.operation, reason);
+    batchItems(batch, switch (reason) {
+      case NOT_FOUND -> Outcome.NOT_FOUND;
+      case INVALID_AMOUNT -> Outcome.INVALID;
+      case AMOUNT_MISMATCH, INVALID_STATE, CONCURRENT_MODIFICATION -> Outcome.CONFLICT;
+    }, 1);
+  }
+
+  public void rejected(Operation operation, Rejection reason) {
+    Counter counter = rejections[operation.ordinal()][reason.ordinal()];
+    if (counter == null) {
+      counter = Counter.builder("ps.payment.transition.rejections")
+          .description("Abgelehnte Statusübergänge")
+          .tag("operation", tag(operation))
+          .tag("reason", tag(reason))
+          .register(registry);
+      rejections[operation.ordinal()][reason.ordinal()] = counter;
+    }
+    counter.increment();
+  }
+
+  // Registrieren ist idempotent; ein gleichzeitiger zweiter Aufruf liefert denselben Meter.
+  private Timer timer(Operation operation, Outcome outcome) {
+    Timer timer = timers[operation.ordinal()][outcome.ordinal()];
+    if (timer == null) {
+      timer = registerTimer(operation, outcome);
+      timers[operation.ordinal()][outcome.ordinal()] = timer;
+    }
+    return timer;
+  }
+
+  private Timer batchTimer(Batch batch, Outcome outcome) {
+    Timer timer = batchTimers[batch.ordinal()][outcome.ordinal()];
+    if (timer == null) {
+      timer = registerTimer(batch, outcome);
+      batchTimers[batch.ordinal()][outcome.ordinal()] = timer;
+    }
+    return timer;
+  }
+
+  private Timer registerTimer(Enum<?> operation, Outcome outcome) {
+    return Timer.builder("ps.payment.operation")
+        .description("Dauer einer Payment-Operation im Service")
+        .tag("operation", tag(operation))
+        .tag("outcome", tag(outcome))
+        .publishPercentileHistogram()
+        .minimumExpectedValue(Duration.ofMillis(1))
+        .maximumExpectedValue(Duration.ofSeconds(10))
+        .register(registry);
+  }
+
+  private Counter idempotentHits(Operation operation) {
+    Counter counter = idempotentHits[operation.ordinal()];
+    if (counter == null) {
+      counter = Counter.builder("ps.payment.idempotent.hits")
+          .description("Aufrufe, die eine bestehende Zahlung unverändert zurückgeben")
+          .tag("operation", tag(operation))
+          .register(registry);
+      idempotentHits[operation.ordinal()] = counter;
+    }
+    return counter;
+  }
+
+  public static Outcome outcomeOf(PaymentStatus status) {
+    return switch (status) {
+      case AUTHORIZED -> Outcome.AUTHORIZED;
+      case DECLINED -> Outcome.DECLINED;
+      case CAPTURED -> Outcome.CAPTURED;
+      case REFUNDED -> Outcome.REFUNDED;
+    };
+  }
+
+  static Outcome outcomeOf(RuntimeException failure) {
+    if (failure instanceof PaymentNotFoundException) {
+      return Outcome.NOT_FOUND;
+    }
+    if (failure instanceof IllegalStateException) {
+      return Outcome.CONFLICT;
+    }
+    if (failure instanceof IllegalArgumentException || failure instanceof NullPointerException) {
+      return Outcome.INVALID;
+    }
+    return Outcome.ERROR;
+  }
+
+  private static Rejection rejectionOf(RuntimeException failure) {
+    if (failure instanceof PaymentNotFoundException) {
+      return Rejection.NOT_FOUND;
+    }
+    if (failure instanceof AmountMismatchException) {
+      return Rejection.AMOUNT_MISMATCH;
+    }
+    if (failure instanceof ConcurrentUpdateException) {
+      return Rejection.CONCURRENT_MODIFICATION;
+    }
+    if (failure instanceof IllegalStateException) {
+      return Rejection.INVALID_STATE;
+    }
+    if (failure instanceof IllegalArgumentException) {
+      return Rejection.INVALID_AMOUNT;
+    }
+    return null;
+  }
+
+  private static String tag(Enum<?> value) {
+    return value.name().toLowerCase(Locale.ROOT);
+  }
+}
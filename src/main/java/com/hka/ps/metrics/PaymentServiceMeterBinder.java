@@ -0,0 +1,129 @@
+package com.hka.ps.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import com.hka.ps.admission.AdmissionControl;
+import com.hka.ps.cache.IdempotencyCache;
+import com.hka.ps.cache.IdempotencyKeyFilter;
+import com.hka.ps.concurrency.PinnedThreadMonitor;
+import com.hka.ps.concurrency.SingleFlight;
+import com.hka.ps.concurrency.TransitionGuard;
+import com.hka.ps.journal.PaymentJournal;
+import com.hka.ps.publisher.PsPublisher;
+import com.hka.ps.service.PaymentService;
+
+/**
+ * Macht die internen Zähler von Publisher, Idempotenz-Cache, Bloom-Filter, Journal,
+ * Zulassungskontrolle und {@link TransitionGuard} als Meter sichtbar. Die Komponenten zählen
+ * weiterhin selbst mit {@code LongAdder}s; gelesen wird erst beim Scrape. Pool-Metriken
+ * ({@code hikaricp.*}) liefert Spring Boot bereits selbst.
+ */
+@Component
+public class PaymentServiceMeterBinder implements MeterBinder {
+
+  private final PsPublisher publisher;
+  private final IdempotencyCache cache;
+  private final IdempotencyKeyFilter keyFilter;
+  private final TransitionGuard guard;
+  private final PaymentJournal journal;
+  private final PaymentService paymentService;
+  private final AdmissionControl admission;
+  private final ObjectProvider<PinnedThreadMonitor> pinnedThreadMonitor;
+
+  public PaymentServiceMeterBinder(PsPublisher publisher, IdempotencyCache cache, IdempotencyKeyFilter keyFilter,
+      TransitionGuard guard, PaymentJournal journal, PaymentService paymentService, AdmissionControl admission,
+      ObjectProvider<PinnedThreadMonitor> pinnedThreadMonitor) {
+    this.publisher = publisher;
+    this.cache = cache;
+    this.keyFilter = keyFilter;
+    this.guard = guard;
+    this.journal = journal;
+    this.paymentService = paymentService;
+    this.admission = admission;
+    this.pinnedThreadMonitor = pinnedThreadMonitor;
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    FunctionTimer.builder("ps.publisher.send", publisher, PsPublisher::getBatchesSent,
+            PsPublisher::getSendNanos, TimeUnit.NANOSECONDS)
+        .description("Erfolgreiche Sendevorgänge an log.queue und ihre Dauer")
+        .register(registry);
+    FunctionCounter.builder("ps.publisher.send.failures", publisher, PsPublisher::getSendFailures)
+        .description("Fehlgeschlagene Sendevorgänge an log.queue")
+        .register(registry);
+    FunctionCounter.builder("ps.publisher.queued", publisher, PsPublisher::getQueuedCount)
+        .description("In den Ringpuffer gestellte Logzeilen")
+        .register(registry);
+    FunctionCounter.builder("ps.publisher.dropped", publisher, PsPublisher::getDroppedCount)
+        .description("Wegen vollem Ringpuffer verworfene Logzeilen")
+        .register(registry);
+    Gauge.builder("ps.publisher.pending", publisher, PsPublisher::getPendingCount)
+        .description("Auf Versand wartende Logzeilen")
+        .register(registry);
+
+    cache.bindTo(registry);
+
+    Gauge.builder("ps.bloom.false.positive.rate", keyFilter, IdempotencyKeyFilter::observedFalsePositiveRate)
+        .tag("kind", "observed")
+        .register(registry);
+    Gauge.builder("ps.bloom.false.positive.rate", keyFilter, IdempotencyKeyFilter::expectedFalsePositiveRate)
+        .tag("kind", "expected")
+        .register(registry);
+    FunctionCounter.builder("ps.bloom.lookups", keyFilter, IdempotencyKeyFilter::getDefiniteMisses)
+        .tag("result", "definite_miss")
+        .register(registry);
+    FunctionCounter.builder("ps.bloom.lookups", keyFilter, IdempotencyKeyFilter::getProbablePositives)
+        .tag("result", "probable_positive")
+        .register(registry);
+    FunctionCounter.builder("ps.bloom.false.positives", keyFilter, IdempotencyKeyFilter::getFalsePositives)
+        .register(registry);
+
+    FunctionCounter.builder("ps.transition.conflicts", guard, TransitionGuard::getConflicts)
+        .description("An der Versionsprüfung gescheiterte Commits")
+        .register(registry);
+    FunctionCounter.builder("ps.transition.retries", guard, TransitionGuard::getRetries)
+        .register(registry);
+    FunctionCounter.builder("ps.transition.exhausted", guard, TransitionGuard::getExhausted)
+        .register(registry);
+    FunctionCounter.builder("ps.transition.lock.timeouts", guard, TransitionGuard::getLockTimeouts)
+        .register(registry);
+
+    FunctionCounter.builder("ps.journal.appended", journal, PaymentJournal::getAppended)
+        .description("Ins Journal geschriebene Zustandsübergänge")
+        .register(registry);
+    FunctionCounter.builder("ps.journal.group.commits", journal, PaymentJournal::getGroupCommits)
+        .description("Gemeinsame force()-Aufrufe für einen Schreibstapel")
+        .register(registry);
+    FunctionCounter.builder("ps.journal.failed", journal, PaymentJournal::getFailed)
+        .register(registry);
+    Gauge.builder("ps.journal.pending", journal, PaymentJournal::getPending)
+        .description("Auf das Schreiben ins Journal wartende Übergänge")
+        .register(registry);
+
+    admission.bindTo(registry);
+
+    SingleFlight<?> flights = paymentService.getAuthorizeFlights();
+    if (flights != null) {
+      FunctionCounter.builder("ps.authorize.coalesced", flights, SingleFlight::getFollowers)
+          .description("authorize-Aufrufe, die das Ergebnis eines laufenden Aufrufs übernommen haben")
+          .register(registry);
+      FunctionCounter.builder("ps.authorize.coalesce.timeouts", flights, SingleFlight::getTimeouts)
+          .description("Gebündelte authorize-Aufrufe, die nach ps.concurrency.lock-timeout selbst weiterliefen")
+          .register(registry);
+    }
+    PinnedThreadMonitor monitor = pinnedThreadMonitor.getIfAvailable();
+    if (monitor != null) {
+      FunctionCounter.builder("ps.vthreads.pinned", monitor, PinnedThreadMonitor::getPinnedCount)
+          .register(registry);
+    }
+  }
+}
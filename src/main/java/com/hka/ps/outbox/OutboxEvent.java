@@ -0,0 +1,121 @@
+package com.hka.ps.outbox;
+
+import java.time.Instant;
+
+import com.hka.ps.domain.PaymentStatus;
+import com.hka.ps.publisher.LogEventType;
+
+import jakarta.persistence.*;
+
+@Entity
+@Table(name = "payment_outbox", indexes = {
+    @Index(name = "idx_outbox_sent", columnList = "sent_at, id")
+})
+public class OutboxEvent {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payment_outbox_seq")
+  @SequenceGenerator(name = "payment_outbox_seq", sequenceName = "payment_outbox_seq", allocationSize = 50)
+  private Long id;
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "event_type", nullable = false, length = 40)
+  private LogEventType eventType;
+
+  @Column(name = "order_id", nullable = false)
+  private String orderId;
+
+  @Enumerated(EnumType.STRING)
+  @Column(length = 20)
+  private PaymentStatus status;
+
+  @Column(name = "amount_minor")
+  private Long amountMinor;
+
+  @Column(length = 3)
+  private String currency;
+
+  @Column(name = "idempotency_key")
+  private String idempotencyKey;
+
+  @Column(nullable = false)
+  private Instant createdAt;
+
+  @Column(name = "sent_at")
+  private Instant sentAt;
+
+  public OutboxEvent() {
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  public void setId(Long id) {
+    this.id = id;
+  }
+
+  public LogEventType getEventType() {
+    return eventType;
+  }
+
+  public void setEventType(LogEventType eventType) {
+    this.eventType = eventType;
+  }
+
+  public String getOrderId() {
+    return orderId;
+  }
+
+  public void setOrderId(String orderId) {
+    this.orderId = orderId;
+  }
+
+  public PaymentStatus getStatus() {
+    return status;
+  }
+
+  public void setStatus(PaymentStatus status) {
+    this.status = status;
+  }
+
+  public Long getAmountMinor() {
+    return amountMinor;
+  }
+
+  public void setAmountMinor(Long amountMinor) {
+    this.amountMinor = amountMinor;
+  }
+
+  public String getCurrency() {
+    return currency;
+  }
+
+  public void setCurrency(String currency) {
+    this.currency = currency;
+  }
+
+  public String getIdempotencyKey() {
+    return idempotencyKey;
+  }
+
+  public void setIdempotencyKey(String idempotencyKey) {
+    this.idempotencyKey = idempotencyKey;
+  }
+
+  public Instant getCreatedAt() {
+    return createdAt;
+  }
+
+  public void setCreatedAt(Instant createdAt) {
+    this.createdAt = createdAt;
+  }
+
+  public Instant getSentAt() {
+    return sentAt;
+  }
+
+  public void setSentAt(Instant sentAt) {
+    this.sentAt = sentAt;
+  }
+}
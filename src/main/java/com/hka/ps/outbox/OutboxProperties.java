@@ -0,0 +1,46 @@
+package com.hka.ps.outbox;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "ps.outbox")
+public class OutboxProperties {
+
+  private boolean relayEnabled = true;
+  private int batchSize = 200;
+  private int maxBatchesPerPoll = 10;
+  private Duration retention = Duration.ofHours(1);
+
+  public boolean isRelayEnabled() {
+    return relayEnabled;
+  }
+
+  public void setRelayEnabled(boolean relayEnabled) {
+    this.relayEnabled = relayEnabled;
+  }
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  public void setBatchSize(int batchSize) {
+    this.batchSize = batchSize;
+  }
+
+  public int getMaxBatchesPerPoll() {
+    return maxBatchesPerPoll;
+  }
+
+  public void setMaxBatchesPerPoll(int maxBatchesPerPoll) {
+    this.maxBatchesPerPoll = maxBatchesPerPoll;
+  }
+
+  public Duration getRetention() {
+    return retention;
+  }
+
+  public void setRetention(Duration retention) {
+    this.retention = retention;
+  }
+}
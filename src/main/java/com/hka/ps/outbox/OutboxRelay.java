@@ -0,0 +1,98 @@
+package com.hka.ps.outbox;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.hka.ps.domain.Money;
+import com.hka.ps.publisher.LogEvent;
+import com.hka.ps.publisher.PsPublisher;
+
+/**
+ * Liest unversendete Outbox-Ereignisse in Batches, versendet jeden Batch als eine
+ * Nachricht und markiert die Zeilen anschließend gesammelt als versendet. Die
+ * Zustellung ist at-least-once: schlägt das Markieren fehl, wird der Batch erneut
+ * versendet.
+ */
+@Component
+@Profile("!reactive")
+public class OutboxRelay {
+
+  private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+  private final OutboxRepository repository;
+  private final PsPublisher publisher;
+  private final OutboxProperties properties;
+  private final TransactionTemplate tx;
+
+  public OutboxRelay(OutboxRepository repository, PsPublisher publisher, OutboxProperties properties,
+      PlatformTransactionManager transactionManager) {
+    this.repository = repository;
+    this.publisher = publisher;
+    this.properties = properties;
+    this.tx = new TransactionTemplate(transactionManager);
+  }
+
+  @Scheduled(fixedDelayString = "${ps.outbox.poll-interval-ms:200}")
+  public void relay() {
+    if (!properties.isRelayEnabled()) {
+      return;
+    }
+    for (int i = 0; i < properties.getMaxBatchesPerPoll(); i++) {
+      if (relayBatch() < properties.getBatchSize()) {
+        return;
+      }
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${ps.outbox.prune-interval-ms:60000}")
+  public void prune() {
+    if (!properties.isRelayEnabled()) {
+      return;
+    }
+    Instant before = Instant.now().minus(properties.getRetention());
+    Integer removed = tx.execute(status -> repository.deleteSentBefore(before));
+    if (removed != null && removed > 0) {
+      log.debug("Pruned {} sent outbox events", removed);
+    }
+  }
+
+  /** @return Anzahl der versendeten Ereignisse */
+  int relayBatch() {
+    List<OutboxEvent> batch = tx.execute(status ->
+        repository.findBySentAtIsNullOrderByIdAsc(PageRequest.of(0, properties.getBatchSize())));
+    if (batch == null || batch.isEmpty()) {
+      return 0;
+    }
+
+    List<LogEvent> events = new ArrayList<>(batch.size());
+    List<Long> ids = new ArrayList<>(batch.size());
+    for (OutboxEvent e : batch) {
+      events.add(LogEvent.of(e.getEventType(), e.getCreatedAt().toEpochMilli(), e.getOrderId(), e.getStatus(),
+          e.getAmountMinor() == null ? null : Money.toBigDecimal(e.getAmountMinor()),
+          e.getCurrency(), e.getIdempotencyKey()));
+      ids.add(e.getId());
+    }
+
+    try {
+      publisher.sendNow(events);
+    } catch (AmqpException ex) {
+      log.warn("Outbox relay failed to publish {} events: {}", events.size(), ex.getMessage());
+      return 0;
+    }
+
+    Instant sentAt = Instant.now();
+    tx.executeWithoutResult(status -> repository.markSent(ids, sentAt));
+    return batch.size();
+  }
+}
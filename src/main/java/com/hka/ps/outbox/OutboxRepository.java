@@ -0,0 +1,24 @@
+package com.hka.ps.outbox;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface OutboxRepository extends JpaRepository<OutboxEvent, Long> {
+
+  List<OutboxEvent> findBySentAtIsNullOrderByIdAsc(Pageable page);
+
+  @Modifying
+  @Query("update OutboxEvent e set e.sentAt = :sentAt where e.id in :ids")
+  int markSent(@Param("ids") Collection<Long> ids, @Param("sentAt") Instant sentAt);
+
+  @Modifying
+  @Query("delete from OutboxEvent e where e.sentAt < :before")
+  int deleteSentBefore(@Param("before") Instant before);
+}
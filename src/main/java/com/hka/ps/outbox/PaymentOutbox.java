@@ -0,0 +1,73 @@
+package com.hka.ps.outbox;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.hka.ps.domain.Payment;
+import com.hka.ps.domain.PaymentStatus;
+import com.hka.ps.publisher.LogEventType;
+import com.hka.ps.repo.PaymentState;
+
+/**
+ * Schreibt Zustandsänderungen einer Zahlung in die Outbox-Tabelle. Läuft immer in der
+ * Transaktion des Aufrufers, damit Ereignis und {@link Payment}-Zeile gemeinsam
+ * committet oder zurückgerollt werden.
+ */
+@Component
+public class PaymentOutbox {
+
+  private final OutboxRepository repository;
+
+  public PaymentOutbox(OutboxRepository repository) {
+    this.repository = repository;
+  }
+
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void record(LogEventType type, Payment payment) {
+    repository.save(toEvent(type, payment));
+  }
+
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void recordAll(LogEventType type, List<Payment> payments) {
+    List<OutboxEvent> events = new ArrayList<>(payments.size());
+    for (Payment payment : payments) {
+      events.add(toEvent(type, payment));
+    }
+    repository.saveAll(events);
+  }
+
+  /** Schreibt je Zahlung ein Ereignis für einen per Sammel-Update vollzogenen Übergang nach {@code status}. */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void recordTransitions(LogEventType type, PaymentStatus status, List<? extends PaymentState> states, Instant at) {
+    List<OutboxEvent> events = new ArrayList<>(states.size());
+    for (PaymentState state : states) {
+      OutboxEvent event = new OutboxEvent();
+      event.setEventType(type);
+      event.setOrderId(state.getOrderId());
+      event.setStatus(status);
+      event.setAmountMinor(state.getAmountMinor());
+      event.setCurrency(state.getCurrency());
+      event.setIdempotencyKey(state.getIdempotencyKey());
+      event.setCreatedAt(at);
+      events.add(event);
+    }
+    repository.saveAll(events);
+  }
+
+  static OutboxEvent toEvent(LogEventType type, Payment payment) {
+    OutboxEvent event = new OutboxEvent();
+    event.setEventType(type);
+    event.setOrderId(payment.getOrderId());
+    event.setStatus(payment.getStatus());
+    event.setAmountMinor(payment.getAmountMinor());
+    event.setCurrency(payment.getCurrency());
+    event.setIdempotencyKey(payment.getIdempotencyKey());
+    event.setCreatedAt(payment.getUpdatedAt() != null ? payment.getUpdatedAt() : Instant.now());
+    return event;
+  }
+}
@@ -0,0 +1,94 @@
+package com.hka.ps.publisher;
+
+import java.math.BigDecimal;
+
+import com.hka.ps.domain.PaymentStatus;
+
+/**
+ * Ein strukturiertes Logereignis. Instanzen sind Slots des Ringpuffers und werden
+ * wiederverwendet; außerhalb des Drainers dürfen sie nicht festgehalten werden.
+ */
+public final class LogEvent {
+  private LogEventType type;
+  private long timestamp;
+  private String orderId;
+  private PaymentStatus status;
+  private int httpStatus;
+  private BigDecimal amount;
+  private String currency;
+  private String idempotencyKey;
+  private String detail;
+  private Object[] args;
+
+  LogEvent() {
+  }
+
+  /** Erzeugt ein eigenständiges Ereignis außerhalb des Ringpuffers, z. B. für den Outbox-Relay. */
+  public static LogEvent of(LogEventType type, long timestamp, String orderId, PaymentStatus status,
+      BigDecimal amount, String currency, String idempotencyKey) {
+    LogEvent event = new LogEvent();
+    event.set(type, timestamp, orderId, status, 0, amount, currency, idempotencyKey, null, null);
+    return event;
+  }
+
+  void set(LogEventType type, long timestamp, String orderId, PaymentStatus status, int httpStatus,
+      BigDecimal amount, String currency, String idempotencyKey, String detail, Object[] args) {
+    this.type = type;
+    this.timestamp = timestamp;
+    this.orderId = orderId;
+    this.status = status;
+    this.httpStatus = httpStatus;
+    this.amount = amount;
+    this.currency = currency;
+    this.idempotencyKey = idempotencyKey;
+    this.detail = detail;
+    this.args = args;
+  }
+
+  void clear() {
+    set(null, 0L, null, null, 0, null, null, null, null, null);
+  }
+
+  public LogEventType getType() {
+    return type;
+  }
+
+  /** Zeitpunkt des Ereignisses in Millisekunden seit der Epoche. */
+  public long getTimestamp() {
+    return timestamp;
+  }
+
+  public String getOrderId() {
+    return orderId;
+  }
+
+  public PaymentStatus getStatus() {
+    return status;
+  }
+
+  /** HTTP-Statuscode des Ergebnisses oder {@code 0}, falls nicht gesetzt. */
+  public int getHttpStatus() {
+    return httpStatus;
+  }
+
+  public BigDecimal getAmount() {
+    return amount;
+  }
+
+  public String getCurrency() {
+    return currency;
+  }
+
+  public String getIdempotencyKey() {
+    return idempotencyKey;
+  }
+
+  public String getDetail() {
+    return detail;
+  }
+
+  /** Argumente für {@link LogEventType#MESSAGE}-Ereignisse. */
+  public Object[] getArgs() {
+    return args;
+  }
+}
@@ -0,0 +1,146 @@
+package com.hka.ps.publisher;
+
+import java.time.Instant;
+
+import org.springframework.http.HttpStatus;
+
+import com.hka.ps.publisher.LogEventType.Field;
+
+/**
+ * Rendert {@link LogEvent}s als Textzeile (kompatibel zum bisherigen Format auf
+ * {@code log.queue}) oder als einzeiliges JSON-Objekt. Instanzen halten einen
+ * Scratch-Puffer und sind daher nicht threadsicher.
+ */
+public final class LogEventRenderer {
+
+  public enum Format {
+    TEXT,
+    JSON
+  }
+
+  static final String SERVICE_NAME = "PS";
+  private static final String PREFIX = "[" + SERVICE_NAME + "] ";
+
+  private final Format format;
+  private final StringBuilder scratch = new StringBuilder(256);
+
+  public LogEventRenderer(Format format) {
+    this.format = format;
+  }
+
+  public void render(LogEvent event, StringBuilder out) {
+    if (format == Format.JSON) {
+      renderJson(event, out);
+    } else {
+      out.append(PREFIX);
+      renderMessage(event, out);
+    }
+  }
+
+  private void renderJson(LogEvent event, StringBuilder out) {
+    out.append("{\"service\":\"").append(SERVICE_NAME).append('"');
+    out.append(",\"timestamp\":\"").append(Instant.ofEpochMilli(event.getTimestamp())).append('"');
+    out.append(",\"event\":\"").append(event.getType().name()).append('"');
+    if (event.getOrderId() != null) {
+      appendJsonString(out, Field.ORDER_ID.jsonName(), event.getOrderId());
+    }
+    if (event.getStatus() != null) {
+      appendJsonString(out, Field.STATUS.jsonName(), event.getStatus().name());
+    }
+    if (event.getHttpStatus() != 0) {
+      out.append(",\"").append(Field.HTTP_STATUS.jsonName()).append("\":").append(event.getHttpStatus());
+    }
+    if (event.getAmount() != null) {
+      out.append(",\"").append(Field.AMOUNT.jsonName()).append("\":").append(event.getAmount());
+    }
+    if (event.getCurrency() != null) {
+      appendJsonString(out, Field.CURRENCY.jsonName(), event.getCurrency());
+    }
+    if (event.getIdempotencyKey() != null) {
+      appendJsonString(out, Field.IDEMPOTENCY_KEY.jsonName(), event.getIdempotencyKey());
+    }
+    if (event.getDetail() != null && event.getType() != LogEventType.MESSAGE) {
+      appendJsonString(out, Field.DETAIL.jsonName(), event.getDetail());
+    }
+    scratch.setLength(0);
+    renderMessage(event, scratch);
+    appendJsonString(out, "message", scratch);
+    out.append('}');
+  }
+
+  private void renderMessage(LogEvent event, StringBuilder out) {
+    LogEventType type = event.getType();
+    if (type == LogEventType.MESSAGE) {
+      format(out, event.getDetail(), event.getArgs());
+      return;
+    }
+    String[] literals = type.literals();
+    Field[] fields = type.fields();
+    for (int i = 0; i < fields.length; i++) {
+      out.append(literals[i]);
+      appendField(out, fields[i], event);
+    }
+    out.append(literals[fields.length]);
+  }
+
+  private static void appendField(StringBuilder out, Field field, LogEvent event) {
+    switch (field) {
+      case ORDER_ID -> out.append(event.getOrderId());
+      case STATUS -> out.append(event.getStatus());
+      case HTTP_STATUS -> {
+        HttpStatus status = HttpStatus.resolve(event.getHttpStatus());
+        if (status != null) {
+          out.append(status);
+        } else {
+          out.append(event.getHttpStatus());
+        }
+      }
+      case AMOUNT -> out.append(event.getAmount());
+      case CURRENCY -> out.append(event.getCurrency());
+      case IDEMPOTENCY_KEY -> out.append(event.getIdempotencyKey());
+      case DETAIL -> out.append(event.getDetail());
+    }
+  }
+
+  private static void format(StringBuilder out, String pattern, Object[] args) {
+    if (args == null || args.length == 0) {
+      out.append(pattern);
+      return;
+    }
+    int index = 0;
+    for (int i = 0; i < pattern.length(); i++) {
+      if (pattern.charAt(i) == '{' && i + 1 < pattern.length() && pattern.charAt(i + 1) == '}') {
+        if (index < args.length) {
+          out.append(args[index++]);
+        } else {
+          out.append("{?}");
+        }
+        i++;
+      } else {
+        out.append(pattern.charAt(i));
+      }
+    }
+  }
+
+  private static void appendJsonString(StringBuilder out, String name, CharSequence value) {
+    out.append(",\"").append(name).append("\":\"");
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '"' -> out.append("\\\"");
+        case '\\' -> out.append("\\\\");
+        case '\n' -> out.append("\\n");
+        case '\r' -> out.append("\\r");
+        case '\t' -> out.append("\\t");
+        default -> {
+          if (c < 0x20) {
+            out.append(String.format("\\u%04x", (int) c));
+          } else {
+            out.append(c);
+          }
+        }
+      }
+    }
+    out.append('"');
+  }
+}
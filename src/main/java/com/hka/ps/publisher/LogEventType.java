@@ -0,0 +1,88 @@
+package com.hka.ps.publisher;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Strukturierte Logereignisse des Payment Service. Jede Konstante trägt das Textmuster,
+ * mit dem das Ereignis auf {@code log.queue} gerendert wird; Platzhalter der Form
+ * {@code {feld}} werden einmalig beim Laden der Klasse vorkompiliert.
+ */
+public enum LogEventType {
+  AUTHORIZE_RECEIVED("POST /payments/authorize orderId= {orderId} idempotencyKey= {idempotencyKey}"),
+  AUTHORIZE_REQUEST("Authorize request orderId= {orderId}, amount= {amount}, currency= {currency}, idempotencyKey: {idempotencyKey}"),
+  AUTHORIZE_IDEMPOTENT_HIT("Idempotent authorize hit for order: {orderId} "),
+  AUTHORIZE_EXISTING("Existing payment reused for order: {orderId}"),
+  AUTHORIZATION_DECIDED("Authorization {status} for order {orderId}"),
+  AUTHORIZE_RESULT("Authorize result orderId= {orderId} status= {httpStatus}"),
+  CAPTURE_RECEIVED("POST /payments/capture orderId= {orderId}"),
+  CAPTURE_REQUEST("Capture request orderId: {orderId} amount: {amount}"),
+  CAPTURE_IDEMPOTENT("Capture idempotent for order: {orderId} "),
+  CAPTURED("Payment captured for order: {orderId} "),
+  CAPTURE_RESULT("Capture result orderId= {orderId} status= {status}"),
+  REFUND_RECEIVED("POST /payments/refund orderId= {orderId} reason= {detail}"),
+  REFUND_REQUEST("Refund request orderId: {orderId}, amount: {amount}, reason: {detail}"),
+  REFUND_IDEMPOTENT("Refund idempotent for order {orderId}"),
+  REFUNDED("Payment refunded for order {orderId}"),
+  REFUND_RESULT("Refund result orderId= {orderId} status= {status}"),
+  /** Freitext im Stil von {@link PsPublisher#publishLog(String, Object...)}. */
+  MESSAGE("{detail}");
+
+  /** Felder eines {@link LogEvent}, die in einem Muster referenziert werden können. */
+  public enum Field {
+    ORDER_ID("orderId"),
+    STATUS("status"),
+    HTTP_STATUS("httpStatus"),
+    AMOUNT("amount"),
+    CURRENCY("currency"),
+    IDEMPOTENCY_KEY("idempotencyKey"),
+    DETAIL("detail");
+
+    private final String jsonName;
+
+    Field(String jsonName) {
+      this.jsonName = jsonName;
+    }
+
+    public String jsonName() {
+      return jsonName;
+    }
+
+    static Field byName(String name) {
+      for (Field f : values()) {
+        if (f.jsonName.equals(name)) {
+          return f;
+        }
+      }
+      throw new IllegalArgumentException("Unknown log field: " + name);
+    }
+  }
+
+  private final String[] literals;
+  private final Field[] fields;
+
+  LogEventType(String pattern) {
+    List<String> lits = new ArrayList<>();
+    List<Field> refs = new ArrayList<>();
+    int start = 0;
+    int open;
+    while ((open = pattern.indexOf('{', start)) >= 0) {
+      int close = pattern.indexOf('}', open);
+      lits.add(pattern.substring(start, open));
+      refs.add(Field.byName(pattern.substring(open + 1, close)));
+      start = close + 1;
+    }
+    lits.add(pattern.substring(start));
+    this.literals = lits.toArray(new String[0]);
+    this.fields = refs.toArray(new Field[0]);
+  }
+
+  /** Literale des Musters; es gibt immer genau ein Literal mehr als Felder. */
+  String[] literals() {
+    return literals;
+  }
+
+  Field[] fields() {
+    return fields;
+  }
+}
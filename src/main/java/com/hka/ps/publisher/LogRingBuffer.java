@@ -0,0 +1,125 @@
+package com.hka.ps.publisher;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.hka.ps.domain.PaymentStatus;
+import com.hka.ps.publisher.PublisherProperties.OverflowPolicy;
+
+/**
+ * Begrenzter Ringpuffer zwischen Request-Threads und dem Log-Drainer.
+ * Alle Slots werden beim Start angelegt; Produzenten beschreiben einen freien Slot,
+ * der Drainer tauscht belegte Slots gegen eigene leere aus und rendert sie außerhalb
+ * des Locks. Bei vollem Puffer entscheidet die {@link OverflowPolicy}, ob der Aufrufer
+ * wartet oder welches Ereignis verworfen wird.
+ */
+final class LogRingBuffer {
+
+  private final LogEvent[] slots;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition notEmpty = lock.newCondition();
+  private final Condition notFull = lock.newCondition();
+  private int head;
+  private int count;
+
+  LogRingBuffer(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be > 0");
+    }
+    this.slots = new LogEvent[capacity];
+    for (int i = 0; i < capacity; i++) {
+      slots[i] = new LogEvent();
+    }
+  }
+
+  /**
+   * Legt ein Ereignis ab. Mit {@link OverflowPolicy#BLOCK} wartet der Aufrufer höchstens
+   * {@code blockNanos} auf einen freien Slot und verwirft das Ereignis danach.
+   *
+   * @return Anzahl der dabei verworfenen Ereignisse (0 oder 1)
+   */
+  int offer(OverflowPolicy policy, long blockNanos, LogEventType type, long timestamp, String orderId,
+      PaymentStatus status, int httpStatus, BigDecimal amount, String currency, String idempotencyKey, String detail,
+      Object[] args) {
+    lock.lock();
+    try {
+      int dropped = 0;
+      if (count == slots.length) {
+        switch (policy) {
+          case DROP_NEWEST:
+            return 1;
+          case DROP_OLDEST:
+            slots[head].clear();
+            head = (head + 1) % slots.length;
+            count--;
+            dropped = 1;
+            break;
+          case BLOCK:
+          default:
+            long nanos = blockNanos;
+            while (count == slots.length) {
+              if (nanos <= 0) {
+                return 1;
+              }
+              try {
+                nanos = notFull.awaitNanos(nanos);
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return 1;
+              }
+            }
+        }
+      }
+      slots[(head + count) % slots.length]
+          .set(type, timestamp, orderId, status, httpStatus, amount, currency, idempotencyKey, detail, args);
+      count++;
+      notEmpty.signal();
+      return dropped;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Tauscht bis zu {@code spare.length} belegte Slots gegen die leeren Instanzen aus
+   * {@code spare}; danach enthält {@code spare[0..n)} die entnommenen Ereignisse.
+   * Wartet höchstens {@code timeout}, falls der Puffer leer ist.
+   *
+   * @return Anzahl der entnommenen Ereignisse
+   */
+  int drainTo(LogEvent[] spare, long timeout, TimeUnit unit) throws InterruptedException {
+    long nanos = unit.toNanos(timeout);
+    lock.lock();
+    try {
+      while (count == 0) {
+        if (nanos <= 0) {
+          return 0;
+        }
+        nanos = notEmpty.awaitNanos(nanos);
+      }
+      int n = Math.min(count, spare.length);
+      for (int i = 0; i < n; i++) {
+        LogEvent taken = slots[head];
+        slots[head] = spare[i];
+        spare[i] = taken;
+        head = (head + 1) % slots.length;
+      }
+      count -= n;
+      notFull.signalAll();
+      return n;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  int size() {
+    lock.lock();
+    try {
+      return count;
+    } finally {
+      lock.unlock();
+    }
+  }
+}
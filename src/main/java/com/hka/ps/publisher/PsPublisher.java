@@ -1,52 +1,349 @@
 package com.hka.ps.publisher;
 
 
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 
+import com.hka.ps.domain.PaymentStatus;
+import com.hka.ps.publisher.PublisherProperties.Mode;
+import com.hka.ps.publisher.PublisherProperties.OverflowPolicy;
+import com.hka.ps.tracing.LogShipEvent;
+
 @Component
-public class PsPublisher {
+public class PsPublisher implements SmartLifecycle {
     private final RabbitTemplate rabbitTemplate;
+    private final PublisherProperties properties;
+    private final boolean virtualThreads;
     private static final Logger logger = LoggerFactory.getLogger(PsPublisher.class);
 
-    private static final String SERVICE_NAME = "PS";
+    private final LogRingBuffer buffer;
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder batchesSent = new LongAdder();
+    private final LongAdder sendFailures = new LongAdder();
+    private final LongAdder sendNanos = new LongAdder();
+
+    private volatile boolean running;
+    private Thread drainer;
 
-    public PsPublisher(RabbitTemplate rabbitTemplate) {
+    public PsPublisher(RabbitTemplate rabbitTemplate, PublisherProperties properties,
+                       @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
         this.rabbitTemplate = rabbitTemplate;
+        this.properties = properties;
+        this.virtualThreads = virtualThreads;
+        this.buffer = properties.getMode() == Mode.ASYNC ? new LogRingBuffer(properties.getCapacity()) : null;
+    }
+
+    public void publish(LogEventType type, String orderId) {
+        emit(type, orderId, null, 0, null, null, null, null, null);
     }
 
+    public void publish(LogEventType type, String orderId, PaymentStatus status) {
+        emit(type, orderId, status, 0, null, null, null, null, null);
+    }
+
+    public void publish(LogEventType type, String orderId, HttpStatus httpStatus) {
+        emit(type, orderId, null, httpStatus.value(), null, null, null, null, null);
+    }
+
+    public void publishRequest(LogEventType type, String orderId, BigDecimal amount, String currency,
+                               String idempotencyKey, String detail) {
+        emit(type, orderId, null, 0, amount, currency, idempotencyKey, detail, null);
+    }
+
+    /**
+     * Freitext-Log; das Muster mit {@code {}}-Platzhaltern wird erst beim Versand
+     * aufgelöst.
+     */
     public void publishLog(String pattern, Object... args) {
-        String formatted = format(pattern, args);
+        emit(LogEventType.MESSAGE, null, null, 0, null, null, null, pattern, args);
+    }
+
+    private void emit(LogEventType type, String orderId, PaymentStatus status, int httpStatus, BigDecimal amount,
+                      String currency, String idempotencyKey, String detail, Object[] args) {
+        long now = System.currentTimeMillis();
+        if (buffer == null) {
+            LogEvent event = new LogEvent();
+            event.set(type, now, orderId, status, httpStatus, amount, currency, idempotencyKey, detail, args);
+            StringBuilder sb = new StringBuilder(128);
+            new LogEventRenderer(properties.getFormat()).render(event, sb);
+            String msg = sb.toString();
+            logger.info(msg);
+            ship(msg);
+            return;
+        }
+        // Ohne Drainer wird der Puffer nicht mehr leer; nach dem Stopp wartet niemand mehr auf Platz.
+        OverflowPolicy policy = running ? properties.getOverflow() : OverflowPolicy.DROP_NEWEST;
+        int lost = buffer.offer(policy, properties.getBlockTimeout().toNanos(), type, now, orderId, status,
+                httpStatus, amount, currency, idempotencyKey, detail, args);
+        if (lost > 0) {
+            dropped.add(lost);
+        }
+        if (lost == 0 || policy == OverflowPolicy.DROP_OLDEST) {
+            queued.increment();
+        }
+    }
+
+    /**
+     * Rendert die Ereignisse im konfigurierten Format und versendet sie synchron als eine
+     * Nachricht. Fehler beim Versand werden an den Aufrufer weitergereicht.
+     */
+    public void sendNow(List<LogEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        String batch = render(events);
+        ship(batch);
+        logBatch(batch);
+    }
+
+    /** Rendert die Ereignisse im konfigurierten Format zu einer Nachricht, eine Zeile je Ereignis. */
+    public String render(List<LogEvent> events) {
+        LogEventRenderer renderer = new LogEventRenderer(properties.getFormat());
+        StringBuilder batch = new StringBuilder(events.size() * 96);
+        for (int i = 0; i < events.size(); i++) {
+            if (i > 0) {
+                batch.append('\n');
+            }
+            renderer.render(events.get(i), batch);
+        }
+        return batch.toString();
+    }
+
+    /** Schreibt die Zeilen einer versendeten Nachricht ins lokale Log. */
+    public void logBatch(String batch) {
+        if (!logger.isInfoEnabled()) {
+            return;
+        }
+        for (int start = 0, end; start <= batch.length(); start = end + 1) {
+            end = batch.indexOf('\n', start);
+            if (end < 0) {
+                end = batch.length();
+            }
+            logger.info(batch.substring(start, end));
+        }
+    }
+
+    /**
+     * Zählt einen außerhalb des Publishers versendeten Batch mit, z. B. vom nicht blockierenden
+     * Outbox-Relay des Profils {@code reactive}.
+     */
+    public void recordShipped(long nanos, boolean success) {
+        if (success) {
+            sendNanos.add(nanos);
+            batchesSent.increment();
+        } else {
+            sendFailures.increment();
+        }
+    }
+
+    /** Ziel-Queue der Log-Nachrichten. */
+    public String getQueue() {
+        return properties.getQueue();
+    }
+
+    /** Anzahl der seit dem Start in den Puffer gestellten Logzeilen. */
+    public long getQueuedCount() {
+        return queued.sum();
+    }
+
+    /** Anzahl der wegen vollem Puffer verworfenen Logzeilen. */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
 
-        String msg = "[" + SERVICE_NAME + "] " + formatted;
+    /** Anzahl der aktuell auf Versand wartenden Logzeilen. */
+    public int getPendingCount() {
+        return buffer == null ? 0 : buffer.size();
+    }
 
-        logger.info(msg);
+    public long getBatchesSent() {
+        return batchesSent.sum();
+    }
 
-        rabbitTemplate.convertAndSend("log.queue", msg);
+    public long getSendFailures() {
+        return sendFailures.sum();
     }
 
+    /** Summierte Dauer aller erfolgreichen Sendevorgänge in Nanosekunden. */
+    public long getSendNanos() {
+        return sendNanos.sum();
+    }
 
-    private String format(String pattern, Object... args) {
-        if (args == null || args.length == 0) return pattern;
+    /**
+     * Vor dem Webserver starten und erst nach ihm stoppen ({@code WebServerGracefulShutdownLifecycle} und
+     * {@code WebServerStartStopLifecycle} liegen bei {@code DEFAULT_PHASE - 1024} bzw. {@code - 2048}), damit
+     * die Logzeilen der beim Herunterfahren noch laufenden Requests versendet werden.
+     */
+    @Override
+    public int getPhase() {
+        return DEFAULT_PHASE - 4096;
+    }
 
-        StringBuilder sb = new StringBuilder();
-        int index = 0;
+    @Override
+    public void start() {
+        if (buffer == null || running) {
+            return;
+        }
+        running = true;
+        Thread.Builder builder = virtualThreads ? Thread.ofVirtual() : Thread.ofPlatform().daemon(true);
+        drainer = builder.name("ps-log-drainer").start(this::drainLoop);
+    }
 
-        for (int i = 0; i < pattern.length(); i++) {
-            if (pattern.charAt(i) == '{' && i + 1 < pattern.length() && pattern.charAt(i + 1) == '}') {
-                if (index < args.length) {
-                    sb.append(args[index++]);
+    @Override
+    public void stop() {
+        running = false;
+        Thread t = drainer;
+        if (t == null) {
+            return;
+        }
+        try {
+            t.join(properties.getShutdownTimeout().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (t.isAlive()) {
+            logger.warn("Log drainer did not finish within {}, {} lines pending", properties.getShutdownTimeout(), buffer.size());
+        }
+        drainer = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void drainLoop() {
+        int maxLines = Math.max(1, properties.getBatchMaxLines());
+        int maxBytes = Math.max(1, properties.getBatchMaxBytes());
+        long lingerNanos = Math.max(1, properties.getLinger().toNanos());
+
+        LogEvent[] spare = new LogEvent[maxLines];
+        for (int i = 0; i < spare.length; i++) {
+            spare[i] = new LogEvent();
+        }
+        LogEventRenderer renderer = new LogEventRenderer(properties.getFormat());
+        StringBuilder line = new StringBuilder(256);
+        StringBuilder batch = new StringBuilder(Math.min(maxBytes, 1 << 16));
+        int batchLines = 0;
+        int batchBytes = 0;
+        long batchStarted = 0;
+
+        while (running || buffer.size() > 0) {
+            long wait = batchLines == 0 ? lingerNanos : batchStarted + lingerNanos - System.nanoTime();
+            int n;
+            try {
+                n = buffer.drainTo(spare, wait, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                running = false;
+                continue;
+            }
+            for (int i = 0; i < n; i++) {
+                line.setLength(0);
+                renderer.render(spare[i], line);
+                spare[i].clear();
+                if (logger.isInfoEnabled()) {
+                    logger.info(line.toString());
+                }
+                int lineBytes = utf8Length(line);
+                boolean full = batchLines >= maxLines || batchBytes + 1 + lineBytes > maxBytes;
+                if (batchLines > 0 && full) {
+                    send(batch);
+                    batchLines = 0;
+                    batchBytes = 0;
+                }
+                if (batchLines == 0) {
+                    batchStarted = System.nanoTime();
                 } else {
-                    sb.append("{?}");
+                    batch.append('\n');
+                    batchBytes++;
                 }
-                i++;
+                batch.append(line);
+                batchBytes += lineBytes;
+                batchLines++;
+            }
+            if (batchLines > 0 && (!running || System.nanoTime() - batchStarted >= lingerNanos)) {
+                send(batch);
+                batchLines = 0;
+                batchBytes = 0;
+            }
+        }
+        if (batchLines > 0) {
+            send(batch);
+        }
+    }
+
+    /**
+     * Länge in UTF-8, der Kodierung, mit der {@code convertAndSend} den Text als Nachrichtenrumpf schreibt;
+     * ohne den Text dafür zu kodieren.
+     */
+    static int utf8Length(CharSequence text) {
+        int bytes = text.length();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                continue;
+            }
+            if (c < 0x800) {
+                bytes++;
             } else {
-                sb.append(pattern.charAt(i));
+                // 3 Bytes; ein Surrogatpaar belegt zwei Zeichen und ergibt 4 Bytes
+                bytes += 2;
+                if (Character.isHighSurrogate(c) && i + 1 < text.length()
+                        && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    i++;
+                }
             }
         }
+        return bytes;
+    }
 
-        return sb.toString();
+    /** Sendet eine Nachricht und zählt Dauer bzw. Fehler; Fehler werden weitergereicht. */
+    private void ship(String message) {
+        LogShipEvent event = new LogShipEvent();
+        event.begin();
+        long started = System.nanoTime();
+        try {
+            rabbitTemplate.convertAndSend(properties.getQueue(), message);
+        } catch (AmqpException e) {
+            sendFailures.increment();
+            commit(event, message, false);
+            throw e;
+        }
+        sendNanos.add(System.nanoTime() - started);
+        batchesSent.increment();
+        commit(event, message, true);
+    }
+
+    private void commit(LogShipEvent event, String message, boolean success) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.queue = properties.getQueue();
+            event.length = message.length();
+            event.success = success;
+            event.commit();
+        }
     }
+
+    private void send(StringBuilder batch) {
+        try {
+            ship(batch.toString());
+        } catch (AmqpException e) {
+            logger.warn("Failed to ship log batch to {}: {}", properties.getQueue(), e.getMessage());
+        } finally {
+            batch.setLength(0);
+        }
+    }
+
 }
@@ -0,0 +1,119 @@
+package com.hka.ps.publisher;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import com.hka.ps.publisher.LogEventRenderer.Format;
+
+@ConfigurationProperties(prefix = "ps.publisher")
+public class PublisherProperties {
+
+  public enum Mode {
+    /** Sendet jede Logzeile sofort im aufrufenden Thread. */
+    SYNC,
+    /** Puffert Logzeilen im Ringpuffer und versendet sie gebündelt im Hintergrund. */
+    ASYNC
+  }
+
+  public enum OverflowPolicy {
+    /** Aufrufer wartet, bis wieder Platz im Puffer ist, höchstens {@code block-timeout}; danach wird die neue Zeile verworfen. */
+    BLOCK,
+    /** Älteste gepufferte Zeile wird verworfen. */
+    DROP_OLDEST,
+    /** Neue Zeile wird verworfen. */
+    DROP_NEWEST
+  }
+
+  private Mode mode = Mode.SYNC;
+  private String queue = "log.queue";
+  private Format format = Format.TEXT;
+  private int capacity = 8192;
+  private OverflowPolicy overflow = OverflowPolicy.DROP_OLDEST;
+  /** Obergrenze einer gebündelten Nachricht in Bytes nach UTF-8-Kodierung (so wird der Rumpf versendet). */
+  private int batchMaxBytes = 64 * 1024;
+  private int batchMaxLines = 512;
+  private Duration linger = Duration.ofMillis(50);
+  private Duration shutdownTimeout = Duration.ofSeconds(5);
+  private Duration blockTimeout = Duration.ofSeconds(1);
+
+  public Mode getMode() {
+    return mode;
+  }
+
+  public void setMode(Mode mode) {
+    this.mode = mode;
+  }
+
+  public String getQueue() {
+    return queue;
+  }
+
+  public void setQueue(String queue) {
+    this.queue = queue;
+  }
+
+  public Format getFormat() {
+    return format;
+  }
+
+  public void setFormat(Format format) {
+    this.format = format;
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  public void setCapacity(int capacity) {
+    this.capacity = capacity;
+  }
+
+  public OverflowPolicy getOverflow() {
+    return overflow;
+  }
+
+  public void setOverflow(OverflowPolicy overflow) {
+    this.overflow = overflow;
+  }
+
+  public int getBatchMaxBytes() {
+    return batchMaxBytes;
+  }
+
+  public void setBatchMaxBytes(int batchMaxBytes) {
+    this.batchMaxBytes = batchMaxBytes;
+  }
+
+  public int getBatchMaxLines() {
+    return batchMaxLines;
+  }
+
+  public void setBatchMaxLines(int batchMaxLines) {
+    this.batchMaxLines = batchMaxLines;
+  }
+
+  public Duration getLinger() {
+    return linger;
+  }
+
+  public void setLinger(Duration linger) {
+    this.linger = linger;
+  }
+
+  public Duration getShutdownTimeout() {
+    return shutdownTimeout;
+  }
+
+  public void setShutdownTimeout(Duration shutdownTimeout) {
+    this.shutdownTimeout = shutdownTimeout;
+  }
+
+  public Duration getBlockTimeout() {
+    return blockTimeout;
+  }
+
+  public void setBlockTimeout(Duration blockTimeout) {
+    this.blockTimeout = blockTimeout;
+  }
+}
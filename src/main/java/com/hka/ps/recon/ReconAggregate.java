@@ -0,0 +1,46 @@
+package com.hka.ps.recon;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.hka.ps.domain.Money;
+
+/**
+ * Summen je {@link ReconKey} in Hundertsteln; Speicherbedarf wächst mit der Zahl der Gruppen,
+ * nicht der Zahlungen.
+ */
+final class ReconAggregate {
+
+  static final Comparator<ReconRow> ORDER = Comparator.comparing(ReconRow::day)
+      .thenComparing(ReconRow::currency)
+      .thenComparing(ReconRow::method)
+      .thenComparing(ReconRow::status);
+
+  private final Map<ReconKey, Sum> sums = new HashMap<>();
+
+  void add(ReconKey key, long count, long amountMinor) {
+    Sum sum = sums.computeIfAbsent(key, k -> new Sum());
+    sum.count += count;
+    sum.amountMinor += amountMinor;
+  }
+
+  Map<ReconKey, Sum> sums() {
+    return sums;
+  }
+
+  List<ReconRow> rows() {
+    List<ReconRow> rows = new ArrayList<>(sums.size());
+    sums.forEach((k, s) -> rows.add(new ReconRow(k.getDay(), k.getCurrency(), k.getMethod(), k.getStatus(),
+        s.count, Money.toBigDecimal(s.amountMinor))));
+    rows.sort(ORDER);
+    return rows;
+  }
+
+  static final class Sum {
+    long count;
+    long amountMinor;
+  }
+}
@@ -0,0 +1,38 @@
+package com.hka.ps.recon;
+
+import java.time.Instant;
+
+import jakarta.persistence.*;
+
+/** Zeitpunkt, bis zu dem Änderungen an {@code payments} in die laufenden Summen übernommen sind. */
+@Entity
+@Table(name = "recon_checkpoint")
+public class ReconCheckpoint {
+
+  @Id
+  @Column(length = 40)
+  private String name;
+
+  @Column(nullable = false)
+  private Instant watermark;
+
+  protected ReconCheckpoint() {
+  }
+
+  public ReconCheckpoint(String name, Instant watermark) {
+    this.name = name;
+    this.watermark = watermark;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public Instant getWatermark() {
+    return watermark;
+  }
+
+  public void setWatermark(Instant watermark) {
+    this.watermark = watermark;
+  }
+}
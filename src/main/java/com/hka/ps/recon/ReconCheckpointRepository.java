@@ -0,0 +1,28 @@
+package com.hka.ps.recon;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
+import static org.hibernate.jpa.SpecHints.HINT_SPEC_LOCK_TIMEOUT;
+
+public interface ReconCheckpointRepository extends JpaRepository<ReconCheckpoint, String> {
+
+  /**
+   * Liest den Checkpoint per {@code SELECT ... FOR UPDATE}; die Sperre hält bis zum Ende der Transaktion. Hält sie
+   * schon eine andere Transaktion, scheitert der Aufruf mit einer
+   * {@link org.springframework.dao.PessimisticLockingFailureException}: sofort, wo die Datenbank {@code NOWAIT}
+   * kennt, bei H2 nach dessen {@code LOCK_TIMEOUT}.
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @QueryHints(@QueryHint(name = HINT_SPEC_LOCK_TIMEOUT, value = "0"))
+  @Query("select c from ReconCheckpoint c where c.name = :name")
+  Optional<ReconCheckpoint> lockByName(@Param("name") String name);
+}
@@ -0,0 +1,48 @@
+package com.hka.ps.recon;
+
+import jakarta.persistence.*;
+
+/**
+ * Beitrag einer Zahlung zu {@code recon_totals} beim letzten Lauf. Ändert sich die Zahlung, wird dieser Beitrag
+ * abgezogen und der neue addiert; unveränderte Zahlungen ergeben keine Änderung.
+ */
+@Entity
+@Table(name = "recon_entries")
+public class ReconEntry {
+
+  @Id
+  @Column(name = "payment_id")
+  private Long paymentId;
+
+  @Embedded
+  private ReconKey key;
+
+  @Column(name = "amount_minor", nullable = false)
+  private long amountMinor;
+
+  protected ReconEntry() {
+  }
+
+  public ReconEntry(Long paymentId, ReconKey key, long amountMinor) {
+    this.paymentId = paymentId;
+    this.key = key;
+    this.amountMinor = amountMinor;
+  }
+
+  public Long getPaymentId() {
+    return paymentId;
+  }
+
+  public ReconKey getKey() {
+    return key;
+  }
+
+  public long getAmountMinor() {
+    return amountMinor;
+  }
+
+  void update(ReconKey key, long amountMinor) {
+    this.key = key;
+    this.amountMinor = amountMinor;
+  }
+}
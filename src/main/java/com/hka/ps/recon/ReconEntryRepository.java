@@ -0,0 +1,6 @@
+package com.hka.ps.recon;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ReconEntryRepository extends JpaRepository<ReconEntry, Long> {
+}
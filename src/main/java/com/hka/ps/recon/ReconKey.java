@@ -0,0 +1,64 @@
+package com.hka.ps.recon;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+import com.hka.ps.domain.PaymentStatus;
+
+import jakarta.persistence.*;
+
+/** Gruppierungsschlüssel der Abstimmung: Geschäftstag (aus {@code createdAt}), Währung, Zahlart und Status. */
+@Embeddable
+public class ReconKey implements Serializable {
+
+  @Column(name = "business_day", nullable = false)
+  private LocalDate day;
+
+  @Column(length = 3, nullable = false)
+  private String currency;
+
+  @Column(nullable = false)
+  private String method;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false, length = 20)
+  private PaymentStatus status;
+
+  protected ReconKey() {
+  }
+
+  public ReconKey(LocalDate day, String currency, String method, PaymentStatus status) {
+    this.day = day;
+    this.currency = currency;
+    this.method = method;
+    this.status = status;
+  }
+
+  public LocalDate getDay() {
+    return day;
+  }
+
+  public String getCurrency() {
+    return currency;
+  }
+
+  public String getMethod() {
+    return method;
+  }
+
+  public PaymentStatus getStatus() {
+    return status;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return o instanceof ReconKey k && day.equals(k.day) && currency.equals(k.currency) && method.equals(k.method)
+        && status == k.status;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(day, currency, method, status);
+  }
+}
@@ -0,0 +1,52 @@
+package com.hka.ps.recon;
+
+import java.time.Duration;
+import java.time.ZoneId;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "ps.recon")
+public class ReconProperties {
+
+  private boolean enabled = true;
+  private int batchSize = 500;
+  /**
+   * Sicherheitsabstand beim Wiederaufsetzen: {@code updatedAt} wird vor dem Commit gesetzt, daher können
+   * Zeilen mit etwas älterem Zeitstempel erst nach dem letzten Lauf sichtbar geworden sein. Transaktionen, die
+   * länger als dieser Abstand brauchen, werden nicht erfasst.
+   */
+  private Duration lag = Duration.ofSeconds(30);
+  private ZoneId zone = ZoneId.of("UTC");
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  public void setBatchSize(int batchSize) {
+    this.batchSize = batchSize;
+  }
+
+  public Duration getLag() {
+    return lag;
+  }
+
+  public void setLag(Duration lag) {
+    this.lag = lag;
+  }
+
+  public ZoneId getZone() {
+    return zone;
+  }
+
+  public void setZone(ZoneId zone) {
+    this.zone = zone;
+  }
+}
@@ -0,0 +1,11 @@
+package com.hka.ps.recon;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import com.hka.ps.domain.PaymentStatus;
+
+/** Summe einer Gruppe, wie sie Report und gespeicherte Totals liefern. */
+public record ReconRow(LocalDate day, String currency, String method, PaymentStatus status, long count,
+    BigDecimal amount) {
+}
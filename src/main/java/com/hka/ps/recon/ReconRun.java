@@ -0,0 +1,15 @@
+package com.hka.ps.recon;
+
+import java.time.Instant;
+
+/**
+ * Ergebnis eines inkrementellen Laufs.
+ *
+ * @param since    untere Grenze der gelesenen {@code updatedAt}-Werte (Checkpoint minus Lag)
+ * @param watermark neuer Checkpoint
+ * @param scanned  gelesene Zahlungen
+ * @param changed  Zahlungen, deren Beitrag sich geändert hat
+ * @param groups   fortgeschriebene Gruppen
+ */
+public record ReconRun(Instant since, Instant watermark, long scanned, long changed, int groups) {
+}
@@ -0,0 +1,42 @@
+package com.hka.ps.recon;
+
+import jakarta.persistence.*;
+
+/** Laufende Summe einer Gruppe; wird von der inkrementellen Abstimmung fortgeschrieben. */
+@Entity
+@Table(name = "recon_totals")
+public class ReconTotal {
+
+  @EmbeddedId
+  private ReconKey key;
+
+  @Column(name = "payment_count", nullable = false)
+  private long count;
+
+  @Column(name = "amount_minor", nullable = false)
+  private long amountMinor;
+
+  protected ReconTotal() {
+  }
+
+  public ReconTotal(ReconKey key) {
+    this.key = key;
+  }
+
+  public ReconKey getKey() {
+    return key;
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  public long getAmountMinor() {
+    return amountMinor;
+  }
+
+  void add(long count, long amountMinor) {
+    this.count += count;
+    this.amountMinor += amountMinor;
+  }
+}
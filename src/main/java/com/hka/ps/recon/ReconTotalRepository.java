@@ -0,0 +1,14 @@
+package com.hka.ps.recon;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface ReconTotalRepository extends JpaRepository<ReconTotal, ReconKey> {
+
+  @Query("select t from ReconTotal t where t.key.day >= :from and t.key.day <= :to")
+  List<ReconTotal> findByDayBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
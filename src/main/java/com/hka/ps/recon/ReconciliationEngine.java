@@ -0,0 +1,231 @@
+package com.hka.ps.recon;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.hka.ps.domain.Money;
+import com.hka.ps.repo.PaymentStore;
+import com.hka.ps.repo.PaymentView;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Abstimmungssummen je Tag, Währung, Zahlart und Status.
+ *
+ * <p>{@link #report()} berechnet sie in einem einzigen Streaming-Durchlauf über {@code payments}.
+ * {@link #reconcile()} schreibt die gespeicherten Summen ({@code recon_totals}) inkrementell fort: gelesen werden nur
+ * Zahlungen mit {@code updatedAt} ab dem letzten Checkpoint (abzüglich {@code ps.recon.lag}); für jede wird ihr
+ * bisheriger Beitrag ({@code recon_entries}) abgezogen und der aktuelle addiert. Ein Lauf kostet damit proportional
+ * zur Zahl der Änderungen und ist wiederholbar.
+ *
+ * <p>Ein Lauf sperrt die Checkpoint-Zeile für seine ganze Transaktion ({@code SELECT ... FOR UPDATE}); ein
+ * zweiter Lauf, auch auf einer anderen Instanz, bricht ab, statt dieselben Änderungen doppelt zu verbuchen.
+ *
+ * <p>Der Checkpoint ist ein Zeitstempel, keine Commit-Reihenfolge: eine Zahlung, deren Transaktion später als
+ * {@code ps.recon.lag} nach ihrem {@code updatedAt} committet, liegt beim nächsten Lauf vor dessen Startpunkt und
+ * fehlt in den Summen, bis sie sich erneut ändert. {@code ps.recon.lag} muss daher über der längsten
+ * Schreibtransaktion liegen; {@link #report()} ist davon nicht betroffen.
+ */
+@Component
+public class ReconciliationEngine {
+
+  static final String CHECKPOINT = "payments";
+
+  private static final Logger log = LoggerFactory.getLogger(ReconciliationEngine.class);
+
+  private final PaymentStore payments;
+  private final ReconTotalRepository totals;
+  private final ReconEntryRepository entries;
+  private final ReconCheckpointRepository checkpoints;
+  private final ReconProperties properties;
+  private final EntityManager entityManager;
+  private final TransactionTemplate tx;
+  private final TransactionTemplate readOnlyTx;
+  private final AtomicBoolean running = new AtomicBoolean();
+
+  public ReconciliationEngine(PaymentStore payments, ReconTotalRepository totals, ReconEntryRepository entries,
+      ReconCheckpointRepository checkpoints, ReconProperties properties, EntityManager entityManager,
+      PlatformTransactionManager transactionManager) {
+    this.payments = payments;
+    this.totals = totals;
+    this.entries = entries;
+    this.checkpoints = checkpoints;
+    this.properties = properties;
+    this.entityManager = entityManager;
+    this.tx = new TransactionTemplate(transactionManager);
+    this.readOnlyTx = new TransactionTemplate(transactionManager);
+    this.readOnlyTx.setReadOnly(true);
+  }
+
+  /** Vollständiger Report in einem Streaming-Durchlauf, ohne gespeicherte Summen zu verändern. */
+  public List<ReconRow> report() {
+    ZoneId zone = properties.getZone();
+    return readOnlyTx.execute(status -> {
+      ReconAggregate aggregate = new ReconAggregate();
+      try (Stream<PaymentView> views = payments.streamViews()) {
+        views.forEach(v -> aggregate.add(keyOf(v, zone), 1, v.amountMinor()));
+      }
+      return aggregate.rows();
+    });
+  }
+
+  /** Gespeicherte Summen der Tage {@code from} bis einschließlich {@code to}. */
+  public List<ReconRow> totals(LocalDate from, LocalDate to) {
+    return readOnlyTx.execute(status -> totals.findByDayBetween(from, to).stream()
+        .map(t -> new ReconRow(t.getKey().getDay(), t.getKey().getCurrency(), t.getKey().getMethod(),
+            t.getKey().getStatus(), t.getCount(), Money.toBigDecimal(t.getAmountMinor())))
+        .sorted(ReconAggregate.ORDER)
+        .toList());
+  }
+
+  @Scheduled(fixedDelayString = "${ps.recon.interval-ms:60000}", initialDelayString = "${ps.recon.interval-ms:60000}")
+  public void scheduledReconcile() {
+    if (!properties.isEnabled() || running.get()) {
+      return;
+    }
+    try {
+      reconcile();
+    } catch (IllegalStateException e) {
+      log.debug("Skipping scheduled reconciliation: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * Übernimmt alle seit dem letzten Checkpoint geänderten Zahlungen in {@code recon_totals}.
+   *
+   * @throws IllegalStateException wenn bereits ein Lauf aktiv ist
+   */
+  public ReconRun reconcile() {
+    if (!running.compareAndSet(false, true)) {
+      throw new IllegalStateException("reconciliation already running");
+    }
+    try {
+      createCheckpointIfAbsent();
+      ReconRun run;
+      try {
+        run = tx.execute(status -> reconcileInTx());
+      } catch (PessimisticLockingFailureException e) {
+        throw new IllegalStateException("reconciliation already running on another instance");
+      }
+      log.info("Reconciled {} changed of {} scanned payments into {} groups (since {})",
+          run.changed(), run.scanned(), run.groups(), run.since());
+      return run;
+    } finally {
+      running.set(false);
+    }
+  }
+
+  /** Nur eine existierende Zeile lässt sich sperren; legen zwei Instanzen sie gleichzeitig an, gewinnt eine. */
+  private void createCheckpointIfAbsent() {
+    if (checkpoints.existsById(CHECKPOINT)) {
+      return;
+    }
+    try {
+      tx.executeWithoutResult(status -> checkpoints.saveAndFlush(new ReconCheckpoint(CHECKPOINT, Instant.EPOCH)));
+    } catch (DataIntegrityViolationException e) {
+      log.debug("Reconciliation checkpoint created concurrently");
+    }
+  }
+
+  private ReconRun reconcileInTx() {
+    ReconCheckpoint checkpoint = checkpoints.lockByName(CHECKPOINT)
+        .orElseThrow(() -> new IllegalStateException("reconciliation checkpoint missing"));
+    // Erst nach der Sperre: ein zuvor wartender Lauf darf nicht vor dem Ende seines Vorgängers ansetzen.
+    Instant watermark = Instant.now();
+    Instant since = checkpoint.getWatermark().equals(Instant.EPOCH)
+        ? Instant.EPOCH
+        : checkpoint.getWatermark().minus(properties.getLag());
+
+    ZoneId zone = properties.getZone();
+    int batchSize = Math.max(1, properties.getBatchSize());
+    ReconAggregate delta = new ReconAggregate();
+    long scanned = 0;
+    long changed = 0;
+    try (Stream<PaymentView> views = payments.streamViewsUpdatedSince(since)) {
+      Iterator<PaymentView> it = views.iterator();
+      List<PaymentView> chunk = new ArrayList<>(batchSize);
+      while (it.hasNext()) {
+        chunk.add(it.next());
+        if (chunk.size() == batchSize || !it.hasNext()) {
+          scanned += chunk.size();
+          changed += mergeChunk(chunk, zone, delta);
+          chunk.clear();
+        }
+      }
+    }
+    applyDelta(delta);
+    checkpoint.setWatermark(watermark);
+    checkpoints.save(checkpoint);
+    return new ReconRun(since, watermark, scanned, changed, delta.sums().size());
+  }
+
+  /** Verrechnet einen Chunk gegen die gespeicherten Beiträge; gibt die Zahl geänderter Zahlungen zurück. */
+  private int mergeChunk(List<PaymentView> chunk, ZoneId zone, ReconAggregate delta) {
+    List<Long> ids = chunk.stream().map(PaymentView::id).toList();
+    Map<Long, ReconEntry> known = entries.findAllById(ids).stream()
+        .collect(Collectors.toMap(ReconEntry::getPaymentId, Function.identity()));
+    List<ReconEntry> created = new ArrayList<>();
+    int changed = 0;
+    for (PaymentView view : chunk) {
+      ReconKey key = keyOf(view, zone);
+      ReconEntry entry = known.get(view.id());
+      if (entry == null) {
+        created.add(new ReconEntry(view.id(), key, view.amountMinor()));
+      } else if (entry.getKey().equals(key) && entry.getAmountMinor() == view.amountMinor()) {
+        continue;
+      } else {
+        delta.add(entry.getKey(), -1, -entry.getAmountMinor());
+        entry.update(key, view.amountMinor());
+      }
+      delta.add(key, 1, view.amountMinor());
+      changed++;
+    }
+    entries.saveAll(created);
+    entityManager.flush();
+    entityManager.clear();
+    return changed;
+  }
+
+  private void applyDelta(ReconAggregate delta) {
+    Map<ReconKey, ReconAggregate.Sum> sums = delta.sums();
+    Map<ReconKey, ReconTotal> existing = new HashMap<>();
+    for (ReconTotal total : totals.findAllById(sums.keySet())) {
+      existing.put(total.getKey(), total);
+    }
+    List<ReconTotal> changed = new ArrayList<>(sums.size());
+    List<ReconTotal> emptied = new ArrayList<>();
+    sums.forEach((key, sum) -> {
+      ReconTotal total = existing.get(key);
+      if (total == null) {
+        total = new ReconTotal(key);
+      }
+      total.add(sum.count, sum.amountMinor);
+      (total.getCount() == 0 ? emptied : changed).add(total);
+    });
+    totals.saveAll(changed);
+    totals.deleteAll(emptied.stream().filter(t -> existing.containsKey(t.getKey())).toList());
+  }
+
+  private static ReconKey keyOf(PaymentView view, ZoneId zone) {
+    return new ReconKey(LocalDate.ofInstant(view.createdAt(), zone), view.currency(), view.method(), view.status());
+  }
+}
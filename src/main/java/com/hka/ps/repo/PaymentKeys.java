@@ -0,0 +1,7 @@
+package com.hka.ps.repo;
+
+/** Projektion auf die Schlüsselspalten einer Zahlung. */
+public interface PaymentKeys {
+  String getOrderId();
+  String getIdempotencyKey();
+}
@@ -1,11 +1,77 @@
 package com.hka.ps.repo;
 
 import com.hka.ps.domain.Payment;
+import com.hka.ps.domain.PaymentStatus;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface PaymentRepository extends JpaRepository<Payment, Long> {
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+public interface PaymentRepository extends JpaRepository<Payment, Long>, PaymentStore {
   Optional<Payment> findByOrderId(String orderId);
   Optional<Payment> findByIdempotencyKey(String idempotencyKey);
-}
\ No newline at end of file
+  List<Payment> findByOrderIdIn(Collection<String> orderIds);
+  List<Payment> findByIdempotencyKeyIn(Collection<String> idempotencyKeys);
+
+  @Query("select p.id as id, p.orderId as orderId, p.status as status, p.amountMinor as amountMinor,"
+      + " p.currency as currency, p.method as method, p.idempotencyKey as idempotencyKey, p.createdAt as createdAt,"
+      + " p.updatedAt as updatedAt, p.version as version from Payment p where p.orderId in :orderIds")
+  List<PaymentState> findStatesByOrderIdIn(@Param("orderIds") Collection<String> orderIds);
+
+  String VIEW_SELECT = "select new com.hka.ps.repo.PaymentView(p.id, p.orderId, p.amountMinor, p.currency, p.method,"
+      + " p.status, p.createdAt, p.updatedAt, p.version) from Payment p";
+
+  @Query(VIEW_SELECT + " where p.orderId = :orderId")
+  Optional<PaymentView> findViewByOrderId(@Param("orderId") String orderId);
+
+  @Query(VIEW_SELECT + " where p.orderId in :orderIds")
+  List<PaymentView> findViewsByOrderIdIn(@Param("orderIds") Collection<String> orderIds);
+
+  @Query(VIEW_SELECT)
+  @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+  Stream<PaymentView> streamViews();
+
+  @Query(VIEW_SELECT + " where p.updatedAt >= :since")
+  @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+  Stream<PaymentView> streamViewsUpdatedSince(@Param("since") Instant since);
+
+  String WINDOW_FILTER = " p.createdAt < :to and (:status is null or p.status = :status)"
+      + " and (:currency is null or p.currency = :currency)";
+
+  /**
+   * Keyset-Seite über ({@code createdAt}, {@code id}): liefert die Zahlungen nach dem Cursor
+   * {@code (afterCreatedAt, afterId)}, ohne die übersprungenen Zeilen wie bei einem Offset zu lesen.
+   */
+  @Query(VIEW_SELECT + " where (p.createdAt > :afterCreatedAt or (p.createdAt = :afterCreatedAt and p.id > :afterId))"
+      + " and" + WINDOW_FILTER + " order by p.createdAt, p.id")
+  List<PaymentView> findPageAfter(@Param("afterCreatedAt") Instant afterCreatedAt, @Param("afterId") long afterId,
+      @Param("to") Instant to, @Param("status") PaymentStatus status, @Param("currency") String currency, Limit limit);
+
+  @Query("select p from Payment p where p.createdAt >= :from and" + WINDOW_FILTER + " order by p.createdAt, p.id")
+  @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+  Stream<Payment> streamWindow(@Param("from") Instant from, @Param("to") Instant to,
+      @Param("status") PaymentStatus status, @Param("currency") String currency);
+
+  /** Bedingter Sammelübergang: ändert nur Zeilen, die sich noch in einem der Ausgangsstatus befinden. */
+  @Modifying
+  @Query("update Payment p set p.status = :target, p.updatedAt = :now, p.version = p.version + 1"
+      + " where p.orderId in :orderIds and p.status in :from")
+  int transition(@Param("orderIds") Collection<String> orderIds, @Param("from") Collection<PaymentStatus> from,
+      @Param("target") PaymentStatus target, @Param("now") Instant now);
+
+  @Query("select p.orderId as orderId, p.idempotencyKey as idempotencyKey from Payment p")
+  @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+  Stream<PaymentKeys> streamAllKeys();
+}
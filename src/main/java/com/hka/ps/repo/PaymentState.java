@@ -0,0 +1,19 @@
+package com.hka.ps.repo;
+
+import java.time.Instant;
+
+import com.hka.ps.domain.PaymentStatus;
+
+/** Projektion auf die Spalten, die für Statusübergänge benötigt werden. */
+public interface PaymentState {
+  Long getId();
+  String getOrderId();
+  PaymentStatus getStatus();
+  long getAmountMinor();
+  String getCurrency();
+  String getMethod();
+  String getIdempotencyKey();
+  Instant getCreatedAt();
+  Instant getUpdatedAt();
+  Long getVersion();
+}
@@ -0,0 +1,65 @@
+package com.hka.ps.repo;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.springframework.data.domain.Limit;
+
+import com.hka.ps.domain.Payment;
+import com.hka.ps.domain.PaymentStatus;
+
+/**
+ * Speicherzugriffe auf Zahlungen, wie sie die Services verwenden. Standardmäßig implementiert
+ * {@link PaymentRepository} (JPA/H2) die Schnittstelle; mit dem Profil {@code memory} ersetzt sie
+ * {@link com.hka.ps.store.InMemoryPaymentStore}.
+ *
+ * <p>Gelieferte {@link Payment}-Objekte dürfen geändert werden, die Änderung muss aber mit {@link #save}
+ * übergeben werden. Speichern prüft die Version; ein veralteter Stand führt zu einer
+ * {@link org.springframework.dao.OptimisticLockingFailureException}, eine doppelte orderId bzw. ein doppelter
+ * Idempotency-Key zu einer {@link org.springframework.dao.DataIntegrityViolationException}.
+ */
+public interface PaymentStore {
+
+  <S extends Payment> S save(S payment);
+
+  <S extends Payment> List<S> saveAll(Iterable<S> payments);
+
+  long count();
+
+  Optional<Payment> findByOrderId(String orderId);
+
+  Optional<Payment> findByIdempotencyKey(String idempotencyKey);
+
+  List<Payment> findByOrderIdIn(Collection<String> orderIds);
+
+  List<Payment> findByIdempotencyKeyIn(Collection<String> idempotencyKeys);
+
+  List<PaymentState> findStatesByOrderIdIn(Collection<String> orderIds);
+
+  Optional<PaymentView> findViewByOrderId(String orderId);
+
+  List<PaymentView> findViewsByOrderIdIn(Collection<String> orderIds);
+
+  /** Alle Zahlungen in beliebiger Reihenfolge; der Stream muss geschlossen werden. */
+  Stream<PaymentView> streamViews();
+
+  Stream<PaymentView> streamViewsUpdatedSince(Instant since);
+
+  /**
+   * Keyset-Seite über ({@code createdAt}, {@code id}): liefert die Zahlungen nach dem Cursor
+   * {@code (afterCreatedAt, afterId)}, ohne die übersprungenen Zeilen wie bei einem Offset zu lesen.
+   */
+  List<PaymentView> findPageAfter(Instant afterCreatedAt, long afterId, Instant to, PaymentStatus status,
+      String currency, Limit limit);
+
+  /** Zahlungen mit {@code from <= createdAt < to} in Reihenfolge ({@code createdAt}, {@code id}). */
+  Stream<Payment> streamWindow(Instant from, Instant to, PaymentStatus status, String currency);
+
+  /** Bedingter Sammelübergang: ändert nur Zahlungen, die sich noch in einem der Ausgangsstatus befinden. */
+  int transition(Collection<String> orderIds, Collection<PaymentStatus> from, PaymentStatus target, Instant now);
+
+  Stream<PaymentKeys> streamAllKeys();
+}
@@ -0,0 +1,28 @@
+package com.hka.ps.repo;
+
+import java.time.Instant;
+
+import com.hka.ps.domain.Money;
+import com.hka.ps.domain.PaymentStatus;
+
+/**
+ * Lesesicht einer Zahlung als JPQL-Konstruktor-Projektion: wird direkt aus der Ergebniszeile
+ * gebaut, ohne verwaltete Entity und ohne Dirty-Checking-Snapshot. {@code id} und {@code createdAt} bilden
+ * zusammen mit {@code version} den ETag und dienen als Keyset-Cursor.
+ */
+public record PaymentView(
+    Long id,
+    String orderId,
+    long amountMinor,
+    String currency,
+    String method,
+    PaymentStatus status,
+    Instant createdAt,
+    Instant updatedAt,
+    Long version
+) {
+
+  public Money amount() {
+    return new Money(amountMinor, currency);
+  }
+}
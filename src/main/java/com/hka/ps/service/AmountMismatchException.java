@@ -0,0 +1,17 @@
+package com.hka.ps.service;
+
+/**
+ * Betrag des Captures weicht von der Autorisierung ab; wird wie jede {@link IllegalStateException} zu 409.
+ * Ohne Stacktrace.
+ */
+public class AmountMismatchException extends IllegalStateException {
+
+  public AmountMismatchException() {
+    super("amount mismatch");
+  }
+
+  @Override
+  public synchronized Throwable fillInStackTrace() {
+    return this;
+  }
+}
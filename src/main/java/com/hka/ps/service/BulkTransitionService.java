@@ -0,0 +1,263 @@
+package com.hka.ps.service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.hka.ps.api.dto.BulkRejection;
+import com.hka.ps.api.dto.BulkRejection.Reason;
+import com.hka.ps.api.dto.BulkTransitionResponse;
+import com.hka.ps.api.dto.CaptureRequest;
+import com.hka.ps.api.dto.RefundRequest;
+import com.hka.ps.cache.IdempotencyCache;
+import com.hka.ps.domain.Money;
+import com.hka.ps.domain.PaymentStatus;
+import com.hka.ps.metrics.PaymentMetrics;
+import com.hka.ps.metrics.PaymentMetrics.Batch;
+import com.hka.ps.metrics.PaymentMetrics.Outcome;
+import com.hka.ps.metrics.PaymentMetrics.Rejection;
+import com.hka.ps.journal.PaymentJournal;
+import com.hka.ps.outbox.PaymentOutbox;
+import com.hka.ps.publisher.LogEventType;
+import com.hka.ps.publisher.PsPublisher;
+import com.hka.ps.repo.PaymentState;
+import com.hka.ps.repo.PaymentStore;
+
+/**
+ * Sammel-Capture und -Refund für Settlement-Läufe. Je Chunk werden die Zustände mit einer
+ * Projektion gelesen, nach denselben Regeln wie {@link PaymentService#capture} bzw.
+ * {@link PaymentService#refund} klassifiziert und die zulässigen Übergänge mit einem
+ * bedingten {@code UPDATE ... WHERE status IN (...)} vollzogen. Jeder Chunk läuft in einer
+ * eigenen Transaktion; bereits committete Chunks bleiben bei einem späteren Fehler erhalten,
+ * eine Wiederholung des Aufrufs ist wegen der Idempotenz der Übergänge unkritisch.
+ */
+@Service
+public class BulkTransitionService {
+
+  /** Regeln eines Sammelübergangs; auch für {@code ReactiveBulkTransitionService}. */
+  enum Transition {
+    CAPTURE(PaymentStatus.CAPTURED, EnumSet.of(PaymentStatus.AUTHORIZED), true,
+        LogEventType.CAPTURED, LogEventType.CAPTURE_IDEMPOTENT, Batch.CAPTURE_BULK),
+    REFUND(PaymentStatus.REFUNDED, EnumSet.of(PaymentStatus.AUTHORIZED, PaymentStatus.CAPTURED), false,
+        LogEventType.REFUNDED, LogEventType.REFUND_IDEMPOTENT, Batch.REFUND_BULK);
+
+    final PaymentStatus target;
+    final Set<PaymentStatus> from;
+    final boolean amountMustMatch;
+    final LogEventType event;
+    final LogEventType idempotentEvent;
+    final Batch batch;
+
+    Transition(PaymentStatus target, Set<PaymentStatus> from, boolean amountMustMatch,
+        LogEventType event, LogEventType idempotentEvent, Batch batch) {
+      this.target = target;
+      this.from = from;
+      this.amountMustMatch = amountMustMatch;
+      this.event = event;
+      this.idempotentEvent = idempotentEvent;
+      this.batch = batch;
+    }
+
+    String invalidStateMessage(PaymentStatus current) {
+      return this == CAPTURE
+          ? "Payment not in AUTHORIZED state"
+          : "Payment cannot be refunded from state " + current;
+    }
+  }
+
+  static final class Report {
+    final List<String> transitioned = new ArrayList<>();
+    final List<String> alreadyInTarget = new ArrayList<>();
+    final List<BulkRejection> rejected = new ArrayList<>();
+
+    BulkTransitionResponse toResponse() {
+      return new BulkTransitionResponse(transitioned, alreadyInTarget, rejected);
+    }
+  }
+
+  private final PaymentStore repository;
+  private final PaymentOutbox outbox;
+  private final PaymentJournal journal;
+  private final IdempotencyCache cache;
+  private final PsPublisher publisher;
+  private final TransactionTemplate tx;
+  private final PaymentMetrics metrics;
+  private final int chunkSize;
+
+  public BulkTransitionService(PaymentStore repository, PaymentOutbox outbox, PaymentJournal journal,
+      IdempotencyCache cache, PsPublisher publisher, PlatformTransactionManager transactionManager, PaymentMetrics metrics,
+      @Value("${ps.batch.chunk-size:500}") int chunkSize) {
+    this.repository = repository;
+    this.outbox = outbox;
+    this.journal = journal;
+    this.cache = cache;
+    this.publisher = publisher;
+    this.tx = new TransactionTemplate(transactionManager);
+    this.metrics = metrics;
+    this.chunkSize = Math.max(1, chunkSize);
+  }
+
+  public BulkTransitionResponse captureAll(List<CaptureRequest> items) {
+    return run(requestedCaptures(items), Transition.CAPTURE);
+  }
+
+  public BulkTransitionResponse refundAll(List<RefundRequest> items) {
+    return run(requestedRefunds(items), Transition.REFUND);
+  }
+
+  static Map<String, BigDecimal> requestedCaptures(List<CaptureRequest> items) {
+    return requested(items, CaptureRequest::getOrderId, CaptureRequest::getAmount);
+  }
+
+  static Map<String, BigDecimal> requestedRefunds(List<RefundRequest> items) {
+    return requested(items, RefundRequest::getOrderId, RefundRequest::getAmount);
+  }
+
+  /** orderId → Betrag in Request-Reihenfolge; bei doppelten orderIds gilt der erste Eintrag. */
+  private static <T> Map<String, BigDecimal> requested(List<T> items, Function<T, String> orderId,
+      Function<T, BigDecimal> amount) {
+    Map<String, BigDecimal> requested = new LinkedHashMap<>();
+    for (T item : items) {
+      requested.putIfAbsent(orderId.apply(item), amount.apply(item));
+    }
+    return requested;
+  }
+
+  private BulkTransitionResponse run(Map<String, BigDecimal> requested, Transition transition) {
+    long started = System.nanoTime();
+    Report report = new Report();
+    List<Map.Entry<String, BigDecimal>> entries = new ArrayList<>(requested.entrySet());
+    try {
+      for (int from = 0; from < entries.size(); from += chunkSize) {
+        List<Map.Entry<String, BigDecimal>> chunk = entries.subList(from, Math.min(entries.size(), from + chunkSize));
+        tx.executeWithoutResult(status -> processChunk(chunk, transition, report));
+      }
+      recordItems(metrics, report, transition);
+      metrics.recordBatch(transition.batch, started);
+    } catch (RuntimeException e) {
+      metrics.recordBatchFailure(transition.batch, e, started);
+      throw e;
+    }
+    return report.toResponse();
+  }
+
+  static void recordItems(PaymentMetrics metrics, Report report, Transition transition) {
+    metrics.batchItems(transition.batch, PaymentMetrics.outcomeOf(transition.target), report.transitioned.size());
+    metrics.batchItems(transition.batch, Outcome.IDEMPOTENT_HIT, report.alreadyInTarget.size());
+    for (BulkRejection rejection : report.rejected) {
+      metrics.batchItemRejected(transition.batch, Rejection.valueOf(rejection.reason().name()));
+    }
+  }
+
+  private void processChunk(List<Map.Entry<String, BigDecimal>> chunk, Transition transition, Report report) {
+    Map<String, PaymentState> states = new HashMap<>();
+    for (PaymentState state : repository.findStatesByOrderIdIn(orderIds(chunk))) {
+      states.put(state.getOrderId(), state);
+    }
+    List<PaymentState> eligible = classify(chunk, states, transition, report, publisher);
+    if (eligible.isEmpty()) {
+      return;
+    }
+
+    // Mikrosekunden wie in der Spalte, damit sich eigene Übergänge beim Nachlesen erkennen lassen.
+    Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+    List<String> eligibleIds = orderIdsOf(eligible);
+    int updated = repository.transition(eligibleIds, transition.from, transition.target, now);
+
+    List<PaymentState> done = eligible;
+    if (updated != eligible.size()) {
+      done = reclassify(repository.findStatesByOrderIdIn(eligibleIds), transition, now, report);
+    }
+
+    outbox.recordTransitions(transition.event, transition.target, done, now);
+    journal.recordTransitions(transition.target, done, now);
+    for (PaymentState state : done) {
+      // Nachklassifizierte Zustände tragen schon die neue Version; +1 ist dann nur eine zu strenge Untergrenze.
+      cache.invalidate(state.getOrderId(), state.getIdempotencyKey(),
+          (state.getVersion() == null ? 0 : state.getVersion()) + 1);
+      report.transitioned.add(state.getOrderId());
+    }
+  }
+
+  static List<String> orderIds(List<Map.Entry<String, BigDecimal>> chunk) {
+    List<String> orderIds = new ArrayList<>(chunk.size());
+    for (Map.Entry<String, BigDecimal> e : chunk) {
+      if (e.getKey() != null) {
+        orderIds.add(e.getKey());
+      }
+    }
+    return orderIds;
+  }
+
+  static List<String> orderIdsOf(List<? extends PaymentState> states) {
+    List<String> orderIds = new ArrayList<>(states.size());
+    for (PaymentState state : states) {
+      orderIds.add(state.getOrderId());
+    }
+    return orderIds;
+  }
+
+  /**
+   * Prüft die Einträge eines Chunks gegen die gelesenen Zustände nach den Regeln der Einzelaufrufe. Abgelehnte und
+   * bereits vollzogene landen im Report; zurück kommen die Zustände, deren Übergang noch aussteht.
+   */
+  static List<PaymentState> classify(List<Map.Entry<String, BigDecimal>> chunk, Map<String, PaymentState> states,
+      Transition transition, Report report, PsPublisher publisher) {
+    List<PaymentState> eligible = new ArrayList<>();
+    for (Map.Entry<String, BigDecimal> e : chunk) {
+      String orderId = e.getKey();
+      BigDecimal amount = e.getValue();
+      PaymentState state = states.get(orderId);
+      if (state == null) {
+        report.rejected.add(new BulkRejection(orderId, Reason.NOT_FOUND, "Payment not found for orderId=" + orderId));
+      } else if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+        report.rejected.add(new BulkRejection(orderId, Reason.INVALID_AMOUNT, "amount must be > 0"));
+      } else if (transition.amountMustMatch
+          && !new Money(state.getAmountMinor(), state.getCurrency()).matches(amount)) {
+        report.rejected.add(new BulkRejection(orderId, Reason.AMOUNT_MISMATCH, "amount mismatch"));
+      } else if (state.getStatus() == transition.target) {
+        publisher.publish(transition.idempotentEvent, orderId);
+        report.alreadyInTarget.add(orderId);
+      } else if (!transition.from.contains(state.getStatus())) {
+        report.rejected.add(new BulkRejection(orderId, Reason.INVALID_STATE,
+            transition.invalidStateMessage(state.getStatus())));
+      } else {
+        eligible.add(state);
+      }
+    }
+    return eligible;
+  }
+
+  /**
+   * Das Sammel-Update traf weniger Zeilen als erwartet, ein paralleler Aufruf war schneller: die nachgelesenen
+   * Zustände anhand des eigenen Zeitstempels einordnen. Zurück kommen die selbst vollzogenen Übergänge.
+   */
+  static List<PaymentState> reclassify(List<? extends PaymentState> reread, Transition transition, Instant now,
+      Report report) {
+    List<PaymentState> done = new ArrayList<>(reread.size());
+    for (PaymentState state : reread) {
+      if (state.getStatus() == transition.target && now.equals(state.getUpdatedAt())) {
+        done.add(state);
+      } else if (state.getStatus() == transition.target) {
+        report.alreadyInTarget.add(state.getOrderId());
+      } else {
+        report.rejected.add(new BulkRejection(state.getOrderId(), Reason.INVALID_STATE,
+            transition.invalidStateMessage(state.getStatus())));
+      }
+    }
+    return done;
+  }
+}
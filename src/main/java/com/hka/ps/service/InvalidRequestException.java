@@ -0,0 +1,24 @@
+package com.hka.ps.service;
+
+/**
+ * Request verletzt eine Eingaberegel; wird wie jede {@link IllegalArgumentException} zu 400. Ohne Stacktrace,
+ * da Ursache und Ort bereits durch den {@link Violation} feststehen.
+ */
+public class InvalidRequestException extends IllegalArgumentException {
+
+  private final transient Violation violation;
+
+  public InvalidRequestException(Violation violation) {
+    super(violation.message());
+    this.violation = violation;
+  }
+
+  public Violation getViolation() {
+    return violation;
+  }
+
+  @Override
+  public synchronized Throwable fillInStackTrace() {
+    return this;
+  }
+}
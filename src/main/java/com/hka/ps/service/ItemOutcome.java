@@ -0,0 +1,19 @@
+package com.hka.ps.service;
+
+import com.hka.ps.domain.Payment;
+
+/** Ergebnis eines Eintrags einer Batch-Operation: entweder eine Zahlung oder der Fehler, den der Einzelaufruf geworfen hätte. */
+public record ItemOutcome(Payment payment, RuntimeException error) {
+
+  public static ItemOutcome ok(Payment payment) {
+    return new ItemOutcome(payment, null);
+  }
+
+  public static ItemOutcome failed(RuntimeException error) {
+    return new ItemOutcome(null, error);
+  }
+
+  public boolean isOk() {
+    return error == null;
+  }
+}
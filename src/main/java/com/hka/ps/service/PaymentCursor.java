@@ -0,0 +1,31 @@
+package com.hka.ps.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Keyset-Position {@code (createdAt, id)} der letzten gelieferten Zahlung. Nach außen wird sie als
+ * undurchsichtiges Base64url-Token weitergegeben.
+ */
+public record PaymentCursor(Instant createdAt, long id) {
+
+  public String encode() {
+    String raw = createdAt.getEpochSecond() + "." + createdAt.getNano() + "." + id;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+  }
+
+  public static PaymentCursor decode(String token) {
+    try {
+      String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII).split("\\.");
+      if (parts.length != 3) {
+        throw new IllegalArgumentException("invalid cursor");
+      }
+      Instant createdAt = Instant.ofEpochSecond(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+      return new PaymentCursor(createdAt, Long.parseLong(parts[2]));
+    } catch (IllegalArgumentException | DateTimeException e) {
+      throw new IllegalArgumentException("invalid cursor", e);
+    }
+  }
+}
@@ -0,0 +1,21 @@
+package com.hka.ps.service;
+
+import java.time.Instant;
+
+import com.hka.ps.domain.PaymentStatus;
+
+/**
+ * Auswahl für Listing und Export: halboffenes Zeitfenster {@code [from, to)} über {@code createdAt},
+ * optional eingeschränkt auf Status und Währung ({@code null} = alle).
+ */
+public record PaymentFilter(Instant from, Instant to, PaymentStatus status, String currency) {
+
+  public PaymentFilter {
+    if (from == null || to == null) {
+      throw new IllegalArgumentException("from and to required");
+    }
+    if (!from.isBefore(to)) {
+      throw new IllegalArgumentException("from must be before to");
+    }
+  }
+}
@@ -0,0 +1,17 @@
+package com.hka.ps.service;
+
+/**
+ * Zu der orderId existiert keine Zahlung; wird wie jede {@link IllegalArgumentException} zu 400.
+ * Ohne Stacktrace.
+ */
+public class PaymentNotFoundException extends IllegalArgumentException {
+
+  public PaymentNotFoundException(String orderId) {
+    super("Payment not found for orderId=" + orderId);
+  }
+
+  @Override
+  public synchronized Throwable fillInStackTrace() {
+    return this;
+  }
+}
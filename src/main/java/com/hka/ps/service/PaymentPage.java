@@ -0,0 +1,9 @@
+package com.hka.ps.service;
+
+import java.util.List;
+
+import com.hka.ps.repo.PaymentView;
+
+/** Eine Keyset-Seite; {@code next} ist {@code null}, wenn keine weiteren Zahlungen folgen. */
+public record PaymentPage(List<PaymentView> items, PaymentCursor next) {
+}
@@ -0,0 +1,109 @@
+package com.hka.ps.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityManager;
+
+import com.hka.ps.domain.Payment;
+import com.hka.ps.repo.PaymentStore;
+import com.hka.ps.repo.PaymentView;
+
+/**
+ * Lesezugriffe für den Status-Abruf. Alle Methoden laufen in Read-only-Transaktionen
+ * (kein Flush, Read-only-Connection) und liefern {@link PaymentView}-Projektionen statt Entities.
+ */
+@Service
+@Transactional(readOnly = true)
+public class PaymentQueryService {
+
+  private final PaymentStore repository;
+  private final EntityManager entityManager;
+
+  public PaymentQueryService(PaymentStore repository, EntityManager entityManager) {
+    this.repository = repository;
+    this.entityManager = entityManager;
+  }
+
+  public Optional<PaymentView> find(String orderId) {
+    return repository.findViewByOrderId(orderId);
+  }
+
+  /** Gefundene Zahlungen in der Reihenfolge der angefragten orderIds; unbekannte fehlen. */
+  public List<PaymentView> findAll(Collection<String> orderIds) {
+    return inRequestedOrder(orderIds, repository.findViewsByOrderIdIn(orderIds));
+  }
+
+  static List<PaymentView> inRequestedOrder(Collection<String> orderIds, Iterable<PaymentView> found) {
+    Map<String, PaymentView> byOrderId = new HashMap<>();
+    for (PaymentView view : found) {
+      byOrderId.put(view.orderId(), view);
+    }
+    List<PaymentView> ordered = new ArrayList<>(byOrderId.size());
+    for (String orderId : orderIds) {
+      PaymentView view = byOrderId.get(orderId);
+      if (view != null) {
+        ordered.add(view);
+      }
+    }
+    return ordered;
+  }
+
+  /**
+   * Liefert bis zu {@code limit} Zahlungen des Filters nach {@code after} (bzw. ab {@code filter.from()}),
+   * sortiert nach ({@code createdAt}, {@code id}).
+   */
+  public PaymentPage list(PaymentFilter filter, PaymentCursor after, int limit) {
+    PaymentCursor start = start(filter, after);
+    return page(repository.findPageAfter(start.createdAt(), start.id(), filter.to(), filter.status(),
+        filter.currency(), Limit.of(limit + 1)), limit);
+  }
+
+  /** Der Cursor, ab dem gelesen wird; ein Cursor vor {@code filter.from()} zählt nicht. */
+  static PaymentCursor start(PaymentFilter filter, PaymentCursor after) {
+    return after == null || after.createdAt().isBefore(filter.from())
+        ? new PaymentCursor(filter.from(), Long.MIN_VALUE)
+        : after;
+  }
+
+  /** Macht aus bis zu {@code limit + 1} gelesenen Zeilen eine Seite; die überzählige Zeile zeigt eine Folgeseite an. */
+  static PaymentPage page(List<PaymentView> rows, int limit) {
+    if (rows.size() <= limit) {
+      return new PaymentPage(rows, null);
+    }
+    List<PaymentView> items = rows.subList(0, limit);
+    PaymentView last = items.get(limit - 1);
+    return new PaymentPage(items, new PaymentCursor(last.createdAt(), last.id()));
+  }
+
+  /**
+   * Reicht alle Zahlungen des Filters in Cursor-Reihenfolge an {@code sink} weiter und löst jede Entity
+   * danach aus dem Persistence Context (bei JPA), sodass der Speicherbedarf unabhängig von der Ergebnisgröße bleibt.
+   *
+   * @return Anzahl der exportierten Zahlungen
+   */
+  public long export(PaymentFilter filter, Consumer<Payment> sink) {
+    long count = 0;
+    try (Stream<Payment> payments = repository.streamWindow(filter.from(), filter.to(), filter.status(),
+        filter.currency())) {
+      for (Payment payment : (Iterable<Payment>) payments::iterator) {
+        sink.accept(payment);
+        if (entityManager.contains(payment)) {
+          entityManager.detach(payment);
+        }
+        count++;
+      }
+    }
+    return count;
+  }
+}
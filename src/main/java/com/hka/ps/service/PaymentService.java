@@ -1,146 +1,538 @@
 package com.hka.ps.service;
 
+import com.hka.ps.api.dto.AuthorizeBatchItem;
 import com.hka.ps.api.dto.AuthorizeRequest;
 import com.hka.ps.api.dto.CaptureRequest;
 import com.hka.ps.api.dto.RefundRequest;
+import com.hka.ps.cache.IdempotencyCache;
+import com.hka.ps.cache.IdempotencyKeyFilter;
+import com.hka.ps.concurrency.ConcurrencyProperties;
+import com.hka.ps.concurrency.ConcurrentUpdateException;
+import com.hka.ps.concurrency.SingleFlight;
+import com.hka.ps.concurrency.TransitionGuard;
+import com.hka.ps.domain.Money;
 import com.hka.ps.domain.Payment;
 import com.hka.ps.domain.PaymentStatus;
+import com.hka.ps.metrics.PaymentMetrics;
+import com.hka.ps.metrics.PaymentMetrics.Batch;
+import com.hka.ps.metrics.PaymentMetrics.Operation;
+import com.hka.ps.metrics.PaymentMetrics.Outcome;
+import com.hka.ps.journal.PaymentJournal;
+import com.hka.ps.outbox.PaymentOutbox;
+import com.hka.ps.publisher.LogEventType;
 import com.hka.ps.publisher.PsPublisher;
-import com.hka.ps.repo.PaymentRepository;
+import com.hka.ps.repo.PaymentStore;
+import com.hka.ps.tracing.PaymentPhaseEvent;
+import com.hka.ps.tracing.PaymentTrace;
+import com.hka.ps.tracing.PaymentTrace.Phase;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.Instant;
-import java.util.Objects;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class PaymentService {
+  /** Obergrenze für automatische Autorisierung in ganzen Währungseinheiten. */
+  private static final long AUTHORIZATION_LIMIT = 2000;
+
   private final PsPublisher publisher;
-  private final PaymentRepository repository;
+  private final PaymentStore repository;
+  private final PaymentOutbox outbox;
+  private final PaymentJournal journal;
+  private final IdempotencyCache cache;
+  private final IdempotencyKeyFilter keyFilter;
+  private final TransitionGuard guard;
+  private final TransactionTemplate tx;
+  private final SingleFlight<Handled> authorizeFlights;
+  private final PaymentMetrics metrics;
+
+  /** Ergebnis eines Einzelaufrufs; {@code replay}, wenn eine bestehende Zahlung unverändert zurückkommt. */
+  private record Handled(Payment payment, boolean replay) {
+  }
 
-  public PaymentService(PsPublisher publisher, PaymentRepository repository) {
+  public PaymentService(PsPublisher publisher, PaymentStore repository, PaymentOutbox outbox,
+      PaymentJournal journal, IdempotencyCache cache, IdempotencyKeyFilter keyFilter, TransitionGuard guard,
+      PlatformTransactionManager transactionManager, ConcurrencyProperties concurrency, PaymentMetrics metrics) {
     this.publisher = publisher;
     this.repository = repository;
+    this.outbox = outbox;
+    this.journal = journal;
+    this.cache = cache;
+    this.keyFilter = keyFilter;
+    this.guard = guard;
+    this.tx = new TransactionTemplate(transactionManager);
+    this.authorizeFlights = concurrency.isCoalesceAuthorize() ? new SingleFlight<>(concurrency.getLockTimeout()) : null;
+    this.metrics = metrics;
   }
-  
-  @Transactional
+
+  /**
+   * Gleichzeitige Aufrufe mit demselben Idempotency-Key oder derselben orderId werden gebündelt:
+   * nur der erste öffnet eine Transaktion, die übrigen erhalten nach dessen Commit dieselbe
+   * Zahlung bzw. denselben Fehler.
+   */
   public Payment authorize(AuthorizeRequest request, String idempotencyKey) {
-    publisher.publishLog("Authorize request orderId= {}, amount= {}, currency= {}, idempotencyKey: {}", request.getOrderId(), request.getAmount(), request.getCurrency(), idempotencyKey);
-    validateAuthorize(request);
+    long started = System.nanoTime();
+    PaymentPhaseEvent total = PaymentTrace.begin();
+    publisher.publishRequest(LogEventType.AUTHORIZE_REQUEST, request.getOrderId(), request.getAmount(), request.getCurrency(), idempotencyKey, null);
+    try {
+      PaymentPhaseEvent phase = PaymentTrace.begin();
+      Money amount = validateAuthorize(request);
+      PaymentTrace.end(phase, Operation.AUTHORIZE, Phase.VALIDATE, request.getOrderId());
+      Handled handled = coalesce(request, amount, idempotencyKey);
+      metrics.record(Operation.AUTHORIZE, outcomeOf(handled), started);
+      return handled.payment();
+    } catch (RuntimeException e) {
+      metrics.recordFailure(Operation.AUTHORIZE, e, started);
+      throw e;
+    } finally {
+      PaymentTrace.end(total, Operation.AUTHORIZE, Phase.TOTAL, request.getOrderId());
+    }
+  }
 
-    Payment existing = findIdempotent(idempotencyKey, request.getOrderId());
-    if (existing != null) {
-      publisher.publishLog("Idempotent authorize hit for order: {} ", existing.getOrderId());
-      return existing;
+  /** Gebündelte authorize-Aufrufe; {@code null}, wenn die Bündelung abgeschaltet ist. */
+  public SingleFlight<?> getAuthorizeFlights() {
+    return authorizeFlights;
+  }
+
+  private Handled coalesce(AuthorizeRequest request, Money amount, String idempotencyKey) {
+    if (authorizeFlights == null) {
+      return authorizeInTransaction(request, amount, idempotencyKey);
+    }
+    List<String> flightKeys = Arrays.asList(
+        hasText(idempotencyKey) ? "key:" + idempotencyKey : null,
+        "order:" + request.getOrderId());
+    PaymentPhaseEvent wait = PaymentTrace.begin();
+    SingleFlight.Result<Handled> result = authorizeFlights.execute(flightKeys,
+        () -> authorizeInTransaction(request, amount, idempotencyKey));
+    if (result.shared()) {
+      PaymentTrace.end(wait, Operation.AUTHORIZE, Phase.COALESCE_WAIT, request.getOrderId());
+      publisher.publish(LogEventType.AUTHORIZE_IDEMPOTENT_HIT, result.value().payment().getOrderId());
+      return new Handled(result.value().payment(), true);
     }
+    return result.value();
+  }
 
-    Payment payment = repository.findByOrderId(request.getOrderId()).orElseGet(Payment::new);
-    if (payment.getId() != null) {
-      publisher.publishLog("Existing payment reused for order: {}", payment.getOrderId());
-      return payment;
+  /**
+   * Verliert der Insert gegen eine parallele Transaktion (auch auf einer anderen Instanz oder weil der
+   * Bloom-Filter den Schlüssel noch nicht kannte), wird die Zahlung des Gewinners wie ein Wiederholungsaufruf
+   * geliefert.
+   */
+  private Handled authorizeInTransaction(AuthorizeRequest request, Money amount, String idempotencyKey) {
+    try {
+      return tx.execute(status -> doAuthorize(request, amount, idempotencyKey));
+    } catch (DataIntegrityViolationException e) {
+      Payment winner = tx.execute(status -> lostInsertRace(idempotencyKey, request.getOrderId()));
+      if (winner == null) {
+        throw e;
+      }
+      publisher.publish(LogEventType.AUTHORIZE_IDEMPOTENT_HIT, winner.getOrderId());
+      return new Handled(winner, true);
     }
+  }
 
-    payment.setOrderId(request.getOrderId());
-    payment.setAmount(request.getAmount());
-    payment.setCurrency(request.getCurrency());
-    payment.setMethod(request.getMethod());
-    payment.setIdempotencyKey(idempotencyKey);
-    payment.setCreatedAt(Instant.now());
-    payment.setUpdatedAt(payment.getCreatedAt());
+  /** Liest am Cache und Bloom-Filter vorbei, da der Gewinner beide erst nach seinem Commit aktualisiert. */
+  private Payment lostInsertRace(String idempotencyKey, String orderId) {
+    Optional<Payment> winner = hasText(idempotencyKey)
+        ? repository.findByIdempotencyKey(idempotencyKey)
+        : Optional.empty();
+    return winner.or(() -> repository.findByOrderId(orderId)).orElse(null);
+  }
 
-    PaymentStatus status = evaluateAuthorization(request.getAmount());
-    payment.setStatus(status);
+  private Handled doAuthorize(AuthorizeRequest request, Money amount, String idempotencyKey) {
+    String orderId = request.getOrderId();
+    PaymentTrace.traceCommit(Operation.AUTHORIZE, orderId);
+    PaymentPhaseEvent phase = PaymentTrace.begin();
+    Payment existing = findIdempotent(idempotencyKey, orderId);
+    PaymentTrace.end(phase, Operation.AUTHORIZE, Phase.IDEMPOTENCY_LOOKUP, orderId);
+    if (existing != null) {
+      publisher.publish(LogEventType.AUTHORIZE_IDEMPOTENT_HIT, existing.getOrderId());
+      return new Handled(existing, true);
+    }
+
+    if (hasText(idempotencyKey)) {
+      phase = PaymentTrace.begin();
+      Payment reused = findByOrderId(orderId);
+      PaymentTrace.end(phase, Operation.AUTHORIZE, Phase.ORDER_LOOKUP, orderId);
+      if (reused != null) {
+        publisher.publish(LogEventType.AUTHORIZE_EXISTING, reused.getOrderId());
+        return new Handled(reused, true);
+      }
+    }
+
+    phase = PaymentTrace.begin();
+    Payment payment = newPayment(request, amount, idempotencyKey, Instant.now());
 
     repository.save(payment);
-    publisher.publishLog("Authorization {} for order {}", status, payment.getOrderId());
-    return payment;
+    keyFilter.add(payment);
+    cache.put(payment);
+    outbox.record(LogEventType.AUTHORIZATION_DECIDED, payment);
+    journal.record(payment);
+    PaymentTrace.end(phase, Operation.AUTHORIZE, Phase.PERSIST, orderId);
+    return new Handled(payment, false);
+  }
+
+  /**
+   * Autorisiert mehrere Zahlungen in einer Transaktion mit denselben Regeln wie
+   * {@link #authorize}. Bestehende Zahlungen werden mit je einer Abfrage über alle
+   * Idempotency-Keys bzw. orderIds gesucht, neue gesammelt per JDBC-Batch eingefügt.
+   * Ungültige Einträge (auch {@code null}) liefern ihren Fehler im Ergebnis, ohne den Rest zu beeinflussen.
+   *
+   * <p>Scheitert der gemeinsame Insert am Unique-Constraint, weil eine parallele Anfrage eine der orderIds oder
+   * einen der Keys schneller angelegt hat, wird die Transaktion verworfen und jeder gültige Eintrag einzeln wie
+   * {@link #authorize} in eigener Transaktion wiederholt. Der Konflikt trifft so nur die betroffenen Einträge, die
+   * die Zahlung des Gewinners erhalten.
+   */
+  public List<ItemOutcome> authorizeBatch(List<? extends AuthorizeBatchItem> items) {
+    long started = System.nanoTime();
+    ItemOutcome[] outcomes = new ItemOutcome[items.size()];
+    Money[] amounts = new Money[items.size()];
+    boolean[] replays = new boolean[items.size()];
+    try {
+      List<ItemOutcome> result;
+      try {
+        result = tx.execute(status -> authorizeBatch(items, outcomes, amounts, replays));
+      } catch (DataIntegrityViolationException e) {
+        result = authorizeEach(items, outcomes, amounts, replays);
+      }
+      for (int i = 0; i < outcomes.length; i++) {
+        if (outcomes[i].isOk()) {
+          metrics.batchItems(Batch.AUTHORIZE_BATCH, replays[i]
+              ? Outcome.IDEMPOTENT_HIT : PaymentMetrics.outcomeOf(outcomes[i].payment().getStatus()), 1);
+        } else {
+          metrics.batchItemFailed(Batch.AUTHORIZE_BATCH, outcomes[i].error());
+        }
+      }
+      metrics.recordBatch(Batch.AUTHORIZE_BATCH, started);
+      return result;
+    } catch (RuntimeException e) {
+      metrics.recordBatchFailure(Batch.AUTHORIZE_BATCH, e, started);
+      throw e;
+    }
+  }
+
+  /** {@code replays[i]} markiert Einträge, die eine bestehende Zahlung liefern. */
+  private List<ItemOutcome> authorizeBatch(List<? extends AuthorizeBatchItem> items, ItemOutcome[] outcomes,
+      Money[] amounts, boolean[] replays) {
+    Map<String, Payment> byKey = new HashMap<>();
+    Map<String, Payment> byOrderId = new HashMap<>();
+    Set<String> keyLookups = new HashSet<>();
+    Set<String> orderLookups = new HashSet<>();
+
+    for (int i = 0; i < outcomes.length; i++) {
+      AuthorizeBatchItem item = items.get(i);
+      if (item == null) {
+        outcomes[i] = ItemOutcome.failed(Violation.ITEM_REQUIRED.exception());
+        continue;
+      }
+      String key = item.getIdempotencyKey();
+      publisher.publishRequest(LogEventType.AUTHORIZE_REQUEST, item.getOrderId(), item.getAmount(), item.getCurrency(), key, null);
+      Violation violation = PaymentValidator.AUTHORIZE.validate(item);
+      if (violation != null) {
+        outcomes[i] = ItemOutcome.failed(violation.exception());
+        continue;
+      }
+      amounts[i] = Money.of(item.getAmount(), item.getCurrency());
+      if (hasText(key) && !byKey.containsKey(key)) {
+        Payment cached = cache.findByIdempotencyKey(key);
+        if (cached != null) {
+          byKey.put(key, cached);
+        } else if (keyFilter.mightContainKey(key)) {
+          keyLookups.add(key);
+        }
+      }
+      if (!byOrderId.containsKey(item.getOrderId())) {
+        Payment cached = cache.findByOrderId(item.getOrderId());
+        if (cached != null) {
+          byOrderId.put(cached.getOrderId(), cached);
+        } else if (keyFilter.mightContainOrderId(item.getOrderId())) {
+          orderLookups.add(item.getOrderId());
+        }
+      }
+    }
+
+    if (!keyLookups.isEmpty()) {
+      for (Payment found : repository.findByIdempotencyKeyIn(keyLookups)) {
+        byKey.put(found.getIdempotencyKey(), found);
+        byOrderId.putIfAbsent(found.getOrderId(), found);
+        orderLookups.remove(found.getOrderId());
+        keyLookups.remove(found.getIdempotencyKey());
+        cache.put(found);
+      }
+      keyLookups.forEach(k -> keyFilter.recordFalsePositive());
+    }
+    if (!orderLookups.isEmpty()) {
+      for (Payment found : repository.findByOrderIdIn(orderLookups)) {
+        byOrderId.put(found.getOrderId(), found);
+        orderLookups.remove(found.getOrderId());
+        cache.put(found);
+      }
+      orderLookups.forEach(o -> keyFilter.recordFalsePositive());
+    }
+
+    Instant now = Instant.now();
+    List<Payment> created = new ArrayList<>();
+    for (int i = 0; i < outcomes.length; i++) {
+      if (outcomes[i] != null) {
+        continue;
+      }
+      AuthorizeBatchItem item = items.get(i);
+      String key = item.getIdempotencyKey();
+      Payment existing = hasText(key) ? byKey.get(key) : byOrderId.get(item.getOrderId());
+      if (existing != null) {
+        publisher.publish(LogEventType.AUTHORIZE_IDEMPOTENT_HIT, existing.getOrderId());
+        outcomes[i] = ItemOutcome.ok(existing);
+        replays[i] = true;
+        continue;
+      }
+      if (hasText(key)) {
+        Payment reused = byOrderId.get(item.getOrderId());
+        if (reused != null) {
+          publisher.publish(LogEventType.AUTHORIZE_EXISTING, reused.getOrderId());
+          outcomes[i] = ItemOutcome.ok(reused);
+          replays[i] = true;
+          continue;
+        }
+      }
+      Payment payment = newPayment(item, amounts[i], hasText(key) ? key : null, now);
+      created.add(payment);
+      byOrderId.put(payment.getOrderId(), payment);
+      if (payment.getIdempotencyKey() != null) {
+        byKey.put(payment.getIdempotencyKey(), payment);
+      }
+      outcomes[i] = ItemOutcome.ok(payment);
+    }
+
+    if (!created.isEmpty()) {
+      repository.saveAll(created);
+      outbox.recordAll(LogEventType.AUTHORIZATION_DECIDED, created);
+      journal.recordAll(created);
+      for (Payment payment : created) {
+        keyFilter.add(payment);
+        cache.put(payment);
+      }
+    }
+    return Arrays.asList(outcomes);
   }
 
-  @Transactional
+  /** Nur gültige Einträge haben einen Betrag; die Ergebnisse der übrigen bleiben stehen. */
+  private List<ItemOutcome> authorizeEach(List<? extends AuthorizeBatchItem> items, ItemOutcome[] outcomes,
+      Money[] amounts, boolean[] replays) {
+    for (int i = 0; i < outcomes.length; i++) {
+      if (amounts[i] == null) {
+        continue;
+      }
+      AuthorizeBatchItem item = items.get(i);
+      String key = hasText(item.getIdempotencyKey()) ? item.getIdempotencyKey() : null;
+      try {
+        Handled handled = authorizeInTransaction(item, amounts[i], key);
+        outcomes[i] = ItemOutcome.ok(handled.payment());
+        replays[i] = handled.replay();
+      } catch (DataIntegrityViolationException e) {
+        outcomes[i] = ItemOutcome.failed(new ConcurrentUpdateException(item.getOrderId()));
+      } catch (IllegalArgumentException | IllegalStateException e) {
+        outcomes[i] = ItemOutcome.failed(e);
+      }
+    }
+    return Arrays.asList(outcomes);
+  }
+
+  /**
+   * Läuft über den {@link TransitionGuard}: eigene Transaktion, bei einem Versionskonflikt
+   * mit frisch gelesenem Zustand wiederholt.
+   */
   public Payment capture(CaptureRequest request) {
-    publisher.publishLog("Capture request orderId: {} amount: {}", request.getOrderId(), request.getAmount());
-    Payment payment = repository.findByOrderId(request.getOrderId())
-        .orElseThrow(() -> new IllegalArgumentException("Payment not found for orderId=" + request.getOrderId()));
+    long started = System.nanoTime();
+    publisher.publishRequest(LogEventType.CAPTURE_REQUEST, request.getOrderId(), request.getAmount(), null, null, null);
+    PaymentPhaseEvent total = PaymentTrace.begin();
+    try {
+      validate(request);
+      Handled handled = guard.execute(request.getOrderId(), () -> doCapture(request));
+      metrics.record(Operation.CAPTURE, outcomeOf(handled), started);
+      return handled.payment();
+    } catch (RuntimeException e) {
+      metrics.recordFailure(Operation.CAPTURE, e, started);
+      throw e;
+    } finally {
+      PaymentTrace.end(total, Operation.CAPTURE, Phase.TOTAL, request.getOrderId());
+    }
+  }
+
+  private Handled doCapture(CaptureRequest request) {
+    String orderId = request.getOrderId();
+    PaymentTrace.traceCommit(Operation.CAPTURE, orderId);
+    PaymentPhaseEvent phase = PaymentTrace.begin();
+    Payment payment = repository.findByOrderId(orderId)
+        .orElseThrow(() -> new PaymentNotFoundException(orderId));
+    PaymentTrace.end(phase, Operation.CAPTURE, Phase.LOAD, orderId);
+    phase = PaymentTrace.begin();
 
-    validateAmount(request.getAmount());
     ensureAmountMatches(payment.getAmount(), request.getAmount());
 
     if (payment.getStatus() == PaymentStatus.CAPTURED) {
-      publisher.publishLog("Capture idempotent for order: {} ", payment.getOrderId());
-      return payment;
+      publisher.publish(LogEventType.CAPTURE_IDEMPOTENT, payment.getOrderId());
+      return new Handled(payment, true);
     }
     if (payment.getStatus() != PaymentStatus.AUTHORIZED) {
-      throw new IllegalStateException("Payment not in AUTHORIZED state");
+      throw new PaymentStateException("Payment not in AUTHORIZED state");
     }
 
     payment.setStatus(PaymentStatus.CAPTURED);
     payment.setUpdatedAt(Instant.now());
-    publisher.publishLog("Payment captured for order: {} ", payment.getOrderId());
-    return payment;
+    repository.save(payment);
+    cache.invalidate(payment);
+    outbox.record(LogEventType.CAPTURED, payment);
+    journal.record(payment);
+    PaymentTrace.end(phase, Operation.CAPTURE, Phase.TRANSITION, orderId);
+    return new Handled(payment, false);
   }
 
-  @Transactional
   public Payment refund(RefundRequest request) {
-    publisher.publishLog("Refund request orderId: {}, amount: {}, reason: {}", request.getOrderId(), request.getAmount(), request.getReason());
-    Payment payment = repository.findByOrderId(request.getOrderId())
-        .orElseThrow(() -> new IllegalArgumentException("Payment not found for orderId=" + request.getOrderId()));
+    long started = System.nanoTime();
+    publisher.publishRequest(LogEventType.REFUND_REQUEST, request.getOrderId(), request.getAmount(), null, null, request.getReason());
+    PaymentPhaseEvent total = PaymentTrace.begin();
+    try {
+      validate(request);
+      Handled handled = guard.execute(request.getOrderId(), () -> doRefund(request));
+      metrics.record(Operation.REFUND, outcomeOf(handled), started);
+      return handled.payment();
+    } catch (RuntimeException e) {
+      metrics.recordFailure(Operation.REFUND, e, started);
+      throw e;
+    } finally {
+      PaymentTrace.end(total, Operation.REFUND, Phase.TOTAL, request.getOrderId());
+    }
+  }
 
-    validateAmount(request.getAmount());
+  private Handled doRefund(RefundRequest request) {
+    String orderId = request.getOrderId();
+    PaymentTrace.traceCommit(Operation.REFUND, orderId);
+    PaymentPhaseEvent phase = PaymentTrace.begin();
+    Payment payment = repository.findByOrderId(orderId)
+        .orElseThrow(() -> new PaymentNotFoundException(orderId));
+    PaymentTrace.end(phase, Operation.REFUND, Phase.LOAD, orderId);
+    phase = PaymentTrace.begin();
 
     if (payment.getStatus() == PaymentStatus.REFUNDED) {
-      publisher.publishLog("Refund idempotent for order {}", payment.getOrderId());
-      return payment;
+      publisher.publish(LogEventType.REFUND_IDEMPOTENT, payment.getOrderId());
+      return new Handled(payment, true);
     }
     if (payment.getStatus() != PaymentStatus.CAPTURED && payment.getStatus() != PaymentStatus.AUTHORIZED) {
-      throw new IllegalStateException("Payment cannot be refunded from state " + payment.getStatus());
+      throw new PaymentStateException("Payment cannot be refunded from state " + payment.getStatus());
     }
 
     payment.setStatus(PaymentStatus.REFUNDED);
     payment.setUpdatedAt(Instant.now());
-    publisher.publishLog("Payment refunded for order {}", payment.getOrderId());
-    return payment;
+    repository.save(payment);
+    cache.invalidate(payment);
+    outbox.record(LogEventType.REFUNDED, payment);
+    journal.record(payment);
+    PaymentTrace.end(phase, Operation.REFUND, Phase.TRANSITION, orderId);
+    return new Handled(payment, false);
   }
 
-  public void publishLog(String message) {
-    publisher.publishLog(message);
+  private static Outcome outcomeOf(Handled handled) {
+    return handled.replay() ? Outcome.IDEMPOTENT_HIT : PaymentMetrics.outcomeOf(handled.payment().getStatus());
   }
 
   private Payment findIdempotent(String key, String orderId) {
-    if (key != null && !key.isBlank()) {
-      return repository.findByIdempotencyKey(key).orElse(null);
+    if (hasText(key)) {
+      Payment cached = cache.findByIdempotencyKey(key);
+      if (cached != null) {
+        return cached;
+      }
+      if (!keyFilter.mightContainKey(key)) {
+        return null;
+      }
+      Payment found = repository.findByIdempotencyKey(key).orElse(null);
+      if (found != null) {
+        cache.put(found);
+      } else {
+        keyFilter.recordFalsePositive();
+      }
+      return found;
     }
     if (orderId != null) {
-      return repository.findByOrderId(orderId).orElse(null);
+      return findByOrderId(orderId);
     }
     return null;
   }
 
-  private PaymentStatus evaluateAuthorization(BigDecimal amount) {
-    return amount.compareTo(BigDecimal.ZERO) > 0 && amount.compareTo(BigDecimal.valueOf(2000)) <= 0
+  private Payment findByOrderId(String orderId) {
+    Payment cached = cache.findByOrderId(orderId);
+    if (cached != null) {
+      return cached;
+    }
+    if (!keyFilter.mightContainOrderId(orderId)) {
+      return null;
+    }
+    Payment found = repository.findByOrderId(orderId).orElse(null);
+    if (found != null) {
+      cache.put(found);
+    } else {
+      keyFilter.recordFalsePositive();
+    }
+    return found;
+  }
+
+  static boolean hasText(String value) {
+    return value != null && !value.isBlank();
+  }
+
+  static Payment newPayment(AuthorizeRequest request, Money amount, String idempotencyKey, Instant now) {
+    Payment payment = new Payment();
+    payment.setOrderId(request.getOrderId());
+    payment.setAmount(amount);
+    payment.setMethod(request.getMethod());
+    payment.setIdempotencyKey(idempotencyKey);
+    payment.setCreatedAt(now);
+    payment.setUpdatedAt(now);
+    payment.setStatus(evaluateAuthorization(amount));
+    return payment;
+  }
+
+  static PaymentStatus evaluateAuthorization(Money amount) {
+    return amount.isPositive() && amount.compareToMajor(AUTHORIZATION_LIMIT) <= 0
         ? PaymentStatus.AUTHORIZED
         : PaymentStatus.DECLINED;
   }
 
-  private void validateAuthorize(AuthorizeRequest request) {
-    Objects.requireNonNull(request.getOrderId(), "orderId required");
-    validateAmount(request.getAmount());
-    Objects.requireNonNull(request.getCurrency(), "currency required");
-    if (request.getCurrency().length() != 3) {
-      throw new IllegalArgumentException("currency must be ISO 4217 code");
+  /** @return der geprüfte, auf zwei Nachkommastellen gerundete Betrag */
+  static Money validateAuthorize(AuthorizeRequest request) {
+    Violation violation = PaymentValidator.AUTHORIZE.validate(request);
+    if (violation != null) {
+      throw violation.exception();
+    }
+    return Money.of(request.getAmount(), request.getCurrency());
+  }
+
+  static void validate(CaptureRequest request) {
+    Violation violation = PaymentValidator.CAPTURE.validate(request);
+    if (violation != null) {
+      throw violation.exception();
     }
-    Objects.requireNonNull(request.getMethod(), "method required");
   }
 
-  private void validateAmount(BigDecimal amount) {
-    if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
-      throw new IllegalArgumentException("amount must be > 0");
+  static void validate(RefundRequest request) {
+    Violation violation = PaymentValidator.REFUND.validate(request);
+    if (violation != null) {
+      throw violation.exception();
     }
   }
 
-  private void ensureAmountMatches(BigDecimal existing, BigDecimal incoming) {
-    if (existing.compareTo(incoming) != 0) {
-      throw new IllegalStateException("amount mismatch");
+  static void ensureAmountMatches(Money existing, BigDecimal incoming) {
+    if (!existing.matches(incoming)) {
+      throw new AmountMismatchException();
     }
   }
 }
@@ -0,0 +1,14 @@
+package com.hka.ps.service;
+
+/** Die Zahlung steht nicht in einem Status, aus dem der Übergang erlaubt ist; wird zu 409. Ohne Stacktrace. */
+public class PaymentStateException extends IllegalStateException {
+
+  public PaymentStateException(String message) {
+    super(message);
+  }
+
+  @Override
+  public synchronized Throwable fillInStackTrace() {
+    return this;
+  }
+}
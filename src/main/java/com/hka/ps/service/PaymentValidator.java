@@ -0,0 +1,83 @@
+package com.hka.ps.service;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.List;
+
+import com.hka.ps.api.dto.AuthorizeRequest;
+import com.hka.ps.api.dto.CaptureRequest;
+import com.hka.ps.api.dto.RefundRequest;
+import com.hka.ps.domain.Money;
+
+/**
+ * Einmal zusammengesetzte Prüfregeln je Request-DTO. {@link #validate} liefert den ersten {@link Violation} oder
+ * {@code null}, ohne zu werfen und ohne zu allokieren; ob daraus eine Ausnahme oder ein Batch-Ergebnis wird,
+ * entscheidet der Aufrufer.
+ */
+final class PaymentValidator<T> {
+
+  @FunctionalInterface
+  interface Rule<T> {
+    /** @return Verstoß oder {@code null} */
+    Violation check(T request);
+  }
+
+  static final PaymentValidator<AuthorizeRequest> AUTHORIZE = new PaymentValidator<>(List.of(
+      r -> r.getOrderId() == null ? Violation.ORDER_ID_REQUIRED : null,
+      r -> positive(r.getAmount()),
+      r -> r.getCurrency() == null ? Violation.CURRENCY_REQUIRED : null,
+      r -> r.getCurrency().length() != 3 ? Violation.CURRENCY_NOT_ISO : null,
+      r -> r.getMethod() == null ? Violation.METHOD_REQUIRED : null,
+      r -> inRange(r.getAmount())));
+
+  static final PaymentValidator<CaptureRequest> CAPTURE = new PaymentValidator<>(List.of(
+      r -> r.getOrderId() == null ? Violation.ORDER_ID_REQUIRED : null,
+      r -> positive(r.getAmount())));
+
+  static final PaymentValidator<RefundRequest> REFUND = new PaymentValidator<>(List.of(
+      r -> r.getOrderId() == null ? Violation.ORDER_ID_REQUIRED : null,
+      r -> positive(r.getAmount())));
+
+  private static final BigInteger MAX_MINOR = BigInteger.valueOf(Long.MAX_VALUE);
+  /** Ganzzahlen mit höchstens so vielen Stellen passen sicher in ein {@code long}. */
+  private static final int SAFE_DIGITS = 18;
+
+  private final List<Rule<T>> rules;
+
+  private PaymentValidator(List<Rule<T>> rules) {
+    this.rules = rules;
+  }
+
+  /** Regeln laufen in Reihenfolge; spätere dürfen sich auf die Prüfungen früherer verlassen. */
+  Violation validate(T request) {
+    // Index statt Iterator, damit auch ohne Escape-Analyse nichts allokiert wird
+    for (int i = 0; i < rules.size(); i++) {
+      Violation violation = rules.get(i).check(request);
+      if (violation != null) {
+        return violation;
+      }
+    }
+    return null;
+  }
+
+  private static Violation positive(BigDecimal amount) {
+    return amount == null || amount.signum() <= 0 ? Violation.AMOUNT_NOT_POSITIVE : null;
+  }
+
+  /**
+   * Ob der gerundete Betrag in Hundertsteln in ein {@code long} passt, damit {@link Money#of} nicht wirft. Exakt
+   * (und allokierend) gerechnet wird nur bei 19 Stellen vor dem Komma.
+   */
+  private static Violation inRange(BigDecimal amount) {
+    int digits = amount.precision() - amount.scale() + Money.SCALE;
+    if (digits <= SAFE_DIGITS) {
+      return null;
+    }
+    if (digits > SAFE_DIGITS + 1) {
+      return Violation.AMOUNT_RANGE;
+    }
+    return amount.setScale(Money.SCALE, RoundingMode.HALF_UP).unscaledValue().compareTo(MAX_MINOR) > 0
+        ? Violation.AMOUNT_RANGE : null;
+  }
+}
@@ -0,0 +1,26 @@
+package com.hka.ps.service;
+
+/** Verstoß eines Request-DTOs gegen die Eingaberegeln; jeder Verstoß wird zu 400. */
+public enum Violation {
+  ITEM_REQUIRED("batch item required"),
+  ORDER_ID_REQUIRED("orderId required"),
+  AMOUNT_NOT_POSITIVE("amount must be > 0"),
+  CURRENCY_REQUIRED("currency required"),
+  CURRENCY_NOT_ISO("currency must be ISO 4217 code"),
+  METHOD_REQUIRED("method required"),
+  AMOUNT_RANGE("amount exceeds the supported range");
+
+  private final String message;
+
+  Violation(String message) {
+    this.message = message;
+  }
+
+  public String message() {
+    return message;
+  }
+
+  public InvalidRequestException exception() {
+    return new InvalidRequestException(this);
+  }
+}
@@ -0,0 +1,541 @@
+package com.hka.ps.store;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.hka.ps.domain.Payment;
+import com.hka.ps.domain.PaymentStatus;
+import com.hka.ps.journal.JournalProperties;
+import com.hka.ps.journal.JournalReader;
+import com.hka.ps.journal.PaymentJournal;
+import com.hka.ps.repo.PaymentKeys;
+import com.hka.ps.repo.PaymentState;
+import com.hka.ps.repo.PaymentStore;
+import com.hka.ps.repo.PaymentView;
+
+/**
+ * {@link PaymentStore} ohne Datenbank (Profil {@code memory}). Zahlungen liegen als unveränderliche
+ * {@link StoredPayment}-Einträge in einer {@link ConcurrentHashMap} nach orderId; der Idempotency-Key zeigt über
+ * einen zweiten Hash-Index auf die orderId, ein {@link ConcurrentSkipListMap}-Index nach ({@code createdAt},
+ * {@code id}) trägt Listing und Export. Lesezugriffe sperren nicht.
+ *
+ * <p>Die Maps enthalten nur festgeschriebene Stände (Read Committed). Schreibzugriffe einer Transaktion landen in
+ * deren {@link WriteSet}, das als Transaktionsressource gebunden ist; die Transaktion sieht ihre eigenen Stände bei
+ * Einzelabfragen nach orderId bzw. Key, Listen und Streams zeigen nur Festgeschriebenes. Erst {@code afterCommit}
+ * überträgt das WriteSet in die Maps, ein Rollback verwirft es einfach. Wer eine Zahlung schreibt, belegt ihre
+ * orderId (und beim Anlegen den Idempotency-Key) bis zum Ende der Transaktion wie eine Zeilensperre; andere
+ * Schreiber warten bis {@code ps.store.lock-timeout}. Die Versionsprüfung erfolgt nach dem Belegen gegen den
+ * festgeschriebenen Stand und meldet Konflikte wie JPA als {@link ObjectOptimisticLockingFailureException}.
+ * Ohne laufende Transaktion wirkt jeder Schreibzugriff sofort.
+ *
+ * <p>Dauerhaft wird der Bestand über Snapshot und Journal: alle {@code ps.store.snapshot-interval-ms} schreibt der
+ * Store einen Snapshot mit der zuletzt geschriebenen Journal-Sequenz, beim Start lädt er ihn und spielt das
+ * {@link PaymentJournal} ab dieser Sequenz nach (je Zahlung gewinnt die höchste Version). Da das Journal nach dem
+ * Commit asynchron schreibt, können nach einem Absturz die letzten Übergänge fehlen.
+ */
+@Component
+@Primary
+@Profile("memory")
+public class InMemoryPaymentStore implements PaymentStore, SmartLifecycle {
+
+  private static final Logger log = LoggerFactory.getLogger(InMemoryPaymentStore.class);
+
+  /** Position im Index nach Erstellzeit; {@code id} macht gleiche Zeitpunkte eindeutig. */
+  private record CreatedKey(long createdNanos, long id) implements Comparable<CreatedKey> {
+    @Override
+    public int compareTo(CreatedKey o) {
+      int c = Long.compare(createdNanos, o.createdNanos);
+      return c != 0 ? c : Long.compare(id, o.id);
+    }
+  }
+
+  private final StoreProperties properties;
+  private final JournalProperties journalProperties;
+  private final PaymentJournal journal;
+
+  private final ConcurrentHashMap<String, StoredPayment> byOrderId = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<String, String> orderIdByKey = new ConcurrentHashMap<>();
+  private final ConcurrentSkipListMap<CreatedKey, String> byCreated = new ConcurrentSkipListMap<>();
+  private final ConcurrentHashMap<String, WriteSet> orderIdLocks = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<String, WriteSet> keyLocks = new ConcurrentHashMap<>();
+  private final AtomicLong ids = new AtomicLong(1);
+  private final ReentrantLock snapshotLock = new ReentrantLock();
+
+  private volatile boolean running;
+
+  public InMemoryPaymentStore(StoreProperties properties, JournalProperties journalProperties,
+      PaymentJournal journal) {
+    this.properties = properties;
+    this.journalProperties = journalProperties;
+    this.journal = journal;
+  }
+
+  @Override
+  public <S extends Payment> S save(S payment) {
+    if (payment.getId() == null) {
+      insert(payment);
+    } else {
+      update(payment);
+    }
+    return payment;
+  }
+
+  @Override
+  public <S extends Payment> List<S> saveAll(Iterable<S> payments) {
+    List<S> saved = new ArrayList<>();
+    for (S payment : payments) {
+      saved.add(save(payment));
+    }
+    return saved;
+  }
+
+  private void insert(Payment payment) {
+    Objects.requireNonNull(payment.getOrderId(), "orderId required");
+    write(ws -> {
+      String orderId = payment.getOrderId();
+      lock(orderIdLocks, orderId, ws);
+      if (current(orderId, ws) != null) {
+        throw new DataIntegrityViolationException("duplicate orderId " + orderId);
+      }
+      String key = payment.getIdempotencyKey();
+      if (key != null) {
+        lock(keyLocks, key, ws);
+        if (orderIdByKey.containsKey(key) || ws.orderIdByKey.containsKey(key)) {
+          throw new DataIntegrityViolationException("duplicate idempotency key " + key);
+        }
+      }
+      StoredPayment stored = StoredPayment.of(payment, ids.getAndIncrement(), 0);
+      ws.stage(stored);
+      payment.setId(stored.id);
+      payment.setVersion(stored.version);
+    });
+  }
+
+  // orderId, Idempotency-Key und createdAt ändern sich nach dem Anlegen nicht.
+  private void update(Payment payment) {
+    write(ws -> {
+      lock(orderIdLocks, payment.getOrderId(), ws);
+      StoredPayment current = current(payment.getOrderId(), ws);
+      if (current == null || current.id != payment.getId() || !Objects.equals(current.version, payment.getVersion())) {
+        throw new ObjectOptimisticLockingFailureException(Payment.class, payment.getId());
+      }
+      StoredPayment next = StoredPayment.of(payment, current.id, current.version + 1);
+      ws.stage(next);
+      payment.setVersion(next.version);
+    });
+  }
+
+  @Override
+  public int transition(Collection<String> orderIds, Collection<PaymentStatus> from, PaymentStatus target,
+      Instant now) {
+    int[] updated = {0};
+    write(ws -> {
+      for (String orderId : orderIds) {
+        lock(orderIdLocks, orderId, ws);
+        StoredPayment current = current(orderId, ws);
+        if (current != null && from.contains(current.status)) {
+          ws.stage(current.withStatus(target, now));
+          updated[0]++;
+        }
+      }
+    });
+    return updated[0];
+  }
+
+  @Override
+  public long count() {
+    return byOrderId.size();
+  }
+
+  @Override
+  public Optional<Payment> findByOrderId(String orderId) {
+    return Optional.ofNullable(current(orderId, boundWriteSet())).map(StoredPayment::toPayment);
+  }
+
+  @Override
+  public Optional<Payment> findByIdempotencyKey(String idempotencyKey) {
+    return Optional.ofNullable(byKey(idempotencyKey)).map(StoredPayment::toPayment);
+  }
+
+  @Override
+  public List<Payment> findByOrderIdIn(Collection<String> orderIds) {
+    List<Payment> found = new ArrayList<>(orderIds.size());
+    WriteSet ws = boundWriteSet();
+    for (String orderId : orderIds) {
+      StoredPayment p = current(orderId, ws);
+      if (p != null) {
+        found.add(p.toPayment());
+      }
+    }
+    return found;
+  }
+
+  @Override
+  public List<Payment> findByIdempotencyKeyIn(Collection<String> idempotencyKeys) {
+    List<Payment> found = new ArrayList<>(idempotencyKeys.size());
+    for (String key : idempotencyKeys) {
+      StoredPayment p = byKey(key);
+      if (p != null) {
+        found.add(p.toPayment());
+      }
+    }
+    return found;
+  }
+
+  @Override
+  public List<PaymentState> findStatesByOrderIdIn(Collection<String> orderIds) {
+    List<PaymentState> found = new ArrayList<>(orderIds.size());
+    WriteSet ws = boundWriteSet();
+    for (String orderId : orderIds) {
+      StoredPayment p = current(orderId, ws);
+      if (p != null) {
+        found.add(p);
+      }
+    }
+    return found;
+  }
+
+  @Override
+  public Optional<PaymentView> findViewByOrderId(String orderId) {
+    return Optional.ofNullable(current(orderId, boundWriteSet())).map(StoredPayment::toView);
+  }
+
+  @Override
+  public List<PaymentView> findViewsByOrderIdIn(Collection<String> orderIds) {
+    List<PaymentView> found = new ArrayList<>(orderIds.size());
+    WriteSet ws = boundWriteSet();
+    for (String orderId : orderIds) {
+      StoredPayment p = current(orderId, ws);
+      if (p != null) {
+        found.add(p.toView());
+      }
+    }
+    return found;
+  }
+
+  @Override
+  public Stream<PaymentView> streamViews() {
+    return byOrderId.values().stream().map(StoredPayment::toView);
+  }
+
+  @Override
+  public Stream<PaymentView> streamViewsUpdatedSince(Instant since) {
+    long sinceNanos = StoredPayment.nanos(since);
+    return byOrderId.values().stream().filter(p -> p.updatedNanos >= sinceNanos).map(StoredPayment::toView);
+  }
+
+  @Override
+  public List<PaymentView> findPageAfter(Instant afterCreatedAt, long afterId, Instant to, PaymentStatus status,
+      String currency, Limit limit) {
+    int max = limit.isLimited() ? limit.max() : Integer.MAX_VALUE;
+    List<PaymentView> page = new ArrayList<>(Math.min(max, 256));
+    CreatedKey after = new CreatedKey(StoredPayment.nanos(afterCreatedAt), afterId);
+    CreatedKey end = new CreatedKey(StoredPayment.nanos(to), Long.MIN_VALUE);
+    for (Map.Entry<CreatedKey, String> e : byCreated.subMap(after, false, end, false).entrySet()) {
+      StoredPayment p = resolve(e);
+      if (p != null && matches(p, status, currency)) {
+        page.add(p.toView());
+        if (page.size() >= max) {
+          break;
+        }
+      }
+    }
+    return page;
+  }
+
+  @Override
+  public Stream<Payment> streamWindow(Instant from, Instant to, PaymentStatus status, String currency) {
+    NavigableMap<CreatedKey, String> window = byCreated.subMap(
+        new CreatedKey(StoredPayment.nanos(from), Long.MIN_VALUE), true,
+        new CreatedKey(StoredPayment.nanos(to), Long.MIN_VALUE), false);
+    return window.entrySet().stream()
+        .map(this::resolve)
+        .filter(p -> p != null && matches(p, status, currency))
+        .map(StoredPayment::toPayment);
+  }
+
+  @Override
+  public Stream<PaymentKeys> streamAllKeys() {
+    return byOrderId.values().stream().map(PaymentKeys.class::cast);
+  }
+
+  private StoredPayment byKey(String idempotencyKey) {
+    WriteSet ws = boundWriteSet();
+    String orderId = ws != null ? ws.orderIdByKey.get(idempotencyKey) : null;
+    if (orderId == null) {
+      orderId = orderIdByKey.get(idempotencyKey);
+    }
+    return orderId == null ? null : current(orderId, ws);
+  }
+
+  /** Eigener, noch nicht festgeschriebener Stand der Transaktion, sonst der festgeschriebene. */
+  private StoredPayment current(String orderId, WriteSet ws) {
+    StoredPayment staged = ws != null ? ws.staged.get(orderId) : null;
+    return staged != null ? staged : byOrderId.get(orderId);
+  }
+
+  /** Eintrag zu einer Indexposition; {@code null}, falls der Eintrag nicht zur Indexposition passt. */
+  private StoredPayment resolve(Map.Entry<CreatedKey, String> entry) {
+    StoredPayment p = byOrderId.get(entry.getValue());
+    return p != null && p.id == entry.getKey().id() ? p : null;
+  }
+
+  private static boolean matches(StoredPayment p, PaymentStatus status, String currency) {
+    return (status == null || p.status == status) && (currency == null || currency.equals(p.currency));
+  }
+
+  /** Schreibt einen Snapshot des aktuellen Bestands. */
+  @Scheduled(fixedDelayString = "${ps.store.snapshot-interval-ms:60000}",
+      initialDelayString = "${ps.store.snapshot-interval-ms:60000}")
+  public void snapshot() {
+    if (!running || !snapshotLock.tryLock()) {
+      return;
+    }
+    try {
+      writeSnapshot();
+    } finally {
+      snapshotLock.unlock();
+    }
+  }
+
+  private void writeSnapshot() {
+    // Vor dem Durchlauf lesen: jeder Übergang bis zu dieser Sequenz ist bereits festgeschrieben, da der Store sein
+    // WriteSet vor dem Journal überträgt. Die Maps enthalten nur festgeschriebene Stände.
+    long sequence = journal.getLastSequence();
+    long started = System.nanoTime();
+    try {
+      long count = StoreSnapshot.write(properties.getDirectory(), sequence, ids.get(),
+          byOrderId.values().iterator());
+      log.info("Payment store snapshot written: {} payments up to journal sequence {} in {} ms", count, sequence,
+          (System.nanoTime() - started) / 1_000_000);
+    } catch (IOException e) {
+      log.error("Failed to write payment store snapshot to {}: {}", properties.getDirectory(), e.toString());
+    }
+  }
+
+  /** Lädt den letzten Snapshot und spielt das Journal dahinter nach. */
+  void recover() {
+    StoreSnapshot.Loaded snapshot;
+    try {
+      snapshot = StoreSnapshot.read(properties.getDirectory());
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot read payment store snapshot in " + properties.getDirectory(), e);
+    }
+    long fromSequence = 1;
+    long maxId = 0;
+    if (snapshot != null) {
+      for (StoredPayment p : snapshot.payments()) {
+        restore(p);
+      }
+      fromSequence = snapshot.journalSequence() + 1;
+      maxId = snapshot.nextId() - 1;
+    }
+    long replayed = 0;
+    if (journalProperties.isEnabled()) {
+      replayed = new JournalReader(journalProperties.getDirectory()).replay(fromSequence, r -> {
+        restore(StoredPayment.of(r));
+        return true;
+      });
+    }
+    for (StoredPayment p : byOrderId.values()) {
+      maxId = Math.max(maxId, p.id);
+    }
+    ids.set(maxId + 1);
+    log.info("Payment store recovered {} payments ({} from snapshot, {} journal records from sequence {})",
+        byOrderId.size(), snapshot == null ? 0 : snapshot.payments().size(), replayed, fromSequence);
+  }
+
+  private void restore(StoredPayment p) {
+    StoredPayment current = byOrderId.get(p.orderId);
+    if (current != null && current.version >= p.version) {
+      return;
+    }
+    byOrderId.put(p.orderId, p);
+    if (current == null) {
+      byCreated.put(new CreatedKey(p.createdNanos, p.id), p.orderId);
+      if (p.idempotencyKey != null) {
+        orderIdByKey.put(p.idempotencyKey, p.orderId);
+      }
+    }
+  }
+
+  /** Vor dem Journal-Writer (und damit vor dem Webserver) starten, nach ihm stoppen. */
+  @Override
+  public int getPhase() {
+    return DEFAULT_PHASE - 4098;
+  }
+
+  @Override
+  public void start() {
+    if (running) {
+      return;
+    }
+    if (properties.isRecoverOnStart()) {
+      recover();
+    }
+    running = true;
+  }
+
+  @Override
+  public void stop() {
+    if (!running) {
+      return;
+    }
+    snapshotLock.lock();
+    try {
+      if (properties.isSnapshotOnShutdown()) {
+        writeSnapshot();
+      }
+      running = false;
+    } finally {
+      snapshotLock.unlock();
+    }
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  /** Führt einen Schreibzugriff im WriteSet der laufenden Transaktion aus, ohne Transaktion sofort wirksam. */
+  private void write(Consumer<WriteSet> action) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      WriteSet ws = boundWriteSet();
+      if (ws == null) {
+        ws = new WriteSet();
+        TransactionSynchronizationManager.bindResource(this, ws);
+        TransactionSynchronizationManager.registerSynchronization(ws);
+      }
+      action.accept(ws);
+      return;
+    }
+    WriteSet ws = new WriteSet();
+    try {
+      action.accept(ws);
+      ws.publish();
+    } finally {
+      ws.release();
+    }
+  }
+
+  private WriteSet boundWriteSet() {
+    return (WriteSet) TransactionSynchronizationManager.getResource(this);
+  }
+
+  /**
+   * Belegt {@code key} für {@code ws}; hält eine andere Transaktion ihn, wird bis zu deren Ende bzw. bis
+   * {@code ps.store.lock-timeout} gewartet.
+   */
+  private void lock(ConcurrentHashMap<String, WriteSet> locks, String key, WriteSet ws) {
+    long deadline = System.nanoTime() + properties.getLockTimeout().toNanos();
+    while (true) {
+      WriteSet owner = locks.putIfAbsent(key, ws);
+      if (owner == null) {
+        ws.locked(locks, key);
+        return;
+      }
+      if (owner == ws) {
+        return;
+      }
+      long remaining = deadline - System.nanoTime();
+      try {
+        if (remaining <= 0 || !owner.completed.await(remaining, TimeUnit.NANOSECONDS)) {
+          throw new CannotAcquireLockException("payment " + key + " is being written by another transaction");
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new CannotAcquireLockException("interrupted while waiting for payment " + key, e);
+      }
+    }
+  }
+
+  /**
+   * Schreibzugriffe einer Transaktion. Überträgt sie nach dem Commit vor anderen Synchronisationen (Journal, Cache)
+   * in die Maps und gibt danach die belegten orderIds und Keys frei.
+   */
+  private final class WriteSet implements TransactionSynchronization {
+
+    private final Map<String, StoredPayment> staged = new LinkedHashMap<>();
+    private final Map<String, String> orderIdByKey = new HashMap<>();
+    private final List<Map.Entry<ConcurrentHashMap<String, WriteSet>, String>> locks = new ArrayList<>();
+    private final CountDownLatch completed = new CountDownLatch(1);
+
+    void stage(StoredPayment payment) {
+      staged.put(payment.orderId, payment);
+      if (payment.idempotencyKey != null) {
+        orderIdByKey.put(payment.idempotencyKey, payment.orderId);
+      }
+    }
+
+    void locked(ConcurrentHashMap<String, WriteSet> map, String key) {
+      locks.add(Map.entry(map, key));
+    }
+
+    void publish() {
+      for (StoredPayment p : staged.values()) {
+        if (byOrderId.put(p.orderId, p) == null) {
+          byCreated.put(new CreatedKey(p.createdNanos, p.id), p.orderId);
+          if (p.idempotencyKey != null) {
+            InMemoryPaymentStore.this.orderIdByKey.put(p.idempotencyKey, p.orderId);
+          }
+        }
+      }
+    }
+
+    void release() {
+      for (Map.Entry<ConcurrentHashMap<String, WriteSet>, String> lock : locks) {
+        lock.getKey().remove(lock.getValue(), this);
+      }
+      completed.countDown();
+    }
+
+    @Override
+    public int getOrder() {
+      return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    @Override
+    public void afterCommit() {
+      publish();
+    }
+
+    @Override
+    public void afterCompletion(int status) {
+      TransactionSynchronizationManager.unbindResourceIfPossible(InMemoryPaymentStore.this);
+      release();
+    }
+  }
+}
@@ -0,0 +1,61 @@
+package com.hka.ps.store;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/** Einstellungen des {@link InMemoryPaymentStore} (Profil {@code memory}). */
+@ConfigurationProperties(prefix = "ps.store")
+public class StoreProperties {
+
+  /** Verzeichnis der Snapshot-Datei. */
+  private Path directory = Path.of("data", "store");
+  private long snapshotIntervalMs = 60000;
+  /** Stand beim Start aus Snapshot und Journal wiederherstellen. */
+  private boolean recoverOnStart = true;
+  /** Beim geordneten Herunterfahren einen letzten Snapshot schreiben. */
+  private boolean snapshotOnShutdown = true;
+  /** Wie lange ein Schreibzugriff auf eine Zahlung wartet, die eine andere Transaktion gerade ändert. */
+  private Duration lockTimeout = Duration.ofSeconds(2);
+
+  public Path getDirectory() {
+    return directory;
+  }
+
+  public void setDirectory(Path directory) {
+    this.directory = directory;
+  }
+
+  public long getSnapshotIntervalMs() {
+    return snapshotIntervalMs;
+  }
+
+  public void setSnapshotIntervalMs(long snapshotIntervalMs) {
+    this.snapshotIntervalMs = snapshotIntervalMs;
+  }
+
+  public boolean isRecoverOnStart() {
+    return recoverOnStart;
+  }
+
+  public void setRecoverOnStart(boolean recoverOnStart) {
+    this.recoverOnStart = recoverOnStart;
+  }
+
+  public boolean isSnapshotOnShutdown() {
+    return snapshotOnShutdown;
+  }
+
+  public void setSnapshotOnShutdown(boolean snapshotOnShutdown) {
+    this.snapshotOnShutdown = snapshotOnShutdown;
+  }
+
+  public Duration getLockTimeout() {
+    return lockTimeout;
+  }
+
+  public void setLockTimeout(Duration lockTimeout) {
+    this.lockTimeout = lockTimeout;
+  }
+}
@@ -0,0 +1,116 @@
+package com.hka.ps.store;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import com.hka.ps.domain.PaymentStatus;
+
+/**
+ * Snapshot-Datei des {@link InMemoryPaymentStore}: Kopf mit Formatkennung, Journal-Sequenz und nächster ID,
+ * danach die Einträge (jeweils mit vorangestelltem Markierungsbyte 1, Ende mit 0) und eine CRC32C-Prüfsumme über
+ * alles davor. Geschrieben wird in eine temporäre Datei, die anschließend atomar umbenannt wird; eine
+ * unvollständige Datei ersetzt den letzten gültigen Snapshot also nie.
+ */
+final class StoreSnapshot {
+
+  static final String FILE = "payments.snapshot";
+
+  private static final int MAGIC = 0x50535331; // "PSS1"
+
+  /** Inhalt eines gelesenen Snapshots; {@code journalSequence} ist die letzte darin sicher enthaltene Sequenz. */
+  record Loaded(long journalSequence, long nextId, List<StoredPayment> payments) {
+  }
+
+  private StoreSnapshot() {
+  }
+
+  /** @return Anzahl der geschriebenen Einträge */
+  static long write(Path directory, long journalSequence, long nextId, Iterator<StoredPayment> payments)
+      throws IOException {
+    Files.createDirectories(directory);
+    Path tmp = directory.resolve(FILE + ".tmp");
+    CRC32C crc = new CRC32C();
+    long count = 0;
+    try (CheckedOutputStream checked = new CheckedOutputStream(
+        new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16), crc);
+        DataOutputStream out = new DataOutputStream(checked)) {
+      out.writeInt(MAGIC);
+      out.writeLong(journalSequence);
+      out.writeLong(nextId);
+      while (payments.hasNext()) {
+        StoredPayment p = payments.next();
+        out.writeByte(1);
+        out.writeLong(p.id);
+        out.writeUTF(p.orderId);
+        out.writeLong(p.amountMinor);
+        out.writeUTF(p.currency);
+        out.writeUTF(p.method);
+        out.writeByte(p.status.ordinal());
+        out.writeLong(p.createdNanos);
+        out.writeLong(p.updatedNanos);
+        writeNullable(out, p.idempotencyKey);
+        out.writeLong(p.version);
+        count++;
+      }
+      out.writeByte(0);
+      out.flush();
+      // Die Prüfsumme selbst geht nicht mehr in die Prüfsumme ein.
+      long checksum = crc.getValue();
+      out.writeLong(checksum);
+    }
+    Files.move(tmp, directory.resolve(FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    return count;
+  }
+
+  /** @return {@code null}, wenn es noch keinen Snapshot gibt */
+  static Loaded read(Path directory) throws IOException {
+    Path file = directory.resolve(FILE);
+    if (!Files.isRegularFile(file)) {
+      return null;
+    }
+    CRC32C crc = new CRC32C();
+    PaymentStatus[] statuses = PaymentStatus.values();
+    try (CheckedInputStream checked = new CheckedInputStream(
+        new BufferedInputStream(Files.newInputStream(file), 1 << 16), crc);
+        DataInputStream in = new DataInputStream(checked)) {
+      if (in.readInt() != MAGIC) {
+        throw new IOException("not a payment store snapshot: " + file);
+      }
+      long journalSequence = in.readLong();
+      long nextId = in.readLong();
+      List<StoredPayment> payments = new ArrayList<>();
+      while (in.readByte() == 1) {
+        payments.add(new StoredPayment(in.readLong(), in.readUTF(), in.readLong(), in.readUTF(), in.readUTF(),
+            statuses[in.readByte()], in.readLong(), in.readLong(), readNullable(in), in.readLong()));
+      }
+      long expected = crc.getValue();
+      if (in.readLong() != expected) {
+        throw new IOException("checksum mismatch in " + file);
+      }
+      return new Loaded(journalSequence, nextId, payments);
+    }
+  }
+
+  private static void writeNullable(DataOutputStream out, String value) throws IOException {
+    out.writeBoolean(value != null);
+    if (value != null) {
+      out.writeUTF(value);
+    }
+  }
+
+  private static String readNullable(DataInputStream in) throws IOException {
+    return in.readBoolean() ? in.readUTF() : null;
+  }
+}
@@ -0,0 +1,138 @@
+package com.hka.ps.store;
+
+import java.time.Instant;
+
+import com.hka.ps.domain.Payment;
+import com.hka.ps.domain.PaymentStatus;
+import com.hka.ps.journal.JournalRecord;
+import com.hka.ps.repo.PaymentKeys;
+import com.hka.ps.repo.PaymentState;
+import com.hka.ps.repo.PaymentView;
+
+/**
+ * Unveränderlicher Stand einer Zahlung im {@link InMemoryPaymentStore}. Zeitpunkte liegen als Nanosekunden seit
+ * der Epoche in {@code long}-Feldern, Währung und Zahlart werden interniert; ein Eintrag kommt damit ohne
+ * eigene {@link Instant}- oder {@code BigDecimal}-Objekte aus. Jede Änderung erzeugt einen neuen Eintrag, der den
+ * alten per Compare-and-Set ersetzt.
+ */
+final class StoredPayment implements PaymentState, PaymentKeys {
+
+  final long id;
+  final String orderId;
+  final long amountMinor;
+  final String currency;
+  final String method;
+  final PaymentStatus status;
+  final long createdNanos;
+  final long updatedNanos;
+  final String idempotencyKey;
+  final long version;
+
+  StoredPayment(long id, String orderId, long amountMinor, String currency, String method, PaymentStatus status,
+      long createdNanos, long updatedNanos, String idempotencyKey, long version) {
+    this.id = id;
+    this.orderId = orderId;
+    this.amountMinor = amountMinor;
+    this.currency = currency == null ? null : currency.intern();
+    this.method = method == null ? null : method.intern();
+    this.status = status;
+    this.createdNanos = createdNanos;
+    this.updatedNanos = updatedNanos;
+    this.idempotencyKey = idempotencyKey;
+    this.version = version;
+  }
+
+  static StoredPayment of(Payment p, long id, long version) {
+    return new StoredPayment(id, p.getOrderId(), p.getAmountMinor(), p.getCurrency(), p.getMethod(), p.getStatus(),
+        nanos(p.getCreatedAt()), nanos(p.getUpdatedAt()), p.getIdempotencyKey(), version);
+  }
+
+  static StoredPayment of(JournalRecord r) {
+    return new StoredPayment(r.paymentId(), r.orderId(), r.amountMinor(), r.currency(), r.method(), r.status(),
+        nanos(r.createdAt()), nanos(r.updatedAt()), r.idempotencyKey(), r.version());
+  }
+
+  StoredPayment withStatus(PaymentStatus target, Instant now) {
+    return new StoredPayment(id, orderId, amountMinor, currency, method, target, createdNanos, nanos(now),
+        idempotencyKey, version + 1);
+  }
+
+  /** Neue, nicht verbundene Entity-Instanz; Änderungen daran wirken erst über {@code save}. */
+  Payment toPayment() {
+    Payment p = new Payment();
+    p.setId(id);
+    p.setOrderId(orderId);
+    p.setAmountMinor(amountMinor);
+    p.setCurrency(currency);
+    p.setMethod(method);
+    p.setStatus(status);
+    p.setCreatedAt(instant(createdNanos));
+    p.setUpdatedAt(instant(updatedNanos));
+    p.setIdempotencyKey(idempotencyKey);
+    p.setVersion(version);
+    return p;
+  }
+
+  PaymentView toView() {
+    return new PaymentView(id, orderId, amountMinor, currency, method, status, instant(createdNanos),
+        instant(updatedNanos), version);
+  }
+
+  @Override
+  public Long getId() {
+    return id;
+  }
+
+  @Override
+  public String getOrderId() {
+    return orderId;
+  }
+
+  @Override
+  public PaymentStatus getStatus() {
+    return status;
+  }
+
+  @Override
+  public long getAmountMinor() {
+    return amountMinor;
+  }
+
+  @Override
+  public String getCurrency() {
+    return currency;
+  }
+
+  @Override
+  public String getMethod() {
+    return method;
+  }
+
+  @Override
+  public String getIdempotencyKey() {
+    return idempotencyKey;
+  }
+
+  @Override
+  public Instant getCreatedAt() {
+    return instant(createdNanos);
+  }
+
+  @Override
+  public Instant getUpdatedAt() {
+    return instant(updatedNanos);
+  }
+
+  @Override
+  public Long getVersion() {
+    return version;
+  }
+
+  static long nanos(Instant instant) {
+    return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000_000L), instant.getNano());
+  }
+
+  static Instant instant(long nanos) {
+    return Instant.ofEpochSecond(Math.floorDiv(nanos, 1_000_000_000L), Math.floorMod(nanos, 1_000_000_000L));
+  }
+}
@@ -0,0 +1,29 @@
+package com.hka.ps.tracing;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Ein Sendevorgang des {@code PsPublisher} an RabbitMQ. */
+@Name(LogShipEvent.NAME)
+@Label("Log Ship")
+@Category({"Payment Service"})
+@Description("Senden einer Log-Nachricht an log.queue")
+@StackTrace(false)
+public class LogShipEvent extends Event {
+
+  public static final String NAME = "com.hka.ps.LogShip";
+
+  @Label("Queue")
+  public String queue;
+
+  @Label("Length")
+  @Description("Länge der Nachricht in Zeichen")
+  public int length;
+
+  @Label("Success")
+  public boolean success;
+}
@@ -0,0 +1,28 @@
+package com.hka.ps.tracing;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Dauer einer Phase von authorize, capture oder refund. */
+@Name(PaymentPhaseEvent.NAME)
+@Label("Payment Phase")
+@Category({"Payment Service"})
+@Description("Dauer einer Phase eines PaymentService-Aufrufs")
+@StackTrace(false)
+public class PaymentPhaseEvent extends Event {
+
+  public static final String NAME = "com.hka.ps.PaymentPhase";
+
+  @Label("Operation")
+  String operation;
+
+  @Label("Phase")
+  String phase;
+
+  @Label("Order ID")
+  String orderId;
+}
@@ -0,0 +1,92 @@
+package com.hka.ps.tracing;
+
+import java.util.Locale;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.hka.ps.metrics.PaymentMetrics.Operation;
+
+/**
+ * Erzeugt {@link PaymentPhaseEvent}s. Ist das Ereignis in keiner laufenden Aufzeichnung aktiv,
+ * kostet ein Aufruf nur die {@code shouldCommit()}-Prüfung; das Ereignisobjekt wird vom JIT
+ * wegoptimiert.
+ *
+ * <pre>{@code
+ * PaymentPhaseEvent phase = PaymentTrace.begin();
+ * Payment existing = findIdempotent(key, orderId);
+ * PaymentTrace.end(phase, Operation.AUTHORIZE, Phase.IDEMPOTENCY_LOOKUP, orderId);
+ * }</pre>
+ */
+public final class PaymentTrace {
+
+  public enum Phase {
+    /** Gesamter Service-Aufruf inklusive Commit. */
+    TOTAL,
+    VALIDATE,
+    /** Warten auf einen gleichzeitigen Aufruf mit demselben Schlüssel (Single-Flight). */
+    COALESCE_WAIT,
+    IDEMPOTENCY_LOOKUP,
+    ORDER_LOOKUP,
+    /** persist, Bloom-Filter, Cache und Outbox-Zeile; das INSERT selbst fällt erst beim Commit an. */
+    PERSIST,
+    LOAD,
+    TRANSITION,
+    /** Flush und Commit der Transaktion. */
+    COMMIT;
+
+    final String label = name().toLowerCase(Locale.ROOT);
+  }
+
+  private static final String[] OPERATIONS = new String[Operation.values().length];
+
+  static {
+    for (Operation operation : Operation.values()) {
+      OPERATIONS[operation.ordinal()] = operation.name().toLowerCase(Locale.ROOT);
+    }
+  }
+
+  private PaymentTrace() {
+  }
+
+  public static PaymentPhaseEvent begin() {
+    PaymentPhaseEvent event = new PaymentPhaseEvent();
+    event.begin();
+    return event;
+  }
+
+  public static void end(PaymentPhaseEvent event, Operation operation, Phase phase, String orderId) {
+    event.end();
+    if (event.shouldCommit()) {
+      event.operation = OPERATIONS[operation.ordinal()];
+      event.phase = phase.label;
+      event.orderId = orderId;
+      event.commit();
+    }
+  }
+
+  /**
+   * Misst den Commit der laufenden Transaktion (von {@code beforeCommit} bis {@code afterCommit}).
+   * Registriert nichts, wenn das Ereignis gerade nicht aufgezeichnet wird.
+   */
+  public static void traceCommit(Operation operation, String orderId) {
+    if (!new PaymentPhaseEvent().isEnabled() || !TransactionSynchronizationManager.isSynchronizationActive()) {
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      private PaymentPhaseEvent event;
+
+      @Override
+      public void beforeCommit(boolean readOnly) {
+        event = begin();
+      }
+
+      @Override
+      public void afterCommit() {
+        if (event != null) {
+          end(event, operation, Phase.COMMIT, orderId);
+        }
+      }
+    });
+  }
+}
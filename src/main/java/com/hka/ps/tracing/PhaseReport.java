@@ -0,0 +1,117 @@
+package com.hka.ps.tracing;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Fasst die Ereignisse des Payment Service aus einer JFR-Aufzeichnung zu Latenzen je Operation
+ * und Phase zusammen. Benötigt nur das JDK:
+ *
+ * <pre>
+ * java -cp target/payment-service-1.0.0.jar com.hka.ps.tracing.PhaseReport recording.jfr
+ * </pre>
+ */
+public final class PhaseReport {
+
+  private static final String[] PHASE_ORDER = Arrays.stream(PaymentTrace.Phase.values())
+      .map(p -> p.label)
+      .toArray(String[]::new);
+
+  private final Map<String, Map<String, List<Long>>> phases = new TreeMap<>();
+  private final Map<String, List<Long>> other = new TreeMap<>();
+
+  public static void main(String[] args) throws IOException {
+    if (args.length != 1) {
+      System.err.println("usage: PhaseReport <recording.jfr>");
+      System.exit(2);
+    }
+    PhaseReport report = new PhaseReport();
+    report.read(Path.of(args[0]));
+    report.print(System.out);
+  }
+
+  void read(Path recording) throws IOException {
+    try (RecordingFile file = new RecordingFile(recording)) {
+      while (file.hasMoreEvents()) {
+        add(file.readEvent());
+      }
+    }
+  }
+
+  private void add(RecordedEvent event) {
+    long nanos = event.getDuration().toNanos();
+    switch (event.getEventType().getName()) {
+      case PaymentPhaseEvent.NAME -> phases
+          .computeIfAbsent(event.getString("operation"), k -> new TreeMap<>(PhaseReport::comparePhases))
+          .computeIfAbsent(event.getString("phase"), k -> new ArrayList<>())
+          .add(nanos);
+      case LogShipEvent.NAME -> other
+          .computeIfAbsent(event.getBoolean("success") ? "log ship" : "log ship (failed)", k -> new ArrayList<>())
+          .add(nanos);
+      case ResponseSerializationEvent.NAME -> other
+          .computeIfAbsent("serialize " + simpleName(event.getString("valueType")), k -> new ArrayList<>())
+          .add(nanos);
+      default -> {
+      }
+    }
+  }
+
+  void print(PrintStream out) {
+    String header = String.format(Locale.ROOT, "%-34s %8s %9s %9s %9s %9s %9s %7s",
+        "phase", "count", "mean ms", "p50 ms", "p90 ms", "p99 ms", "max ms", "share");
+    phases.forEach((operation, byPhase) -> {
+      out.println(operation);
+      out.println(header);
+      List<Long> total = byPhase.get(PaymentTrace.Phase.TOTAL.label);
+      double totalSum = total == null ? 0 : total.stream().mapToLong(Long::longValue).sum();
+      byPhase.forEach((phase, values) -> row(out, phase, values, totalSum));
+      out.println();
+    });
+    if (!other.isEmpty()) {
+      out.println("other");
+      out.println(header);
+      other.forEach((name, values) -> row(out, name, values, 0));
+    }
+  }
+
+  private static void row(PrintStream out, String name, List<Long> values, double totalSum) {
+    long[] sorted = values.stream().mapToLong(Long::longValue).sorted().toArray();
+    double sum = Arrays.stream(sorted).sum();
+    String share = totalSum > 0 ? String.format(Locale.ROOT, "%6.1f%%", 100.0 * sum / totalSum) : "";
+    out.printf(Locale.ROOT, "%-34s %8d %9.3f %9.3f %9.3f %9.3f %9.3f %7s%n", name, sorted.length,
+        sum / sorted.length / 1e6, percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 99),
+        sorted[sorted.length - 1] / 1e6, share);
+  }
+
+  private static double percentile(long[] sorted, double p) {
+    int index = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+    return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1e6;
+  }
+
+  private static int comparePhases(String a, String b) {
+    return Integer.compare(indexOf(a), indexOf(b)) != 0 ? Integer.compare(indexOf(a), indexOf(b)) : a.compareTo(b);
+  }
+
+  private static int indexOf(String phase) {
+    for (int i = 0; i < PHASE_ORDER.length; i++) {
+      if (PHASE_ORDER[i].equals(phase)) {
+        return i;
+      }
+    }
+    return PHASE_ORDER.length;
+  }
+
+  private static String simpleName(String className) {
+    return className == null ? "?" : className.substring(className.lastIndexOf('.') + 1);
+  }
+}
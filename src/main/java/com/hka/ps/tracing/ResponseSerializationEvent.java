@@ -0,0 +1,38 @@
+package com.hka.ps.tracing;
+
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Serialisierung eines Response-Bodys durch einen HttpMessageConverter. */
+@Name(ResponseSerializationEvent.NAME)
+@Label("Response Serialization")
+@Category({"Payment Service"})
+@Description("Schreiben eines Response-Bodys in den Ausgabestrom")
+@StackTrace(false)
+public class ResponseSerializationEvent extends Event {
+
+  public static final String NAME = "com.hka.ps.ResponseSerialization";
+
+  @Label("Value Type")
+  String valueType;
+
+  @Label("Media Type")
+  String mediaType;
+
+  /** Füllt die Felder erst, wenn das bereits beendete Ereignis die Schwelle überschreitet, und schreibt es. */
+  public void commit(Object value, HttpOutputMessage outputMessage) {
+    if (shouldCommit()) {
+      valueType = value.getClass().getName();
+      MediaType contentType = outputMessage.getHeaders().getContentType();
+      mediaType = contentType != null ? contentType.toString() : null;
+      commit();
+    }
+  }
+}
@@ -0,0 +1,25 @@
+package com.hka.ps.tracing;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+/** Jackson-Converter, der jedes Schreiben als {@link ResponseSerializationEvent} aufzeichnet. */
+public class TracingJacksonHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+  public TracingJacksonHttpMessageConverter(ObjectMapper objectMapper) {
+    super(objectMapper);
+  }
+
+  @Override
+  protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+    ResponseSerializationEvent event = new ResponseSerializationEvent();
+    event.begin();
+    super.writeInternal(object, type, outputMessage);
+    event.end();
+    event.commit(object, outputMessage);
+  }
+}
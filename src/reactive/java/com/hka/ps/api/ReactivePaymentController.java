@@ -0,0 +1,193 @@
+package com.hka.ps.api;
+
+import java.time.Instant;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.hka.ps.api.dto.AuthorizeBatchItem;
+import com.hka.ps.api.dto.AuthorizeBatchRequest;
+import com.hka.ps.api.dto.AuthorizeRequest;
+import com.hka.ps.api.dto.BatchResponse;
+import com.hka.ps.api.dto.BulkCaptureRequest;
+import com.hka.ps.api.dto.BulkRefundRequest;
+import com.hka.ps.api.dto.BulkTransitionResponse;
+import com.hka.ps.api.dto.CaptureRequest;
+import com.hka.ps.api.dto.PaymentPageResponse;
+import com.hka.ps.api.dto.PaymentResponse;
+import com.hka.ps.api.dto.RefundRequest;
+import com.hka.ps.domain.PaymentStatus;
+import com.hka.ps.publisher.LogEventType;
+import com.hka.ps.publisher.PsPublisher;
+import com.hka.ps.service.PaymentCursor;
+import com.hka.ps.service.PaymentFilter;
+import com.hka.ps.service.ReactiveBulkTransitionService;
+import com.hka.ps.service.ReactivePaymentQueryService;
+import com.hka.ps.service.ReactivePaymentService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import reactor.core.publisher.Mono;
+
+/**
+ * Zahlungs-Endpunkte des Profils {@code reactive} mit denselben Pfaden, Statuscodes und Fehlerantworten wie
+ * {@link PaymentController} und {@link PaymentQueryController}, durchgehend nicht blockierend. Die Sammel-Endpunkte
+ * ({@code :batch}) schreiben wie im Servlet-Betrieb mit mehrzeiligem {@code INSERT} bzw. bedingtem Sammel-Update über
+ * R2DBC. Export, Abstimmung und Journal-Endpunkte gibt es nur im Servlet-Betrieb.
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping("/payments")
+@Tag(name = "Payments", description = "Endpunkte für Autorisierung, Capture und Refund von Zahlungen")
+public class ReactivePaymentController {
+
+  private static final String IDEMPOTENCY_HEADER = "Idempotency-Key";
+
+  private final ReactivePaymentService service;
+  private final ReactiveBulkTransitionService bulkService;
+  private final ReactivePaymentQueryService queries;
+  private final PsPublisher publisher;
+  private final int maxBatchItems;
+  private final int maxBulkItems;
+
+  public ReactivePaymentController(ReactivePaymentService service, ReactiveBulkTransitionService bulkService,
+      ReactivePaymentQueryService queries, PsPublisher publisher,
+      @Value("${ps.batch.max-items:500}") int maxBatchItems,
+      @Value("${ps.batch.max-bulk-items:10000}") int maxBulkItems) {
+    this.service = service;
+    this.bulkService = bulkService;
+    this.queries = queries;
+    this.publisher = publisher;
+    this.maxBatchItems = maxBatchItems;
+    this.maxBulkItems = maxBulkItems;
+  }
+
+  @PostMapping("/authorize")
+  @Operation(summary = "Autorisiert eine Zahlung")
+  public Mono<ResponseEntity<PaymentResponse>> authorize(
+      @RequestBody AuthorizeRequest request,
+      @RequestHeader(name = IDEMPOTENCY_HEADER, required = false) String idempotencyKey) {
+    publisher.publishRequest(LogEventType.AUTHORIZE_RECEIVED, request.getOrderId(), null, null, idempotencyKey, null);
+
+    return service.authorize(request, idempotencyKey).map(payment -> {
+      HttpStatus status = (payment.getStatus() == PaymentStatus.DECLINED)
+          ? HttpStatus.PAYMENT_REQUIRED : HttpStatus.OK;
+      publisher.publish(LogEventType.AUTHORIZE_RESULT, payment.getOrderId(), status);
+      return ResponseEntity.status(status).body(PaymentController.toResponse(payment));
+    });
+  }
+
+  @PostMapping("/authorize:batch")
+  @Operation(summary = "Autorisiert mehrere Zahlungen in einem Aufruf")
+  public Mono<ResponseEntity<BatchResponse>> authorizeBatch(@RequestBody AuthorizeBatchRequest request) {
+    List<AuthorizeBatchItem> items = request.getItems();
+    PaymentController.checkBatchSize(items, maxBatchItems);
+
+    return service.authorizeBatch(items)
+        .map(outcomes -> ResponseEntity.ok(PaymentController.toBatchResponse(outcomes, publisher)));
+  }
+
+  @PostMapping("/capture")
+  @Operation(summary = "Capturt eine autorisierte Zahlung")
+  public Mono<ResponseEntity<PaymentResponse>> capture(@RequestBody CaptureRequest request) {
+    publisher.publish(LogEventType.CAPTURE_RECEIVED, request.getOrderId());
+
+    return service.capture(request).map(payment -> {
+      publisher.publish(LogEventType.CAPTURE_RESULT, payment.getOrderId(), payment.getStatus());
+      return ResponseEntity.ok(PaymentController.toResponse(payment));
+    });
+  }
+
+  @PostMapping("/refund")
+  @Operation(summary = "Erstattet eine Zahlung zurück")
+  public Mono<ResponseEntity<PaymentResponse>> refund(@RequestBody RefundRequest request) {
+    publisher.publishRequest(LogEventType.REFUND_RECEIVED, request.getOrderId(), null, null, null, request.getReason());
+
+    return service.refund(request).map(payment -> {
+      publisher.publish(LogEventType.REFUND_RESULT, payment.getOrderId(), payment.getStatus());
+      return ResponseEntity.ok(PaymentController.toResponse(payment));
+    });
+  }
+
+  @PostMapping("/capture:batch")
+  @Operation(summary = "Capturt viele autorisierte Zahlungen")
+  public Mono<ResponseEntity<BulkTransitionResponse>> captureBatch(@RequestBody BulkCaptureRequest request) {
+    PaymentController.checkBatchSize(request.getItems(), maxBulkItems);
+    return bulkService.captureAll(request.getItems()).map(ResponseEntity::ok);
+  }
+
+  @PostMapping("/refund:batch")
+  @Operation(summary = "Erstattet viele Zahlungen")
+  public Mono<ResponseEntity<BulkTransitionResponse>> refundBatch(@RequestBody BulkRefundRequest request) {
+    PaymentController.checkBatchSize(request.getItems(), maxBulkItems);
+    return bulkService.refundAll(request.getItems()).map(ResponseEntity::ok);
+  }
+
+  @GetMapping("/{orderId}")
+  @Operation(summary = "Liefert den aktuellen Stand einer Zahlung")
+  public Mono<ResponseEntity<?>> get(@PathVariable String orderId, ServerWebExchange exchange) {
+    return queries.find(orderId)
+        .<ResponseEntity<?>>map(view -> {
+          String etag = PaymentQueryController.etag(view,
+              PaymentQueryController.representation(exchange.getRequest().getHeaders().getAccept()));
+          if (exchange.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).varyBy(HttpHeaders.ACCEPT).build();
+          }
+          return ResponseEntity.ok().eTag(etag).varyBy(HttpHeaders.ACCEPT).body(PaymentQueryController.toResponse(view));
+        })
+        .defaultIfEmpty(ResponseEntity.status(HttpStatus.NOT_FOUND)
+            .body(RestExceptionHandler.body(HttpStatus.NOT_FOUND, "Payment not found for orderId=" + orderId)));
+  }
+
+  @GetMapping(params = "orderIds")
+  @Operation(summary = "Liefert mehrere Zahlungen in einem Aufruf")
+  public Mono<ResponseEntity<List<PaymentResponse>>> getAll(@RequestParam List<String> orderIds,
+      ServerWebExchange exchange) {
+    Set<String> distinct = new LinkedHashSet<>(orderIds);
+    distinct.remove("");
+    PaymentController.checkBatchSize(List.copyOf(distinct), maxBatchItems);
+    return queries.findAll(distinct).map(views -> {
+      String etag = PaymentQueryController.etag(views,
+          PaymentQueryController.representation(exchange.getRequest().getHeaders().getAccept()));
+      if (exchange.checkNotModified(etag)) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).varyBy(HttpHeaders.ACCEPT).build();
+      }
+      return ResponseEntity.ok().eTag(etag).varyBy(HttpHeaders.ACCEPT)
+          .body(views.stream().map(PaymentQueryController::toResponse).toList());
+    });
+  }
+
+  @GetMapping(params = "!orderIds")
+  @Operation(summary = "Listet Zahlungen eines Zeitraums seitenweise")
+  public Mono<PaymentPageResponse> list(
+      @RequestParam Instant from,
+      @RequestParam Instant to,
+      @RequestParam(required = false) PaymentStatus status,
+      @RequestParam(required = false) String currency,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "100") int limit) {
+    if (limit < 1 || limit > maxBatchItems) {
+      throw new IllegalArgumentException("limit must be between 1 and " + maxBatchItems);
+    }
+    return queries.list(new PaymentFilter(from, to, status, currency),
+            cursor == null ? null : PaymentCursor.decode(cursor), limit)
+        .map(page -> new PaymentPageResponse(
+            page.items().stream().map(PaymentQueryController::toResponse).toList(),
+            page.next() == null ? null : page.next().encode()));
+  }
+}
@@ -0,0 +1,57 @@
+package com.hka.ps.config;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+
+/**
+ * R2DBC-Zugang des Profils {@code reactive}. Pool, {@link DatabaseClient} und Transaktionsmanager werden bewusst
+ * nicht als eigene Beans registriert: eine {@code ConnectionFactory}-Bean schaltet die JDBC-DataSource ab, ein
+ * zweiter {@code TransactionManager} machte {@code @Transactional} mehrdeutig. JPA-Teile (Abstimmung, Journal,
+ * Bloom-Filter) laufen daneben unverändert gegen dieselbe Datenbank.
+ */
+@Component
+@Profile("reactive")
+public class ReactiveDatabase implements DisposableBean {
+
+  private final ConnectionPool pool;
+  private final DatabaseClient client;
+  private final TransactionalOperator tx;
+
+  public ReactiveDatabase(ReactiveProperties properties) {
+    ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(properties.getR2dbcUrl()).mutate()
+        .option(ConnectionFactoryOptions.USER, properties.getUsername())
+        .option(ConnectionFactoryOptions.PASSWORD, properties.getPassword())
+        .build();
+    this.pool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+        .name("ps-r2dbc")
+        .initialSize(properties.getPoolInitialSize())
+        .maxSize(properties.getPoolMaxSize())
+        .maxAcquireTime(properties.getPoolMaxAcquireTime())
+        .build());
+    this.client = DatabaseClient.create(pool);
+    this.tx = TransactionalOperator.create(new R2dbcTransactionManager(pool));
+  }
+
+  public DatabaseClient client() {
+    return client;
+  }
+
+  /** Klammert einen Publisher in eine R2DBC-Transaktion. */
+  public TransactionalOperator tx() {
+    return tx;
+  }
+
+  @Override
+  public void destroy() {
+    pool.dispose();
+  }
+}
@@ -0,0 +1,66 @@
+package com.hka.ps.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/** Einstellungen des Profils {@code reactive}: R2DBC-Zugang und Pool. */
+@ConfigurationProperties(prefix = "ps.reactive")
+public class ReactiveProperties {
+
+  /** Muss auf dieselbe Datenbank zeigen wie {@code spring.datasource.url}, damit JPA-Teile denselben Bestand sehen. */
+  private String r2dbcUrl = "r2dbc:h2:mem:///paymentdb?options=DB_CLOSE_DELAY=-1";
+  private String username = "sa";
+  private String password = "password";
+  private int poolInitialSize = 4;
+  private int poolMaxSize = 32;
+  private Duration poolMaxAcquireTime = Duration.ofSeconds(5);
+
+  public String getR2dbcUrl() {
+    return r2dbcUrl;
+  }
+
+  public void setR2dbcUrl(String r2dbcUrl) {
+    this.r2dbcUrl = r2dbcUrl;
+  }
+
+  public String getUsername() {
+    return username;
+  }
+
+  public void setUsername(String username) {
+    this.username = username;
+  }
+
+  public String getPassword() {
+    return password;
+  }
+
+  public void setPassword(String password) {
+    this.password = password;
+  }
+
+  public int getPoolInitialSize() {
+    return poolInitialSize;
+  }
+
+  public void setPoolInitialSize(int poolInitialSize) {
+    this.poolInitialSize = poolInitialSize;
+  }
+
+  public int getPoolMaxSize() {
+    return poolMaxSize;
+  }
+
+  public void setPoolMaxSize(int poolMaxSize) {
+    this.poolMaxSize = poolMaxSize;
+  }
+
+  public Duration getPoolMaxAcquireTime() {
+    return poolMaxAcquireTime;
+  }
+
+  public void setPoolMaxAcquireTime(Duration poolMaxAcquireTime) {
+    this.poolMaxAcquireTime = poolMaxAcquireTime;
+  }
+}
@@ -0,0 +1,150 @@
+package com.hka.ps.outbox;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.hka.ps.config.ReactiveDatabase;
+import com.hka.ps.domain.Money;
+import com.hka.ps.domain.PaymentStatus;
+import com.hka.ps.publisher.LogEvent;
+import com.hka.ps.publisher.LogEventType;
+import com.hka.ps.publisher.PsPublisher;
+
+import io.r2dbc.spi.Readable;
+import reactor.core.publisher.Mono;
+import reactor.rabbitmq.OutboundMessage;
+import reactor.rabbitmq.RabbitFlux;
+import reactor.rabbitmq.Sender;
+import reactor.rabbitmq.SenderOptions;
+
+/**
+ * {@link OutboxRelay} des Profils {@code reactive}: liest die Outbox per R2DBC und versendet jeden Batch über
+ * einen nicht blockierenden Reactor-RabbitMQ-{@link Sender}, der die Verbindungsdaten der Spring-AMQP-Konfiguration
+ * übernimmt. Format, Batchgrößen und at-least-once-Semantik entsprechen dem blockierenden Relay; ein neuer Durchlauf
+ * startet erst, wenn der vorige abgeschlossen ist.
+ */
+@Component
+@Profile("reactive")
+public class ReactiveOutboxRelay implements DisposableBean {
+
+  private static final Logger log = LoggerFactory.getLogger(ReactiveOutboxRelay.class);
+
+  private final DatabaseClient client;
+  private final PsPublisher publisher;
+  private final OutboxProperties properties;
+  private final Sender sender;
+  private final AtomicBoolean relaying = new AtomicBoolean();
+
+  /** Unversendete Zeile mit dem daraus erzeugten Log-Ereignis. */
+  private record Pending(long id, LogEvent event) {
+  }
+
+  public ReactiveOutboxRelay(ReactiveDatabase database, PsPublisher publisher, OutboxProperties properties,
+      CachingConnectionFactory connectionFactory) {
+    this.client = database.client();
+    this.publisher = publisher;
+    this.properties = properties;
+    this.sender = RabbitFlux.createSender(new SenderOptions()
+        .connectionFactory(connectionFactory.getRabbitConnectionFactory()));
+  }
+
+  @Scheduled(fixedDelayString = "${ps.outbox.poll-interval-ms:200}")
+  public void relay() {
+    if (!properties.isRelayEnabled() || !relaying.compareAndSet(false, true)) {
+      return;
+    }
+    Mono.defer(this::relayBatch)
+        .repeat(properties.getMaxBatchesPerPoll() - 1L)
+        .takeUntil(sent -> sent < properties.getBatchSize())
+        .doFinally(signal -> relaying.set(false))
+        .subscribe(sent -> { }, e -> log.warn("Outbox relay failed: {}", e.getMessage()));
+  }
+
+  @Scheduled(fixedDelayString = "${ps.outbox.prune-interval-ms:60000}")
+  public void prune() {
+    if (!properties.isRelayEnabled()) {
+      return;
+    }
+    client.sql("delete from payment_outbox where sent_at < :before")
+        .bind("before", Instant.now().minus(properties.getRetention()).atOffset(ZoneOffset.UTC))
+        .fetch()
+        .rowsUpdated()
+        .subscribe(removed -> {
+          if (removed > 0) {
+            log.debug("Pruned {} sent outbox events", removed);
+          }
+        }, e -> log.warn("Outbox prune failed: {}", e.getMessage()));
+  }
+
+  @Override
+  public void destroy() {
+    sender.close();
+  }
+
+  /** @return Anzahl der versendeten Ereignisse */
+  Mono<Integer> relayBatch() {
+    return client.sql("select id, event_type, order_id, status, amount_minor, currency, idempotency_key, created_at"
+            + " from payment_outbox where sent_at is null order by id limit :limit")
+        .bind("limit", properties.getBatchSize())
+        .map(ReactiveOutboxRelay::toPending)
+        .all()
+        .collectList()
+        .flatMap(batch -> batch.isEmpty() ? Mono.just(0) : ship(batch));
+  }
+
+  private Mono<Integer> ship(List<Pending> batch) {
+    List<LogEvent> events = new ArrayList<>(batch.size());
+    List<Long> ids = new ArrayList<>(batch.size());
+    for (Pending pending : batch) {
+      events.add(pending.event());
+      ids.add(pending.id());
+    }
+    String message = publisher.render(events);
+    OutboundMessage outbound = new OutboundMessage("", publisher.getQueue(),
+        message.getBytes(StandardCharsets.UTF_8));
+
+    return Mono.defer(() -> {
+      long started = System.nanoTime();
+      return sender.send(Mono.just(outbound))
+          .doOnSuccess(v -> publisher.recordShipped(System.nanoTime() - started, true))
+          .doOnError(e -> publisher.recordShipped(0, false));
+    })
+        .then(Mono.fromRunnable(() -> publisher.logBatch(message)))
+        .then(client.sql("update payment_outbox set sent_at = :sentAt where id in (:ids)")
+            .bind("sentAt", Instant.now().atOffset(ZoneOffset.UTC))
+            .bind("ids", ids)
+            .fetch()
+            .rowsUpdated())
+        .thenReturn(batch.size())
+        .onErrorResume(e -> {
+          log.warn("Outbox relay failed to publish {} events: {}", events.size(), e.getMessage());
+          return Mono.just(0);
+        });
+  }
+
+  private static Pending toPending(Readable row) {
+    Long amountMinor = row.get("amount_minor", Long.class);
+    String currency = row.get("currency", String.class);
+    String status = row.get("status", String.class);
+    LogEvent event = LogEvent.of(LogEventType.valueOf(row.get("event_type", String.class)),
+        row.get("created_at", OffsetDateTime.class).toInstant().toEpochMilli(), row.get("order_id", String.class),
+        status == null ? null : PaymentStatus.valueOf(status),
+        amountMinor == null ? null : Money.toBigDecimal(amountMinor),
+        currency, row.get("idempotency_key", String.class));
+    return new Pending(row.get("id", Long.class), event);
+  }
+}
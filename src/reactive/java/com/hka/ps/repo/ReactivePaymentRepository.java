@@ -0,0 +1,428 @@
+package com.hka.ps.repo;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.DatabaseClient.GenericExecuteSpec;
+import org.springframework.stereotype.Repository;
+
+import com.hka.ps.config.ReactiveDatabase;
+import com.hka.ps.domain.Payment;
+import com.hka.ps.domain.PaymentStatus;
+import com.hka.ps.publisher.LogEventType;
+
+import io.r2dbc.spi.Readable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Nicht blockierender Zugriff auf {@code payments} und {@code payment_outbox} per R2DBC (Profil {@code reactive}).
+ * Schema und Sequenzen legt weiterhin Hibernate an; IDs werden wie bei Hibernates Pooled-Optimizer in Blöcken von
+ * {@value #ALLOCATION_SIZE} vergeben, sodass beide Zugriffswege dieselben Sequenzen ohne Überschneidung nutzen.
+ * Statuswerte werden explizit nach {@code varchar} gecastet, weil der H2-R2DBC-Treiber Strings sonst als CLOB
+ * bindet, den H2 nicht in die von Hibernate angelegten ENUM-Spalten umwandelt.
+ */
+@Repository
+@Profile("reactive")
+public class ReactivePaymentRepository {
+
+  /** {@code allocationSize} von {@code payment_seq} und {@code payment_outbox_seq}. */
+  static final int ALLOCATION_SIZE = 50;
+
+  private static final String COLUMNS = "id, order_id, amount_minor, currency, method, status, created_at,"
+      + " updated_at, idempotency_key, version";
+
+  private final DatabaseClient client;
+  private final IdBlocks paymentIds = new IdBlocks("payment_seq");
+  private final IdBlocks outboxIds = new IdBlocks("payment_outbox_seq");
+
+  public ReactivePaymentRepository(ReactiveDatabase database) {
+    this.client = database.client();
+  }
+
+  public Mono<Payment> findByOrderId(String orderId) {
+    return client.sql("select " + COLUMNS + " from payments where order_id = :orderId")
+        .bind("orderId", orderId)
+        .map(ReactivePaymentRepository::toPayment)
+        .one();
+  }
+
+  public Mono<Payment> findByIdempotencyKey(String idempotencyKey) {
+    return client.sql("select " + COLUMNS + " from payments where idempotency_key = :key")
+        .bind("key", idempotencyKey)
+        .map(ReactivePaymentRepository::toPayment)
+        .one();
+  }
+
+  public Flux<Payment> findByOrderIdIn(Collection<String> orderIds) {
+    if (orderIds.isEmpty()) {
+      return Flux.empty();
+    }
+    return client.sql("select " + COLUMNS + " from payments where order_id in (:orderIds)")
+        .bind("orderIds", orderIds)
+        .map(ReactivePaymentRepository::toPayment)
+        .all();
+  }
+
+  public Flux<Payment> findByIdempotencyKeyIn(Collection<String> idempotencyKeys) {
+    if (idempotencyKeys.isEmpty()) {
+      return Flux.empty();
+    }
+    return client.sql("select " + COLUMNS + " from payments where idempotency_key in (:keys)")
+        .bind("keys", idempotencyKeys)
+        .map(ReactivePaymentRepository::toPayment)
+        .all();
+  }
+
+  public Flux<PaymentState> findStatesByOrderIdIn(Collection<String> orderIds) {
+    return findByOrderIdIn(orderIds).map(State::new);
+  }
+
+  public Mono<PaymentView> findViewByOrderId(String orderId) {
+    return findByOrderId(orderId).map(ReactivePaymentRepository::toView);
+  }
+
+  public Flux<PaymentView> findViewsByOrderIdIn(Collection<String> orderIds) {
+    return findByOrderIdIn(orderIds).map(ReactivePaymentRepository::toView);
+  }
+
+  /** Keyset-Seite über ({@code created_at}, {@code id}) wie {@code PaymentRepository.findPageAfter}. */
+  public Flux<PaymentView> findPageAfter(Instant afterCreatedAt, long afterId, Instant to, PaymentStatus status,
+      String currency, int limit) {
+    StringBuilder sql = new StringBuilder("select " + COLUMNS + " from payments where (created_at > :after"
+        + " or (created_at = :after and id > :afterId)) and created_at < :to");
+    if (status != null) {
+      sql.append(" and status = cast(:status as varchar)");
+    }
+    if (currency != null) {
+      sql.append(" and currency = :currency");
+    }
+    sql.append(" order by created_at, id limit :limit");
+    GenericExecuteSpec spec = client.sql(sql.toString())
+        .bind("after", utc(afterCreatedAt))
+        .bind("afterId", afterId)
+        .bind("to", utc(to))
+        .bind("limit", limit);
+    if (status != null) {
+      spec = spec.bind("status", status.name());
+    }
+    if (currency != null) {
+      spec = spec.bind("currency", currency);
+    }
+    return spec.map(ReactivePaymentRepository::toPayment).all().map(ReactivePaymentRepository::toView);
+  }
+
+  /** Legt die Zahlung an und setzt ID und Version; eine doppelte orderId bzw. ein doppelter Key schlägt fehl. */
+  public Mono<Payment> insert(Payment payment) {
+    return paymentIds.next().flatMap(id -> {
+      GenericExecuteSpec spec = client.sql("insert into payments (" + COLUMNS + ") values (:id, :orderId,"
+              + " :amountMinor, :currency, :method, cast(:status as varchar), :createdAt, :updatedAt,"
+              + " :idempotencyKey, 0)")
+          .bind("id", id)
+          .bind("orderId", payment.getOrderId())
+          .bind("amountMinor", payment.getAmountMinor())
+          .bind("currency", payment.getCurrency())
+          .bind("method", payment.getMethod())
+          .bind("status", payment.getStatus().name())
+          .bind("createdAt", utc(payment.getCreatedAt()))
+          .bind("updatedAt", utc(payment.getUpdatedAt()));
+      spec = bindNullable(spec, "idempotencyKey", payment.getIdempotencyKey());
+      return spec.then().then(Mono.fromSupplier(() -> {
+        payment.setId(id);
+        payment.setVersion(0L);
+        return payment;
+      }));
+    });
+  }
+
+  /**
+   * Legt alle Zahlungen mit einem mehrzeiligen {@code INSERT} an und setzt IDs und Versionen; wie bei
+   * {@link #insert} schlägt eine doppelte orderId bzw. ein doppelter Key das ganze Statement fehl.
+   */
+  public Mono<List<Payment>> insertAll(List<Payment> payments) {
+    return Flux.range(0, payments.size()).concatMap(i -> paymentIds.next()).collectList().flatMap(ids -> {
+      StringBuilder sql = new StringBuilder("insert into payments (" + COLUMNS + ") values ");
+      for (int i = 0; i < payments.size(); i++) {
+        sql.append(i == 0 ? "(" : ", (").append(":id").append(i).append(", :orderId").append(i)
+            .append(", :amountMinor").append(i).append(", :currency").append(i).append(", :method").append(i)
+            .append(", cast(:status").append(i).append(" as varchar), :createdAt").append(i)
+            .append(", :updatedAt").append(i).append(", :idempotencyKey").append(i).append(", 0)");
+      }
+      GenericExecuteSpec spec = client.sql(sql.toString());
+      for (int i = 0; i < payments.size(); i++) {
+        Payment payment = payments.get(i);
+        spec = spec.bind("id" + i, ids.get(i))
+            .bind("orderId" + i, payment.getOrderId())
+            .bind("amountMinor" + i, payment.getAmountMinor())
+            .bind("currency" + i, payment.getCurrency())
+            .bind("method" + i, payment.getMethod())
+            .bind("status" + i, payment.getStatus().name())
+            .bind("createdAt" + i, utc(payment.getCreatedAt()))
+            .bind("updatedAt" + i, utc(payment.getUpdatedAt()));
+        spec = bindNullable(spec, "idempotencyKey" + i, payment.getIdempotencyKey());
+      }
+      return spec.then().then(Mono.fromSupplier(() -> {
+        for (int i = 0; i < payments.size(); i++) {
+          payments.get(i).setId(ids.get(i));
+          payments.get(i).setVersion(0L);
+        }
+        return payments;
+      }));
+    });
+  }
+
+  /**
+   * Bedingter Sammelübergang wie {@code PaymentRepository.transition}: ändert nur Zeilen, die sich noch in einem
+   * der Ausgangsstatus befinden, und liefert ihre Zahl.
+   */
+  public Mono<Long> transition(Collection<String> orderIds, Collection<PaymentStatus> from, PaymentStatus target,
+      Instant now) {
+    StringBuilder sql = new StringBuilder("update payments set status = cast(:target as varchar),"
+        + " updated_at = :now, version = version + 1 where order_id in (:orderIds) and status in (");
+    List<PaymentStatus> sources = List.copyOf(from);
+    for (int i = 0; i < sources.size(); i++) {
+      sql.append(i == 0 ? "" : ", ").append("cast(:from").append(i).append(" as varchar)");
+    }
+    GenericExecuteSpec spec = client.sql(sql.append(')').toString())
+        .bind("target", target.name())
+        .bind("now", utc(now))
+        .bind("orderIds", orderIds);
+    for (int i = 0; i < sources.size(); i++) {
+      spec = spec.bind("from" + i, sources.get(i).name());
+    }
+    return spec.fetch().rowsUpdated();
+  }
+
+  /**
+   * Schreibt Status und {@code updatedAt}, sofern die Zeile noch die Version der Zahlung trägt, und erhöht die
+   * Version; sonst {@link OptimisticLockingFailureException}.
+   */
+  public Mono<Payment> updateStatus(Payment payment) {
+    return client.sql("update payments set status = cast(:status as varchar), updated_at = :updatedAt,"
+            + " version = version + 1 where id = :id and version = :version")
+        .bind("status", payment.getStatus().name())
+        .bind("updatedAt", utc(payment.getUpdatedAt()))
+        .bind("id", payment.getId())
+        .bind("version", payment.getVersion())
+        .fetch()
+        .rowsUpdated()
+        .flatMap(rows -> {
+          if (rows == 0) {
+            return Mono.error(new OptimisticLockingFailureException(
+                "Payment " + payment.getId() + " was updated concurrently"));
+          }
+          payment.setVersion(payment.getVersion() + 1);
+          return Mono.just(payment);
+        });
+  }
+
+  /** Entspricht {@code PaymentOutbox.recordAll}, als ein mehrzeiliges {@code INSERT}. */
+  public Mono<Void> insertOutboxAll(LogEventType type, List<Payment> payments) {
+    List<OutboxRow> rows = new ArrayList<>(payments.size());
+    for (Payment payment : payments) {
+      rows.add(new OutboxRow(payment.getOrderId(), payment.getStatus(), payment.getAmountMinor(),
+          payment.getCurrency(), payment.getIdempotencyKey(), payment.getUpdatedAt()));
+    }
+    return insertOutboxRows(type, rows);
+  }
+
+  /** Entspricht {@code PaymentOutbox.recordTransitions}: je Zahlung ein Ereignis für den Übergang nach {@code status}. */
+  public Mono<Void> insertTransitionEvents(LogEventType type, PaymentStatus status,
+      List<? extends PaymentState> states, Instant at) {
+    List<OutboxRow> rows = new ArrayList<>(states.size());
+    for (PaymentState state : states) {
+      rows.add(new OutboxRow(state.getOrderId(), status, state.getAmountMinor(), state.getCurrency(),
+          state.getIdempotencyKey(), at));
+    }
+    return insertOutboxRows(type, rows);
+  }
+
+  private record OutboxRow(String orderId, PaymentStatus status, long amountMinor, String currency,
+      String idempotencyKey, Instant createdAt) {
+  }
+
+  private Mono<Void> insertOutboxRows(LogEventType type, List<OutboxRow> rows) {
+    if (rows.isEmpty()) {
+      return Mono.empty();
+    }
+    return Flux.range(0, rows.size()).concatMap(i -> outboxIds.next()).collectList().flatMap(ids -> {
+      StringBuilder sql = new StringBuilder("insert into payment_outbox (id, event_type, order_id, status,"
+          + " amount_minor, currency, idempotency_key, created_at) values ");
+      for (int i = 0; i < rows.size(); i++) {
+        sql.append(i == 0 ? "(" : ", (").append(":id").append(i).append(", cast(:type as varchar), :orderId")
+            .append(i).append(", cast(:status").append(i).append(" as varchar), :amountMinor").append(i)
+            .append(", :currency").append(i).append(", :idempotencyKey").append(i).append(", :createdAt").append(i)
+            .append(')');
+      }
+      GenericExecuteSpec spec = client.sql(sql.toString()).bind("type", type.name());
+      for (int i = 0; i < rows.size(); i++) {
+        OutboxRow row = rows.get(i);
+        spec = spec.bind("id" + i, ids.get(i))
+            .bind("orderId" + i, row.orderId())
+            .bind("status" + i, row.status().name())
+            .bind("amountMinor" + i, row.amountMinor())
+            .bind("currency" + i, row.currency())
+            .bind("createdAt" + i, utc(row.createdAt() != null ? row.createdAt() : Instant.now()));
+        spec = bindNullable(spec, "idempotencyKey" + i, row.idempotencyKey());
+      }
+      return spec.then();
+    });
+  }
+
+  /** Entspricht {@code PaymentOutbox.record}; muss in derselben Transaktion wie die Änderung laufen. */
+  public Mono<Void> insertOutbox(LogEventType type, Payment payment) {
+    return outboxIds.next().flatMap(id -> {
+      GenericExecuteSpec spec = client.sql("insert into payment_outbox (id, event_type, order_id, status,"
+              + " amount_minor, currency, idempotency_key, created_at) values (:id, cast(:type as varchar), :orderId,"
+              + " cast(:status as varchar), :amountMinor, :currency, :idempotencyKey, :createdAt)")
+          .bind("id", id)
+          .bind("type", type.name())
+          .bind("orderId", payment.getOrderId())
+          .bind("status", payment.getStatus().name())
+          .bind("amountMinor", payment.getAmountMinor())
+          .bind("currency", payment.getCurrency())
+          .bind("createdAt", utc(payment.getUpdatedAt() != null ? payment.getUpdatedAt() : Instant.now()));
+      return bindNullable(spec, "idempotencyKey", payment.getIdempotencyKey()).then();
+    });
+  }
+
+  private static GenericExecuteSpec bindNullable(GenericExecuteSpec spec, String name, String value) {
+    return value == null ? spec.bindNull(name, String.class) : spec.bind(name, value);
+  }
+
+  private static OffsetDateTime utc(Instant instant) {
+    return instant.atOffset(ZoneOffset.UTC);
+  }
+
+  private static PaymentView toView(Payment p) {
+    return new PaymentView(p.getId(), p.getOrderId(), p.getAmountMinor(), p.getCurrency(), p.getMethod(),
+        p.getStatus(), p.getCreatedAt(), p.getUpdatedAt(), p.getVersion());
+  }
+
+  private static Payment toPayment(Readable row) {
+    Payment p = new Payment();
+    p.setId(row.get("id", Long.class));
+    p.setOrderId(row.get("order_id", String.class));
+    p.setAmountMinor(row.get("amount_minor", Long.class));
+    p.setCurrency(row.get("currency", String.class));
+    p.setMethod(row.get("method", String.class));
+    p.setStatus(PaymentStatus.valueOf(row.get("status", String.class)));
+    p.setCreatedAt(row.get("created_at", OffsetDateTime.class).toInstant());
+    p.setUpdatedAt(row.get("updated_at", OffsetDateTime.class).toInstant());
+    p.setIdempotencyKey(row.get("idempotency_key", String.class));
+    p.setVersion(row.get("version", Long.class));
+    return p;
+  }
+
+  /** Gelesene Zahlung als {@link PaymentState} für die Sammelübergänge, wie die JPQL-Projektion. */
+  private record State(Payment payment) implements PaymentState {
+
+    @Override
+    public Long getId() {
+      return payment.getId();
+    }
+
+    @Override
+    public String getOrderId() {
+      return payment.getOrderId();
+    }
+
+    @Override
+    public PaymentStatus getStatus() {
+      return payment.getStatus();
+    }
+
+    @Override
+    public long getAmountMinor() {
+      return payment.getAmountMinor();
+    }
+
+    @Override
+    public String getCurrency() {
+      return payment.getCurrency();
+    }
+
+    @Override
+    public String getMethod() {
+      return payment.getMethod();
+    }
+
+    @Override
+    public String getIdempotencyKey() {
+      return payment.getIdempotencyKey();
+    }
+
+    @Override
+    public Instant getCreatedAt() {
+      return payment.getCreatedAt();
+    }
+
+    @Override
+    public Instant getUpdatedAt() {
+      return payment.getUpdatedAt();
+    }
+
+    @Override
+    public Long getVersion() {
+      return payment.getVersion();
+    }
+  }
+
+  /**
+   * Vergibt IDs aus Blöcken {@code (hi - ALLOCATION_SIZE, hi]}, wobei {@code hi} der nächste Sequenzwert ist
+   * (Hibernates Pooled-Optimizer). Ist der Block erschöpft, holt der nächste Aufrufer einen neuen; konkurrierende
+   * Nachlader verwerfen höchstens einen Block.
+   */
+  private final class IdBlocks {
+
+    private final String sequence;
+    private final AtomicReference<Block> current = new AtomicReference<>(new Block(0, 0));
+
+    IdBlocks(String sequence) {
+      this.sequence = sequence;
+    }
+
+    Mono<Long> next() {
+      return Mono.defer(() -> {
+        long id = current.get().take();
+        if (id > 0) {
+          return Mono.just(id);
+        }
+        return client.sql("select next value for " + sequence)
+            .map(row -> row.get(0, Long.class))
+            .one()
+            .map(hi -> {
+              Block block = new Block(hi - ALLOCATION_SIZE + 1, hi);
+              long first = block.take();
+              current.set(block);
+              return first;
+            });
+      });
+    }
+  }
+
+  private static final class Block {
+    private final AtomicLong next;
+    private final long last;
+
+    Block(long first, long last) {
+      this.next = new AtomicLong(first);
+      this.last = last;
+    }
+
+    /** @return nächste ID oder 0, wenn der Block erschöpft ist */
+    long take() {
+      long id = next.getAndIncrement();
+      return id <= last && id > 0 ? id : 0;
+    }
+  }
+}
@@ -0,0 +1,111 @@
+package com.hka.ps.service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import com.hka.ps.api.dto.BulkTransitionResponse;
+import com.hka.ps.api.dto.CaptureRequest;
+import com.hka.ps.api.dto.RefundRequest;
+import com.hka.ps.cache.IdempotencyCache;
+import com.hka.ps.config.ReactiveDatabase;
+import com.hka.ps.journal.PaymentJournal;
+import com.hka.ps.metrics.PaymentMetrics;
+import com.hka.ps.publisher.PsPublisher;
+import com.hka.ps.repo.PaymentState;
+import com.hka.ps.repo.ReactivePaymentRepository;
+import com.hka.ps.service.BulkTransitionService.Report;
+import com.hka.ps.service.BulkTransitionService.Transition;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Gegenstück zu {@link BulkTransitionService} für das Profil {@code reactive}: dieselbe Klassifizierung und derselbe
+ * bedingte {@code UPDATE ... WHERE order_id IN (...) AND status IN (...)} je Chunk, über R2DBC. Die Chunks laufen
+ * nacheinander in jeweils eigener Transaktion; Cache und Journal werden nach deren Commit aktualisiert.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveBulkTransitionService {
+
+  private final ReactivePaymentRepository repository;
+  private final ReactiveDatabase database;
+  private final PaymentJournal journal;
+  private final IdempotencyCache cache;
+  private final PsPublisher publisher;
+  private final PaymentMetrics metrics;
+  private final int chunkSize;
+
+  public ReactiveBulkTransitionService(ReactivePaymentRepository repository, ReactiveDatabase database,
+      PaymentJournal journal, IdempotencyCache cache, PsPublisher publisher, PaymentMetrics metrics,
+      @Value("${ps.batch.chunk-size:500}") int chunkSize) {
+    this.repository = repository;
+    this.database = database;
+    this.journal = journal;
+    this.cache = cache;
+    this.publisher = publisher;
+    this.metrics = metrics;
+    this.chunkSize = Math.max(1, chunkSize);
+  }
+
+  public Mono<BulkTransitionResponse> captureAll(List<CaptureRequest> items) {
+    return Mono.defer(() -> run(BulkTransitionService.requestedCaptures(items), Transition.CAPTURE));
+  }
+
+  public Mono<BulkTransitionResponse> refundAll(List<RefundRequest> items) {
+    return Mono.defer(() -> run(BulkTransitionService.requestedRefunds(items), Transition.REFUND));
+  }
+
+  private Mono<BulkTransitionResponse> run(Map<String, BigDecimal> requested, Transition transition) {
+    long started = System.nanoTime();
+    Report report = new Report();
+    List<Map.Entry<String, BigDecimal>> entries = new ArrayList<>(requested.entrySet());
+    return Flux.range(0, (entries.size() + chunkSize - 1) / chunkSize)
+        .map(n -> entries.subList(n * chunkSize, Math.min(entries.size(), (n + 1) * chunkSize)))
+        .concatMap(chunk -> processChunk(chunk, transition, report))
+        .then(Mono.fromSupplier(() -> {
+          BulkTransitionService.recordItems(metrics, report, transition);
+          metrics.recordBatch(transition.batch, started);
+          return report.toResponse();
+        }))
+        .doOnError(RuntimeException.class, e -> metrics.recordBatchFailure(transition.batch, e, started));
+  }
+
+  private Mono<Void> processChunk(List<Map.Entry<String, BigDecimal>> chunk, Transition transition, Report report) {
+    // Mikrosekunden wie in der Spalte, damit sich eigene Übergänge beim Nachlesen erkennen lassen.
+    Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+    return repository.findStatesByOrderIdIn(BulkTransitionService.orderIds(chunk))
+        .collectMap(PaymentState::getOrderId)
+        .map(states -> BulkTransitionService.classify(chunk, states, transition, report, publisher))
+        .filter(eligible -> !eligible.isEmpty())
+        .flatMap(eligible -> {
+          List<String> eligibleIds = BulkTransitionService.orderIdsOf(eligible);
+          return repository.transition(eligibleIds, transition.from, transition.target, now)
+              .flatMap(updated -> updated == eligible.size()
+                  ? Mono.just(eligible)
+                  : repository.findStatesByOrderIdIn(eligibleIds).collectList()
+                      .map(reread -> BulkTransitionService.reclassify(reread, transition, now, report)))
+              .flatMap(done -> repository.insertTransitionEvents(transition.event, transition.target, done, now)
+                  .thenReturn(done));
+        })
+        .as(database.tx()::transactional)
+        .doOnNext(done -> {
+          journal.recordTransitions(transition.target, done, now);
+          for (PaymentState state : done) {
+            // Nachklassifizierte Zustände tragen schon die neue Version; +1 ist dann nur eine zu strenge Untergrenze.
+            cache.invalidate(state.getOrderId(), state.getIdempotencyKey(),
+                (state.getVersion() == null ? 0 : state.getVersion()) + 1);
+            report.transitioned.add(state.getOrderId());
+          }
+        })
+        .then();
+  }
+}
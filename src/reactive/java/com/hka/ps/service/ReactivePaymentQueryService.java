@@ -0,0 +1,43 @@
+package com.hka.ps.service;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import com.hka.ps.repo.PaymentView;
+import com.hka.ps.repo.ReactivePaymentRepository;
+
+import reactor.core.publisher.Mono;
+
+/** Gegenstück zu {@link PaymentQueryService} für das Profil {@code reactive}; der Export bleibt dem Servlet-Betrieb vorbehalten. */
+@Service
+@Profile("reactive")
+public class ReactivePaymentQueryService {
+
+  private final ReactivePaymentRepository repository;
+
+  public ReactivePaymentQueryService(ReactivePaymentRepository repository) {
+    this.repository = repository;
+  }
+
+  public Mono<PaymentView> find(String orderId) {
+    return repository.findViewByOrderId(orderId);
+  }
+
+  /** Gefundene Zahlungen in der Reihenfolge der angefragten orderIds; unbekannte fehlen. */
+  public Mono<List<PaymentView>> findAll(Collection<String> orderIds) {
+    return repository.findViewsByOrderIdIn(orderIds).collectList()
+        .map(found -> PaymentQueryService.inRequestedOrder(orderIds, found));
+  }
+
+  /** Wie {@link PaymentQueryService#list}: Keyset-Seite über ({@code createdAt}, {@code id}). */
+  public Mono<PaymentPage> list(PaymentFilter filter, PaymentCursor after, int limit) {
+    return Mono.defer(() -> {
+      PaymentCursor start = PaymentQueryService.start(filter, after);
+      return repository.findPageAfter(start.createdAt(), start.id(), filter.to(), filter.status(), filter.currency(),
+          limit + 1).collectList().map(rows -> PaymentQueryService.page(rows, limit));
+    });
+  }
+}
@@ -0,0 +1,420 @@
+package com.hka.ps.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import com.hka.ps.api.dto.AuthorizeBatchItem;
+import com.hka.ps.api.dto.AuthorizeRequest;
+import com.hka.ps.api.dto.CaptureRequest;
+import com.hka.ps.api.dto.RefundRequest;
+import com.hka.ps.cache.IdempotencyCache;
+import com.hka.ps.cache.IdempotencyKeyFilter;
+import com.hka.ps.concurrency.ConcurrencyProperties;
+import com.hka.ps.concurrency.ConcurrentUpdateException;
+import com.hka.ps.config.ReactiveDatabase;
+import com.hka.ps.domain.Money;
+import com.hka.ps.domain.Payment;
+import com.hka.ps.domain.PaymentStatus;
+import com.hka.ps.journal.PaymentJournal;
+import com.hka.ps.metrics.PaymentMetrics;
+import com.hka.ps.metrics.PaymentMetrics.Batch;
+import com.hka.ps.metrics.PaymentMetrics.Operation;
+import com.hka.ps.metrics.PaymentMetrics.Outcome;
+import com.hka.ps.publisher.LogEventType;
+import com.hka.ps.publisher.PsPublisher;
+import com.hka.ps.repo.ReactivePaymentRepository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * Gegenstück zu {@link PaymentService} für das Profil {@code reactive}: dieselben Regeln, Idempotenz-Nachschlagewege
+ * und Outbox-Ereignisse, aber ohne blockierende Aufrufe. Statt gebündelter Flights und Stripe-Locks sichern die
+ * Unique-Constraints (authorize) bzw. die Versionsprüfung mit Wiederholung (capture, refund) gegen Nebenläufigkeit.
+ * Cache, Bloom-Filter und Journal werden nach dem Commit aktualisiert.
+ */
+@Service
+@Profile("reactive")
+public class ReactivePaymentService {
+
+  private final PsPublisher publisher;
+  private final ReactivePaymentRepository repository;
+  private final ReactiveDatabase database;
+  private final PaymentJournal journal;
+  private final IdempotencyCache cache;
+  private final IdempotencyKeyFilter keyFilter;
+  private final ConcurrencyProperties concurrency;
+  private final PaymentMetrics metrics;
+
+  /** Ergebnis eines Einzelaufrufs; {@code replay}, wenn eine bestehende Zahlung unverändert zurückkommt. */
+  private record Handled(Payment payment, boolean replay) {
+  }
+
+  public ReactivePaymentService(PsPublisher publisher, ReactivePaymentRepository repository,
+      ReactiveDatabase database, PaymentJournal journal, IdempotencyCache cache, IdempotencyKeyFilter keyFilter,
+      ConcurrencyProperties concurrency, PaymentMetrics metrics) {
+    this.publisher = publisher;
+    this.repository = repository;
+    this.database = database;
+    this.journal = journal;
+    this.cache = cache;
+    this.keyFilter = keyFilter;
+    this.concurrency = concurrency;
+    this.metrics = metrics;
+  }
+
+  /**
+   * Verliert ein gleichzeitiger Aufruf mit demselben Key bzw. derselben orderId das Einfügen an der
+   * Unique-Constraint, liefert er die Zahlung des Gewinners wie einen Idempotenz-Treffer.
+   */
+  public Mono<Payment> authorize(AuthorizeRequest request, String idempotencyKey) {
+    return Mono.defer(() -> {
+      long started = System.nanoTime();
+      publisher.publishRequest(LogEventType.AUTHORIZE_REQUEST, request.getOrderId(), request.getAmount(),
+          request.getCurrency(), idempotencyKey, null);
+      return Mono.fromCallable(() -> PaymentService.validateAuthorize(request))
+          .flatMap(amount -> findExisting(idempotencyKey, request.getOrderId())
+              .switchIfEmpty(Mono.defer(() -> create(request, amount, idempotencyKey))))
+          .doOnNext(handled -> metrics.record(Operation.AUTHORIZE, outcomeOf(handled), started))
+          .doOnError(RuntimeException.class, e -> metrics.recordFailure(Operation.AUTHORIZE, e, started))
+          .map(Handled::payment);
+    });
+  }
+
+  /**
+   * Wie {@link PaymentService#authorizeBatch}: Idempotenz-Treffer mit je einer Abfrage über alle Keys bzw. orderIds,
+   * neue Zahlungen mit einem mehrzeiligen {@code INSERT} in einer Transaktion. Verletzt ein paralleler Aufruf dabei
+   * eine Unique-Constraint, wird der Batch Eintrag für Eintrag wiederholt.
+   */
+  public Mono<List<ItemOutcome>> authorizeBatch(List<? extends AuthorizeBatchItem> items) {
+    return Mono.defer(() -> {
+      long started = System.nanoTime();
+      ItemOutcome[] outcomes = new ItemOutcome[items.size()];
+      Money[] amounts = new Money[items.size()];
+      boolean[] replays = new boolean[items.size()];
+      return authorizeBatch(items, outcomes, amounts, replays)
+          .onErrorResume(DataIntegrityViolationException.class, e -> authorizeEach(items, outcomes, amounts, replays))
+          .doOnNext(result -> {
+            for (int i = 0; i < outcomes.length; i++) {
+              if (outcomes[i].isOk()) {
+                metrics.batchItems(Batch.AUTHORIZE_BATCH, replays[i]
+                    ? Outcome.IDEMPOTENT_HIT : PaymentMetrics.outcomeOf(outcomes[i].payment().getStatus()), 1);
+              } else {
+                metrics.batchItemFailed(Batch.AUTHORIZE_BATCH, outcomes[i].error());
+              }
+            }
+            metrics.recordBatch(Batch.AUTHORIZE_BATCH, started);
+          })
+          .doOnError(RuntimeException.class, e -> metrics.recordBatchFailure(Batch.AUTHORIZE_BATCH, e, started));
+    });
+  }
+
+  /** {@code replays[i]} markiert Einträge, die eine bestehende Zahlung liefern. */
+  private Mono<List<ItemOutcome>> authorizeBatch(List<? extends AuthorizeBatchItem> items, ItemOutcome[] outcomes,
+      Money[] amounts, boolean[] replays) {
+    Map<String, Payment> byKey = new HashMap<>();
+    Map<String, Payment> byOrderId = new HashMap<>();
+    Set<String> keyLookups = new HashSet<>();
+    Set<String> orderLookups = new HashSet<>();
+
+    for (int i = 0; i < outcomes.length; i++) {
+      AuthorizeBatchItem item = items.get(i);
+      if (item == null) {
+        outcomes[i] = ItemOutcome.failed(Violation.ITEM_REQUIRED.exception());
+        continue;
+      }
+      String key = item.getIdempotencyKey();
+      publisher.publishRequest(LogEventType.AUTHORIZE_REQUEST, item.getOrderId(), item.getAmount(),
+          item.getCurrency(), key, null);
+      Violation violation = PaymentValidator.AUTHORIZE.validate(item);
+      if (violation != null) {
+        outcomes[i] = ItemOutcome.failed(violation.exception());
+        continue;
+      }
+      amounts[i] = Money.of(item.getAmount(), item.getCurrency());
+      if (PaymentService.hasText(key) && !byKey.containsKey(key)) {
+        Payment cached = cache.findByIdempotencyKey(key);
+        if (cached != null) {
+          byKey.put(key, cached);
+        } else if (keyFilter.mightContainKey(key)) {
+          keyLookups.add(key);
+        }
+      }
+      if (!byOrderId.containsKey(item.getOrderId())) {
+        Payment cached = cache.findByOrderId(item.getOrderId());
+        if (cached != null) {
+          byOrderId.put(cached.getOrderId(), cached);
+        } else if (keyFilter.mightContainOrderId(item.getOrderId())) {
+          orderLookups.add(item.getOrderId());
+        }
+      }
+    }
+
+    Mono<Void> keysFound = repository.findByIdempotencyKeyIn(List.copyOf(keyLookups))
+        .doOnNext(found -> {
+          byKey.put(found.getIdempotencyKey(), found);
+          byOrderId.putIfAbsent(found.getOrderId(), found);
+          orderLookups.remove(found.getOrderId());
+          keyLookups.remove(found.getIdempotencyKey());
+          cache.put(found);
+        })
+        .then(Mono.fromRunnable(() -> keyLookups.forEach(k -> keyFilter.recordFalsePositive())));
+    Mono<Void> ordersFound = Mono.defer(() -> repository.findByOrderIdIn(List.copyOf(orderLookups))
+        .doOnNext(found -> {
+          byOrderId.put(found.getOrderId(), found);
+          orderLookups.remove(found.getOrderId());
+          cache.put(found);
+        })
+        .then(Mono.fromRunnable(() -> orderLookups.forEach(o -> keyFilter.recordFalsePositive()))));
+
+    return keysFound.then(ordersFound).then(Mono.defer(() -> {
+      Instant now = Instant.now();
+      List<Payment> created = new ArrayList<>();
+      for (int i = 0; i < outcomes.length; i++) {
+        if (outcomes[i] != null) {
+          continue;
+        }
+        AuthorizeBatchItem item = items.get(i);
+        String key = item.getIdempotencyKey();
+        Payment existing = PaymentService.hasText(key) ? byKey.get(key) : byOrderId.get(item.getOrderId());
+        if (existing != null) {
+          publisher.publish(LogEventType.AUTHORIZE_IDEMPOTENT_HIT, existing.getOrderId());
+          outcomes[i] = ItemOutcome.ok(existing);
+          replays[i] = true;
+          continue;
+        }
+        if (PaymentService.hasText(key)) {
+          Payment reused = byOrderId.get(item.getOrderId());
+          if (reused != null) {
+            publisher.publish(LogEventType.AUTHORIZE_EXISTING, reused.getOrderId());
+            outcomes[i] = ItemOutcome.ok(reused);
+            replays[i] = true;
+            continue;
+          }
+        }
+        Payment payment = PaymentService.newPayment(item, amounts[i], PaymentService.hasText(key) ? key : null, now);
+        created.add(payment);
+        byOrderId.put(payment.getOrderId(), payment);
+        if (payment.getIdempotencyKey() != null) {
+          byKey.put(payment.getIdempotencyKey(), payment);
+        }
+        outcomes[i] = ItemOutcome.ok(payment);
+      }
+      if (created.isEmpty()) {
+        return Mono.just(Arrays.asList(outcomes));
+      }
+      return repository.insertAll(created)
+          .flatMap(inserted -> repository.insertOutboxAll(LogEventType.AUTHORIZATION_DECIDED, inserted)
+              .thenReturn(inserted))
+          .as(database.tx()::transactional)
+          .doOnNext(inserted -> {
+            journal.recordAll(inserted);
+            for (Payment payment : inserted) {
+              keyFilter.add(payment);
+              cache.put(payment);
+            }
+          })
+          .thenReturn(Arrays.asList(outcomes));
+    }));
+  }
+
+  /** Nur gültige Einträge haben einen Betrag; die Ergebnisse der übrigen bleiben stehen. */
+  private Mono<List<ItemOutcome>> authorizeEach(List<? extends AuthorizeBatchItem> items, ItemOutcome[] outcomes,
+      Money[] amounts, boolean[] replays) {
+    return Flux.range(0, outcomes.length)
+        .filter(i -> amounts[i] != null)
+        .concatMap(i -> {
+          AuthorizeBatchItem item = items.get(i);
+          String key = PaymentService.hasText(item.getIdempotencyKey()) ? item.getIdempotencyKey() : null;
+          return findExisting(key, item.getOrderId())
+              .switchIfEmpty(Mono.defer(() -> create(item, amounts[i], key)))
+              .doOnNext(handled -> {
+                outcomes[i] = ItemOutcome.ok(handled.payment());
+                replays[i] = handled.replay();
+              })
+              .onErrorResume(DataIntegrityViolationException.class, e -> {
+                outcomes[i] = ItemOutcome.failed(new ConcurrentUpdateException(item.getOrderId()));
+                return Mono.empty();
+              })
+              .onErrorResume(e -> e instanceof IllegalArgumentException || e instanceof IllegalStateException, e -> {
+                outcomes[i] = ItemOutcome.failed((RuntimeException) e);
+                return Mono.empty();
+              });
+        })
+        .then(Mono.fromSupplier(() -> Arrays.asList(outcomes)));
+  }
+
+  public Mono<Payment> capture(CaptureRequest request) {
+    return Mono.defer(() -> {
+      long started = System.nanoTime();
+      publisher.publishRequest(LogEventType.CAPTURE_REQUEST, request.getOrderId(), request.getAmount(), null, null,
+          null);
+      return Mono.defer(() -> doCapture(request))
+          .retryWhen(retryOnConflict(request.getOrderId()))
+          .doOnNext(handled -> metrics.record(Operation.CAPTURE, outcomeOf(handled), started))
+          .doOnError(RuntimeException.class, e -> metrics.recordFailure(Operation.CAPTURE, e, started))
+          .map(Handled::payment);
+    });
+  }
+
+  public Mono<Payment> refund(RefundRequest request) {
+    return Mono.defer(() -> {
+      long started = System.nanoTime();
+      publisher.publishRequest(LogEventType.REFUND_REQUEST, request.getOrderId(), request.getAmount(), null, null,
+          request.getReason());
+      return Mono.defer(() -> doRefund(request))
+          .retryWhen(retryOnConflict(request.getOrderId()))
+          .doOnNext(handled -> metrics.record(Operation.REFUND, outcomeOf(handled), started))
+          .doOnError(RuntimeException.class, e -> metrics.recordFailure(Operation.REFUND, e, started))
+          .map(Handled::payment);
+    });
+  }
+
+  private Mono<Handled> findExisting(String idempotencyKey, String orderId) {
+    if (PaymentService.hasText(idempotencyKey)) {
+      return findByIdempotencyKey(idempotencyKey)
+          .map(existing -> replay(LogEventType.AUTHORIZE_IDEMPOTENT_HIT, existing))
+          .switchIfEmpty(Mono.defer(() -> findByOrderId(orderId)
+              .map(reused -> replay(LogEventType.AUTHORIZE_EXISTING, reused))));
+    }
+    return findByOrderId(orderId).map(existing -> replay(LogEventType.AUTHORIZE_IDEMPOTENT_HIT, existing));
+  }
+
+  private Mono<Handled> create(AuthorizeRequest request, Money amount, String idempotencyKey) {
+    Payment payment = PaymentService.newPayment(request, amount, idempotencyKey, Instant.now());
+    return repository.insert(payment)
+        .flatMap(inserted -> repository.insertOutbox(LogEventType.AUTHORIZATION_DECIDED, inserted).thenReturn(inserted))
+        .as(database.tx()::transactional)
+        .doOnNext(created -> {
+          keyFilter.add(created);
+          cache.put(created);
+          journal.record(created);
+        })
+        .map(created -> new Handled(created, false))
+        .onErrorResume(DataIntegrityViolationException.class, e -> lostInsertRace(idempotencyKey,
+            request.getOrderId()).switchIfEmpty(Mono.error(e)));
+  }
+
+  /** Liest am Cache und Bloom-Filter vorbei, da der Gewinner beide erst nach seinem Commit aktualisiert. */
+  private Mono<Handled> lostInsertRace(String idempotencyKey, String orderId) {
+    Mono<Payment> byOrderId = Mono.defer(() -> repository.findByOrderId(orderId));
+    Mono<Payment> winner = PaymentService.hasText(idempotencyKey)
+        ? repository.findByIdempotencyKey(idempotencyKey).switchIfEmpty(byOrderId)
+        : byOrderId;
+    return winner.map(existing -> replay(LogEventType.AUTHORIZE_IDEMPOTENT_HIT, existing));
+  }
+
+  private Mono<Handled> doCapture(CaptureRequest request) {
+    String orderId = request.getOrderId();
+    Violation violation = PaymentValidator.CAPTURE.validate(request);
+    if (violation != null) {
+      return Mono.error(violation.exception());
+    }
+    return repository.findByOrderId(orderId)
+        .switchIfEmpty(Mono.error(() -> new PaymentNotFoundException(orderId)))
+        .flatMap(payment -> {
+          PaymentService.ensureAmountMatches(payment.getAmount(), request.getAmount());
+
+          if (payment.getStatus() == PaymentStatus.CAPTURED) {
+            return Mono.just(replay(LogEventType.CAPTURE_IDEMPOTENT, payment));
+          }
+          if (payment.getStatus() != PaymentStatus.AUTHORIZED) {
+            return Mono.error(new PaymentStateException("Payment not in AUTHORIZED state"));
+          }
+          payment.setStatus(PaymentStatus.CAPTURED);
+          payment.setUpdatedAt(Instant.now());
+          return persistTransition(LogEventType.CAPTURED, payment);
+        });
+  }
+
+  private Mono<Handled> doRefund(RefundRequest request) {
+    String orderId = request.getOrderId();
+    Violation violation = PaymentValidator.REFUND.validate(request);
+    if (violation != null) {
+      return Mono.error(violation.exception());
+    }
+    return repository.findByOrderId(orderId)
+        .switchIfEmpty(Mono.error(() -> new PaymentNotFoundException(orderId)))
+        .flatMap(payment -> {
+          if (payment.getStatus() == PaymentStatus.REFUNDED) {
+            return Mono.just(replay(LogEventType.REFUND_IDEMPOTENT, payment));
+          }
+          if (payment.getStatus() != PaymentStatus.CAPTURED && payment.getStatus() != PaymentStatus.AUTHORIZED) {
+            return Mono.error(new PaymentStateException("Payment cannot be refunded from state " + payment.getStatus()));
+          }
+          payment.setStatus(PaymentStatus.REFUNDED);
+          payment.setUpdatedAt(Instant.now());
+          return persistTransition(LogEventType.REFUNDED, payment);
+        });
+  }
+
+  private Mono<Handled> persistTransition(LogEventType type, Payment payment) {
+    return repository.updateStatus(payment)
+        .flatMap(updated -> repository.insertOutbox(type, updated).thenReturn(updated))
+        .as(database.tx()::transactional)
+        .doOnNext(updated -> {
+          cache.invalidate(updated);
+          journal.record(updated);
+        })
+        .map(updated -> new Handled(updated, false));
+  }
+
+  /** Wie {@code TransitionGuard}: bis zu {@code ps.concurrency.max-retries} Wiederholungen mit frisch gelesenem Zustand. */
+  private Retry retryOnConflict(String orderId) {
+    if (concurrency.getRetryBackoff().isZero()) {
+      return Retry.max(concurrency.getMaxRetries())
+          .filter(OptimisticLockingFailureException.class::isInstance)
+          .onRetryExhaustedThrow((spec, signal) -> new ConcurrentUpdateException(orderId));
+    }
+    return Retry.backoff(concurrency.getMaxRetries(), concurrency.getRetryBackoff())
+        .filter(OptimisticLockingFailureException.class::isInstance)
+        .onRetryExhaustedThrow((spec, signal) -> new ConcurrentUpdateException(orderId));
+  }
+
+  private Handled replay(LogEventType type, Payment payment) {
+    publisher.publish(type, payment.getOrderId());
+    return new Handled(payment, true);
+  }
+
+  private static Outcome outcomeOf(Handled handled) {
+    return handled.replay() ? Outcome.IDEMPOTENT_HIT : PaymentMetrics.outcomeOf(handled.payment().getStatus());
+  }
+
+  private Mono<Payment> findByIdempotencyKey(String key) {
+    Payment cached = cache.findByIdempotencyKey(key);
+    if (cached != null) {
+      return Mono.just(cached);
+    }
+    if (!keyFilter.mightContainKey(key)) {
+      return Mono.empty();
+    }
+    return repository.findByIdempotencyKey(key)
+        .doOnNext(cache::put)
+        .switchIfEmpty(Mono.fromRunnable(keyFilter::recordFalsePositive));
+  }
+
+  private Mono<Payment> findByOrderId(String orderId) {
+    Payment cached = cache.findByOrderId(orderId);
+    if (cached != null) {
+      return Mono.just(cached);
+    }
+    if (!keyFilter.mightContainOrderId(orderId)) {
+      return Mono.empty();
+    }
+    return repository.findByOrderId(orderId)
+        .doOnNext(cache::put)
+        .switchIfEmpty(Mono.fromRunnable(keyFilter::recordFalsePositive));
+  }
+}
@@ -0,0 +1,94 @@
+package com.hka.ps.admission;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.hka.ps.api.PaymentController;
+import com.hka.ps.domain.Payment;
+import com.hka.ps.domain.PaymentStatus;
+import com.hka.ps.metrics.PaymentMetrics.Operation;
+import com.hka.ps.publisher.PsPublisher;
+import com.hka.ps.service.BulkTransitionService;
+import com.hka.ps.service.PaymentService;
+
+@WebMvcTest(PaymentController.class)
+@Import(AdmissionControl.class)
+@EnableConfigurationProperties(AdmissionProperties.class)
+@TestPropertySource(properties = {
+    "ps.admission.initial-limit=1",
+    "ps.admission.min-limit=1",
+    "ps.admission.max-limit=1",
+    "ps.admission.retry-after=2s"})
+class AdmissionControlWebTest {
+
+  private static final String AUTHORIZE = "{\"orderId\":\"A1\",\"amount\":10,\"currency\":\"EUR\",\"method\":\"CARD\"}";
+
+  @Autowired
+  MockMvc mvc;
+
+  @Autowired
+  AdmissionControl admission;
+
+  @MockBean
+  PaymentService service;
+
+  @MockBean
+  PsPublisher publisher;
+
+  @MockBean
+  BulkTransitionService bulkService;
+
+  @Test
+  void requestOverTheLimitGets429WithRetryAfter() throws Exception {
+    AdmissionControl.Permit busy = admission.acquire(Operation.AUTHORIZE);
+    try {
+      mvc.perform(post("/payments/authorize").contentType(MediaType.APPLICATION_JSON).content(AUTHORIZE))
+          .andExpect(status().isTooManyRequests())
+          .andExpect(header().string("Retry-After", "2"))
+          .andExpect(jsonPath("$.status").value(429));
+    } finally {
+      admission.release(busy, false);
+    }
+  }
+
+  @Test
+  void requestWithinTheLimitReachesTheController() throws Exception {
+    when(service.authorize(any(), isNull())).thenReturn(payment());
+
+    mvc.perform(post("/payments/authorize").contentType(MediaType.APPLICATION_JSON).content(AUTHORIZE))
+        .andExpect(status().isOk())
+        .andExpect(header().doesNotExist("Retry-After"));
+    mvc.perform(post("/payments/authorize").contentType(MediaType.APPLICATION_JSON).content(AUTHORIZE))
+        .andExpect(status().isOk());
+  }
+
+  private static Payment payment() {
+    Instant now = Instant.now();
+    Payment p = new Payment();
+    p.setOrderId("A1");
+    p.setAmountMinor(1000);
+    p.setCurrency("EUR");
+    p.setMethod("CARD");
+    p.setStatus(PaymentStatus.AUTHORIZED);
+    p.setCreatedAt(now);
+    p.setUpdatedAt(now);
+    return p;
+  }
+}
@@ -0,0 +1,114 @@
+package com.hka.ps.admission;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class AimdLimitTest {
+
+  @Test
+  void fastResponsesRaiseTheLimitOnlyWhileHalfOfItIsInUse() {
+    AimdLimit limit = new AimdLimit(properties(4, 2, 6));
+
+    // eine von vier Plätzen belegt: keine Erhöhung
+    acquireAndRelease(limit, 1, false);
+    assertThat(limit.getLimit()).isEqualTo(4);
+
+    // zwei von vier belegt: jede zügige Antwort erhöht um eins, höchstens bis max-limit
+    acquireAndRelease(limit, 2, false);
+    assertThat(limit.getLimit()).isEqualTo(5);
+    acquireAndRelease(limit, 3, false);
+    assertThat(limit.getLimit()).isEqualTo(6);
+    acquireAndRelease(limit, 6, false);
+    assertThat(limit.getLimit()).isEqualTo(6);
+    assertThat(limit.getInFlight()).isZero();
+  }
+
+  @Test
+  void requestsOverTheLimitAreRejected() {
+    AimdLimit limit = new AimdLimit(properties(2, 1, 4));
+
+    assertThat(limit.tryAcquire(1.0)).isTrue();
+    assertThat(limit.tryAcquire(1.0)).isTrue();
+    assertThat(limit.tryAcquire(1.0)).isFalse();
+    assertThat(limit.getAdmitted()).isEqualTo(2);
+    assertThat(limit.getRejected()).isEqualTo(1);
+    assertThat(limit.saturatedWithin(TimeUnit.SECONDS.toNanos(1))).isTrue();
+  }
+
+  @Test
+  void lowPriorityShareCapsTheUsableLimit() {
+    AimdLimit limit = new AimdLimit(properties(8, 1, 8));
+
+    for (int i = 0; i < 4; i++) {
+      assertThat(limit.tryAcquire(0.5)).isTrue();
+    }
+    assertThat(limit.tryAcquire(0.5)).isFalse();
+    assertThat(limit.tryAcquire(1.0)).isTrue();
+  }
+
+  @Test
+  void overloadDecreasesAtMostOncePerRound() throws InterruptedException {
+    AimdLimit limit = new AimdLimit(properties(16, 3, 16));
+    TimeUnit.MILLISECONDS.sleep(1);
+
+    // drei Requests der laufenden Runde scheitern: nur der erste verkleinert die Grenze
+    long round = System.nanoTime();
+    for (int i = 0; i < 3; i++) {
+      assertThat(limit.tryAcquire(1.0)).isTrue();
+    }
+    limit.release(round, true);
+    assertThat(limit.getLimit()).isEqualTo(8);
+    limit.release(round, true);
+    limit.release(round, true);
+    assertThat(limit.getLimit()).isEqualTo(8);
+
+    // ein nach der Verkleinerung gestarteter Request eröffnet die nächste Runde, min-limit bleibt die Untergrenze
+    TimeUnit.MILLISECONDS.sleep(1);
+    acquireAndRelease(limit, 1, true);
+    assertThat(limit.getLimit()).isEqualTo(4);
+    TimeUnit.MILLISECONDS.sleep(1);
+    acquireAndRelease(limit, 1, true);
+    assertThat(limit.getLimit()).isEqualTo(3);
+  }
+
+  @Test
+  void responsesOverTheLatencyThresholdCountAsOverload() throws InterruptedException {
+    AdmissionProperties properties = properties(10, 1, 10);
+    properties.setLatencyThreshold(Duration.ofMillis(1));
+    AimdLimit limit = new AimdLimit(properties);
+    TimeUnit.MILLISECONDS.sleep(1);
+
+    long started = System.nanoTime();
+    assertThat(limit.tryAcquire(1.0)).isTrue();
+    TimeUnit.MILLISECONDS.sleep(5);
+    limit.release(started, false);
+
+    assertThat(limit.getLimit()).isEqualTo(5);
+  }
+
+  /** Belegt {@code concurrent} Plätze und gibt einen davon mit dem angegebenen Ausgang zurück, die übrigen ohne. */
+  private static void acquireAndRelease(AimdLimit limit, int concurrent, boolean overloaded) {
+    long started = System.nanoTime();
+    for (int i = 0; i < concurrent; i++) {
+      assertThat(limit.tryAcquire(1.0)).isTrue();
+    }
+    limit.release(started, overloaded);
+    for (int i = 1; i < concurrent; i++) {
+      limit.release(started, false);
+    }
+  }
+
+  private static AdmissionProperties properties(int initial, int min, int max) {
+    AdmissionProperties properties = new AdmissionProperties();
+    properties.setInitialLimit(initial);
+    properties.setMinLimit(min);
+    properties.setMaxLimit(max);
+    properties.setLatencyThreshold(Duration.ofSeconds(10));
+    properties.setBackoffRatio(0.5);
+    return properties;
+  }
+}
@@ -0,0 +1,53 @@
+package com.hka.ps.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.time.Instant;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.hka.ps.domain.Payment;
+import com.hka.ps.domain.PaymentStatus;
+
+class PaymentCborWriterTest {
+
+  private final ObjectMapper mapper = PaymentCborHttpMessageConverter.objectMapper(Jackson2ObjectMapperBuilder.json());
+  private final CBORFactory factory = (CBORFactory) mapper.getFactory();
+
+  @Test
+  void writesTheSameBytesAsTheMapper() throws IOException {
+    assertSameBytes(payment("ORD-1", 14_999, "EUR", PaymentStatus.AUTHORIZED,
+        Instant.parse("2024-10-06T14:32:11.451123456Z"), Instant.parse("2024-10-06T14:45:02Z")));
+    assertSameBytes(payment("ORD-Grüße", -1500, "JPY", PaymentStatus.REFUNDED,
+        Instant.EPOCH, Instant.parse("1969-12-31T23:59:59.5Z")));
+    assertSameBytes(payment("ORD-3", Long.MAX_VALUE, "EUR", PaymentStatus.CAPTURED,
+        Instant.parse("2300-01-01T00:00:00.000000001Z"), Instant.parse("2024-10-06T14:32:11.451Z")));
+  }
+
+  @Test
+  void writesNullsLikeTheMapper() throws IOException {
+    assertSameBytes(payment(null, 0, null, null, null, null));
+  }
+
+  private void assertSameBytes(Payment payment) throws IOException {
+    assertThat(PaymentCborWriter.toBytes(payment, factory))
+        .isEqualTo(mapper.writeValueAsBytes(PaymentController.toResponse(payment)));
+  }
+
+  private static Payment payment(String orderId, long amountMinor, String currency, PaymentStatus status,
+      Instant createdAt, Instant updatedAt) {
+    Payment p = new Payment();
+    p.setOrderId(orderId);
+    p.setAmountMinor(amountMinor);
+    p.setCurrency(currency);
+    p.setMethod(orderId == null ? null : "CARD");
+    p.setStatus(status);
+    p.setCreatedAt(createdAt);
+    p.setUpdatedAt(updatedAt);
+    return p;
+  }
+}
@@ -0,0 +1,75 @@
+package com.hka.ps.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.time.Instant;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.hka.ps.domain.Payment;
+import com.hka.ps.domain.PaymentStatus;
+
+class PaymentJsonWriterTest {
+
+  /** Wie der ObjectMapper von Spring Boot: Zeitpunkte als ISO-Text. */
+  private final ObjectMapper mapper = Jackson2ObjectMapperBuilder.json()
+      .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+      .build();
+
+  @Test
+  void writesTheSameBytesAsJacksonForAnyCurrency() throws IOException {
+    Instant t = Instant.parse("2024-10-06T14:32:11.451Z");
+    assertSameBytes(payment("ORD-1", 14_999, "EUR", PaymentStatus.AUTHORIZED, t, t));
+    assertSameBytes(payment("ORD-2", 1500, "JPY", PaymentStatus.CAPTURED, t, t));
+    assertSameBytes(payment("ORD-3", 1_234_567, "KWD", PaymentStatus.REFUNDED, t, t));
+    assertSameBytes(payment("ORD-4", 5, "EUR", PaymentStatus.DECLINED, t, t));
+    assertSameBytes(payment("ORD-5", -1_050, "EUR", PaymentStatus.AUTHORIZED, t, t));
+    assertSameBytes(payment("ORD-6", -7, "KWD", PaymentStatus.AUTHORIZED, t, t));
+    assertSameBytes(payment("ORD-7", Long.MAX_VALUE, "EUR", PaymentStatus.AUTHORIZED, t, t));
+    assertSameBytes(payment("ORD-8", Long.MIN_VALUE, "JPY", PaymentStatus.AUTHORIZED, t, t));
+
+    // zwei Nachkommastellen für jede Währung, wie die frühere Spalte DECIMAL(19,2)
+    assertThat(new String(PaymentJsonWriter.toBytes(payment("ORD-2", 150_000, "JPY", PaymentStatus.CAPTURED, t, t))))
+        .contains("\"amount\":1500.00,");
+  }
+
+  @Test
+  void writesTimestampsLikeIsoInstant() throws IOException {
+    for (String text : new String[] {"2024-10-06T14:32:11Z", "2024-10-06T14:32:11.451Z",
+        "2024-10-06T14:32:11.451123Z", "2024-10-06T14:32:11.451123456Z", "1970-01-01T00:00:00Z",
+        "1969-12-31T23:59:59.999Z", "2000-02-29T23:59:59.000000001Z", "9999-12-31T23:59:59Z",
+        "+10000-01-01T00:00:00Z"}) {
+      Instant instant = Instant.parse(text);
+      assertSameBytes(payment("ORD-T", 100, "EUR", PaymentStatus.AUTHORIZED, instant, instant));
+    }
+  }
+
+  @Test
+  void escapesStringsLikeJackson() throws IOException {
+    assertSameBytes(payment("ORD-\"q\"\\\n\t\u0001", 100, "EUR", PaymentStatus.AUTHORIZED, null, null));
+    assertSameBytes(payment("Grüße-€-💳", 100, "EUR", PaymentStatus.AUTHORIZED, null, null));
+    assertSameBytes(payment(null, 100, null, null, null, null));
+  }
+
+  private void assertSameBytes(Payment payment) throws IOException {
+    assertThat(new String(PaymentJsonWriter.toBytes(payment)))
+        .isEqualTo(new String(mapper.writeValueAsBytes(PaymentController.toResponse(payment))));
+  }
+
+  private static Payment payment(String orderId, long amountMinor, String currency, PaymentStatus status,
+      Instant createdAt, Instant updatedAt) {
+    Payment p = new Payment();
+    p.setOrderId(orderId);
+    p.setAmountMinor(amountMinor);
+    p.setCurrency(currency);
+    p.setMethod(orderId == null ? null : "CARD");
+    p.setStatus(status);
+    p.setCreatedAt(createdAt);
+    p.setUpdatedAt(updatedAt);
+    return p;
+  }
+}
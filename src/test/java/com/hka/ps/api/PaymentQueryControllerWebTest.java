@@ -0,0 +1,80 @@
+package com.hka.ps.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.hka.ps.admission.AdmissionControl;
+import com.hka.ps.admission.AdmissionProperties;
+import com.hka.ps.domain.PaymentStatus;
+import com.hka.ps.repo.PaymentView;
+import com.hka.ps.service.PaymentQueryService;
+
+@WebMvcTest(PaymentQueryController.class)
+@Import(AdmissionControl.class)
+@EnableConfigurationProperties(AdmissionProperties.class)
+class PaymentQueryControllerWebTest {
+
+  private static final Instant CREATED = Instant.parse("2024-10-06T14:32:11.451Z");
+
+  @Autowired
+  MockMvc mvc;
+
+  @MockBean
+  PaymentQueryService queries;
+
+  @Test
+  void etagDependsOnTheRepresentationAndVariesByAccept() throws Exception {
+    when(queries.find("A1")).thenReturn(Optional.of(view(7L, CREATED, 3L)));
+
+    String json = mvc.perform(get("/payments/A1").accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE))
+        .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    String cbor = mvc.perform(get("/payments/A1").accept(MediaType.APPLICATION_CBOR))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_CBOR_VALUE))
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    String wildcard = mvc.perform(get("/payments/A1"))
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+    assertThat(json).isNotEqualTo(cbor).isEqualTo(wildcard);
+
+    // der JSON-ETag passt nicht zur CBOR-Darstellung
+    mvc.perform(get("/payments/A1").accept(MediaType.APPLICATION_CBOR).header(HttpHeaders.IF_NONE_MATCH, json))
+        .andExpect(status().isOk());
+    mvc.perform(get("/payments/A1").accept(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_NONE_MATCH, json))
+        .andExpect(status().isNotModified())
+        .andExpect(header().string(HttpHeaders.ETAG, json))
+        .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT));
+  }
+
+  @Test
+  void recreatedPaymentWithTheSameVersionGetsANewEtag() {
+    MediaType json = MediaType.APPLICATION_JSON;
+    String original = PaymentQueryController.etag(view(7L, CREATED, 0L), json);
+
+    assertThat(PaymentQueryController.etag(view(8L, CREATED, 0L), json)).isNotEqualTo(original);
+    assertThat(PaymentQueryController.etag(view(7L, CREATED.plusNanos(1000), 0L), json)).isNotEqualTo(original);
+  }
+
+  private static PaymentView view(Long id, Instant createdAt, Long version) {
+    return new PaymentView(id, "A1", 1000, "EUR", "CARD", PaymentStatus.AUTHORIZED, createdAt, createdAt, version);
+  }
+}
@@ -0,0 +1,51 @@
+package com.hka.ps.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class BloomFilterTest {
+
+  @Test
+  void hasNoFalseNegatives() {
+    BloomFilter filter = BloomFilter.create(10_000, 0.01);
+    IntStream.range(0, 10_000).forEach(i -> filter.add("order-" + i));
+
+    assertThat(IntStream.range(0, 10_000).allMatch(i -> filter.mightContain("order-" + i))).isTrue();
+    assertThat(filter.insertions()).isEqualTo(10_000);
+  }
+
+  @Test
+  void falsePositiveRateStaysNearTheConfiguredRate() {
+    BloomFilter filter = BloomFilter.create(10_000, 0.01);
+    IntStream.range(0, 10_000).forEach(i -> filter.add("order-" + i));
+
+    long falsePositives = IntStream.range(0, 100_000).filter(i -> filter.mightContain("other-" + i)).count();
+
+    assertThat(falsePositives / 100_000.0).isLessThan(0.02);
+    assertThat(filter.expectedFpp()).isBetween(0.005, 0.015);
+  }
+
+  @Test
+  void concurrentAddsAreNotLost() throws Exception {
+    BloomFilter filter = BloomFilter.create(40_000, 0.01);
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    for (int t = 0; t < 4; t++) {
+      int thread = t;
+      pool.execute(() -> IntStream.range(0, 10_000).forEach(i -> filter.add(thread + "-" + i)));
+    }
+    pool.shutdown();
+    assertThat(pool.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+    for (int t = 0; t < 4; t++) {
+      int thread = t;
+      assertThat(IntStream.range(0, 10_000).allMatch(i -> filter.mightContain(thread + "-" + i))).isTrue();
+    }
+    assertThat(filter.insertions()).isEqualTo(40_000);
+  }
+}
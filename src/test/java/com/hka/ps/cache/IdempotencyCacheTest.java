@@ -0,0 +1,101 @@
+package com.hka.ps.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.hka.ps.domain.Payment;
+import com.hka.ps.domain.PaymentStatus;
+import com.hka.ps.support.NoOpTransactionManager;
+
+class IdempotencyCacheTest {
+
+  private final IdempotencyCache cache = new IdempotencyCache(new IdempotencyCacheProperties());
+  private final TransactionTemplate tx = new TransactionTemplate(new NoOpTransactionManager());
+
+  @Test
+  void putAfterAConcurrentCaptureDoesNotRestoreTheOldState() throws Exception {
+    CountDownLatch read = new CountDownLatch(1);
+    CountDownLatch captured = new CountDownLatch(1);
+    // Die Authorize-Transaktion hat v0 gelesen und committet erst nach dem Capture.
+    CompletableFuture<Void> authorize = CompletableFuture.runAsync(() -> tx.executeWithoutResult(status -> {
+      cache.put(payment(PaymentStatus.AUTHORIZED, 0));
+      read.countDown();
+      await(captured);
+    }));
+    await(read);
+    tx.executeWithoutResult(status -> {
+      Payment payment = payment(PaymentStatus.CAPTURED, 0);
+      cache.invalidate(payment);
+      payment.setVersion(1L);
+    });
+    captured.countDown();
+    authorize.get(5, TimeUnit.SECONDS);
+
+    assertThat(cache.findByOrderId("A")).isNull();
+    assertThat(cache.findByIdempotencyKey("key-a")).isNull();
+  }
+
+  @Test
+  void newerSnapshotIsKeptOverAnOlderOne() {
+    cache.put(payment(PaymentStatus.CAPTURED, 1));
+    cache.put(payment(PaymentStatus.AUTHORIZED, 0));
+
+    assertThat(cache.findByOrderId("A").getStatus()).isEqualTo(PaymentStatus.CAPTURED);
+    assertThat(cache.findByIdempotencyKey("key-a").getVersion()).isEqualTo(1L);
+  }
+
+  @Test
+  void rolledBackCaptureDoesNotBlockTheCurrentState() {
+    tx.executeWithoutResult(status -> {
+      Payment captured = payment(PaymentStatus.CAPTURED, 1);
+      cache.invalidate(captured);
+      status.setRollbackOnly();
+    });
+    cache.put(payment(PaymentStatus.AUTHORIZED, 0));
+
+    assertThat(cache.findByOrderId("A").getStatus()).isEqualTo(PaymentStatus.AUTHORIZED);
+  }
+
+  @Test
+  void bulkInvalidationRejectsOlderVersions() {
+    cache.put(payment(PaymentStatus.AUTHORIZED, 0));
+    cache.invalidate("A", "key-a", 1);
+    cache.put(payment(PaymentStatus.AUTHORIZED, 0));
+
+    assertThat(cache.findByOrderId("A")).isNull();
+    cache.put(payment(PaymentStatus.CAPTURED, 1));
+    assertThat(cache.findByOrderId("A").getStatus()).isEqualTo(PaymentStatus.CAPTURED);
+  }
+
+  private static Payment payment(PaymentStatus status, long version) {
+    Instant now = Instant.now();
+    Payment p = new Payment();
+    p.setId(1L);
+    p.setOrderId("A");
+    p.setAmountMinor(1000);
+    p.setCurrency("EUR");
+    p.setMethod("CARD");
+    p.setStatus(status);
+    p.setIdempotencyKey("key-a");
+    p.setCreatedAt(now);
+    p.setUpdatedAt(now);
+    p.setVersion(version);
+    return p;
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+}
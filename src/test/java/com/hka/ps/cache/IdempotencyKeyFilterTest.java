@@ -0,0 +1,71 @@
+package com.hka.ps.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.hka.ps.domain.Payment;
+import com.hka.ps.repo.PaymentStore;
+import com.hka.ps.support.NoOpTransactionManager;
+
+class IdempotencyKeyFilterTest {
+
+  private final PaymentStore store = mock(PaymentStore.class);
+  private IdempotencyKeyFilter filter;
+
+  @BeforeEach
+  void setUp() {
+    BloomFilterProperties properties = new BloomFilterProperties();
+    properties.setEnabled(true);
+    properties.setExpectedInsertions(1_000);
+    properties.setRebuildGrace(Duration.ZERO);
+    filter = new IdempotencyKeyFilter(properties, store, new NoOpTransactionManager());
+  }
+
+  @Test
+  void answersMaybeUntilBuilt() {
+    assertThat(filter.isReady()).isFalse();
+    assertThat(filter.mightContainKey("unknown")).isTrue();
+    assertThat(filter.mightContainOrderId("unknown")).isTrue();
+  }
+
+  @Test
+  void knowsAddedPaymentsAfterBuild() {
+    when(store.streamAllKeys()).thenReturn(Stream.empty());
+    filter.rebuild();
+
+    filter.add(payment("A", "key-a"));
+
+    assertThat(filter.mightContainKey("key-a")).isTrue();
+    assertThat(filter.mightContainOrderId("A")).isTrue();
+    assertThat(filter.mightContainOrderId("B")).isFalse();
+  }
+
+  @Test
+  void paymentAddedDuringRebuildEndsUpInTheNewFilter() {
+    when(store.streamAllKeys()).thenReturn(Stream.empty());
+    filter.rebuild();
+    // Das Speichern fällt mitten in den Lauf über die Tabelle, die Zeile selbst ist noch nicht sichtbar.
+    when(store.streamAllKeys()).thenAnswer(invocation -> {
+      filter.add(payment("A", "key-a"));
+      return Stream.empty();
+    });
+    filter.rebuild();
+
+    assertThat(filter.mightContainKey("key-a")).isTrue();
+    assertThat(filter.mightContainOrderId("A")).isTrue();
+  }
+
+  private static Payment payment(String orderId, String key) {
+    Payment p = new Payment();
+    p.setOrderId(orderId);
+    p.setIdempotencyKey(key);
+    return p;
+  }
+}
@@ -0,0 +1,109 @@
+package com.hka.ps.concurrency;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class SingleFlightTest {
+
+  @Test
+  void followersShareTheLeadersResult() throws Exception {
+    SingleFlight<String> flights = new SingleFlight<>(Duration.ofSeconds(5));
+    CountDownLatch leaderEntered = new CountDownLatch(1);
+    CountDownLatch releaseLeader = new CountDownLatch(1);
+    AtomicInteger runs = new AtomicInteger();
+
+    CompletableFuture<SingleFlight.Result<String>> leader = CompletableFuture.supplyAsync(() ->
+        flights.execute(List.of("order:A"), () -> {
+          runs.incrementAndGet();
+          leaderEntered.countDown();
+          await(releaseLeader);
+          return "payment";
+        }));
+    await(leaderEntered);
+    // teilt nur den zweiten Schlüssel und schließt sich trotzdem an
+    CompletableFuture<SingleFlight.Result<String>> follower = CompletableFuture.supplyAsync(() ->
+        flights.execute(Arrays.asList(null, "key:k", "order:A"), () -> {
+          runs.incrementAndGet();
+          return "other";
+        }));
+    while (flights.getFollowers() == 0) {
+      Thread.onSpinWait();
+    }
+    releaseLeader.countDown();
+
+    assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo(new SingleFlight.Result<>("payment", false));
+    assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo(new SingleFlight.Result<>("payment", true));
+    assertThat(runs).hasValue(1);
+    assertThat(flights.size()).isZero();
+  }
+
+  @Test
+  void followersGetTheLeadersException() throws Exception {
+    SingleFlight<String> flights = new SingleFlight<>(Duration.ofSeconds(5));
+    CountDownLatch leaderEntered = new CountDownLatch(1);
+    CountDownLatch releaseLeader = new CountDownLatch(1);
+
+    CompletableFuture<String> leader = CompletableFuture.supplyAsync(() ->
+        flights.execute(List.of("order:A"), () -> {
+          leaderEntered.countDown();
+          await(releaseLeader);
+          throw new IllegalStateException("declined");
+        }).value());
+    await(leaderEntered);
+    CompletableFuture<String> follower = CompletableFuture.supplyAsync(() ->
+        flights.execute(List.of("order:A"), () -> "other").value());
+    while (flights.getFollowers() == 0) {
+      Thread.onSpinWait();
+    }
+    releaseLeader.countDown();
+
+    for (CompletableFuture<String> call : List.of(leader, follower)) {
+      assertThatThrownBy(() -> call.get(5, TimeUnit.SECONDS))
+          .isInstanceOf(ExecutionException.class)
+          .cause().isInstanceOf(IllegalStateException.class).hasMessage("declined");
+    }
+  }
+
+  @Test
+  void followerRunsTheWorkItselfWhenTheLeaderHangs() throws Exception {
+    SingleFlight<String> flights = new SingleFlight<>(Duration.ofMillis(50));
+    CountDownLatch leaderEntered = new CountDownLatch(1);
+    CountDownLatch releaseLeader = new CountDownLatch(1);
+
+    CompletableFuture<SingleFlight.Result<String>> leader = CompletableFuture.supplyAsync(() ->
+        flights.execute(List.of("order:A"), () -> {
+          leaderEntered.countDown();
+          await(releaseLeader);
+          return "payment";
+        }));
+    await(leaderEntered);
+    try {
+      assertThat(flights.execute(List.of("order:A"), () -> "own"))
+          .isEqualTo(new SingleFlight.Result<>("own", false));
+      assertThat(flights.getTimeouts()).isEqualTo(1);
+    } finally {
+      releaseLeader.countDown();
+    }
+    assertThat(leader.get(5, TimeUnit.SECONDS).value()).isEqualTo("payment");
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,122 @@
+package com.hka.ps.concurrency;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import com.hka.ps.support.NoOpTransactionManager;
+
+class TransitionGuardTest {
+
+  @Test
+  void versionConflictsAreRetriedWithFreshState() {
+    TransitionGuard guard = guard(properties(Duration.ofSeconds(2)));
+    AtomicInteger attempts = new AtomicInteger();
+
+    String result = guard.execute("A", () -> {
+      if (attempts.incrementAndGet() < 3) {
+        throw new OptimisticLockingFailureException("stale version");
+      }
+      return "captured";
+    });
+
+    assertThat(result).isEqualTo("captured");
+    assertThat(attempts).hasValue(3);
+    assertThat(guard.getConflicts()).isEqualTo(2);
+    assertThat(guard.getRetries()).isEqualTo(2);
+    assertThat(guard.getExhausted()).isZero();
+  }
+
+  @Test
+  void exhaustedRetriesBecomeAConcurrentUpdate() {
+    TransitionGuard guard = guard(properties(Duration.ofSeconds(2)));
+    AtomicInteger attempts = new AtomicInteger();
+
+    assertThatThrownBy(() -> guard.execute("A", () -> {
+      attempts.incrementAndGet();
+      throw new OptimisticLockingFailureException("stale version");
+    })).isInstanceOf(ConcurrentUpdateException.class);
+
+    assertThat(attempts).hasValue(4);
+    assertThat(guard.getConflicts()).isEqualTo(4);
+    assertThat(guard.getRetries()).isEqualTo(3);
+    assertThat(guard.getExhausted()).isEqualTo(1);
+  }
+
+  @Test
+  void transitionsOfTheSameOrderRunOneAfterAnother() throws Exception {
+    TransitionGuard guard = guard(properties(Duration.ofSeconds(5)));
+    CountDownLatch firstEntered = new CountDownLatch(1);
+    CountDownLatch releaseFirst = new CountDownLatch(1);
+    CountDownLatch secondEntered = new CountDownLatch(1);
+
+    CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> guard.execute("A", () -> {
+      firstEntered.countDown();
+      await(releaseFirst);
+      return "first";
+    }));
+    await(firstEntered);
+    CompletableFuture<String> second = CompletableFuture.supplyAsync(() -> guard.execute("A", () -> {
+      secondEntered.countDown();
+      return "second";
+    }));
+
+    assertThat(secondEntered.await(200, TimeUnit.MILLISECONDS)).isFalse();
+    releaseFirst.countDown();
+    assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("first");
+    assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("second");
+    assertThat(guard.getLockTimeouts()).isZero();
+  }
+
+  @Test
+  void lockTimeoutLetsTheTransitionProceedWithoutTheLock() throws Exception {
+    TransitionGuard guard = guard(properties(Duration.ofMillis(50)));
+    CountDownLatch firstEntered = new CountDownLatch(1);
+    CountDownLatch releaseFirst = new CountDownLatch(1);
+
+    CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> guard.execute("A", () -> {
+      firstEntered.countDown();
+      await(releaseFirst);
+      return "first";
+    }));
+    await(firstEntered);
+    try {
+      // läuft nach der Lock-Wartezeit trotzdem, die @Version-Prüfung bleibt die eigentliche Absicherung
+      assertThat(CompletableFuture.supplyAsync(() -> guard.execute("A", () -> "second"))
+          .get(5, TimeUnit.SECONDS)).isEqualTo("second");
+      assertThat(guard.getLockTimeouts()).isEqualTo(1);
+    } finally {
+      releaseFirst.countDown();
+    }
+    assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("first");
+  }
+
+  private static TransitionGuard guard(ConcurrencyProperties properties) {
+    return new TransitionGuard(properties, new NoOpTransactionManager());
+  }
+
+  private static ConcurrencyProperties properties(Duration lockTimeout) {
+    ConcurrencyProperties properties = new ConcurrencyProperties();
+    properties.setMaxRetries(3);
+    properties.setRetryBackoff(Duration.ZERO);
+    properties.setLockTimeout(lockTimeout);
+    return properties;
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+}
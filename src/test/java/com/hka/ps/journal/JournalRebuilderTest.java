@@ -0,0 +1,152 @@
+package com.hka.ps.journal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.util.unit.DataSize;
+
+import com.hka.ps.domain.Payment;
+import com.hka.ps.domain.PaymentStatus;
+
+class JournalRebuilderTest {
+
+  private static final Instant T1 = Instant.parse("2026-01-05T10:00:00.123456Z");
+  private static final Instant T2 = Instant.parse("2026-01-06T09:30:00.654321Z");
+
+  @TempDir
+  Path directory;
+
+  private JournalProperties properties;
+  private NamedParameterJdbcTemplate jdbc;
+  private JournalRebuilder rebuilder;
+
+  @BeforeEach
+  void setUp() {
+    properties = new JournalProperties();
+    properties.setEnabled(true);
+    properties.setDirectory(directory);
+    properties.setSegmentSize(DataSize.ofMegabytes(1));
+    properties.setFsync(false);
+    DriverManagerDataSource dataSource = new DriverManagerDataSource(
+        "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+    jdbc = new NamedParameterJdbcTemplate(dataSource);
+    jdbc.getJdbcOperations().execute("create sequence payment_seq start with 1 increment by 50");
+    jdbc.getJdbcOperations().execute("create table payments (id bigint primary key,"
+        + " order_id varchar(64) not null unique, amount_minor bigint not null, currency varchar(3) not null,"
+        + " method varchar(32) not null, status varchar(32) not null, created_at timestamp(6) with time zone,"
+        + " updated_at timestamp(6) with time zone, idempotency_key varchar(128) unique, version bigint)");
+    rebuilder = new JournalRebuilder(properties, jdbc, new DataSourceTransactionManager(dataSource));
+  }
+
+  @Test
+  void paymentsSharingAnIdAfterARestartAreRestoredSeparately() {
+    // Vor dem Neustart: A und B; danach vergibt die frische H2 die ID 1 noch einmal, an C.
+    journal(payment(1, "A", "key-a", PaymentStatus.AUTHORIZED, T1, 0),
+        payment(1, "A", "key-a", PaymentStatus.CAPTURED, T1, 1),
+        payment(2, "B", "key-b", PaymentStatus.AUTHORIZED, T1, 0),
+        payment(1, "C", "key-c", PaymentStatus.AUTHORIZED, T2, 0));
+
+    JournalRebuilder.Result result = rebuilder.rebuild();
+
+    assertThat(result.payments()).isEqualTo(3);
+    assertThat(result.inserted()).isEqualTo(3);
+    assertThat(statuses()).containsExactlyInAnyOrderEntriesOf(Map.of(
+        "A", "CAPTURED", "B", "AUTHORIZED", "C", "AUTHORIZED"));
+    assertThat(jdbc.getJdbcOperations().queryForList("select id from payments", Long.class))
+        .doesNotHaveDuplicates();
+    Long next = jdbc.getJdbcOperations().queryForObject("select next value for payment_seq", Long.class);
+    assertThat(next).isGreaterThan(3);
+  }
+
+  @Test
+  void orderIdAuthorizedAgainAfterARestartKeepsTheNewerPayment() {
+    journal(payment(1, "A", "key-a", PaymentStatus.AUTHORIZED, T1, 0),
+        payment(1, "A", "key-a", PaymentStatus.CAPTURED, T1, 1),
+        payment(1, "A", "key-a", PaymentStatus.AUTHORIZED, T2, 0));
+
+    rebuilder.rebuild();
+
+    Map<String, Object> row = jdbc.getJdbcOperations().queryForMap(
+        "select status, created_at, version from payments where order_id = 'A'");
+    assertThat(row.get("STATUS")).isEqualTo("AUTHORIZED");
+    assertThat(((OffsetDateTime) row.get("CREATED_AT")).toInstant()).isEqualTo(T2);
+    assertThat(row.get("VERSION")).isEqualTo(0L);
+  }
+
+  @Test
+  void existingRowsAreUpdatedOnlyForTheSamePayment() {
+    insertRow(7, "A", "key-a", "AUTHORIZED", T1, 0);
+    insertRow(8, "B", "key-b", "AUTHORIZED", T2, 0);
+    journal(payment(1, "A", "key-a", PaymentStatus.CAPTURED, T1, 1),
+        payment(2, "B", "key-x", PaymentStatus.REFUNDED, T1, 2),
+        payment(3, "D", "key-b", PaymentStatus.AUTHORIZED, T1, 0));
+
+    JournalRebuilder.Result result = rebuilder.rebuild();
+
+    assertThat(result.updated()).isEqualTo(1);
+    assertThat(result.skipped()).isEqualTo(1);
+    assertThat(result.inserted()).isEqualTo(1);
+    assertThat(statuses()).containsExactlyInAnyOrderEntriesOf(Map.of(
+        "A", "CAPTURED", "B", "AUTHORIZED", "D", "AUTHORIZED"));
+    // key-b gehört in der Datenbank schon B, D wird ohne Key wiederhergestellt.
+    assertThat(jdbc.getJdbcOperations().queryForObject(
+        "select idempotency_key from payments where order_id = 'D'", String.class)).isNull();
+    assertThat(jdbc.getJdbcOperations().queryForObject(
+        "select id from payments where order_id = 'D'", Long.class)).isEqualTo(9L);
+  }
+
+  private void journal(Payment... payments) {
+    PaymentJournal journal = new PaymentJournal(properties, false);
+    journal.start();
+    journal.recordAll(List.of(payments));
+    journal.stop();
+    assertThat(journal.getAppended()).isEqualTo(payments.length);
+  }
+
+  private Map<String, String> statuses() {
+    return jdbc.getJdbcOperations().query("select order_id, status from payments", rs -> {
+      Map<String, String> statuses = new HashMap<>();
+      while (rs.next()) {
+        statuses.put(rs.getString(1), rs.getString(2));
+      }
+      return statuses;
+    });
+  }
+
+  private void insertRow(long id, String orderId, String key, String status, Instant createdAt, long version) {
+    jdbc.update("insert into payments (id, order_id, amount_minor, currency, method, status, created_at, updated_at,"
+        + " idempotency_key, version) values (:id, :orderId, 1000, 'EUR', 'CARD', :status, :createdAt, :createdAt,"
+        + " :key, :version)", Map.of("id", id, "orderId", orderId, "status", status,
+        "createdAt", createdAt.atOffset(ZoneOffset.UTC), "key", key, "version", version));
+  }
+
+  private static Payment payment(long id, String orderId, String key, PaymentStatus status, Instant createdAt,
+      long version) {
+    Payment p = new Payment();
+    p.setId(id);
+    p.setOrderId(orderId);
+    p.setAmountMinor(1000);
+    p.setCurrency("EUR");
+    p.setMethod("CARD");
+    p.setStatus(status);
+    p.setIdempotencyKey(key);
+    p.setCreatedAt(createdAt);
+    p.setUpdatedAt(createdAt.plusSeconds(version));
+    p.setVersion(version);
+    return p;
+  }
+}
@@ -0,0 +1,51 @@
+package com.hka.ps.publisher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.hka.ps.publisher.PublisherProperties.OverflowPolicy;
+
+class LogRingBufferTest {
+
+  private static final long BLOCK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+  @Test
+  void blockGivesUpAfterTheTimeoutWhenNobodyDrains() {
+    LogRingBuffer buffer = new LogRingBuffer(1);
+    assertThat(offer(buffer, OverflowPolicy.BLOCK, "A")).isZero();
+
+    long started = System.nanoTime();
+    int dropped = offer(buffer, OverflowPolicy.BLOCK, "B");
+
+    assertThat(dropped).isEqualTo(1);
+    assertThat(System.nanoTime() - started).isGreaterThanOrEqualTo(BLOCK_NANOS);
+    assertThat(buffer.size()).isEqualTo(1);
+  }
+
+  @Test
+  void dropOldestKeepsTheNewestEvents() throws InterruptedException {
+    LogRingBuffer buffer = new LogRingBuffer(2);
+    offer(buffer, OverflowPolicy.DROP_OLDEST, "A");
+    offer(buffer, OverflowPolicy.DROP_OLDEST, "B");
+    assertThat(offer(buffer, OverflowPolicy.DROP_OLDEST, "C")).isEqualTo(1);
+
+    LogEvent[] spare = {new LogEvent(), new LogEvent()};
+    assertThat(buffer.drainTo(spare, 0, TimeUnit.NANOSECONDS)).isEqualTo(2);
+    assertThat(render(spare[0])).endsWith("B");
+    assertThat(render(spare[1])).endsWith("C");
+  }
+
+  private static String render(LogEvent event) {
+    StringBuilder line = new StringBuilder();
+    new LogEventRenderer(LogEventRenderer.Format.TEXT).render(event, line);
+    return line.toString();
+  }
+
+  private static int offer(LogRingBuffer buffer, OverflowPolicy policy, String orderId) {
+    return buffer.offer(policy, BLOCK_NANOS, LogEventType.MESSAGE, 0L, orderId, null, 0, null, null, null, orderId,
+        null);
+  }
+}
@@ -0,0 +1,18 @@
+package com.hka.ps.publisher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+class PsPublisherTest {
+
+  @Test
+  void utf8LengthMatchesTheEncodedSize() {
+    for (String text : new String[] {"", "orderId= A1", "Grüße", "Betrag 10 €", "Zahlung 💳 ok"}) {
+      assertThat(PsPublisher.utf8Length(text)).as(text)
+          .isEqualTo(text.getBytes(StandardCharsets.UTF_8).length);
+    }
+  }
+}
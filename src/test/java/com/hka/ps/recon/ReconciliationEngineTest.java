@@ -0,0 +1,93 @@
+package com.hka.ps.recon;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.hka.ps.domain.Payment;
+import com.hka.ps.domain.PaymentStatus;
+import com.hka.ps.repo.PaymentStore;
+
+@DataJpaTest
+@Import(ReconciliationEngine.class)
+@EnableConfigurationProperties(ReconProperties.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReconciliationEngineTest {
+
+  @Autowired
+  ReconciliationEngine engine;
+  @Autowired
+  ReconCheckpointRepository checkpoints;
+  @Autowired
+  PaymentStore payments;
+  @Autowired
+  PlatformTransactionManager transactionManager;
+
+  @Test
+  void runIsRejectedWhileAnotherTransactionHoldsTheCheckpoint() throws Exception {
+    engine.reconcile();
+    CountDownLatch locked = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    // Steht für einen Lauf auf einer anderen Instanz: das In-Process-Flag des Engines ist dabei frei.
+    CompletableFuture<Void> other = CompletableFuture.runAsync(() -> new TransactionTemplate(transactionManager)
+        .executeWithoutResult(status -> {
+          assertThat(checkpoints.lockByName(ReconciliationEngine.CHECKPOINT)).isPresent();
+          locked.countDown();
+          await(release);
+        }));
+    await(locked);
+
+    assertThatThrownBy(engine::reconcile)
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("another instance");
+
+    release.countDown();
+    other.get(5, TimeUnit.SECONDS);
+  }
+
+  @Test
+  void runAfterTheLockIsReleasedPicksUpNewPayments() {
+    engine.reconcile();
+    Instant now = Instant.now();
+    Payment payment = new Payment();
+    payment.setOrderId("R-" + System.nanoTime());
+    payment.setAmountMinor(1000);
+    payment.setCurrency("EUR");
+    payment.setMethod("CARD");
+    payment.setStatus(PaymentStatus.AUTHORIZED);
+    payment.setCreatedAt(now);
+    payment.setUpdatedAt(now);
+    payments.save(payment);
+
+    ReconRun run = engine.reconcile();
+
+    assertThat(run.changed()).isEqualTo(1);
+    assertThat(checkpoints.findById(ReconciliationEngine.CHECKPOINT).orElseThrow().getWatermark())
+        .isCloseTo(run.watermark(), within(1, ChronoUnit.MICROS));
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,59 @@
+package com.hka.ps.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+
+import com.hka.ps.api.dto.AuthorizeRequest;
+import com.hka.ps.domain.Money;
+
+class PaymentValidatorTest {
+
+  @Test
+  void acceptsAmountsUpToTheLargestMinorUnitValue() {
+    BigDecimal max = BigDecimal.valueOf(Long.MAX_VALUE, 2);
+
+    assertThat(PaymentValidator.AUTHORIZE.validate(request(max, "EUR"))).isNull();
+    assertThat(Money.of(max, "EUR").minor()).isEqualTo(Long.MAX_VALUE);
+  }
+
+  @Test
+  void rejectsAmountsThatOverflowInsteadOfThrowing() {
+    assertThat(PaymentValidator.AUTHORIZE.validate(request(new BigDecimal("1e20"), "EUR")))
+        .isEqualTo(Violation.AMOUNT_RANGE);
+    assertThat(PaymentValidator.AUTHORIZE.validate(request(BigDecimal.valueOf(Long.MAX_VALUE, 2).add(
+        new BigDecimal("0.01")), "EUR"))).isEqualTo(Violation.AMOUNT_RANGE);
+    assertThat(PaymentValidator.AUTHORIZE.validate(request(BigDecimal.valueOf(Long.MAX_VALUE, 2).add(BigDecimal.ONE),
+        "JPY"))).isEqualTo(Violation.AMOUNT_RANGE);
+  }
+
+  @Test
+  void roundsExtraFractionDigitsHalfUpForEveryCurrency() {
+    for (String amount : new String[] {"10.555", "15.5", "0.001"}) {
+      for (String currency : new String[] {"EUR", "JPY", "XAU", "KWD"}) {
+        assertThat(PaymentValidator.AUTHORIZE.validate(request(new BigDecimal(amount), currency))).isNull();
+      }
+    }
+    assertThat(Money.of(new BigDecimal("10.555"), "EUR").toBigDecimal()).isEqualByComparingTo("10.56");
+    assertThat(Money.of(new BigDecimal("10.554"), "EUR").minor()).isEqualTo(1055);
+    assertThat(Money.of(new BigDecimal("15.5"), "JPY").toBigDecimal()).hasToString("15.50");
+    assertThat(Money.of(new BigDecimal("1500"), "JPY").toBigDecimal()).hasToString("1500.00");
+    // rundet erst über die Grenze
+    assertThat(PaymentValidator.AUTHORIZE.validate(request(BigDecimal.valueOf(Long.MAX_VALUE, 2).add(
+        new BigDecimal("0.005")), "EUR"))).isEqualTo(Violation.AMOUNT_RANGE);
+  }
+
+  @Test
+  void reportsTheFirstViolation() {
+    assertThat(PaymentValidator.AUTHORIZE.validate(request(new BigDecimal("10.5"), "EURO")))
+        .isEqualTo(Violation.CURRENCY_NOT_ISO);
+    assertThat(PaymentValidator.AUTHORIZE.validate(request(BigDecimal.ZERO, null)))
+        .isEqualTo(Violation.AMOUNT_NOT_POSITIVE);
+  }
+
+  private static AuthorizeRequest request(BigDecimal amount, String currency) {
+    return new AuthorizeRequest("A", amount, currency, "CARD");
+  }
+}
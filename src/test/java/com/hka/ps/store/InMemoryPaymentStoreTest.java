@@ -0,0 +1,191 @@
+package com.hka.ps.store;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.hka.ps.domain.Payment;
+import com.hka.ps.domain.PaymentStatus;
+import com.hka.ps.journal.JournalProperties;
+import com.hka.ps.journal.PaymentJournal;
+import com.hka.ps.support.NoOpTransactionManager;
+
+class InMemoryPaymentStoreTest {
+
+  @TempDir
+  Path directory;
+
+  private InMemoryPaymentStore store;
+  private final TransactionTemplate tx = new TransactionTemplate(new NoOpTransactionManager());
+
+  @BeforeEach
+  void setUp() {
+    StoreProperties properties = new StoreProperties();
+    properties.setDirectory(directory);
+    properties.setRecoverOnStart(false);
+    properties.setSnapshotOnShutdown(false);
+    properties.setLockTimeout(Duration.ofMillis(300));
+    JournalProperties journal = new JournalProperties();
+    journal.setEnabled(false);
+    store = new InMemoryPaymentStore(properties, journal, new PaymentJournal(journal, false));
+    store.start();
+  }
+
+  @AfterEach
+  void tearDown() {
+    store.stop();
+  }
+
+  @Test
+  void uncommittedInsertIsVisibleOnlyToItsOwnTransaction() throws Exception {
+    CountDownLatch written = new CountDownLatch(1);
+    CountDownLatch checked = new CountDownLatch(1);
+    CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> tx.executeWithoutResult(status -> {
+      store.save(payment("A", "key-a"));
+      assertThat(store.findByOrderId("A")).isPresent();
+      assertThat(store.findByIdempotencyKey("key-a")).isPresent();
+      written.countDown();
+      await(checked);
+    }));
+
+    await(written);
+    assertThat(store.findByOrderId("A")).isEmpty();
+    assertThat(store.findByIdempotencyKey("key-a")).isEmpty();
+    assertThat(store.count()).isZero();
+    checked.countDown();
+    writer.get(5, TimeUnit.SECONDS);
+
+    assertThat(store.findByOrderId("A")).get().extracting(Payment::getStatus).isEqualTo(PaymentStatus.AUTHORIZED);
+    assertThat(store.findByIdempotencyKey("key-a")).isPresent();
+  }
+
+  @Test
+  void rollbackLeavesNoTraceInMapsOrSnapshot() throws Exception {
+    store.save(payment("A", null));
+    tx.executeWithoutResult(status -> {
+      Payment a = store.findByOrderId("A").orElseThrow();
+      a.setStatus(PaymentStatus.CAPTURED);
+      store.save(a);
+      store.save(payment("B", "key-b"));
+      status.setRollbackOnly();
+    });
+
+    assertThat(store.findByOrderId("A")).get().extracting(Payment::getStatus).isEqualTo(PaymentStatus.AUTHORIZED);
+    assertThat(store.findByOrderId("B")).isEmpty();
+    assertThat(store.findByIdempotencyKey("key-b")).isEmpty();
+
+    store.snapshot();
+    List<StoredPayment> snapshot = StoreSnapshot.read(directory).payments();
+    assertThat(snapshot).extracting(p -> p.orderId).containsExactly("A");
+    assertThat(snapshot.get(0).status).isEqualTo(PaymentStatus.AUTHORIZED);
+  }
+
+  @Test
+  void concurrentWriterWaitsAndThenSeesVersionConflict() throws Exception {
+    store.save(payment("A", null));
+    CountDownLatch written = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    CompletableFuture<Void> first = CompletableFuture.runAsync(() -> tx.executeWithoutResult(status -> {
+      Payment a = store.findByOrderId("A").orElseThrow();
+      a.setStatus(PaymentStatus.CAPTURED);
+      store.save(a);
+      written.countDown();
+      await(release);
+    }));
+    await(written);
+
+    Payment stale = store.findByOrderId("A").orElseThrow();
+    stale.setStatus(PaymentStatus.REFUNDED);
+    CompletableFuture<Void> second = CompletableFuture.runAsync(() -> tx.executeWithoutResult(status ->
+        store.save(stale)));
+    Thread.sleep(50);
+    assertThat(second).isNotDone();
+    release.countDown();
+    first.get(5, TimeUnit.SECONDS);
+
+    assertThatThrownBy(() -> second.get(5, TimeUnit.SECONDS))
+        .hasCauseInstanceOf(ObjectOptimisticLockingFailureException.class);
+    assertThat(store.findByOrderId("A")).get().extracting(Payment::getStatus).isEqualTo(PaymentStatus.CAPTURED);
+  }
+
+  @Test
+  void writerGivesUpAfterLockTimeout() throws Exception {
+    store.save(payment("A", null));
+    CountDownLatch written = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    CompletableFuture<Void> first = CompletableFuture.runAsync(() -> tx.executeWithoutResult(status -> {
+      store.transition(List.of("A"), List.of(PaymentStatus.AUTHORIZED), PaymentStatus.CAPTURED, Instant.now());
+      written.countDown();
+      await(release);
+    }));
+    await(written);
+
+    assertThatThrownBy(() -> tx.executeWithoutResult(status ->
+        store.transition(List.of("A"), List.of(PaymentStatus.AUTHORIZED), PaymentStatus.REFUNDED, Instant.now())))
+        .isInstanceOf(CannotAcquireLockException.class);
+    release.countDown();
+    first.get(5, TimeUnit.SECONDS);
+    assertThat(store.findByOrderId("A")).get().extracting(Payment::getStatus).isEqualTo(PaymentStatus.CAPTURED);
+  }
+
+  @Test
+  void duplicateInsertFailsOnceTheFirstCommits() throws Exception {
+    CountDownLatch written = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    CompletableFuture<Void> first = CompletableFuture.runAsync(() -> tx.executeWithoutResult(status -> {
+      store.save(payment("A", "key"));
+      written.countDown();
+      await(release);
+    }));
+    await(written);
+
+    CompletableFuture<Void> second = CompletableFuture.runAsync(() -> tx.executeWithoutResult(status ->
+        store.save(payment("B", "key"))));
+    release.countDown();
+    first.get(5, TimeUnit.SECONDS);
+
+    assertThatThrownBy(() -> second.get(5, TimeUnit.SECONDS))
+        .hasCauseInstanceOf(DataIntegrityViolationException.class);
+    assertThat(store.findByIdempotencyKey("key")).get().extracting(Payment::getOrderId).isEqualTo("A");
+    assertThat(store.findByOrderId("B")).isEmpty();
+  }
+
+  private static Payment payment(String orderId, String key) {
+    Instant now = Instant.now();
+    Payment p = new Payment();
+    p.setOrderId(orderId);
+    p.setAmountMinor(1000);
+    p.setCurrency("EUR");
+    p.setMethod("CARD");
+    p.setStatus(PaymentStatus.AUTHORIZED);
+    p.setIdempotencyKey(key);
+    p.setCreatedAt(now);
+    p.setUpdatedAt(now);
+    return p;
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+}
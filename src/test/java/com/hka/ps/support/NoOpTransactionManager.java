@@ -0,0 +1,26 @@
+package com.hka.ps.support;
+
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+/** Transaktionsmanager ohne Ressource: treibt nur die Synchronisationen (afterCommit, afterCompletion). */
+public class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+
+  @Override
+  protected Object doGetTransaction() {
+    return new Object();
+  }
+
+  @Override
+  protected void doBegin(Object transaction, TransactionDefinition definition) {
+  }
+
+  @Override
+  protected void doCommit(DefaultTransactionStatus status) {
+  }
+
+  @Override
+  protected void doRollback(DefaultTransactionStatus status) {
+  }
+}